@@ -1,5 +1,6 @@
 package bricker.brick_strategies;
 
+import bricker.engine.ParticlePool;
 import bricker.gameobjects.Heart;
 import danogl.GameObject;
 import danogl.collisions.GameObjectCollection;
@@ -26,6 +27,7 @@ public class AddLifeCollisionStrategy implements CollisionStrategy{
     private boolean isRequiredToCheckCollision;
     private boolean wasBrickHit = false;
     private Counter brickCounter;
+    private final ParticlePool particles;
 
     /**
      * Construct a new AddLifeCollisionStrategy instance.
@@ -40,11 +42,13 @@ public class AddLifeCollisionStrategy implements CollisionStrategy{
      *                         the GameObject will not be rendered.
      * @param strikesCounter The counter representing the number of strikes.
      * @param isRequiredToCheckCollision True if the collision should be checked, false otherwise.
+     * @param particles The particles a heart bursts into when it is picked up.
      */
     public AddLifeCollisionStrategy(GameObjectCollection gameObjects, Counter brickCounter,
                                     Vector2 widgetTopLeftCorner, Vector2 widgetDimensions,
                                     Counter livesCounter, Renderable widgetRenderable,
-                                    Counter strikesCounter, boolean isRequiredToCheckCollision) {
+                                    Counter strikesCounter, boolean isRequiredToCheckCollision,
+                                    ParticlePool particles) {
         this.gameObjects = gameObjects;
         this.livesCounter = livesCounter;
         this.widgetTopLeftCorner = widgetTopLeftCorner;
@@ -53,6 +57,7 @@ public class AddLifeCollisionStrategy implements CollisionStrategy{
         this.strikesCounter = strikesCounter;
         this.isRequiredToCheckCollision = isRequiredToCheckCollision;
         this.brickCounter = brickCounter;
+        this.particles = particles;
     }
 
     /**
@@ -69,8 +74,8 @@ public class AddLifeCollisionStrategy implements CollisionStrategy{
         }
         Vector2 position = current.getCenter();
         Heart heart = new Heart(widgetTopLeftCorner, widgetDimensions, widgetRenderable,
-                livesCounter,gameObjects,strikesCounter);
-        heart.setCenter(position);
+                livesCounter,gameObjects,strikesCounter, particles);
+        heart.setTopLeftCorner(position.subtract(widgetDimensions.mult(0.5f)));
         heart.setVelocity(new Vector2(INITIAL_SPEED_X, INITIAL_SPEED_Y));
         gameObjects.addGameObject(heart);
     }
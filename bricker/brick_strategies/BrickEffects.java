@@ -0,0 +1,105 @@
+package bricker.brick_strategies;
+
+import bricker.engine.ParticlePool;
+import danogl.GameObject;
+import danogl.collisions.GameObjectCollection;
+import danogl.collisions.Layer;
+import danogl.util.Counter;
+import danogl.util.Vector2;
+
+/**
+ * The effects that {@link EffectProgram}s run, shared by every brick of a level. Each effect is a
+ * strategy created without the responsibility of removing the brick, which the program does once
+ * with {@link #removeBrick}.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+final class BrickEffects {
+
+    private static final int BREAK_PARTICLES = 64;
+    private static final float BREAK_PARTICLE_SPEED = 220;
+    private static final int BREAK_PARTICLE_COLOR = 0xFFB04A;
+    private final GameObjectCollection gameObjects;
+    private final Counter brickCounter;
+    private final ExtraBallsCollisionStrategy extraBalls;
+    private final ExtraPaddleCollisionStrategy extraPaddle;
+    private final AddLifeCollisionStrategy addLife;
+    private final ChangingCameraCollisionStrategy changingCamera;
+    private final ParticlePool particles;
+
+    /**
+     * Construct a new BrickEffects instance.
+     *
+     * @param gameObjects    The collection of GameObjects in the game.
+     * @param brickCounter   The counter representing the number of bricks in the game.
+     * @param extraBalls     The strategy that spawns pucks.
+     * @param extraPaddle    The strategy that spawns the extra paddle.
+     * @param addLife        The strategy that drops a heart.
+     * @param changingCamera The strategy that switches the camera.
+     * @param particles      The particles to burst where a brick breaks.
+     */
+    BrickEffects(GameObjectCollection gameObjects, Counter brickCounter,
+                 ExtraBallsCollisionStrategy extraBalls, ExtraPaddleCollisionStrategy extraPaddle,
+                 AddLifeCollisionStrategy addLife, ChangingCameraCollisionStrategy changingCamera,
+                 ParticlePool particles) {
+        this.gameObjects = gameObjects;
+        this.brickCounter = brickCounter;
+        this.extraBalls = extraBalls;
+        this.extraPaddle = extraPaddle;
+        this.addLife = addLife;
+        this.changingCamera = changingCamera;
+        this.particles = particles;
+    }
+
+    /**
+     * Removes a brick from the game, decrements the brick counter and bursts particles from the brick.
+     *
+     * @param brick The brick.
+     */
+    void removeBrick(GameObject brick) {
+        gameObjects.removeGameObject(brick, Layer.STATIC_OBJECTS);
+        brickCounter.decrement();
+        Vector2 center = brick.getCenter();
+        particles.emit(center.x(), center.y(), BREAK_PARTICLES, BREAK_PARTICLE_SPEED, BREAK_PARTICLE_COLOR);
+    }
+
+    /**
+     * Spawns two pucks at a brick.
+     *
+     * @param brick The brick.
+     * @param other The object that hit the brick.
+     */
+    void spawnPucks(GameObject brick, GameObject other) {
+        extraBalls.onCollision(brick, other);
+    }
+
+    /**
+     * Spawns the extra paddle, if it is not already in the game.
+     *
+     * @param brick The brick.
+     * @param other The object that hit the brick.
+     */
+    void spawnPaddle(GameObject brick, GameObject other) {
+        extraPaddle.onCollision(brick, other);
+    }
+
+    /**
+     * Drops a heart from a brick.
+     *
+     * @param brick The brick.
+     * @param other The object that hit the brick.
+     */
+    void dropHeart(GameObject brick, GameObject other) {
+        addLife.onCollision(brick, other);
+    }
+
+    /**
+     * Makes the camera follow the original ball, if it hit the brick and no camera is set.
+     *
+     * @param brick The brick.
+     * @param other The object that hit the brick.
+     */
+    void switchCamera(GameObject brick, GameObject other) {
+        changingCamera.onCollision(brick, other);
+    }
+}
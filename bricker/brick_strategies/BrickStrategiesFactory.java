@@ -7,6 +7,9 @@ import danogl.gui.*;
 import danogl.gui.rendering.Renderable;
 import danogl.util.Counter;
 import danogl.util.Vector2;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Random;
 
 /**
@@ -19,112 +22,131 @@ public class BrickStrategiesFactory {
     private static final String BALL_COLLISION_SOUND_PATH = "assets/blop_cut_silenced.wav";
     private static final String PADDLE_IMAGE_PATH = "assets/paddle.png";
     private static final String MOCK_BALL_IMAGE_PATH = "assets/mockBall.png";
+    private static final byte TYPE_BASIC = 0;
+    private static final byte TYPE_ADD_LIFE = 1;
+    private static final byte TYPE_EXTRA_BALLS = 2;
+    private static final byte TYPE_EXTRA_PADDLE = 3;
+    private static final byte TYPE_CHANGING_CAMERA = 4;
+    private static final byte TYPE_DOUBLE_BEHAVIOR = 5;
+    private static final int INITIAL_PROGRAM_CAPACITY = 8;
     private final BrickerGameManager brickerGameManager;
     private WindowController windowController;
     private Ball ball;
     private final Counter brickCounter;
     private Random rand;
     private GameObjectCollection gameObjects;
-    private ImageReader imageReader;
-    private SoundReader soundReader;
+    private final BrickEffects effects;
+    private byte[] ops = new byte[INITIAL_PROGRAM_CAPACITY];
+    private int opCount;
 
     /**
-     * Constructor for the factory.
+     * Constructor for the factory. The effects of every behavior are created once, and shared by
+     * the effect programs of all the bricks.
      * @param brickerGameManager the game manager
      */
     public BrickStrategiesFactory(BrickerGameManager brickerGameManager){
-        this.rand = new Random();
+        this.rand = brickerGameManager.getRandom();
         this.brickerGameManager = brickerGameManager;
         this.windowController = brickerGameManager.getWindowController();
         this.ball = brickerGameManager.getBall();
         this.brickCounter = brickerGameManager.getBrickCounter();
         this.gameObjects = brickerGameManager.getGameObjects();
-        this.imageReader = brickerGameManager.getImageReader();
-        this.soundReader = brickerGameManager.getSoundReader();
+        this.effects = new BrickEffects(gameObjects, brickCounter, createExtraBallsCollisionStrategy(false),
+                createExtraPaddleCollisionStrategy(false), createAddLifeCollisionStrategy(false),
+                createChangingCameraCollisionStrategy(false), brickerGameManager.getParticles());
     }
 
     /**
-     * Selects a collision strategy for a brick.
+     * Selects the behavior of a brick and compiles it into an effect program.
      * @return the strategy
      */
     public CollisionStrategy selectStrategyForBrick() {
-        CollisionStrategy strategy;
-        float chance = rand.nextFloat();
+        return selectStrategyForBrick(rand);
+    }
 
-        if (chance < 0.5) { // Normal behavior with 1/2 probability
-            strategy = new BasicCollisionStrategy(gameObjects, brickCounter,true);
+    /**
+     * Selects the behavior of a brick with the given random generator and compiles it into an effect
+     * program. Safe to call from a thread that builds a level in the background.
+     * @param random the random generator to select with
+     * @return the strategy
+     */
+    public synchronized CollisionStrategy selectStrategyForBrick(Random random) {
+        opCount = 0;
+        appendOp(EffectProgram.OP_REMOVE);
+        float chance = random.nextFloat();
 
-        } else { // Special behaviors including double behavior
-            strategy = selectSpecialStrategy(false, true,true);
+        if (chance >= 0.5) { // Special behaviors with 1/2 probability, normal behavior otherwise
+            appendSpecialEffects(random, false, true);
         }
 
-        return strategy;
+        return new EffectProgram(Arrays.copyOf(ops, opCount), effects);
     }
 
 
     /**
-     * Selects a special collision strategy for a brick.
+     * Selects a special behavior for a brick and appends its effects to the program being compiled.
+     * A double behavior appends the effects of both its behaviors, in order.
+     * @param random the random generator to select with
      * @param includeDoubleBehavior whether to include double behavior
-     * @param isRequiredToCheckCollision whether this strategy is responsible for checking collision
      * @param allowSecondDoubleBehavior whether to allow another double behavior
-     * @return the strategy
      */
-    private CollisionStrategy selectSpecialStrategy(boolean includeDoubleBehavior,
-                                                    boolean isRequiredToCheckCollision,
-                                                    boolean allowSecondDoubleBehavior) {
-        float chance = rand.nextFloat();
+    private void appendSpecialEffects(Random random, boolean includeDoubleBehavior,
+                                      boolean allowSecondDoubleBehavior) {
+        float chance = random.nextFloat();
         // If includeDoubleBehavior is true, we have 5 options, else 4
         int numberOfOptions = includeDoubleBehavior ? 5 : 4;
 
         float probabilityPerOption = 1.0f / numberOfOptions;
 
         if (chance < probabilityPerOption) {
-            return createExtraBallsCollisionStrategy(isRequiredToCheckCollision);
+            appendOp(EffectProgram.OP_SPAWN_PUCKS);
         } else if (chance < probabilityPerOption * 2) {
-            return createExtraPaddleCollisionStrategy(isRequiredToCheckCollision);
+            appendOp(EffectProgram.OP_SPAWN_PADDLE);
         } else if (chance < probabilityPerOption * 3) {
-            return createChangingCameraCollisionStrategy(isRequiredToCheckCollision);
+            appendOp(EffectProgram.OP_SWITCH_CAMERA);
         } else if (includeDoubleBehavior && chance < probabilityPerOption * 4) {
-            // Return a new double behavior decorator with two strategies,
-            // now allowing another double behavior conditionally
+            // A double behavior of two behaviors, now allowing another double behavior conditionally
             if(allowSecondDoubleBehavior){
-                return new DoubleBehaviorCollisionStrategy(selectSpecialStrategy(true,
-                        isRequiredToCheckCollision,  false),
-                        selectSpecialStrategy(false, isRequiredToCheckCollision, false),
-                        brickCounter, isRequiredToCheckCollision, gameObjects);
+                appendSpecialEffects(random, true, false);
+                appendSpecialEffects(random, false, false);
             } else {
-                // If doubleBehaviorCounter is not greater than 0, revert to excluding double behavior to
-                // prevent infinite recursion
-                return new DoubleBehaviorCollisionStrategy(selectSpecialStrategy(false,
-                        isRequiredToCheckCollision, false),
-                        selectSpecialStrategy(true, isRequiredToCheckCollision,
-                                false),
-                        brickCounter, isRequiredToCheckCollision, gameObjects);
+                // Excluding a further double behavior from the first behavior prevents infinite recursion
+                appendSpecialEffects(random, false, false);
+                appendSpecialEffects(random, true, false);
             }
         } else {
-            // AddLifeStrategy or the last option if double behavior is not included
-            return createAddLifeCollisionStrategy(isRequiredToCheckCollision);
+            // AddLife or the last option if double behavior is not included
+            appendOp(EffectProgram.OP_DROP_HEART);
         }
     }
 
-
+    /**
+     * Appends an op to the program being compiled.
+     * @param op the op
+     */
+    private void appendOp(byte op) {
+        if (opCount == ops.length) {
+            ops = Arrays.copyOf(ops, ops.length * 2);
+        }
+        ops[opCount++] = op;
+    }
 
     /**
      * Creates a strategy for adding a life.
      * @param isRequiredToCheckCollision whether this strategy is responsible for checking collision
      * @return the collision strategy
      */
-    private CollisionStrategy createAddLifeCollisionStrategy(boolean isRequiredToCheckCollision) {
-        Renderable heartImage = imageReader.readImage(HEART_IMAGE_PATH, true);
+    private AddLifeCollisionStrategy createAddLifeCollisionStrategy(boolean isRequiredToCheckCollision) {
+        Renderable heartImage = brickerGameManager.readImage(HEART_IMAGE_PATH, true);
         float heartTopLeftCorner = brickerGameManager.getHeartsTopLeftCorner();
         float heartDimensions = brickerGameManager.getHeartDimensions();
         Counter livesCounter = brickerGameManager.getLivesCounter();
         Counter strikesCounter = brickerGameManager.getStrikesCounter();
         Vector2 widgetTopLeftCorner = new Vector2(heartTopLeftCorner, heartTopLeftCorner);
         Vector2 widgetDimensions = new Vector2(heartDimensions,heartDimensions);
-        CollisionStrategy collisionStrategy = new AddLifeCollisionStrategy(gameObjects,
+        AddLifeCollisionStrategy collisionStrategy = new AddLifeCollisionStrategy(gameObjects,
                 brickCounter, widgetTopLeftCorner, widgetDimensions, livesCounter,
-                heartImage,strikesCounter,isRequiredToCheckCollision);
+                heartImage,strikesCounter,isRequiredToCheckCollision, brickerGameManager.getParticles());
         return collisionStrategy;
     }
 
@@ -133,15 +155,16 @@ public class BrickStrategiesFactory {
      * @param isRequiredToCheckCollision whether this strategy is responsible for checking collision
      * @return the collision strategy
      */
-    private CollisionStrategy createExtraBallsCollisionStrategy(boolean isRequiredToCheckCollision) {
-        Renderable ballImage = imageReader.readImage(MOCK_BALL_IMAGE_PATH, true);
-        Sound collisionSound = soundReader.readSound(BALL_COLLISION_SOUND_PATH);
+    private ExtraBallsCollisionStrategy createExtraBallsCollisionStrategy(boolean isRequiredToCheckCollision) {
+        Renderable ballImage = brickerGameManager.readImage(MOCK_BALL_IMAGE_PATH, true);
+        Sound collisionSound = brickerGameManager.readSound(BALL_COLLISION_SOUND_PATH);
         float puckRadius = brickerGameManager.getPuckBallRadius();
         int puckSpeed = brickerGameManager.getPuckBallSpeed();
         Vector2 dimensions = new Vector2(puckRadius , puckRadius);
-        CollisionStrategy collisionStrategy = new ExtraBallsCollisionStrategy(gameObjects,
+        ExtraBallsCollisionStrategy collisionStrategy = new ExtraBallsCollisionStrategy(gameObjects,
                 Vector2.ZERO,dimensions, ballImage,collisionSound,puckSpeed,brickCounter,
-                isRequiredToCheckCollision);
+                isRequiredToCheckCollision, rand, brickerGameManager.getFrameBudgetGovernor(),
+                brickerGameManager.getParticles());
         return collisionStrategy;
     }
 
@@ -150,16 +173,17 @@ public class BrickStrategiesFactory {
      * @param isRequiredToCheckCollision whether this strategy is responsible for checking collision
      * @return the collision strategy
      */
-    private CollisionStrategy createExtraPaddleCollisionStrategy(boolean isRequiredToCheckCollision) {
-        Renderable paddleImage = imageReader.readImage(PADDLE_IMAGE_PATH, true);
+    private ExtraPaddleCollisionStrategy createExtraPaddleCollisionStrategy(boolean isRequiredToCheckCollision) {
+        Renderable paddleImage = brickerGameManager.readImage(PADDLE_IMAGE_PATH, true);
         int paddleWidth = brickerGameManager.getExtraPaddleWidth();
         int paddleHeight = brickerGameManager.getExtraPaddleHeight();
         int minDistanceFromEdge = brickerGameManager.getMinDistanceFromEdge();
         UserInputListener inputListener = brickerGameManager.getInputListener();
         Vector2 windowDimensions = windowController.getWindowDimensions();
-        CollisionStrategy collisionStrategy = new ExtraPaddleCollisionStrategy(Vector2.ZERO,
+        ExtraPaddleCollisionStrategy collisionStrategy = new ExtraPaddleCollisionStrategy(Vector2.ZERO,
                 new Vector2(paddleWidth, paddleHeight), paddleImage, inputListener,
-                windowDimensions,minDistanceFromEdge, gameObjects,brickCounter,isRequiredToCheckCollision);
+                windowDimensions,minDistanceFromEdge, gameObjects,brickCounter,isRequiredToCheckCollision,
+                brickerGameManager.getEffectScheduler());
         return collisionStrategy;
     }
 
@@ -168,9 +192,89 @@ public class BrickStrategiesFactory {
      * @param isRequiredToCheckCollision whether this strategy is responsible for checking collision
      * @return the collision strategy
      */
-    private CollisionStrategy createChangingCameraCollisionStrategy(boolean isRequiredToCheckCollision) {
-        CollisionStrategy collisionStrategy = new ChangingCameraCollisionStrategy(gameObjects,
+    private ChangingCameraCollisionStrategy createChangingCameraCollisionStrategy(boolean isRequiredToCheckCollision) {
+        ChangingCameraCollisionStrategy collisionStrategy = new ChangingCameraCollisionStrategy(gameObjects,
                 brickerGameManager, windowController, ball, brickCounter,isRequiredToCheckCollision);
         return collisionStrategy;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the type of a strategy created by this factory: basic for a program with no effects, the
+     * type of its effect for a program with one, and double behavior for a program with more.
+     * @param strategy the strategy
+     * @return the type byte of the strategy
+     * @throws IllegalArgumentException if the strategy was not created by this factory
+     */
+    public static byte strategyTypeOf(CollisionStrategy strategy) {
+        if (!(strategy instanceof EffectProgram)) {
+            throw new IllegalArgumentException("Unknown strategy " + strategy.getClass().getName());
+        }
+        EffectProgram program = (EffectProgram) strategy;
+        byte type = TYPE_BASIC;
+        for (int i = 0; i < program.size(); i++) {
+            byte effectType = typeOfOp(program.opAt(i));
+            if (effectType != TYPE_BASIC) {
+                if (type != TYPE_BASIC) {
+                    return TYPE_DOUBLE_BEHAVIOR;
+                }
+                type = effectType;
+            }
+        }
+        return type;
+    }
+
+    /**
+     * Returns the type of the strategy an effect op comes from.
+     * @param op the op
+     * @return the type byte, basic for the removal of the brick
+     */
+    private static byte typeOfOp(byte op) {
+        switch (op) {
+            case EffectProgram.OP_SPAWN_PUCKS:
+                return TYPE_EXTRA_BALLS;
+            case EffectProgram.OP_SPAWN_PADDLE:
+                return TYPE_EXTRA_PADDLE;
+            case EffectProgram.OP_DROP_HEART:
+                return TYPE_ADD_LIFE;
+            case EffectProgram.OP_SWITCH_CAMERA:
+                return TYPE_CHANGING_CAMERA;
+            default:
+                return TYPE_BASIC;
+        }
+    }
+
+    /**
+     * Writes a strategy created by this factory into a buffer, as its effect program.
+     * @param strategy the strategy
+     * @param out the buffer to write to
+     * @throws IllegalArgumentException if the strategy was not created by this factory
+     */
+    public void writeStrategy(CollisionStrategy strategy, ByteBuffer out) {
+        if (!(strategy instanceof EffectProgram)) {
+            throw new IllegalArgumentException("Unknown strategy " + strategy.getClass().getName());
+        }
+        ((EffectProgram) strategy).writeTo(out);
+    }
+
+    /**
+     * Resets a strategy created by this factory to not yet hit, to bring its brick back into the game.
+     * @param strategy the strategy
+     * @throws IllegalArgumentException if the strategy was not created by this factory
+     */
+    public void reset(CollisionStrategy strategy) {
+        if (!(strategy instanceof EffectProgram)) {
+            throw new IllegalArgumentException("Unknown strategy " + strategy.getClass().getName());
+        }
+        ((EffectProgram) strategy).reset();
+    }
+
+    /**
+     * Reads a strategy written by {@link #writeStrategy} and creates a fresh, not yet hit instance of it.
+     * @param in the buffer to read from
+     * @return the strategy
+     * @throws IllegalArgumentException if the buffer holds an unknown effect op
+     */
+    public CollisionStrategy readStrategy(ByteBuffer in) {
+        return new EffectProgram(EffectProgram.readOps(in), effects);
+    }
+}
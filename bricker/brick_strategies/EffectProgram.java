@@ -0,0 +1,146 @@
+package bricker.brick_strategies;
+
+import danogl.GameObject;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * The behavior of a brick, compiled into a flat, immutable list of effect ops that a single
+ * interpreter runs when the brick is hit.
+ * <p>
+ * A program starts with {@link #OP_REMOVE}, which removes the brick and decrements the brick counter,
+ * followed by the effects of the brick in the order the behavior lists them. A double behavior is
+ * just a program with more than one effect, so a hit runs one loop over a few bytes instead of
+ * walking a tree of strategies, and the brick counter is decremented exactly once per brick.
+ * <p>
+ * A program is written as a count byte followed by its ops, so it can be stored in checkpoints and
+ * level files.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+public final class EffectProgram implements CollisionStrategy {
+
+    /**
+     * Removes the brick and decrements the brick counter.
+     */
+    public static final byte OP_REMOVE = 0;
+    /**
+     * Spawns two pucks at the brick.
+     */
+    public static final byte OP_SPAWN_PUCKS = 1;
+    /**
+     * Spawns the extra paddle, if it is not already in the game.
+     */
+    public static final byte OP_SPAWN_PADDLE = 2;
+    /**
+     * Drops a heart from the brick.
+     */
+    public static final byte OP_DROP_HEART = 3;
+    /**
+     * Makes the camera follow the original ball, if it hit the brick and no camera is set.
+     */
+    public static final byte OP_SWITCH_CAMERA = 4;
+    private static final byte OP_COUNT = 5;
+    private final byte[] ops;
+    private final BrickEffects effects;
+    private boolean wasBrickHit = false;
+
+    /**
+     * Construct a new EffectProgram instance.
+     *
+     * @param ops     The ops of the program, which are copied.
+     * @param effects The effects the ops run.
+     * @throws IllegalArgumentException If an op is unknown.
+     */
+    EffectProgram(byte[] ops, BrickEffects effects) {
+        for (byte op : ops) {
+            if (op < 0 || op >= OP_COUNT) {
+                throw new IllegalArgumentException("Unknown effect op " + op);
+            }
+        }
+        this.ops = Arrays.copyOf(ops, ops.length);
+        this.effects = effects;
+    }
+
+    /**
+     * Runs the program. The brick is removed on its first hit only, and any later hit runs the effects
+     * alone. Since the collection leaves a removed brick out of the remaining pairs of the frame, a
+     * brick is normally hit once.
+     *
+     * @param current The brick.
+     * @param other   The object that hit the brick.
+     */
+    @Override
+    public void onCollision(GameObject current, GameObject other) {
+        boolean isFirstHit = !wasBrickHit;
+        wasBrickHit = true;
+        for (byte op : ops) {
+            switch (op) {
+                case OP_REMOVE:
+                    if (isFirstHit) {
+                        effects.removeBrick(current);
+                    }
+                    break;
+                case OP_SPAWN_PUCKS:
+                    effects.spawnPucks(current, other);
+                    break;
+                case OP_SPAWN_PADDLE:
+                    effects.spawnPaddle(current, other);
+                    break;
+                case OP_DROP_HEART:
+                    effects.dropHeart(current, other);
+                    break;
+                case OP_SWITCH_CAMERA:
+                    effects.switchCamera(current, other);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * @return The number of ops in the program.
+     */
+    public int size() {
+        return ops.length;
+    }
+
+    /**
+     * @param index The index of an op.
+     * @return The op.
+     */
+    public byte opAt(int index) {
+        return ops[index];
+    }
+
+    /**
+     * Marks the brick of the program as not hit yet.
+     */
+    void reset() {
+        wasBrickHit = false;
+    }
+
+    /**
+     * Writes the program into a buffer, as a count byte followed by the ops.
+     *
+     * @param out The buffer to write to.
+     */
+    public void writeTo(ByteBuffer out) {
+        out.put((byte) ops.length);
+        out.put(ops);
+    }
+
+    /**
+     * Reads the ops of a program written by {@link #writeTo}.
+     *
+     * @param in The buffer to read from.
+     * @return The ops.
+     */
+    static byte[] readOps(ByteBuffer in) {
+        byte[] ops = new byte[Byte.toUnsignedInt(in.get())];
+        in.get(ops);
+        return ops;
+    }
+}
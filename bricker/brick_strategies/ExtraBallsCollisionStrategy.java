@@ -1,5 +1,7 @@
 package bricker.brick_strategies;
 
+import bricker.engine.FrameBudgetGovernor;
+import bricker.engine.ParticlePool;
 import bricker.gameobjects.Puck;
 import danogl.GameObject;
 import danogl.collisions.GameObjectCollection;
@@ -19,8 +21,11 @@ import java.util.Random;
  */
 public class ExtraBallsCollisionStrategy implements CollisionStrategy{
 
+    private static final int SPAWN_PARTICLES = 24;
+    private static final float SPAWN_PARTICLE_SPEED = 120;
+    private static final int SPAWN_PARTICLE_COLOR = 0x9AD8FF;
     private final GameObjectCollection gameObjects;
-    private final Random rand = new Random();
+    private final Random rand;
     private final float BALL_SPEED;
     private final Vector2 topLeftCorner;
     private final Vector2 dimensions;
@@ -29,6 +34,8 @@ public class ExtraBallsCollisionStrategy implements CollisionStrategy{
     private boolean wasBrickHit = false;
     private boolean isRequiredToCheckCollision;
     private final Counter brickCounter;
+    private final FrameBudgetGovernor governor;
+    private final ParticlePool particles;
 
     /**
      * Construct a new ExtraBallsCollisionStrategy instance.
@@ -43,12 +50,19 @@ public class ExtraBallsCollisionStrategy implements CollisionStrategy{
      * @param ballSpeed The speed of the ball.
      * @param brickCounter The counter representing the number of bricks in the game.
      * @param isRequiredToCheckCollision True if the collision should be checked, false otherwise.
+     * @param rand The source of the random directions of the extra balls.
+     * @param governor The frame budget governor, which may cap the number of pucks in play.
+     * @param particles The particles to burst where a puck is spawned.
      */
 public ExtraBallsCollisionStrategy(GameObjectCollection gameObjects, Vector2 topLeftCorner,
                                    Vector2 dimensions, Renderable renderable,
                                    Sound collisionSound, float ballSpeed, Counter brickCounter,
-                                   boolean isRequiredToCheckCollision) {
+                                   boolean isRequiredToCheckCollision, Random rand,
+                                   FrameBudgetGovernor governor, ParticlePool particles) {
     this.gameObjects = gameObjects;
+    this.governor = governor;
+    this.particles = particles;
+    this.rand = rand;
     this.BALL_SPEED = ballSpeed;
     this.topLeftCorner = topLeftCorner;
     this.dimensions = dimensions;
@@ -70,7 +84,8 @@ public ExtraBallsCollisionStrategy(GameObjectCollection gameObjects, Vector2 top
     }
 
     /**
-     * Called when a collision occurs with another GameObject.
+     * Called when a collision occurs with another GameObject. A puck is not spawned while the frame
+     * budget governor caps the pucks in play, and every spawned puck bursts into particles.
      * @param current The GameObject with which a collision occurred.
      * @param other The other GameObject.
      */
@@ -81,14 +96,29 @@ public ExtraBallsCollisionStrategy(GameObjectCollection gameObjects, Vector2 top
             wasBrickHit = true;
             brickCounter.decrement();
         }
-        Vector2 position = current.getCenter();
+        Vector2 position = current.getCenter().subtract(dimensions.mult(0.5f));
         Puck puck1 = new Puck(topLeftCorner, dimensions, renderable, collisionSound);
         Puck puck2 = new Puck(topLeftCorner, dimensions, renderable, collisionSound);
-        puck1.setCenter(position);
-        puck2.setCenter(position);
+        puck1.setTopLeftCorner(position);
+        puck2.setTopLeftCorner(position);
         puck1.setVelocity(initBallDirection());
         puck2.setVelocity(initBallDirection());
-        gameObjects.addGameObject(puck1);
-        gameObjects.addGameObject(puck2);
+        if (governor.allowPuckSpawn()) {
+            gameObjects.addGameObject(puck1);
+            emitSpawnParticles(puck1);
+        }
+        if (governor.allowPuckSpawn()) {
+            gameObjects.addGameObject(puck2);
+            emitSpawnParticles(puck2);
+        }
+    }
+
+    /**
+     * Bursts particles from a spawned puck.
+     * @param puck The puck.
+     */
+    private void emitSpawnParticles(Puck puck) {
+        Vector2 center = puck.getCenter();
+        particles.emit(center.x(), center.y(), SPAWN_PARTICLES, SPAWN_PARTICLE_SPEED, SPAWN_PARTICLE_COLOR);
     }
 }
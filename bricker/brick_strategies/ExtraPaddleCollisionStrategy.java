@@ -1,5 +1,6 @@
 package bricker.brick_strategies;
 
+import bricker.engine.EffectScheduler;
 import bricker.gameobjects.ExtraPaddle;
 import danogl.GameObject;
 import danogl.collisions.GameObjectCollection;
@@ -29,6 +30,7 @@ public class ExtraPaddleCollisionStrategy implements CollisionStrategy {
     private boolean wasBrickHit = false;
     private boolean isRequiredToCheckCollision;
     private final Counter brickCounter;
+    private final EffectScheduler effectScheduler;
 
     /**
      * Construct a new ExtraPaddleCollisionStrategy instance.
@@ -44,12 +46,15 @@ public class ExtraPaddleCollisionStrategy implements CollisionStrategy {
      * @param gameObjects The collection of GameObjects in the game.
      * @param brickCounter The counter representing the number of bricks in the game.
      * @param isRequiredToCheckCollision True if the collision should be checked, false otherwise.
+     * @param effectScheduler The scheduler that removes the extra paddle after its last collision.
      */
     public ExtraPaddleCollisionStrategy(Vector2 topLeftCorner, Vector2 dimensions, Renderable renderable,
                                         UserInputListener inputListener, Vector2 windowDimensions,
                                         int minDistFromEdge, GameObjectCollection gameObjects,
-                                        Counter brickCounter, boolean isRequiredToCheckCollision) {
+                                        Counter brickCounter, boolean isRequiredToCheckCollision,
+                                        EffectScheduler effectScheduler) {
         this.gameObjects = gameObjects;
+        this.effectScheduler = effectScheduler;
         this.paddleInitLocation = topLeftCorner;
         this.paddleDimensions = dimensions;
         this.paddleRenderable = renderable;
@@ -88,10 +93,10 @@ public class ExtraPaddleCollisionStrategy implements CollisionStrategy {
         if (!checkIfExtraPaddleInGame()) {
             GameObject extraPaddle = new ExtraPaddle(paddleInitLocation, paddleDimensions,
                     paddleRenderable, paddleInputListener, windowDimensions,
-                    minDistFromEdge, gameObjects);
+                    minDistFromEdge, gameObjects, effectScheduler);
             Vector2 paddleInitLocation = new Vector2(windowDimensions.x() / 2,
                     windowDimensions.y() / 2);
-            extraPaddle.setCenter(paddleInitLocation);
+            extraPaddle.setTopLeftCorner(paddleInitLocation.subtract(paddleDimensions.mult(0.5f)));
             extraPaddle.setTag(TAG_EXTRA_PADDLE);
             gameObjects.addGameObject(extraPaddle);
         }
@@ -0,0 +1,156 @@
+package bricker.engine;
+
+import danogl.gui.rendering.Renderable;
+import danogl.util.Vector2;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+
+/**
+ * A sprite packed into a {@link SpriteAtlas}, drawn the way an ImageRenderable of the same image is.
+ * <p>
+ * An upright, unflipped draw copies a variant pre-scaled to the drawn size. The sprite remembers the
+ * last variant it drew, so an object drawn at a fixed size does not even look it up in the cache.
+ * Rotated and flipped draws are rare in the game and scale the atlas region directly.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+public final class AtlasSprite implements Renderable {
+
+    private final BufferedImage atlas;
+    private final int index;
+    private final int sourceX;
+    private final int sourceY;
+    private final int width;
+    private final int height;
+    private final boolean isOpaque;
+    private final ScaledSpriteCache scaledSprites;
+    private int lastWidth = -1;
+    private int lastHeight = -1;
+    private GraphicsConfiguration lastDevice;
+    private BufferedImage lastVariant;
+
+    /**
+     * Construct a new AtlasSprite instance.
+     *
+     * @param atlas         The packed image.
+     * @param index         The index of the sprite in the atlas.
+     * @param sourceX       The left edge of the sprite in the atlas.
+     * @param sourceY       The top edge of the sprite in the atlas.
+     * @param width         The width of the sprite.
+     * @param height        The height of the sprite.
+     * @param isOpaque      Whether every pixel of the sprite is opaque.
+     * @param scaledSprites The cache of scaled variants shared by the atlas.
+     */
+    AtlasSprite(BufferedImage atlas, int index, int sourceX, int sourceY, int width, int height,
+                boolean isOpaque, ScaledSpriteCache scaledSprites) {
+        this.atlas = atlas;
+        this.index = index;
+        this.sourceX = sourceX;
+        this.sourceY = sourceY;
+        this.width = width;
+        this.height = height;
+        this.isOpaque = isOpaque;
+        this.scaledSprites = scaledSprites;
+    }
+
+    /**
+     * Renders the sprite.
+     *
+     * @param g                        The graphics to render with.
+     * @param topLeftCorner            The top left corner of the sprite on the screen.
+     * @param dimensions               The dimensions of the sprite on the screen.
+     * @param degreesCounterClockwise  The rotation of the sprite around its center.
+     * @param isFlippedHorizontally    Whether to mirror the sprite horizontally.
+     * @param isFlippedVertically      Whether to mirror the sprite vertically.
+     * @param opaqueness               The opaqueness of the sprite, in [0, 1].
+     */
+    @Override
+    public void render(Graphics2D g, Vector2 topLeftCorner, Vector2 dimensions,
+                       double degreesCounterClockwise, boolean isFlippedHorizontally,
+                       boolean isFlippedVertically, double opaqueness) {
+        int drawnWidth = (int) dimensions.x();
+        int drawnHeight = (int) dimensions.y();
+        if (opaqueness <= 0 || drawnWidth == 0 || drawnHeight == 0) {
+            return;
+        }
+        int x = (int) topLeftCorner.x();
+        int y = (int) topLeftCorner.y();
+        Composite originalComposite = g.getComposite();
+        if (opaqueness < 1) {
+            g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, (float) opaqueness));
+        } else if (originalComposite != AlphaComposite.SrcOver) {
+            g.setComposite(AlphaComposite.SrcOver);
+        }
+        if (degreesCounterClockwise == 0 && !isFlippedHorizontally && !isFlippedVertically &&
+                drawnWidth > 0 && drawnHeight > 0) {
+            g.drawImage(variant(drawnWidth, drawnHeight, g.getDeviceConfiguration()), x, y, null);
+        } else {
+            // Each flip mirrors the direction of rotation, as in an ImageRenderable.
+            if (isFlippedHorizontally) {
+                x += drawnWidth;
+                drawnWidth = -drawnWidth;
+                degreesCounterClockwise = -degreesCounterClockwise;
+            }
+            if (isFlippedVertically) {
+                y += drawnHeight;
+                drawnHeight = -drawnHeight;
+                degreesCounterClockwise = -degreesCounterClockwise;
+            }
+            AffineTransform originalTransform = g.getTransform();
+            if (degreesCounterClockwise != 0) {
+                g.rotate(Math.toRadians(-degreesCounterClockwise),
+                        topLeftCorner.x() + dimensions.x() / 2, topLeftCorner.y() + dimensions.y() / 2);
+            }
+            drawSource(g, x, y, drawnWidth, drawnHeight);
+            g.setTransform(originalTransform);
+        }
+        g.setComposite(originalComposite);
+    }
+
+    /**
+     * Scales the sprite's region of the atlas into a rectangle. A negative width or height mirrors
+     * the sprite along that axis.
+     *
+     * @param g           The graphics to draw with.
+     * @param x           The left edge of the rectangle.
+     * @param y           The top edge of the rectangle.
+     * @param drawnWidth  The width of the rectangle.
+     * @param drawnHeight The height of the rectangle.
+     */
+    void drawSource(Graphics2D g, int x, int y, int drawnWidth, int drawnHeight) {
+        g.drawImage(atlas, x, y, x + drawnWidth, y + drawnHeight, sourceX, sourceY,
+                sourceX + width, sourceY + height, null);
+    }
+
+    /**
+     * @return The index of the sprite in the atlas.
+     */
+    int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return True if every pixel of the sprite is opaque, so its variants need no alpha channel.
+     */
+    boolean isOpaque() {
+        return isOpaque;
+    }
+
+    /**
+     * @param drawnWidth  The width to draw at.
+     * @param drawnHeight The height to draw at.
+     * @param device      The configuration of the device drawn to.
+     * @return The variant of the sprite scaled to the given dimensions.
+     */
+    private BufferedImage variant(int drawnWidth, int drawnHeight, GraphicsConfiguration device) {
+        if (drawnWidth != lastWidth || drawnHeight != lastHeight || device != lastDevice) {
+            lastVariant = scaledSprites.get(this, drawnWidth, drawnHeight, device);
+            lastWidth = drawnWidth;
+            lastHeight = drawnHeight;
+            lastDevice = device;
+        }
+        return lastVariant;
+    }
+}
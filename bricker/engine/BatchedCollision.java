@@ -0,0 +1,75 @@
+package bricker.engine;
+
+import danogl.GameObject;
+import danogl.collisions.Collision;
+import danogl.util.MutableVector2;
+import danogl.util.Vector2;
+
+/**
+ * One side of a contact found by {@link BatchedMovers}, holding the values danogl's AABB narrowphase
+ * would give the same pair: the normal points from the center of the intersection to the center of
+ * the object, and the collision point and penetration area are those of the intersection.
+ * <p>
+ * The kernel refills the same two instances for every contact, so a Collision is only valid during
+ * the callback it is passed to, as with danogl's own collisions.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+final class BatchedCollision implements Collision {
+
+    private final MutableVector2 normal = new MutableVector2();
+    private final MutableVector2 collisionPoint = new MutableVector2();
+    private final MutableVector2 penetrationArea = new MutableVector2();
+    private final MutableVector2 relativeVelocity = new MutableVector2();
+    private GameObject self;
+    private GameObject other;
+
+    /**
+     * Fills the collision for one side of a contact.
+     *
+     * @param self               The object the collision is passed to.
+     * @param other              The object it collided with.
+     * @param selfCenterX        The x coordinate of the center of the object.
+     * @param selfCenterY        The y coordinate of the center of the object.
+     * @param intersectionX      The left edge of the intersection of the two objects.
+     * @param intersectionY      The top edge of the intersection.
+     * @param intersectionWidth  The width of the intersection.
+     * @param intersectionHeight The height of the intersection.
+     */
+    void set(GameObject self, GameObject other, double selfCenterX, double selfCenterY,
+             float intersectionX, float intersectionY, float intersectionWidth, float intersectionHeight) {
+        this.self = self;
+        this.other = other;
+        double centerX = intersectionX + intersectionWidth / 2.0;
+        double centerY = intersectionY + intersectionHeight / 2.0;
+        normal.setXY((float) (selfCenterX - centerX), (float) (selfCenterY - centerY));
+        normal.selfNormalize();
+        collisionPoint.setXY((float) centerX, (float) centerY);
+        penetrationArea.setXY(intersectionWidth, intersectionHeight);
+    }
+
+    @Override
+    public Vector2 getNormal() {
+        return normal;
+    }
+
+    @Override
+    public Vector2 getCollisionPoint() {
+        return collisionPoint;
+    }
+
+    @Override
+    public Vector2 getPenetrationArea() {
+        return penetrationArea;
+    }
+
+    @Override
+    public Vector2 getRelativeVelocity() {
+        relativeVelocity.setXY(self.getVelocity());
+        return relativeVelocity.selfSubtract(other.getVelocity());
+    }
+
+    @Override
+    public void onFrameStart() {
+    }
+}
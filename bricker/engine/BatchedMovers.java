@@ -0,0 +1,488 @@
+package bricker.engine;
+
+import bricker.gameobjects.Ball;
+import bricker.gameobjects.Puck;
+import danogl.GameObject;
+import danogl.collisions.Layer;
+import danogl.components.CoordinateSpace;
+import danogl.util.Vector2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+
+/**
+ * A struct-of-arrays kernel that moves the balls and pucks and bounces them off the walls and bricks
+ * in bulk.
+ * <p>
+ * The positions, sizes and velocities of the movers live in parallel float arrays. Every frame they
+ * are read from the transforms once, integrated in one loop over the arrays, and written back once,
+ * so the transforms only serve rendering and the rest of the game. The obstacles, which are the inert
+ * objects of the DEFAULT and STATIC_OBJECTS layers, keep their bounds in arrays too, and every mover is
+ * tested against them with plain comparisons instead of a narrowphase call per pair. Only the pairs
+ * that overlap reach the collision callbacks, with a {@link BatchedCollision} holding the values and
+ * in the order danogl would give them, so the movers reflect their own velocities as before.
+ * <p>
+ * The other objects of the DEFAULT layer, such as the paddles, are tested against the STATIC_OBJECTS
+ * obstacles with the same comparisons, and the pairs that overlap are handed to the pair handler.
+ * <p>
+ * A GameObject moves by the velocity it had at the end of its previous update, so the kernel keeps the
+ * applied velocity of each mover as well. Balls and pucks never accelerate, and no object in the game
+ * prevents intersections, so neither is modelled.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+final class BatchedMovers {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int ID_BITS = 32;
+    private final BiPredicate<TrackedObject, TrackedObject> pairHandler;
+    private final BiConsumer<TrackedObject, TrackedObject> contactListener;
+    private final Consumer<TrackedObject> moveListener;
+    private final List<TrackedObject> pendingInserts = new ArrayList<>();
+    private final BatchedCollision moverCollision = new BatchedCollision();
+    private final BatchedCollision obstacleCollision = new BatchedCollision();
+    private boolean hasPendingRemovals = false;
+    private int nextId = 0;
+    private TrackedObject[] movers = new TrackedObject[INITIAL_CAPACITY];
+    private float[] x = new float[INITIAL_CAPACITY];
+    private float[] y = new float[INITIAL_CAPACITY];
+    private float[] width = new float[INITIAL_CAPACITY];
+    private float[] height = new float[INITIAL_CAPACITY];
+    private float[] velocityX = new float[INITIAL_CAPACITY];
+    private float[] velocityY = new float[INITIAL_CAPACITY];
+    private float[] appliedVelocityX = new float[INITIAL_CAPACITY];
+    private float[] appliedVelocityY = new float[INITIAL_CAPACITY];
+    private int moverCount = 0;
+    private TrackedObject[] obstacles = new TrackedObject[INITIAL_CAPACITY];
+    private double[] obstacleMinX = new double[INITIAL_CAPACITY];
+    private double[] obstacleMinY = new double[INITIAL_CAPACITY];
+    private double[] obstacleMaxX = new double[INITIAL_CAPACITY];
+    private double[] obstacleMaxY = new double[INITIAL_CAPACITY];
+    private int obstacleCount = 0;
+    private TrackedObject[] bystanders = new TrackedObject[INITIAL_CAPACITY];
+    private int bystanderCount = 0;
+    private long[] contactKeys = new long[INITIAL_CAPACITY];
+    private long[] sortedContactKeys = new long[INITIAL_CAPACITY];
+    private TrackedObject[] contactPairs = new TrackedObject[2 * INITIAL_CAPACITY];
+    private int contactCount = 0;
+    private long[] previousContactKeys = new long[INITIAL_CAPACITY];
+    private long[] previousSortedContactKeys = new long[INITIAL_CAPACITY];
+    private TrackedObject[] previousContactPairs = new TrackedObject[2 * INITIAL_CAPACITY];
+    private TrackedObject[] bystanderPairs = new TrackedObject[2 * INITIAL_CAPACITY];
+    private int bystanderPairCount = 0;
+    private TrackedObject[] previousBystanderPairs = new TrackedObject[2 * INITIAL_CAPACITY];
+    private long filteredPairs = 0;
+
+    /**
+     * Construct a new BatchedMovers instance.
+     *
+     * @param pairHandler     Called with every overlapping pair of another DEFAULT object and a
+     *                        STATIC_OBJECTS obstacle; returns true if the pair collides.
+     * @param contactListener Called with every mover and obstacle in contact, after their callbacks.
+     * @param moveListener    Called with every mover after it was written back.
+     */
+    BatchedMovers(BiPredicate<TrackedObject, TrackedObject> pairHandler,
+                  BiConsumer<TrackedObject, TrackedObject> contactListener,
+                  Consumer<TrackedObject> moveListener) {
+        this.pairHandler = pairHandler;
+        this.contactListener = contactListener;
+        this.moveListener = moveListener;
+    }
+
+    /**
+     * Classifies an object of the DEFAULT or STATIC_OBJECTS layer and schedules it to join the kernel
+     * at the next {@link #flushChanges}.
+     *
+     * @param tracked The object.
+     */
+    void insert(TrackedObject tracked) {
+        GameObject obj = tracked.gameObject;
+        boolean isWorld = obj.getCoordinateSpace() == CoordinateSpace.WORLD_COORDINATES;
+        tracked.batchId = nextId++;
+        tracked.isBatchedMover = isWorld && tracked.layerId == Layer.DEFAULT &&
+                (obj.getClass() == Ball.class || obj.getClass() == Puck.class);
+        tracked.isBatchedObstacle = isWorld && tracked.isInert;
+        pendingInserts.add(tracked);
+    }
+
+    /**
+     * Schedules the objects that were marked as removed to leave the kernel at the next
+     * {@link #flushChanges}.
+     */
+    void markRemovalPending() {
+        hasPendingRemovals = true;
+    }
+
+    /**
+     * Applies pending insertions and removals. Called before the movers are integrated and where the
+     * layers of the collection are flushed.
+     */
+    void flushChanges() {
+        if (hasPendingRemovals) {
+            removeMovers();
+            obstacleCount = compact(obstacles, obstacleCount);
+            bystanderCount = compact(bystanders, bystanderCount);
+            hasPendingRemovals = false;
+        }
+        for (int i = 0; i < pendingInserts.size(); i++) {
+            TrackedObject tracked = pendingInserts.get(i);
+            if (tracked.isRemoved) {
+                continue;
+            }
+            if (tracked.isBatchedMover) {
+                ensureMoverCapacity(moverCount + 1);
+                Vector2 topLeftCorner = tracked.gameObject.getTopLeftCorner();
+                Vector2 dimensions = tracked.gameObject.getDimensions();
+                movers[moverCount] = tracked;
+                x[moverCount] = topLeftCorner.x();
+                y[moverCount] = topLeftCorner.y();
+                width[moverCount] = dimensions.x();
+                height[moverCount] = dimensions.y();
+                appliedVelocityX[moverCount] = 0;
+                appliedVelocityY[moverCount] = 0;
+                moverCount++;
+            } else if (tracked.layerId == Layer.DEFAULT) {
+                if (bystanderCount == bystanders.length) {
+                    bystanders = Arrays.copyOf(bystanders, 2 * bystanders.length);
+                }
+                bystanders[bystanderCount++] = tracked;
+            }
+            if (tracked.isBatchedObstacle) {
+                ensureObstacleCapacity(obstacleCount + 1);
+                obstacles[obstacleCount++] = tracked;
+            }
+        }
+        pendingInserts.clear();
+    }
+
+    /**
+     * Moves every mover by its applied velocity, the way {@link GameObject#update} would, and writes
+     * the new positions back to the transforms.
+     *
+     * @param deltaTime The time elapsed, in seconds, since the last frame.
+     */
+    void integrate(float deltaTime) {
+        flushChanges();
+        // The game may have moved or redirected a mover since the last frame.
+        for (int i = 0; i < moverCount; i++) {
+            GameObject obj = movers[i].gameObject;
+            Vector2 topLeftCorner = obj.getTopLeftCorner();
+            Vector2 dimensions = obj.getDimensions();
+            Vector2 velocity = obj.getVelocity();
+            x[i] = topLeftCorner.x();
+            y[i] = topLeftCorner.y();
+            width[i] = dimensions.x();
+            height[i] = dimensions.y();
+            velocityX[i] = velocity.x();
+            velocityY[i] = velocity.y();
+        }
+        for (int i = 0; i < moverCount; i++) {
+            x[i] += appliedVelocityX[i] * deltaTime;
+            y[i] += appliedVelocityY[i] * deltaTime;
+            appliedVelocityX[i] = velocityX[i];
+            appliedVelocityY[i] = velocityY[i];
+        }
+        for (int i = 0; i < moverCount; i++) {
+            GameObject obj = movers[i].gameObject;
+            obj.transform().setTopLeftCorner(x[i], y[i]);
+            obj.renderer().update(deltaTime);
+            moveListener.accept(movers[i]);
+        }
+    }
+
+    /**
+     * Tests every mover against every obstacle and every other DEFAULT object against the
+     * STATIC_OBJECTS obstacles, running the callbacks of the pairs in contact, and ends the contacts
+     * of the previous frame that are over.
+     */
+    void handleCollisions() {
+        refreshObstacleBounds();
+        handleBystanders();
+        long[] swapKeys = previousContactKeys;
+        previousContactKeys = contactKeys;
+        contactKeys = swapKeys;
+        swapKeys = previousSortedContactKeys;
+        previousSortedContactKeys = sortedContactKeys;
+        sortedContactKeys = swapKeys;
+        TrackedObject[] swapPairs = previousContactPairs;
+        previousContactPairs = contactPairs;
+        contactPairs = swapPairs;
+        int previousCount = contactCount;
+        contactCount = 0;
+        for (int i = 0; i < moverCount; i++) {
+            if (width[i] <= 0 || height[i] <= 0) {
+                continue;
+            }
+            double minX = x[i];
+            double minY = y[i];
+            double maxX = minX + width[i];
+            double maxY = minY + height[i];
+            for (int j = 0; j < obstacleCount; j++) {
+                if (maxX > obstacleMinX[j] && maxY > obstacleMinY[j] &&
+                        minX < obstacleMaxX[j] && minY < obstacleMaxY[j]) {
+                    touch(i, j, previousCount);
+                }
+            }
+        }
+        if (sortedContactKeys.length < contactKeys.length) {
+            sortedContactKeys = new long[contactKeys.length];
+        }
+        System.arraycopy(contactKeys, 0, sortedContactKeys, 0, contactCount);
+        Arrays.sort(sortedContactKeys, 0, contactCount);
+        for (int k = 0; k < previousCount; k++) {
+            TrackedObject mover = previousContactPairs[2 * k];
+            TrackedObject obstacle = previousContactPairs[2 * k + 1];
+            previousContactPairs[2 * k] = null;
+            previousContactPairs[2 * k + 1] = null;
+            if (!mover.isRemoved && !obstacle.isRemoved &&
+                    Arrays.binarySearch(sortedContactKeys, 0, contactCount, previousContactKeys[k]) < 0) {
+                mover.gameObject.onCollisionExit(obstacle.gameObject);
+                obstacle.gameObject.onCollisionExit(mover.gameObject);
+            }
+        }
+    }
+
+    /**
+     * @return The total number of overlapping mover and obstacle pairs the collision filter skipped.
+     */
+    long getFilteredPairs() {
+        return filteredPairs;
+    }
+
+    /**
+     * @return The number of movers in the kernel.
+     */
+    int getMoverCount() {
+        return moverCount;
+    }
+
+    /**
+     * Runs the callbacks of a mover and an obstacle whose bounds overlap, unless the collision filter
+     * or the objects themselves rule the pair out.
+     *
+     * @param i             The index of the mover.
+     * @param j             The index of the obstacle.
+     * @param previousCount The number of contacts in the previous frame.
+     */
+    private void touch(int i, int j, int previousCount) {
+        TrackedObject mover = movers[i];
+        TrackedObject obstacle = obstacles[j];
+        if (!mover.isAllowedToCollideWith(obstacle)) {
+            filteredPairs++;
+            return;
+        }
+        GameObject moverObject = mover.gameObject;
+        GameObject obstacleObject = obstacle.gameObject;
+        if (!moverObject.shouldCollideWith(obstacleObject) || !obstacleObject.shouldCollideWith(moverObject) ||
+                moverObject.getCoordinateSpace() != obstacleObject.getCoordinateSpace()) {
+            return;
+        }
+        double intersectionMinX = Math.max(x[i], obstacleMinX[j]);
+        double intersectionMinY = Math.max(y[i], obstacleMinY[j]);
+        float intersectionWidth = (float) (Math.min((double) x[i] + width[i], obstacleMaxX[j]) - intersectionMinX);
+        float intersectionHeight = (float) (Math.min((double) y[i] + height[i], obstacleMaxY[j]) -
+                intersectionMinY);
+        if (intersectionWidth <= 0 || intersectionHeight <= 0) {
+            return;
+        }
+        long key = ((long) mover.batchId << ID_BITS) | obstacle.batchId;
+        addContact(key, mover, obstacle);
+        boolean wasInContact = Arrays.binarySearch(previousSortedContactKeys, 0, previousCount, key) >= 0;
+        Vector2 obstacleTopLeftCorner = obstacleObject.getTopLeftCorner();
+        Vector2 obstacleDimensions = obstacleObject.getDimensions();
+        moverCollision.set(moverObject, obstacleObject, x[i] + width[i] / 2.0, y[i] + height[i] / 2.0,
+                (float) intersectionMinX, (float) intersectionMinY, intersectionWidth, intersectionHeight);
+        obstacleCollision.set(obstacleObject, moverObject,
+                obstacleTopLeftCorner.x() + obstacleDimensions.x() / 2.0,
+                obstacleTopLeftCorner.y() + obstacleDimensions.y() / 2.0,
+                (float) intersectionMinX, (float) intersectionMinY, intersectionWidth, intersectionHeight);
+        if (!wasInContact) {
+            moverObject.onCollisionEnter(obstacleObject, moverCollision);
+        }
+        moverObject.onCollisionStay(obstacleObject, moverCollision);
+        if (!wasInContact) {
+            obstacleObject.onCollisionEnter(moverObject, obstacleCollision);
+        }
+        obstacleObject.onCollisionStay(moverObject, obstacleCollision);
+        contactListener.accept(mover, obstacle);
+    }
+
+    /**
+     * Hands the overlapping pairs of other DEFAULT objects and STATIC_OBJECTS obstacles to the pair
+     * handler, and once more the pairs that collided in the previous frame and have drifted apart, so
+     * they receive their collision exit.
+     */
+    private void handleBystanders() {
+        TrackedObject[] swap = previousBystanderPairs;
+        previousBystanderPairs = bystanderPairs;
+        bystanderPairs = swap;
+        int previousCount = bystanderPairCount;
+        bystanderPairCount = 0;
+        for (int i = 0; i < bystanderCount; i++) {
+            TrackedObject bystander = bystanders[i];
+            for (int j = 0; j < obstacleCount; j++) {
+                if (obstacles[j].layerId == Layer.STATIC_OBJECTS && overlaps(bystander, j)) {
+                    testBystanderPair(bystander, obstacles[j]);
+                }
+            }
+        }
+        for (int k = 0; k < previousCount; k++) {
+            TrackedObject bystander = previousBystanderPairs[2 * k];
+            TrackedObject obstacle = previousBystanderPairs[2 * k + 1];
+            previousBystanderPairs[2 * k] = null;
+            previousBystanderPairs[2 * k + 1] = null;
+            // A pair that still overlaps was already handed on above.
+            if (!bystander.isRemoved && !obstacle.isRemoved && !overlapsObstacle(bystander, obstacle)) {
+                testBystanderPair(bystander, obstacle);
+            }
+        }
+    }
+
+    /**
+     * Hands a pair to the pair handler, remembering it if it collides.
+     */
+    private void testBystanderPair(TrackedObject bystander, TrackedObject obstacle) {
+        if (pairHandler.test(bystander, obstacle)) {
+            if (2 * bystanderPairCount + 2 > bystanderPairs.length) {
+                bystanderPairs = Arrays.copyOf(bystanderPairs, 2 * bystanderPairs.length);
+            }
+            bystanderPairs[2 * bystanderPairCount] = bystander;
+            bystanderPairs[2 * bystanderPairCount + 1] = obstacle;
+            bystanderPairCount++;
+        }
+    }
+
+    /**
+     * @return True if the bounds of an object overlap those of the obstacle at an index.
+     */
+    private boolean overlaps(TrackedObject tracked, int j) {
+        Vector2 topLeftCorner = tracked.gameObject.getTopLeftCorner();
+        Vector2 dimensions = tracked.gameObject.getDimensions();
+        double minX = topLeftCorner.x();
+        double minY = topLeftCorner.y();
+        return minX + dimensions.x() >= obstacleMinX[j] && minY + dimensions.y() >= obstacleMinY[j] &&
+                minX <= obstacleMaxX[j] && minY <= obstacleMaxY[j];
+    }
+
+    /**
+     * @return True if the bounds of an object overlap those of an obstacle, wherever it is.
+     */
+    private boolean overlapsObstacle(TrackedObject tracked, TrackedObject obstacle) {
+        for (int j = 0; j < obstacleCount; j++) {
+            if (obstacles[j] == obstacle) {
+                return overlaps(tracked, j);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the bounds of the obstacles from their transforms. An obstacle without area is given
+     * bounds nothing overlaps.
+     */
+    private void refreshObstacleBounds() {
+        for (int j = 0; j < obstacleCount; j++) {
+            GameObject obj = obstacles[j].gameObject;
+            Vector2 topLeftCorner = obj.getTopLeftCorner();
+            Vector2 dimensions = obj.getDimensions();
+            if (dimensions.x() <= 0 || dimensions.y() <= 0) {
+                obstacleMinX[j] = Double.POSITIVE_INFINITY;
+                obstacleMinY[j] = Double.POSITIVE_INFINITY;
+                obstacleMaxX[j] = Double.NEGATIVE_INFINITY;
+                obstacleMaxY[j] = Double.NEGATIVE_INFINITY;
+                continue;
+            }
+            obstacleMinX[j] = topLeftCorner.x();
+            obstacleMinY[j] = topLeftCorner.y();
+            obstacleMaxX[j] = obstacleMinX[j] + dimensions.x();
+            obstacleMaxY[j] = obstacleMinY[j] + dimensions.y();
+        }
+    }
+
+    /**
+     * Records a contact of the current frame.
+     */
+    private void addContact(long key, TrackedObject mover, TrackedObject obstacle) {
+        if (contactCount == contactKeys.length) {
+            contactKeys = Arrays.copyOf(contactKeys, 2 * contactKeys.length);
+            contactPairs = Arrays.copyOf(contactPairs, 2 * contactPairs.length);
+        }
+        contactKeys[contactCount] = key;
+        contactPairs[2 * contactCount] = mover;
+        contactPairs[2 * contactCount + 1] = obstacle;
+        contactCount++;
+    }
+
+    /**
+     * Drops the removed movers, keeping the order, bounds and applied velocities of the others.
+     */
+    private void removeMovers() {
+        int kept = 0;
+        for (int i = 0; i < moverCount; i++) {
+            if (!movers[i].isRemoved) {
+                movers[kept] = movers[i];
+                x[kept] = x[i];
+                y[kept] = y[i];
+                width[kept] = width[i];
+                height[kept] = height[i];
+                appliedVelocityX[kept] = appliedVelocityX[i];
+                appliedVelocityY[kept] = appliedVelocityY[i];
+                kept++;
+            }
+        }
+        for (int i = kept; i < moverCount; i++) {
+            movers[i] = null;
+        }
+        moverCount = kept;
+    }
+
+    /**
+     * Drops the removed objects from an array, keeping the order of the others.
+     *
+     * @return The number of objects kept.
+     */
+    private static int compact(TrackedObject[] objects, int size) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (!objects[i].isRemoved) {
+                objects[kept++] = objects[i];
+            }
+        }
+        for (int i = kept; i < size; i++) {
+            objects[i] = null;
+        }
+        return kept;
+    }
+
+    private void ensureMoverCapacity(int capacity) {
+        if (capacity <= movers.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, 2 * movers.length);
+        movers = Arrays.copyOf(movers, newCapacity);
+        x = Arrays.copyOf(x, newCapacity);
+        y = Arrays.copyOf(y, newCapacity);
+        width = Arrays.copyOf(width, newCapacity);
+        height = Arrays.copyOf(height, newCapacity);
+        velocityX = Arrays.copyOf(velocityX, newCapacity);
+        velocityY = Arrays.copyOf(velocityY, newCapacity);
+        appliedVelocityX = Arrays.copyOf(appliedVelocityX, newCapacity);
+        appliedVelocityY = Arrays.copyOf(appliedVelocityY, newCapacity);
+    }
+
+    private void ensureObstacleCapacity(int capacity) {
+        if (capacity <= obstacles.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, 2 * obstacles.length);
+        obstacles = Arrays.copyOf(obstacles, newCapacity);
+        obstacleMinX = new double[newCapacity];
+        obstacleMinY = new double[newCapacity];
+        obstacleMaxX = new double[newCapacity];
+        obstacleMaxY = new double[newCapacity];
+    }
+}
@@ -0,0 +1,128 @@
+package bricker.engine;
+
+import bricker.gameobjects.Puck;
+import danogl.GameObject;
+import danogl.collisions.Layer;
+import danogl.gui.Sound;
+import danogl.util.Vector2;
+
+import java.util.Random;
+
+/**
+ * Compares the frame time of pucks that update and collide one object at a time with that of pucks
+ * moved and collided by the {@link BatchedMovers} kernel, in a closed box with the bricks of the
+ * default level, and counts the pucks that end up in the same state on both paths.
+ * <p>
+ * Pucks do not collide with each other here, so the frame time is that of moving the pucks and
+ * bouncing them off the walls and bricks. A puck can still end up elsewhere when it touches two walls
+ * in one frame, as the two paths run those contacts in different orders.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+public final class BatchedMoversBenchmark {
+
+    private static final int[] PUCK_COUNTS = {10, 100, 1000};
+    private static final int WARMUP_FRAMES = 300;
+    private static final int MEASURED_FRAMES = 600;
+    private static final float DELTA_TIME = 1 / 60f;
+    private static final float WINDOW_WIDTH = 700;
+    private static final float WINDOW_HEIGHT = 500;
+    private static final float WALL_WIDTH = 15;
+    private static final int BRICK_ROWS = 7;
+    private static final int BRICKS_PER_ROW = 8;
+    private static final float BRICK_HEIGHT = 15;
+    private static final float BRICK_TOP = 50;
+    private static final float PUCK_RADIUS = 15;
+    private static final float PUCK_SPEED = 200;
+    private static final float PUCKS_TOP = 200;
+    private static final long SEED = 42;
+
+    private BatchedMoversBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark and prints a line per puck count.
+     *
+     * @param args Ignored.
+     */
+    public static void main(String[] args) {
+        System.out.println("pucks  per-object us/frame  |  batched us/frame  speedup  same state");
+        for (int puckCount : PUCK_COUNTS) {
+            BrickerGameObjectCollection perObject = new BrickerGameObjectCollection(null, false);
+            BrickerGameObjectCollection batched = new BrickerGameObjectCollection(null, true);
+            GameObject[] perObjectPucks = populate(perObject, puckCount);
+            GameObject[] batchedPucks = populate(batched, puckCount);
+            run(perObject, WARMUP_FRAMES);
+            run(batched, WARMUP_FRAMES);
+            long perObjectNanos = run(perObject, MEASURED_FRAMES);
+            long batchedNanos = run(batched, MEASURED_FRAMES);
+            int same = 0;
+            for (int i = 0; i < puckCount; i++) {
+                if (perObjectPucks[i].getTopLeftCorner().equals(batchedPucks[i].getTopLeftCorner()) &&
+                        perObjectPucks[i].getVelocity().equals(batchedPucks[i].getVelocity())) {
+                    same++;
+                }
+            }
+            System.out.printf("%5d  %19.1f  |  %16.1f  %6.1fx  %d/%d%n", puckCount,
+                    perObjectNanos / 1000.0 / MEASURED_FRAMES, batchedNanos / 1000.0 / MEASURED_FRAMES,
+                    (double) perObjectNanos / batchedNanos, same, puckCount);
+        }
+    }
+
+    /**
+     * Adds the four walls, the bricks and the pucks to a collection, with the same seed every time.
+     *
+     * @param gameObjects The collection to populate.
+     * @param puckCount   The number of pucks.
+     * @return The pucks.
+     */
+    private static GameObject[] populate(BrickerGameObjectCollection gameObjects, int puckCount) {
+        gameObjects.setCollisionFilter(
+                CollisionFilter.defaultRules().disallow(CollisionFilter.PUCK, CollisionFilter.PUCK));
+        gameObjects.addGameObject(new GameObject(new Vector2(-10, 0),
+                new Vector2(WALL_WIDTH, WINDOW_HEIGHT), null));
+        gameObjects.addGameObject(new GameObject(new Vector2(WINDOW_WIDTH - 10, 0),
+                new Vector2(WALL_WIDTH, WINDOW_HEIGHT), null));
+        gameObjects.addGameObject(new GameObject(Vector2.ZERO, new Vector2(WINDOW_WIDTH, WALL_WIDTH), null));
+        gameObjects.addGameObject(new GameObject(new Vector2(0, WINDOW_HEIGHT - WALL_WIDTH),
+                new Vector2(WINDOW_WIDTH, WALL_WIDTH), null));
+        float brickWidth = (WINDOW_WIDTH - 2 * WALL_WIDTH) / BRICKS_PER_ROW;
+        for (int row = 0; row < BRICK_ROWS; row++) {
+            for (int column = 0; column < BRICKS_PER_ROW; column++) {
+                gameObjects.addGameObject(new GameObject(
+                        new Vector2(WALL_WIDTH + column * brickWidth, BRICK_TOP + row * (BRICK_HEIGHT + 1)),
+                        new Vector2(brickWidth - 1, BRICK_HEIGHT), null), Layer.STATIC_OBJECTS);
+            }
+        }
+        Random random = new Random(SEED);
+        GameObject[] pucks = new GameObject[puckCount];
+        for (int i = 0; i < puckCount; i++) {
+            pucks[i] = new Puck(new Vector2(WALL_WIDTH + random.nextFloat() *
+                    (WINDOW_WIDTH - 2 * WALL_WIDTH - PUCK_RADIUS), PUCKS_TOP + random.nextFloat() *
+                    (WINDOW_HEIGHT - WALL_WIDTH - PUCKS_TOP - PUCK_RADIUS)),
+                    new Vector2(PUCK_RADIUS, PUCK_RADIUS), null, Sound.EMPTY_SOUND);
+            double angle = random.nextDouble() * 2 * Math.PI;
+            pucks[i].transform().setVelocity((float) Math.cos(angle) * PUCK_SPEED,
+                    (float) Math.sin(angle) * PUCK_SPEED);
+            gameObjects.addGameObject(pucks[i]);
+        }
+        return pucks;
+    }
+
+    /**
+     * Runs frames in the order of the game: update the objects, flush the layers, handle collisions.
+     *
+     * @param gameObjects The collection.
+     * @param frames      The number of frames to run.
+     * @return The total time spent in the frames, in nanoseconds.
+     */
+    private static long run(BrickerGameObjectCollection gameObjects, int frames) {
+        long start = System.nanoTime();
+        for (int frame = 0; frame < frames; frame++) {
+            gameObjects.updateObjects(DELTA_TIME);
+            gameObjects.update(DELTA_TIME);
+            gameObjects.handleCollisions();
+        }
+        return System.nanoTime() - start;
+    }
+}
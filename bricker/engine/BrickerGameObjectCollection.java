@@ -0,0 +1,606 @@
+package bricker.engine;
+
+import bricker.gameobjects.Puck;
+import bricker.telemetry.GameEventLog;
+import bricker.telemetry.SpawnEvent;
+import danogl.GameObject;
+import danogl.collisions.GameObjectCollection;
+import danogl.collisions.Layer;
+import danogl.components.CoordinateSpace;
+import danogl.gui.MessageHandler;
+import danogl.util.Vector2;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The game object collection used by Bricker.
+ * <p>
+ * On top of danogl's collection, it keeps running counts of the objects in every layer and of the live
+ * pucks, updated as objects are added and removed, and counts the colliding pairs it resolves. The
+ * counts are plain integers owned by the game thread, so reading them never scans the collection.
+ * <p>
+ * The collection also culls against the viewport. Objects in world coordinates are kept in a
+ * {@link SpatialGrid}, and those outside the viewport are not rendered. Inert objects, which are the
+ * bricks, the background and plain GameObjects such as walls and heart icons, also leave the update
+ * list while they are culled. The update list is maintained as visibility changes, so
+ * {@link #updateObjects} only visits the objects it must update.
+ * <p>
+ * Inert objects never move on their own, so they are added asleep and stay out of the update list
+ * altogether. A sleeping object wakes when it collides with another object or when
+ * {@link #wake} is called, and falls asleep again after an update in which it is at rest. The cost
+ * of a frame therefore follows the number of moving objects, not the size of the level.
+ * <p>
+ * Pairs within the DEFAULT layer, where the balls, pucks, hearts and paddles live, are taken off
+ * danogl's all-pairs pass and found by a {@link SweepAndPrune} broadphase instead. Every candidate
+ * pair, from either pass, is first checked against the {@link CollisionFilter} of the level, before
+ * any narrowphase test or collision callback.
+ * <p>
+ * Optionally, the balls and pucks are moved and bounced off the walls and bricks by a
+ * {@link BatchedMovers} kernel that works on arrays of their state, in place of their own updates and
+ * of danogl's pass over the DEFAULT and STATIC_OBJECTS layers.
+ * <p>
+ * Once the number of live pucks reaches a threshold, on a machine with more than one processor, the
+ * pucks that update themselves are updated by a {@link ParallelMoverUpdate} in fork-join chunks after
+ * the other objects. The chunks also test the pucks against the removal boundary, and the pucks are
+ * then moved in the grid, and removed if they fell below the boundary, one by one in the order of the
+ * update list.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+public class BrickerGameObjectCollection extends GameObjectCollection {
+
+    /**
+     * The layers whose objects are counted, in the order of {@link #getObjectCount} slots.
+     */
+    public static final int[] COUNTED_LAYERS = {Layer.BACKGROUND, Layer.STATIC_OBJECTS, Layer.DEFAULT,
+            Layer.FOREGROUND, Layer.UI};
+    private final int[] objectsPerLayer = new int[COUNTED_LAYERS.length];
+    private int livePucks = 0;
+    private long collidingPairs = 0;
+    private static final float CULLING_CELL_SIZE = 128;
+    private final Map<GameObject, TrackedObject> trackedObjects = new IdentityHashMap<>();
+    private final List<TrackedObject> updateList = new ArrayList<>();
+    private final List<TrackedObject> pendingUpdateSyncs = new ArrayList<>();
+    private final List<TrackedObject> pendingRemovals = new ArrayList<>();
+    private final SpatialGrid grid = new SpatialGrid(CULLING_CELL_SIZE, this::onVisibilityChanged);
+    private final SweepAndPrune broadphase = new SweepAndPrune(this::handleTrackedPair);
+    private CollisionFilter collisionFilter = CollisionFilter.defaultRules();
+    private long filteredPairs = 0;
+    private long nextTrackedId = 0;
+    private boolean isUpdatingObjects = false;
+    private int sleepingObjects = 0;
+    private GameEventLog eventLog;
+    private final BatchedMovers batchedMovers;
+    private final ParallelMoverUpdate parallelMovers = new ParallelMoverUpdate();
+    private int parallelUpdateThreshold = Integer.MAX_VALUE;
+    private float removalBoundaryY = Float.POSITIVE_INFINITY;
+
+    /**
+     * Construct a new BrickerGameObjectCollection instance, in which every object updates itself.
+     *
+     * @param messages The message handler used to report misuse of the collection.
+     */
+    public BrickerGameObjectCollection(MessageHandler messages) {
+        this(messages, false);
+    }
+
+    /**
+     * Construct a new BrickerGameObjectCollection instance.
+     *
+     * @param messages     The message handler used to report misuse of the collection.
+     * @param batchMovers  True to move the balls and pucks and collide them with the walls and bricks
+     *                     in a {@link BatchedMovers} kernel.
+     */
+    public BrickerGameObjectCollection(MessageHandler messages, boolean batchMovers) {
+        super(messages);
+        layers().shouldLayersCollide(Layer.DEFAULT, Layer.DEFAULT, false);
+        if (batchMovers) {
+            layers().shouldLayersCollide(Layer.DEFAULT, Layer.STATIC_OBJECTS, false);
+            batchedMovers = new BatchedMovers(this::handleTrackedPair, this::onContact, this::onMoved);
+        } else {
+            batchedMovers = null;
+        }
+    }
+
+    /**
+     * Adds a GameObject to a layer of the collection. Like danogl, which ignores an object that is
+     * already in the collection, the counts and logs only take objects that are new to it.
+     *
+     * @param gameObject The GameObject to add.
+     * @param layerId    The layer to add it to.
+     */
+    @Override
+    public void addGameObject(GameObject gameObject, int layerId) {
+        super.addGameObject(gameObject, layerId);
+        if (gameObject == null) {
+            return;
+        }
+        if (!trackedObjects.containsKey(gameObject)) {
+            int slot = layerSlot(layerId);
+            if (slot >= 0) {
+                objectsPerLayer[slot]++;
+            }
+            if (gameObject instanceof Puck) {
+                livePucks++;
+            }
+            if (eventLog != null) {
+                eventLog.spawn(gameObject);
+            }
+            SpawnEvent.record(gameObject, layerId, false);
+            TrackedObject tracked = new TrackedObject(gameObject, nextTrackedId++, layerId,
+                    isInert(gameObject, layerId), CollisionFilter.categoryOf(gameObject, layerId));
+            tracked.collisionMask = collisionFilter.maskOf(tracked.category);
+            trackedObjects.put(gameObject, tracked);
+            tracked.isAsleep = tracked.isInert && isAtRest(gameObject);
+            if (tracked.isAsleep) {
+                sleepingObjects++;
+            }
+            if (gameObject.getCoordinateSpace() == CoordinateSpace.WORLD_COORDINATES) {
+                grid.insert(tracked);
+            }
+            syncUpdateMembership(tracked);
+            if (layerId == Layer.DEFAULT) {
+                broadphase.insert(tracked);
+            }
+            if (batchedMovers != null && (layerId == Layer.DEFAULT || layerId == Layer.STATIC_OBJECTS)) {
+                batchedMovers.insert(tracked);
+            }
+        }
+    }
+
+    /**
+     * Removes a GameObject from a layer of the collection.
+     *
+     * @param gameObject The GameObject to remove.
+     * @param layerId    The layer to remove it from.
+     * @return True if the GameObject was in the layer, false otherwise.
+     */
+    @Override
+    public boolean removeGameObject(GameObject gameObject, int layerId) {
+        boolean wasRemoved = super.removeGameObject(gameObject, layerId);
+        if (wasRemoved) {
+            int slot = layerSlot(layerId);
+            if (slot >= 0) {
+                objectsPerLayer[slot]--;
+            }
+            if (gameObject instanceof Puck) {
+                livePucks--;
+            }
+            SpawnEvent.record(gameObject, layerId, true);
+            TrackedObject tracked = trackedObjects.get(gameObject);
+            if (tracked != null && tracked.layerId == layerId && !tracked.isRemoved) {
+                pendingRemovals.add(tracked);
+                if (tracked.isAsleep) {
+                    tracked.isAsleep = false;
+                    sleepingObjects--;
+                }
+                tracked.isRemoved = true;
+                grid.remove(tracked);
+                if (layerId == Layer.DEFAULT) {
+                    broadphase.markRemovalPending();
+                }
+                if (batchedMovers != null) {
+                    batchedMovers.markRemovalPending();
+                }
+                syncUpdateMembership(tracked);
+            }
+        }
+        return wasRemoved;
+    }
+
+    /**
+     * Applies the objects added and removed since the last call, in the layers, the broadphase and
+     * the kernel. The tracking entries of removed objects are kept until now, since danogl keeps the
+     * objects in their layers, and in its collision pass, until this flush.
+     *
+     * @param deltaTime The time elapsed, in seconds, since the last frame.
+     */
+    @Override
+    public void update(float deltaTime) {
+        super.update(deltaTime);
+        for (int i = 0; i < pendingRemovals.size(); i++) {
+            trackedObjects.remove(pendingRemovals.get(i).gameObject);
+        }
+        pendingRemovals.clear();
+        broadphase.flushChanges();
+        if (batchedMovers != null) {
+            batchedMovers.flushChanges();
+        }
+    }
+
+    /**
+     * Handles the collisions of the frame: danogl's pass over every pair of colliding layers, the
+     * kernel's pass over the movers and obstacles if there is one, then the broadphase over the
+     * DEFAULT layer.
+     */
+    @Override
+    public void handleCollisions() {
+        super.handleCollisions();
+        if (batchedMovers != null) {
+            batchedMovers.handleCollisions();
+        }
+        broadphase.handleCollisions();
+    }
+
+    /**
+     * Handles a candidate pair from danogl's pass, if the collision filter lets it through. Objects
+     * removed earlier in the frame collide with nothing.
+     *
+     * @param gameObject1 The first GameObject.
+     * @param gameObject2 The second GameObject.
+     * @return True if the pair collides, false otherwise.
+     */
+    @Override
+    protected boolean handlePair(GameObject gameObject1, GameObject gameObject2) {
+        TrackedObject tracked1 = trackedObjects.get(gameObject1);
+        TrackedObject tracked2 = trackedObjects.get(gameObject2);
+        if (tracked1 != null && tracked2 != null) {
+            return handleTrackedPair(tracked1, tracked2);
+        }
+        return resolvePair(gameObject1, gameObject2);
+    }
+
+    /**
+     * Handles a candidate pair, if the collision filter lets it through.
+     *
+     * @param tracked1 The first object.
+     * @param tracked2 The second object.
+     * @return True if the pair collides, false otherwise.
+     */
+    private boolean handleTrackedPair(TrackedObject tracked1, TrackedObject tracked2) {
+        if (tracked1.isRemoved || tracked2.isRemoved) {
+            return false;
+        }
+        if ((tracked1.isBatchedMover && tracked2.isBatchedObstacle) ||
+                (tracked2.isBatchedMover && tracked1.isBatchedObstacle)) {
+            // The kernel has already handled the pair.
+            return false;
+        }
+        if (!tracked1.isAllowedToCollideWith(tracked2)) {
+            filteredPairs++;
+            return false;
+        }
+        return resolvePair(tracked1.gameObject, tracked2.gameObject);
+    }
+
+    /**
+     * Runs danogl's collision detection and callbacks on a pair, counting the pairs that collide and
+     * waking them.
+     *
+     * @param gameObject1 The first GameObject.
+     * @param gameObject2 The second GameObject.
+     * @return True if the pair collides, false otherwise.
+     */
+    private boolean resolvePair(GameObject gameObject1, GameObject gameObject2) {
+        boolean isColliding = super.handlePair(gameObject1, gameObject2);
+        if (isColliding) {
+            collidingPairs++;
+            wake(gameObject1);
+            wake(gameObject2);
+        }
+        return isColliding;
+    }
+
+    /**
+     * Counts a mover and obstacle in contact as a colliding pair, and wakes them.
+     *
+     * @param mover    The mover.
+     * @param obstacle The obstacle.
+     */
+    private void onContact(TrackedObject mover, TrackedObject obstacle) {
+        collidingPairs++;
+        setAsleep(mover, false);
+        setAsleep(obstacle, false);
+    }
+
+    /**
+     * Called by the kernel when it moved a mover.
+     *
+     * @param tracked The mover.
+     */
+    private void onMoved(TrackedObject tracked) {
+        if (tracked.isInGrid) {
+            grid.move(tracked);
+        }
+    }
+
+    /**
+     * Updates every object in the update list, in place of iterating the whole collection. Objects
+     * that become visible or culled during the pass join or leave the list once it is over. The
+     * movers of the kernel, if there is one, are moved by the kernel instead, and the pucks are
+     * updated in parallel once there are enough of them.
+     *
+     * @param deltaTime The time elapsed, in seconds, since the last frame.
+     */
+    public void updateObjects(float deltaTime) {
+        isUpdatingObjects = true;
+        if (batchedMovers != null) {
+            batchedMovers.integrate(deltaTime);
+        }
+        boolean isParallel = livePucks >= parallelUpdateThreshold;
+        for (int i = 0; i < updateList.size(); i++) {
+            TrackedObject tracked = updateList.get(i);
+            if (tracked.isRemoved || tracked.isBatchedMover) {
+                continue;
+            }
+            GameObject gameObject = tracked.gameObject;
+            if (isParallel && gameObject instanceof Puck) {
+                parallelMovers.add(tracked);
+                continue;
+            }
+            gameObject.update(deltaTime);
+            if (tracked.isInGrid) {
+                grid.move(tracked);
+            }
+            if (tracked.isInert && isAtRest(gameObject)) {
+                setAsleep(tracked, true);
+            }
+        }
+        if (isParallel) {
+            updateParallelMovers(deltaTime);
+        }
+        isUpdatingObjects = false;
+        for (int i = 0; i < pendingUpdateSyncs.size(); i++) {
+            TrackedObject tracked = pendingUpdateSyncs.get(i);
+            tracked.isPendingUpdateSync = false;
+            syncUpdateMembership(tracked);
+        }
+        pendingUpdateSyncs.clear();
+    }
+
+    /**
+     * Updates the pucks gathered by {@link #updateObjects} in parallel, then moves them in the grid and
+     * removes those below the removal boundary, in the order they were gathered.
+     *
+     * @param deltaTime The time elapsed, in seconds, since the last frame.
+     */
+    private void updateParallelMovers(float deltaTime) {
+        parallelMovers.run(deltaTime, removalBoundaryY);
+        for (int i = 0; i < parallelMovers.size(); i++) {
+            TrackedObject tracked = parallelMovers.get(i);
+            if (tracked.isInGrid) {
+                grid.move(tracked);
+            }
+            if (parallelMovers.isBelowBoundary(i)) {
+                removeGameObject(tracked.gameObject, tracked.layerId);
+            }
+        }
+        parallelMovers.clear();
+    }
+
+    /**
+     * Sets the number of live pucks from which the pucks are updated in parallel. By default the pucks
+     * are always updated one after the other: the threshold depends on the machine, and should be taken
+     * from a run of {@link ParallelUpdateBenchmark} on it.
+     *
+     * @param threshold The number of live pucks, or {@link Integer#MAX_VALUE} to always update them
+     *                  one after the other.
+     */
+    public void setParallelUpdateThreshold(int threshold) {
+        this.parallelUpdateThreshold = threshold;
+    }
+
+    /**
+     * Sets the y coordinate below which a puck updated in parallel is removed, as soon as its center
+     * passes it. Pucks updated one after the other are not removed by the collection.
+     *
+     * @param removalBoundaryY The y coordinate, in world coordinates.
+     */
+    public void setRemovalBoundary(float removalBoundaryY) {
+        this.removalBoundaryY = removalBoundaryY;
+    }
+
+    /**
+     * Wakes a sleeping GameObject, so it is updated from the next frame on, until it is at rest again.
+     * Does nothing if the GameObject is awake or not in the collection.
+     *
+     * @param gameObject The GameObject to wake.
+     */
+    public void wake(GameObject gameObject) {
+        TrackedObject tracked = trackedObjects.get(gameObject);
+        if (tracked != null) {
+            setAsleep(tracked, false);
+        }
+    }
+
+    /**
+     * Sets the viewport objects are culled against, in world coordinates.
+     *
+     * @param minX The left edge of the viewport.
+     * @param minY The top edge of the viewport.
+     * @param maxX The right edge of the viewport.
+     * @param maxY The bottom edge of the viewport.
+     */
+    public void setViewport(float minX, float minY, float maxX, float maxY) {
+        grid.setViewport(minX, minY, maxX, maxY);
+    }
+
+    /**
+     * @param gameObject A GameObject in the collection.
+     * @return True if the GameObject is outside the viewport and should not be rendered.
+     */
+    public boolean isCulled(GameObject gameObject) {
+        TrackedObject tracked = trackedObjects.get(gameObject);
+        return tracked != null && !tracked.isVisible;
+    }
+
+    /**
+     * @param gameObject A GameObject.
+     * @return True if the GameObject was removed during this frame, so that it is still in its layer
+     * until the next flush but no longer part of the game.
+     */
+    public boolean isRemovalPending(GameObject gameObject) {
+        TrackedObject tracked = trackedObjects.get(gameObject);
+        return tracked != null && tracked.isRemoved;
+    }
+
+    /**
+     * @return The number of objects updated every frame.
+     */
+    public int getUpdatedObjectCount() {
+        return updateList.size();
+    }
+
+    /**
+     * @return The number of objects that are asleep.
+     */
+    public int getSleepingObjectCount() {
+        return sleepingObjects;
+    }
+
+    /**
+     * Sets the rules of which kinds of objects collide, for the objects already in the collection and
+     * for those added later.
+     *
+     * @param collisionFilter The rules.
+     */
+    public void setCollisionFilter(CollisionFilter collisionFilter) {
+        this.collisionFilter = collisionFilter;
+        for (TrackedObject tracked : trackedObjects.values()) {
+            tracked.collisionMask = collisionFilter.maskOf(tracked.category);
+        }
+    }
+
+    /**
+     * @return The total number of candidate pairs the collision filter skipped.
+     */
+    public long getFilteredPairs() {
+        return batchedMovers == null ? filteredPairs : filteredPairs + batchedMovers.getFilteredPairs();
+    }
+
+    /**
+     * @return The total number of DEFAULT layer pairs the broadphase handed to the narrowphase.
+     */
+    public long getBroadphasePairsTested() {
+        return broadphase.getPairsTested();
+    }
+
+    /**
+     * @return The duration of the last broadphase pass, in nanoseconds, including the pair handling.
+     */
+    public long getLastBroadphaseNanos() {
+        return broadphase.getLastSweepNanos();
+    }
+
+    /**
+     * Sets the log that records the objects added to the collection.
+     *
+     * @param eventLog The log, or null to stop logging.
+     */
+    public void setEventLog(GameEventLog eventLog) {
+        this.eventLog = eventLog;
+    }
+
+    /**
+     * @param slot The index of the layer in {@link #COUNTED_LAYERS}.
+     * @return The number of objects in that layer.
+     */
+    public int getObjectCount(int slot) {
+        return objectsPerLayer[slot];
+    }
+
+    /**
+     * @return The number of pucks in the game.
+     */
+    public int getLivePucks() {
+        return livePucks;
+    }
+
+    /**
+     * @return The total number of colliding pairs resolved since the collection was created.
+     */
+    public long getCollidingPairs() {
+        return collidingPairs;
+    }
+
+    /**
+     * Called by the grid when an object entered or left the viewport.
+     *
+     * @param tracked The object.
+     */
+    private void onVisibilityChanged(TrackedObject tracked) {
+        syncUpdateMembership(tracked);
+    }
+
+    /**
+     * Puts an object to sleep or wakes it, moving it out of or into the update list.
+     *
+     * @param tracked  The object.
+     * @param isAsleep True to put the object to sleep, false to wake it.
+     */
+    private void setAsleep(TrackedObject tracked, boolean isAsleep) {
+        if (tracked.isAsleep == isAsleep || tracked.isRemoved) {
+            return;
+        }
+        tracked.isAsleep = isAsleep;
+        sleepingObjects += isAsleep ? 1 : -1;
+        syncUpdateMembership(tracked);
+    }
+
+    /**
+     * Adds an object to, or removes it from, the update list, according to its state. While the list
+     * is being updated the change is deferred to the end of the pass.
+     *
+     * @param tracked The object.
+     */
+    private void syncUpdateMembership(TrackedObject tracked) {
+        if (isUpdatingObjects) {
+            if (!tracked.isPendingUpdateSync) {
+                tracked.isPendingUpdateSync = true;
+                pendingUpdateSyncs.add(tracked);
+            }
+            return;
+        }
+        boolean isInUpdateList = tracked.updateIndex >= 0;
+        if (tracked.shouldUpdate() == isInUpdateList) {
+            return;
+        }
+        if (isInUpdateList) {
+            TrackedObject last = updateList.remove(updateList.size() - 1);
+            if (last != tracked) {
+                updateList.set(tracked.updateIndex, last);
+                last.updateIndex = tracked.updateIndex;
+            }
+            tracked.updateIndex = -1;
+        } else {
+            tracked.updateIndex = updateList.size();
+            updateList.add(tracked);
+        }
+    }
+
+    /**
+     * @param gameObject A GameObject.
+     * @param layerId    The layer it is in.
+     * @return True if updating the GameObject has no effect on the game while it cannot be seen: it is
+     * a brick or background, or a plain GameObject without behaviour of its own.
+     */
+    private static boolean isInert(GameObject gameObject, int layerId) {
+        return layerId == Layer.STATIC_OBJECTS || layerId == Layer.BACKGROUND ||
+                gameObject.getClass() == GameObject.class;
+    }
+
+    /**
+     * @param gameObject A GameObject.
+     * @return True if the GameObject is not moving, false otherwise.
+     */
+    private static boolean isAtRest(GameObject gameObject) {
+        Vector2 velocity = gameObject.getVelocity();
+        return velocity.x() == 0 && velocity.y() == 0;
+    }
+
+    /**
+     * @param layerId A layer id.
+     * @return The index of the layer in {@link #COUNTED_LAYERS}, or -1 if it is not counted.
+     */
+    private static int layerSlot(int layerId) {
+        for (int slot = 0; slot < COUNTED_LAYERS.length; slot++) {
+            if (COUNTED_LAYERS[slot] == layerId) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+}
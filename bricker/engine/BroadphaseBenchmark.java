@@ -0,0 +1,122 @@
+package bricker.engine;
+
+import danogl.GameObject;
+import danogl.collisions.GameObjectCollection;
+import danogl.util.Vector2;
+
+import java.util.Random;
+
+/**
+ * Compares the pair tests and collision time of danogl's all-pairs pass with those of
+ * {@link BrickerGameObjectCollection}'s broadphase, for a DEFAULT layer of bouncing pucks, a paddle and
+ * the three walls of the default window.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+public final class BroadphaseBenchmark {
+
+    private static final int[] PUCK_COUNTS = {10, 100, 1000};
+    private static final int WARMUP_FRAMES = 200;
+    private static final int MEASURED_FRAMES = 600;
+    private static final float DELTA_TIME = 1 / 60f;
+    private static final float WINDOW_WIDTH = 700;
+    private static final float WINDOW_HEIGHT = 500;
+    private static final float WALL_WIDTH = 15;
+    private static final float PUCK_RADIUS = 15;
+    private static final float PUCK_SPEED = 200;
+    private static final long SEED = 42;
+
+    private BroadphaseBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark and prints a line per puck count.
+     *
+     * @param args Ignored.
+     */
+    public static void main(String[] args) {
+        System.out.println("pucks  all-pairs tests/frame  us/frame  |  sweep tests/frame  us/frame");
+        for (int puckCount : PUCK_COUNTS) {
+            long[] allPairsTests = new long[1];
+            GameObjectCollection allPairs = new GameObjectCollection(null) {
+                @Override
+                protected boolean handlePair(GameObject gameObject1, GameObject gameObject2) {
+                    allPairsTests[0]++;
+                    return super.handlePair(gameObject1, gameObject2);
+                }
+            };
+            BrickerGameObjectCollection sweep = new BrickerGameObjectCollection(null);
+            GameObject[] allPairsPucks = populate(allPairs, puckCount);
+            GameObject[] sweepPucks = populate(sweep, puckCount);
+            run(allPairs, allPairsPucks, WARMUP_FRAMES);
+            run(sweep, sweepPucks, WARMUP_FRAMES);
+            allPairsTests[0] = 0;
+            long sweepTestsBefore = sweep.getBroadphasePairsTested();
+            long allPairsNanos = run(allPairs, allPairsPucks, MEASURED_FRAMES);
+            long sweepNanos = run(sweep, sweepPucks, MEASURED_FRAMES);
+            long sweepTests = sweep.getBroadphasePairsTested() - sweepTestsBefore;
+            System.out.printf("%5d  %21d  %8.1f  |  %17d  %8.1f%n", puckCount,
+                    allPairsTests[0] / MEASURED_FRAMES, allPairsNanos / 1000.0 / MEASURED_FRAMES,
+                    sweepTests / MEASURED_FRAMES, sweepNanos / 1000.0 / MEASURED_FRAMES);
+        }
+    }
+
+    /**
+     * Adds the walls, a paddle and the pucks to a collection, with the same seed every time.
+     *
+     * @param gameObjects The collection to populate.
+     * @param puckCount   The number of pucks.
+     * @return The pucks.
+     */
+    private static GameObject[] populate(GameObjectCollection gameObjects, int puckCount) {
+        gameObjects.addGameObject(new GameObject(new Vector2(-10, 0),
+                new Vector2(WALL_WIDTH, WINDOW_HEIGHT), null));
+        gameObjects.addGameObject(new GameObject(new Vector2(WINDOW_WIDTH - 10, 0),
+                new Vector2(WALL_WIDTH, WINDOW_HEIGHT), null));
+        gameObjects.addGameObject(new GameObject(Vector2.ZERO, new Vector2(WINDOW_WIDTH, WALL_WIDTH), null));
+        gameObjects.addGameObject(new GameObject(new Vector2(WINDOW_WIDTH / 2 - 50, WINDOW_HEIGHT - 30),
+                new Vector2(100, 15), null));
+        Random random = new Random(SEED);
+        GameObject[] pucks = new GameObject[puckCount];
+        for (int i = 0; i < puckCount; i++) {
+            pucks[i] = new GameObject(new Vector2(WALL_WIDTH + random.nextFloat() *
+                    (WINDOW_WIDTH - 2 * WALL_WIDTH - PUCK_RADIUS), WALL_WIDTH + random.nextFloat() *
+                    (WINDOW_HEIGHT - 2 * WALL_WIDTH - PUCK_RADIUS)), new Vector2(PUCK_RADIUS, PUCK_RADIUS), null);
+            double angle = random.nextDouble() * 2 * Math.PI;
+            pucks[i].transform().setVelocity((float) Math.cos(angle) * PUCK_SPEED,
+                    (float) Math.sin(angle) * PUCK_SPEED);
+            gameObjects.addGameObject(pucks[i]);
+        }
+        return pucks;
+    }
+
+    /**
+     * Moves the pucks, bouncing them inside the window, and handles the collisions of every frame.
+     *
+     * @param gameObjects The collection.
+     * @param pucks       The pucks in the collection.
+     * @param frames      The number of frames to run.
+     * @return The total time spent handling collisions, in nanoseconds.
+     */
+    private static long run(GameObjectCollection gameObjects, GameObject[] pucks, int frames) {
+        long collisionNanos = 0;
+        for (int frame = 0; frame < frames; frame++) {
+            for (GameObject puck : pucks) {
+                float x = puck.getTopLeftCorner().x() + puck.getVelocity().x() * DELTA_TIME;
+                float y = puck.getTopLeftCorner().y() + puck.getVelocity().y() * DELTA_TIME;
+                if (x < 0 || x > WINDOW_WIDTH - PUCK_RADIUS) {
+                    puck.transform().setVelocityX(-puck.getVelocity().x());
+                }
+                if (y < 0 || y > WINDOW_HEIGHT - PUCK_RADIUS) {
+                    puck.transform().setVelocityY(-puck.getVelocity().y());
+                }
+                puck.transform().setTopLeftCorner(x, y);
+            }
+            gameObjects.update(DELTA_TIME);
+            long start = System.nanoTime();
+            gameObjects.handleCollisions();
+            collisionNanos += System.nanoTime() - start;
+        }
+        return collisionNanos;
+    }
+}
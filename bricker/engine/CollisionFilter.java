@@ -0,0 +1,181 @@
+package bricker.engine;
+
+import bricker.gameobjects.*;
+import danogl.GameObject;
+import danogl.collisions.Layer;
+
+/**
+ * Declarative rules of which kinds of objects may collide with each other.
+ * <p>
+ * Every kind of object is a category bit, and every category has a mask of the categories it collides
+ * with. A pair is passed on to collision detection only if the category of each object is in the
+ * mask of the other, which costs two ANDs. Objects that are of none of the kinds have no category and
+ * are never filtered out. The rules are symmetric, and each level may use its own.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+public final class CollisionFilter {
+
+    /**
+     * Category of the original ball.
+     */
+    public static final int BALL = 1;
+    /**
+     * Category of a puck.
+     */
+    public static final int PUCK = 1 << 1;
+    /**
+     * Category of a brick.
+     */
+    public static final int BRICK = 1 << 2;
+    /**
+     * Category of a wall.
+     */
+    public static final int WALL = 1 << 3;
+    /**
+     * Category of the original paddle.
+     */
+    public static final int PADDLE = 1 << 4;
+    /**
+     * Category of the extra paddle.
+     */
+    public static final int EXTRA_PADDLE = 1 << 5;
+    /**
+     * Category of a falling heart.
+     */
+    public static final int HEART = 1 << 6;
+    /**
+     * Every category.
+     */
+    public static final int ALL = (1 << 7) - 1;
+    private static final String[] CATEGORY_NAMES = {"ball", "puck", "brick", "wall", "paddle",
+            "extra_paddle", "heart"};
+    private static final String RULE_SEPARATOR = ",";
+    private static final String PAIR_SEPARATOR = ":";
+    private final int[] masks = new int[CATEGORY_NAMES.length];
+
+    /**
+     * Construct a new CollisionFilter under which every category collides with every other.
+     */
+    public CollisionFilter() {
+        for (int i = 0; i < masks.length; i++) {
+            masks[i] = ALL;
+        }
+    }
+
+    /**
+     * @return The rules of the original game, in which falling hearts collide with the original paddle
+     * only and every other pair of kinds collides.
+     */
+    public static CollisionFilter defaultRules() {
+        return new CollisionFilter().disallow(HEART, ALL).allow(HEART, PADDLE);
+    }
+
+    /**
+     * Parses a list of pairs of kinds that do not collide, on top of the default rules, such as
+     * {@code "puck:puck,puck:heart"}. The kinds are ball, puck, brick, wall, paddle, extra_paddle and
+     * heart.
+     *
+     * @param rules The pairs, separated by commas. May be empty.
+     * @return The rules.
+     * @throws IllegalArgumentException If a pair or a kind is malformed.
+     */
+    public static CollisionFilter parse(String rules) {
+        CollisionFilter filter = defaultRules();
+        for (String rule : rules.split(RULE_SEPARATOR)) {
+            if (rule.trim().isEmpty()) {
+                continue;
+            }
+            String[] kinds = rule.split(PAIR_SEPARATOR);
+            if (kinds.length != 2) {
+                throw new IllegalArgumentException("Not a pair of kinds: " + rule);
+            }
+            filter.disallow(categoryNamed(kinds[0].trim()), categoryNamed(kinds[1].trim()));
+        }
+        return filter;
+    }
+
+    /**
+     * Lets every category in the first set collide with every category in the second.
+     *
+     * @param categories      A set of categories.
+     * @param otherCategories Another set of categories.
+     * @return This filter.
+     */
+    public CollisionFilter allow(int categories, int otherCategories) {
+        for (int i = 0; i < masks.length; i++) {
+            if ((categories & (1 << i)) != 0) {
+                masks[i] |= otherCategories;
+            }
+            if ((otherCategories & (1 << i)) != 0) {
+                masks[i] |= categories;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Stops every category in the first set from colliding with every category in the second.
+     *
+     * @param categories      A set of categories.
+     * @param otherCategories Another set of categories.
+     * @return This filter.
+     */
+    public CollisionFilter disallow(int categories, int otherCategories) {
+        for (int i = 0; i < masks.length; i++) {
+            if ((categories & (1 << i)) != 0) {
+                masks[i] &= ~otherCategories;
+            }
+            if ((otherCategories & (1 << i)) != 0) {
+                masks[i] &= ~categories;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @param category A single category, or 0 for an object of none of the kinds.
+     * @return The categories it collides with.
+     */
+    public int maskOf(int category) {
+        return category == 0 ? ALL : masks[Integer.numberOfTrailingZeros(category)];
+    }
+
+    /**
+     * @param gameObject A GameObject.
+     * @param layerId    The layer it is in.
+     * @return The category of the GameObject, or 0 if it is of none of the kinds.
+     */
+    public static int categoryOf(GameObject gameObject, int layerId) {
+        if (gameObject instanceof Ball) {
+            return BALL;
+        } else if (gameObject instanceof Puck) {
+            return PUCK;
+        } else if (gameObject instanceof Brick) {
+            return BRICK;
+        } else if (gameObject instanceof ExtraPaddle) {
+            return EXTRA_PADDLE;
+        } else if (gameObject instanceof Paddle) {
+            return PADDLE;
+        } else if (gameObject instanceof Heart) {
+            return HEART;
+        } else if (layerId == Layer.DEFAULT && gameObject.getClass() == GameObject.class) {
+            return WALL;
+        }
+        return 0;
+    }
+
+    /**
+     * @param name The name of a kind.
+     * @return Its category.
+     * @throws IllegalArgumentException If there is no such kind.
+     */
+    private static int categoryNamed(String name) {
+        for (int i = 0; i < CATEGORY_NAMES.length; i++) {
+            if (CATEGORY_NAMES[i].equals(name)) {
+                return 1 << i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown kind of object: " + name);
+    }
+}
@@ -0,0 +1,107 @@
+package bricker.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, lock-free queue of paddle commands, from one producer thread to one consumer thread.
+ * <p>
+ * Commands are kept in parallel arrays indexed by sequence number, with each command stamped with the
+ * time it was received. The producer publishes a command by advancing the tail after writing it, and
+ * the consumer frees a slot by advancing the head after reading it, so neither side takes a lock or
+ * allocates. Each side caches the other's counter and reads it again only when the cached value says
+ * the queue is full or empty.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+public final class CommandQueue {
+
+    /**
+     * Returned by {@link #poll} when the queue is empty.
+     */
+    public static final int NO_COMMAND = Integer.MIN_VALUE;
+    private final byte[] commands;
+    private final long[] receivedNanos;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private long producerCachedHead = 0;
+    private long consumerCachedTail = 0;
+    private long lastReceivedNanos = 0;
+
+    /**
+     * Construct a new, empty CommandQueue.
+     *
+     * @param capacity The most commands the queue holds, rounded up to a power of two.
+     */
+    public CommandQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.commands = new byte[size];
+        this.receivedNanos = new long[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Adds a command. Called by the producer thread only.
+     *
+     * @param command The command.
+     * @param nanos   The {@link System#nanoTime} at which the command was received.
+     * @return True if the command was added, false if the queue is full.
+     */
+    public boolean offer(byte command, long nanos) {
+        long sequence = tail.get();
+        if (sequence - producerCachedHead >= commands.length) {
+            producerCachedHead = head.getAcquire();
+            if (sequence - producerCachedHead >= commands.length) {
+                return false;
+            }
+        }
+        int slot = (int) sequence & mask;
+        commands[slot] = command;
+        receivedNanos[slot] = nanos;
+        tail.setRelease(sequence + 1);
+        return true;
+    }
+
+    /**
+     * Removes the oldest command. Called by the consumer thread only.
+     *
+     * @return The command, or {@link #NO_COMMAND} if the queue is empty.
+     */
+    public int poll() {
+        long sequence = head.get();
+        if (sequence >= consumerCachedTail) {
+            consumerCachedTail = tail.getAcquire();
+            if (sequence >= consumerCachedTail) {
+                return NO_COMMAND;
+            }
+        }
+        int slot = (int) sequence & mask;
+        byte command = commands[slot];
+        lastReceivedNanos = receivedNanos[slot];
+        head.setRelease(sequence + 1);
+        return command;
+    }
+
+    /**
+     * @return The {@link System#nanoTime} at which the last polled command was received. Called by the
+     * consumer thread only.
+     */
+    public long getLastReceivedNanos() {
+        return lastReceivedNanos;
+    }
+
+    /**
+     * @return The number of commands in the queue. Exact on the consumer thread, and a snapshot
+     * elsewhere.
+     */
+    public int size() {
+        return (int) (tail.getAcquire() - head.getAcquire());
+    }
+
+    /**
+     * @return The most commands the queue holds.
+     */
+    public int capacity() {
+        return commands.length;
+    }
+}
@@ -0,0 +1,154 @@
+package bricker.engine;
+
+/**
+ * The central scheduler of timed and count-limited effects, such as power-ups that wear off.
+ * <p>
+ * An effect expires after a number of ticks, seconds or events, and then runs its action. Each clock
+ * is a {@link TimingWheel}: ticks advance once per frame, seconds advance by the frame's elapsed time
+ * at millisecond resolution, and every event channel advances when an event is posted to it.
+ * Scheduling and cancelling are constant time, and pending effects cost nothing per frame until they
+ * fire. The scheduler is owned by the game thread.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+public class EffectScheduler {
+
+    /**
+     * Event channel posted to whenever the original ball collides with something.
+     */
+    public static final int BALL_COLLISION = 0;
+    /**
+     * Event channel posted to whenever the extra paddle collides with something.
+     */
+    public static final int EXTRA_PADDLE_COLLISION = 1;
+    private static final int EVENT_CHANNELS = 2;
+    private static final float MILLIS_PER_SECOND = 1000f;
+    private final TimingWheel ticks = new TimingWheel();
+    private final TimingWheel millis = new TimingWheel();
+    private final TimingWheel[] events = new TimingWheel[EVENT_CHANNELS];
+    private float unappliedMillis = 0;
+
+    /**
+     * Construct a new EffectScheduler instance, with no pending effects.
+     */
+    public EffectScheduler() {
+        for (int channel = 0; channel < EVENT_CHANNELS; channel++) {
+            events[channel] = new TimingWheel();
+        }
+    }
+
+    /**
+     * Schedules an effect to expire after the given number of frames.
+     *
+     * @param tickCount The number of frames, at least 1.
+     * @param action    The action to run on expiry.
+     * @return The effect, which may be cancelled until it expires.
+     */
+    public Effect afterTicks(long tickCount, Runnable action) {
+        return schedule(ticks, tickCount, action);
+    }
+
+    /**
+     * Schedules an effect to expire after the given time, measured in game time.
+     *
+     * @param seconds The time, rounded up to whole milliseconds.
+     * @param action  The action to run on expiry.
+     * @return The effect, which may be cancelled until it expires.
+     */
+    public Effect afterSeconds(float seconds, Runnable action) {
+        return schedule(millis, (long) Math.ceil(seconds * MILLIS_PER_SECOND), action);
+    }
+
+    /**
+     * Schedules an effect to expire after the given number of events are posted to a channel.
+     *
+     * @param channel    The event channel.
+     * @param eventCount The number of events, at least 1.
+     * @param action     The action to run on expiry.
+     * @return The effect, which may be cancelled until it expires.
+     */
+    public Effect afterEvents(int channel, long eventCount, Runnable action) {
+        return schedule(events[channel], eventCount, action);
+    }
+
+    /**
+     * Advances the tick and time clocks by one frame, running the effects that expire.
+     *
+     * @param deltaTime The time elapsed, in seconds, since the last frame.
+     */
+    public void onTick(float deltaTime) {
+        ticks.advance();
+        unappliedMillis += deltaTime * MILLIS_PER_SECOND;
+        while (unappliedMillis >= 1) {
+            unappliedMillis--;
+            millis.advance();
+        }
+    }
+
+    /**
+     * Posts an event to a channel, running the effects that expire.
+     *
+     * @param channel The event channel.
+     */
+    public void onEvent(int channel) {
+        events[channel].advance();
+    }
+
+    /**
+     * @return The number of effects that have not yet expired or been cancelled.
+     */
+    public int getPendingEffects() {
+        int pending = ticks.pending() + millis.pending();
+        for (TimingWheel wheel : events) {
+            pending += wheel.pending();
+        }
+        return pending;
+    }
+
+    private static Effect schedule(TimingWheel wheel, long delay, Runnable action) {
+        Effect effect = new Effect(action, wheel.now() + Math.max(1, delay));
+        wheel.schedule(effect);
+        return effect;
+    }
+
+    /**
+     * A scheduled effect, linked into the slot of a timing wheel until it expires or is cancelled.
+     */
+    public static final class Effect {
+        private final Runnable action;
+        final long deadline;
+        TimingWheel wheel;
+        int level;
+        int slot;
+        Effect previous;
+        Effect next;
+
+        private Effect(Runnable action, long deadline) {
+            this.action = action;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels the effect, so its action never runs. Does nothing if it already expired.
+         */
+        public void cancel() {
+            if (wheel != null) {
+                wheel.cancel(this);
+            }
+        }
+
+        /**
+         * @return True if the effect has neither expired nor been cancelled, false otherwise.
+         */
+        public boolean isPending() {
+            return wheel != null;
+        }
+
+        /**
+         * Runs the action of the effect.
+         */
+        void fire() {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package bricker.engine;
+
+import bricker.telemetry.DegradationEvent;
+import bricker.telemetry.GameEventLog;
+
+import java.util.Arrays;
+
+/**
+ * Sheds work when frames run over budget, and restores it when they recover.
+ * <p>
+ * The game thread reports the work time of every frame. Over a moving window of
+ * {@value #WINDOW_FRAMES} frames the governor takes the 95th percentile, and every
+ * {@value #EVALUATE_INTERVAL} frames it degrades by one level when that percentile is over the
+ * budget, or recovers by one level when it is under {@value #RECOVERY_FRACTION} of the budget. After
+ * every step the window starts over, so the next decision only sees frames played at the new level.
+ * The levels shed load in priority order, each one keeping the cuts of the levels below it:
+ * <ol>
+ *     <li>{@link #LEVEL_COALESCE_SOUNDS}: at most one collision sound is played per frame.</li>
+ *     <li>{@link #LEVEL_CAP_PUCKS}: no new pucks are spawned while {@value #PUCK_CAP} pucks are in
+ *     play.</li>
+ *     <li>{@link #LEVEL_SUSPEND_CAMERA}: the following camera is removed until the governor recovers
+ *     below this level.</li>
+ *     <li>{@link #LEVEL_DROP_DECORATIONS}: collision sounds are skipped and the background is not
+ *     rendered.</li>
+ * </ol>
+ * Every step is recorded in the gameplay event log and as a Flight Recorder event. The governor is
+ * owned by the game thread.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+public class FrameBudgetGovernor {
+
+    /**
+     * Full fidelity.
+     */
+    public static final int LEVEL_FULL = 0;
+    /**
+     * At most one collision sound per frame.
+     */
+    public static final int LEVEL_COALESCE_SOUNDS = 1;
+    /**
+     * A cap on the pucks in play.
+     */
+    public static final int LEVEL_CAP_PUCKS = 2;
+    /**
+     * No following camera.
+     */
+    public static final int LEVEL_SUSPEND_CAMERA = 3;
+    /**
+     * No collision sounds and no background.
+     */
+    public static final int LEVEL_DROP_DECORATIONS = 4;
+    private static final int WINDOW_FRAMES = 60;
+    private static final int EVALUATE_INTERVAL = 15;
+    private static final double PERCENTILE = 0.95;
+    private static final double RECOVERY_FRACTION = 0.7;
+    private static final int PUCK_CAP = 16;
+    private static final long NANOS_PER_MICRO = 1000;
+    private final long budgetNanos;
+    private final BrickerGameObjectCollection gameObjects;
+    private final GameEventLog eventLog;
+    private final long[] window = new long[WINDOW_FRAMES];
+    private final long[] sorted = new long[WINDOW_FRAMES];
+    private int framesInWindow = 0;
+    private int level = LEVEL_FULL;
+    private boolean wasSoundPlayed = false;
+
+    /**
+     * Construct a new FrameBudgetGovernor instance, at full fidelity.
+     *
+     * @param budgetNanos The work time of a frame, in nanoseconds, above which load is shed.
+     * @param gameObjects The collection of the game, whose live pucks are capped.
+     * @param eventLog    The log to record steps in, or null if steps are not logged.
+     */
+    public FrameBudgetGovernor(long budgetNanos, BrickerGameObjectCollection gameObjects,
+                               GameEventLog eventLog) {
+        this.budgetNanos = budgetNanos;
+        this.gameObjects = gameObjects;
+        this.eventLog = eventLog;
+    }
+
+    /**
+     * Records the work time of a frame and degrades or recovers a level if it is time to.
+     *
+     * @param workNanos The time spent updating and rendering the frame, in nanoseconds.
+     * @return The level for the next frame.
+     */
+    public int onFrame(long workNanos) {
+        wasSoundPlayed = false;
+        window[framesInWindow % WINDOW_FRAMES] = workNanos;
+        framesInWindow++;
+        if (framesInWindow < WINDOW_FRAMES || framesInWindow % EVALUATE_INTERVAL != 0) {
+            return level;
+        }
+        System.arraycopy(window, 0, sorted, 0, WINDOW_FRAMES);
+        Arrays.sort(sorted);
+        long p95 = sorted[(int) Math.ceil(PERCENTILE * WINDOW_FRAMES) - 1];
+        if (p95 > budgetNanos && level < LEVEL_DROP_DECORATIONS) {
+            step(level + 1, p95);
+        } else if (p95 < budgetNanos * RECOVERY_FRACTION && level > LEVEL_FULL) {
+            step(level - 1, p95);
+        }
+        return level;
+    }
+
+    /**
+     * Decides whether a collision sound may be played now, counting it as played if so.
+     *
+     * @return True if the sound may be played.
+     */
+    public boolean tryPlaySound() {
+        if (level >= LEVEL_DROP_DECORATIONS || (level >= LEVEL_COALESCE_SOUNDS && wasSoundPlayed)) {
+            return false;
+        }
+        wasSoundPlayed = true;
+        return true;
+    }
+
+    /**
+     * @return True if decorative objects, such as the background, should not be rendered.
+     */
+    public boolean areDecorationsDropped() {
+        return level >= LEVEL_DROP_DECORATIONS;
+    }
+
+    /**
+     * @return True if the following camera should not be used.
+     */
+    public boolean isCameraSuspended() {
+        return level >= LEVEL_SUSPEND_CAMERA;
+    }
+
+    /**
+     * Decides whether a new puck may be spawned.
+     *
+     * @return True if the puck may be spawned.
+     */
+    public boolean allowPuckSpawn() {
+        return level < LEVEL_CAP_PUCKS || gameObjects.getLivePucks() < PUCK_CAP;
+    }
+
+    /**
+     * @return The current level, from {@link #LEVEL_FULL} to {@link #LEVEL_DROP_DECORATIONS}.
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Moves to a new level, logs the step and starts the window over.
+     *
+     * @param newLevel The new level.
+     * @param p95Nanos The percentile that triggered the step.
+     */
+    private void step(int newLevel, long p95Nanos) {
+        int previousLevel = level;
+        level = newLevel;
+        framesInWindow = 0;
+        int p95Micros = (int) Math.min(Integer.MAX_VALUE, p95Nanos / NANOS_PER_MICRO);
+        if (eventLog != null) {
+            eventLog.degradation(newLevel, previousLevel, p95Micros);
+        }
+        DegradationEvent.record(newLevel, previousLevel, p95Micros);
+    }
+}
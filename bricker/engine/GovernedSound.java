@@ -0,0 +1,53 @@
+package bricker.engine;
+
+import danogl.gui.Sound;
+
+/**
+ * A sound that asks a {@link FrameBudgetGovernor} before it plays, so that collision sounds are
+ * coalesced or skipped while frames are over budget.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+public final class GovernedSound extends Sound {
+
+    private final Sound sound;
+    private final FrameBudgetGovernor governor;
+
+    /**
+     * Construct a new GovernedSound instance.
+     *
+     * @param sound    The sound to play.
+     * @param governor The governor that decides whether the sound plays.
+     */
+    public GovernedSound(Sound sound, FrameBudgetGovernor governor) {
+        super(null);
+        this.sound = sound;
+        this.governor = governor;
+    }
+
+    /**
+     * Plays the sound once, if the governor allows it.
+     */
+    @Override
+    public void play() {
+        if (governor.tryPlaySound()) {
+            sound.play();
+        }
+    }
+
+    /**
+     * Plays the sound in a loop. Looped sounds are not governed.
+     */
+    @Override
+    public void playLooped() {
+        sound.playLooped();
+    }
+
+    /**
+     * Stops every playing occurrence of the sound.
+     */
+    @Override
+    public void stopAllOccurences() {
+        sound.stopAllOccurences();
+    }
+}
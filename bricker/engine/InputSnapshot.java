@@ -0,0 +1,187 @@
+package bricker.engine;
+
+import danogl.components.movement_schemes.movement_directing.KeyboardMovementDirector;
+import danogl.components.movement_schemes.movement_directing.MouseMovementDirector;
+import danogl.gui.UserInputListener;
+import danogl.gui.mouse.MouseButton;
+import danogl.gui.rendering.Camera;
+import danogl.util.Vector2;
+
+import java.awt.event.KeyEvent;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The keys the game reads, captured once at the start of every tick, so that every object reads the
+ * same input for the whole tick.
+ * <p>
+ * The held paddle, win and rewind keys and the tapped quick-save keys are kept as bits of a mask, stamped with
+ * the time of the capture. Every other query of the {@link UserInputListener} interface is passed on
+ * to the live input.
+ * <p>
+ * The snapshot also measures input latency: the window thread reports the time of every key event,
+ * the next capture picks up the earliest unreported one, and the frame presented after that capture
+ * completes the measurement.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+public final class InputSnapshot implements UserInputListener {
+
+    private static final int[] HELD_KEYS = {KeyEvent.VK_LEFT, KeyEvent.VK_RIGHT, KeyEvent.VK_W,
+            KeyEvent.VK_BACK_SPACE};
+    private static final int[] TAPPED_KEYS = {KeyEvent.VK_F5, KeyEvent.VK_F9};
+    private final AtomicLong pendingKeyEventNanos = new AtomicLong();
+    private UserInputListener source;
+    private long heldBits = 0;
+    private long tappedBits = 0;
+    private long captureNanos = 0;
+    private long unpresentedKeyEventNanos = 0;
+
+    /**
+     * Captures the keys of this tick. Called by the game thread at the start of every tick.
+     *
+     * @param source The live input.
+     */
+    public void capture(UserInputListener source) {
+        this.source = source;
+        long held = 0;
+        for (int i = 0; i < HELD_KEYS.length; i++) {
+            if (source.isKeyPressed(HELD_KEYS[i])) {
+                held |= 1L << i;
+            }
+        }
+        long tapped = 0;
+        for (int i = 0; i < TAPPED_KEYS.length; i++) {
+            if (source.wasKeyPressedThisFrame(TAPPED_KEYS[i])) {
+                tapped |= 1L << i;
+            }
+        }
+        heldBits = held;
+        tappedBits = tapped;
+        captureNanos = System.nanoTime();
+        long keyEventNanos = pendingKeyEventNanos.getAndSet(0);
+        if (keyEventNanos != 0 && unpresentedKeyEventNanos == 0) {
+            unpresentedKeyEventNanos = keyEventNanos;
+        }
+    }
+
+    /**
+     * Reports a key event. Called by the window thread as the event arrives.
+     *
+     * @param nanos The {@link System#nanoTime} of the event.
+     */
+    public void reportKeyEvent(long nanos) {
+        pendingKeyEventNanos.compareAndSet(0, nanos);
+    }
+
+    /**
+     * Completes the latency measurement of the key event picked up by the last capture, if any.
+     * Called by the game thread after a frame is presented.
+     *
+     * @param presentNanos The {@link System#nanoTime} at which the frame was presented.
+     * @return The time from the key event to the frame, in nanoseconds, or -1 if there was none.
+     */
+    public long onFramePresented(long presentNanos) {
+        if (unpresentedKeyEventNanos == 0) {
+            return -1;
+        }
+        long latency = presentNanos - unpresentedKeyEventNanos;
+        unpresentedKeyEventNanos = 0;
+        return latency;
+    }
+
+    /**
+     * @return The {@link System#nanoTime} of the last capture.
+     */
+    public long getCaptureNanos() {
+        return captureNanos;
+    }
+
+    /**
+     * @return The mask of held keys, with bit i set if the i-th of left, right, W and backspace
+     * was held.
+     */
+    public long getHeldBits() {
+        return heldBits;
+    }
+
+    @Override
+    public boolean isKeyPressed(int keyCode) {
+        int bit = indexOf(HELD_KEYS, keyCode);
+        return bit >= 0 ? (heldBits & (1L << bit)) != 0 : source != null && source.isKeyPressed(keyCode);
+    }
+
+    @Override
+    public boolean wasKeyPressedThisFrame(int keyCode) {
+        int bit = indexOf(TAPPED_KEYS, keyCode);
+        return bit >= 0 ? (tappedBits & (1L << bit)) != 0 :
+                source != null && source.wasKeyPressedThisFrame(keyCode);
+    }
+
+    @Override
+    public boolean wasKeyReleasedThisFrame(int keyCode) {
+        return source.wasKeyReleasedThisFrame(keyCode);
+    }
+
+    @Override
+    public boolean wasMouseButtonClickedThisFrame(MouseButton mouseButton) {
+        return source.wasMouseButtonClickedThisFrame(mouseButton);
+    }
+
+    @Override
+    public boolean wasMouseButtonPressedThisFrame(MouseButton mouseButton) {
+        return source.wasMouseButtonPressedThisFrame(mouseButton);
+    }
+
+    @Override
+    public boolean wasMouseButtonReleasedThisFrame(MouseButton mouseButton) {
+        return source.wasMouseButtonReleasedThisFrame(mouseButton);
+    }
+
+    @Override
+    public boolean isMouseButtonPressed(MouseButton mouseButton) {
+        return source.isMouseButtonPressed(mouseButton);
+    }
+
+    @Override
+    public Vector2 getMouseScreenPos() {
+        return source.getMouseScreenPos();
+    }
+
+    @Override
+    public double mouseWheelClicksThisFrame() {
+        return source.mouseWheelClicksThisFrame();
+    }
+
+    @Override
+    public Set<Integer> pressedKeys() {
+        return source.pressedKeys();
+    }
+
+    @Override
+    public Set<MouseButton> pressedMouseButtons() {
+        return source.pressedMouseButtons();
+    }
+
+    @Override
+    public MouseMovementDirector mouseMovementDirector(Camera camera) {
+        return source.mouseMovementDirector(camera);
+    }
+
+    @Override
+    public KeyboardMovementDirector keyboardMovementDirector() {
+        return source.keyboardMovementDirector();
+    }
+
+    /**
+     * @return The index of a key in a list of keys, or -1 if it is not in the list.
+     */
+    private static int indexOf(int[] keys, int keyCode) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == keyCode) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
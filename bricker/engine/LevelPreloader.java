@@ -0,0 +1,91 @@
+package bricker.engine;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Builds the next level of a campaign on a background thread while the current level is played.
+ * <p>
+ * The game thread hands over a builder as soon as a level starts, and takes the result when the level
+ * is cleared. The build normally finished long before, so taking it costs nothing; if it did not, the
+ * game thread waits for it, and the wait is reported so that slow builds show up. Preloading again
+ * discards a build that was never taken. The worker is a single daemon thread, shared by every level.
+ *
+ * @param <T> The type of a built level.
+ * @author Avital Harel & Amir Rosengarten
+ */
+public final class LevelPreloader<T> {
+
+    private static final String THREAD_NAME = "bricker-level-preloader";
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, THREAD_NAME);
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Future<T> pending;
+    private long lastWaitNanos = 0;
+
+    /**
+     * Starts building a level in the background, discarding any build that was not taken.
+     *
+     * @param builder Builds the level. It runs on the worker thread, so it may only read state that
+     *                the game thread does not change while it runs.
+     */
+    public void preload(Supplier<T> builder) {
+        discard();
+        pending = worker.submit(builder::get);
+    }
+
+    /**
+     * @return True if a build was started and has finished, so that {@link #take} will not wait.
+     */
+    public boolean isReady() {
+        return pending != null && pending.isDone();
+    }
+
+    /**
+     * Takes the level built by the last {@link #preload}, waiting for the build if it has not
+     * finished yet.
+     *
+     * @return The level.
+     * @throws IllegalStateException If no build was started, or the build failed.
+     */
+    public T take() {
+        if (pending == null) {
+            throw new IllegalStateException("No level is being preloaded");
+        }
+        long startNanos = System.nanoTime();
+        try {
+            return pending.get();
+        } catch (ExecutionException | CancellationException e) {
+            throw new IllegalStateException("Preloading a level failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a level", e);
+        } finally {
+            lastWaitNanos = System.nanoTime() - startNanos;
+            pending = null;
+        }
+    }
+
+    /**
+     * @return How long the last {@link #take} waited for its build, in nanoseconds.
+     */
+    public long getLastWaitNanos() {
+        return lastWaitNanos;
+    }
+
+    /**
+     * Discards the build that was not taken, if any.
+     */
+    public void discard() {
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+    }
+}
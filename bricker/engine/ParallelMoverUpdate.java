@@ -0,0 +1,135 @@
+package bricker.engine;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Updates a list of independent movers in fork-join chunks, for the frames in which there are too
+ * many pucks to update one after the other.
+ * <p>
+ * A puck's update only touches its own transform and renderer, so the pucks of a frame can update
+ * concurrently. Each chunk updates its range of the list and tests every puck against the removal
+ * boundary, writing the result into a flag array. Everything else that an update causes, such as
+ * moving the puck in the spatial grid or removing it, is left to the caller, which applies it in list
+ * order once every chunk is done, so the outcome does not depend on the number of threads. The game
+ * thread runs the first chunk itself, and the chunk tasks are reused from frame to frame.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+final class ParallelMoverUpdate {
+
+    private static final int CHUNK_SIZE = 512;
+    private static final int INITIAL_CAPACITY = 256;
+    private TrackedObject[] movers = new TrackedObject[INITIAL_CAPACITY];
+    private boolean[] isBelowBoundary = new boolean[INITIAL_CAPACITY];
+    private Chunk[] chunks = new Chunk[0];
+    private int count = 0;
+    private float deltaTime;
+    private float boundaryY;
+
+    /**
+     * Empties the list of movers.
+     */
+    void clear() {
+        Arrays.fill(movers, 0, count, null);
+        count = 0;
+    }
+
+    /**
+     * Appends a mover to the list.
+     *
+     * @param tracked The mover.
+     */
+    void add(TrackedObject tracked) {
+        if (count == movers.length) {
+            movers = Arrays.copyOf(movers, count * 2);
+            isBelowBoundary = Arrays.copyOf(isBelowBoundary, count * 2);
+        }
+        movers[count++] = tracked;
+    }
+
+    /**
+     * @return The number of movers in the list.
+     */
+    int size() {
+        return count;
+    }
+
+    /**
+     * @param index The index of a mover in the list.
+     * @return The mover.
+     */
+    TrackedObject get(int index) {
+        return movers[index];
+    }
+
+    /**
+     * @param index The index of a mover in the list.
+     * @return True if the center of the mover was below the removal boundary after its update.
+     */
+    boolean isBelowBoundary(int index) {
+        return isBelowBoundary[index];
+    }
+
+    /**
+     * Updates every mover in the list, in chunks spread over the common fork-join pool, and returns
+     * once they are all updated.
+     *
+     * @param deltaTime The time elapsed, in seconds, since the last frame.
+     * @param boundaryY The y coordinate below which a mover's center counts as below the boundary.
+     */
+    void run(float deltaTime, float boundaryY) {
+        this.deltaTime = deltaTime;
+        this.boundaryY = boundaryY;
+        int chunkCount = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        if (chunks.length < chunkCount) {
+            int oldLength = chunks.length;
+            chunks = Arrays.copyOf(chunks, chunkCount);
+            for (int i = oldLength; i < chunkCount; i++) {
+                chunks[i] = new Chunk(i * CHUNK_SIZE);
+            }
+        }
+        for (int i = 1; i < chunkCount; i++) {
+            chunks[i].reinitialize();
+            chunks[i].fork();
+        }
+        if (chunkCount > 0) {
+            updateRange(0, Math.min(count, CHUNK_SIZE));
+        }
+        for (int i = chunkCount - 1; i >= 1; i--) {
+            chunks[i].join();
+        }
+    }
+
+    /**
+     * Updates a range of the movers and tests them against the removal boundary.
+     *
+     * @param from The index of the first mover.
+     * @param to   The index after the last mover.
+     */
+    private void updateRange(int from, int to) {
+        for (int i = from; i < to; i++) {
+            TrackedObject tracked = movers[i];
+            tracked.gameObject.update(deltaTime);
+            isBelowBoundary[i] = tracked.gameObject.getTopLeftCorner().y() +
+                    tracked.gameObject.getDimensions().y() / 2 > boundaryY;
+        }
+    }
+
+    /**
+     * A fixed range of the list of movers, updated by one task.
+     */
+    private final class Chunk extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int from;
+
+        Chunk(int from) {
+            this.from = from;
+        }
+
+        @Override
+        protected void compute() {
+            updateRange(from, Math.min(count, from + CHUNK_SIZE));
+        }
+    }
+}
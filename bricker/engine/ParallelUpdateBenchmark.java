@@ -0,0 +1,119 @@
+package bricker.engine;
+
+import bricker.gameobjects.Puck;
+import danogl.GameObject;
+import danogl.gui.Sound;
+import danogl.util.Vector2;
+
+import java.util.Random;
+
+/**
+ * Compares the time of the update phase of pucks updated one after the other with that of pucks
+ * updated in parallel by {@link ParallelMoverUpdate}, in a closed box, and counts the pucks that end
+ * up in the same state on both paths. The threshold of the parallel update is the puck count from
+ * which the parallel path wins on the machine the benchmark runs on.
+ * <p>
+ * Only {@link BrickerGameObjectCollection#updateObjects} is timed, as collisions are handled the same
+ * way on both paths.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+public final class ParallelUpdateBenchmark {
+
+    private static final int[] PUCK_COUNTS = {64, 128, 256, 512, 1024, 4096};
+    private static final int WARMUP_FRAMES = 300;
+    private static final int MEASURED_FRAMES = 600;
+    private static final float DELTA_TIME = 1 / 60f;
+    private static final float WINDOW_WIDTH = 700;
+    private static final float WINDOW_HEIGHT = 500;
+    private static final float WALL_WIDTH = 15;
+    private static final float PUCK_RADIUS = 15;
+    private static final float PUCK_SPEED = 200;
+    private static final long SEED = 42;
+
+    private ParallelUpdateBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark and prints a line per puck count.
+     *
+     * @param args Ignored.
+     */
+    public static void main(String[] args) {
+        System.out.println("processors: " + Runtime.getRuntime().availableProcessors());
+        System.out.println("pucks  serial us/update  |  parallel us/update  speedup  same state");
+        for (int puckCount : PUCK_COUNTS) {
+            BrickerGameObjectCollection serial = new BrickerGameObjectCollection(null, false);
+            BrickerGameObjectCollection parallel = new BrickerGameObjectCollection(null, false);
+            serial.setParallelUpdateThreshold(Integer.MAX_VALUE);
+            parallel.setParallelUpdateThreshold(0);
+            GameObject[] serialPucks = populate(serial, puckCount);
+            GameObject[] parallelPucks = populate(parallel, puckCount);
+            run(serial, WARMUP_FRAMES);
+            run(parallel, WARMUP_FRAMES);
+            long serialNanos = run(serial, MEASURED_FRAMES);
+            long parallelNanos = run(parallel, MEASURED_FRAMES);
+            int same = 0;
+            for (int i = 0; i < puckCount; i++) {
+                if (serialPucks[i].getTopLeftCorner().equals(parallelPucks[i].getTopLeftCorner()) &&
+                        serialPucks[i].getVelocity().equals(parallelPucks[i].getVelocity())) {
+                    same++;
+                }
+            }
+            System.out.printf("%5d  %16.1f  |  %18.1f  %6.2fx  %d/%d%n", puckCount,
+                    serialNanos / 1000.0 / MEASURED_FRAMES, parallelNanos / 1000.0 / MEASURED_FRAMES,
+                    (double) serialNanos / parallelNanos, same, puckCount);
+        }
+    }
+
+    /**
+     * Adds the four walls and the pucks to a collection, with the same seed every time.
+     *
+     * @param gameObjects The collection to populate.
+     * @param puckCount   The number of pucks.
+     * @return The pucks.
+     */
+    private static GameObject[] populate(BrickerGameObjectCollection gameObjects, int puckCount) {
+        gameObjects.setCollisionFilter(
+                CollisionFilter.defaultRules().disallow(CollisionFilter.PUCK, CollisionFilter.PUCK));
+        gameObjects.addGameObject(new GameObject(new Vector2(-10, 0),
+                new Vector2(WALL_WIDTH, WINDOW_HEIGHT), null));
+        gameObjects.addGameObject(new GameObject(new Vector2(WINDOW_WIDTH - 10, 0),
+                new Vector2(WALL_WIDTH, WINDOW_HEIGHT), null));
+        gameObjects.addGameObject(new GameObject(Vector2.ZERO, new Vector2(WINDOW_WIDTH, WALL_WIDTH), null));
+        gameObjects.addGameObject(new GameObject(new Vector2(0, WINDOW_HEIGHT - WALL_WIDTH),
+                new Vector2(WINDOW_WIDTH, WALL_WIDTH), null));
+        Random random = new Random(SEED);
+        GameObject[] pucks = new GameObject[puckCount];
+        for (int i = 0; i < puckCount; i++) {
+            pucks[i] = new Puck(new Vector2(WALL_WIDTH + random.nextFloat() *
+                    (WINDOW_WIDTH - 2 * WALL_WIDTH - PUCK_RADIUS), WALL_WIDTH + random.nextFloat() *
+                    (WINDOW_HEIGHT - 2 * WALL_WIDTH - PUCK_RADIUS)),
+                    new Vector2(PUCK_RADIUS, PUCK_RADIUS), null, Sound.EMPTY_SOUND);
+            double angle = random.nextDouble() * 2 * Math.PI;
+            pucks[i].transform().setVelocity((float) Math.cos(angle) * PUCK_SPEED,
+                    (float) Math.sin(angle) * PUCK_SPEED);
+            gameObjects.addGameObject(pucks[i]);
+        }
+        return pucks;
+    }
+
+    /**
+     * Runs frames in the order of the game, timing only the update phase.
+     *
+     * @param gameObjects The collection.
+     * @param frames      The number of frames to run.
+     * @return The time spent updating the objects, in nanoseconds.
+     */
+    private static long run(BrickerGameObjectCollection gameObjects, int frames) {
+        long total = 0;
+        for (int frame = 0; frame < frames; frame++) {
+            long start = System.nanoTime();
+            gameObjects.updateObjects(DELTA_TIME);
+            total += System.nanoTime() - start;
+            gameObjects.update(DELTA_TIME);
+            gameObjects.handleCollisions();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,232 @@
+package bricker.engine;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+/**
+ * A fixed-capacity pool of short-lived particles, for the bursts of broken bricks, picked up hearts
+ * and spawned pucks.
+ * <p>
+ * Particles are not GameObjects. Their position, velocity, lifetime and colour are kept in parallel
+ * arrays, with the live particles packed at the front: a dead particle is replaced by the last live
+ * one. One loop moves them all, and one pass plots them into a window-sized image that is drawn with a
+ * single call, clearing only the area the previous frame drew on. A burst that does not fit is cut
+ * short. Emitting, updating and rendering do not allocate, and the particles have their own random
+ * generator, so they never change the course of a game. A pool of capacity zero, as a headless game
+ * has, ignores every burst.
+ * <p>
+ * The pool is owned by the game thread.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+public final class ParticlePool {
+
+    private static final float GRAVITY = 600;
+    private static final float MIN_SPEED_FRACTION = 0.3f;
+    private static final float MIN_LIFETIME_SECONDS = 0.35f;
+    private static final float LIFETIME_SPREAD_SECONDS = 0.55f;
+    private static final int PARTICLE_SIZE = 2;
+    private static final int ALPHA_SHIFT = 24;
+    private static final int RGB_MASK = 0xFFFFFF;
+    private static final int MAX_ALPHA = 0xFF;
+    private static final float TWO_PI = (float) (2 * Math.PI);
+    private static final float RANDOM_UNIT = 1.0f / (1 << 24);
+    private final float[] x;
+    private final float[] y;
+    private final float[] velocityX;
+    private final float[] velocityY;
+    private final float[] lifetime;
+    private final float[] inverseMaxLifetime;
+    private final int[] rgb;
+    private final BufferedImage image;
+    private final int[] pixels;
+    private final int width;
+    private final int height;
+    private int count = 0;
+    private int randomState;
+    private int dirtyMinX;
+    private int dirtyMinY;
+    private int dirtyMaxX = -1;
+    private int dirtyMaxY = -1;
+
+    /**
+     * Construct a new, empty ParticlePool.
+     *
+     * @param capacity The most particles alive at once, or zero to ignore every burst.
+     * @param width    The width of the window, in pixels.
+     * @param height   The height of the window, in pixels.
+     * @param seed     The seed of the directions, speeds and lifetimes of the particles.
+     */
+    public ParticlePool(int capacity, int width, int height, long seed) {
+        this.x = new float[capacity];
+        this.y = new float[capacity];
+        this.velocityX = new float[capacity];
+        this.velocityY = new float[capacity];
+        this.lifetime = new float[capacity];
+        this.inverseMaxLifetime = new float[capacity];
+        this.rgb = new int[capacity];
+        this.width = capacity > 0 ? width : 0;
+        this.height = capacity > 0 ? height : 0;
+        this.image = capacity > 0 ? new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB) : null;
+        this.pixels = image != null ? ((DataBufferInt) image.getRaster().getDataBuffer()).getData() : null;
+        this.randomState = (int) (seed ^ (seed >>> 32)) | 1;
+    }
+
+    /**
+     * Emits a burst of particles from a point, flying in random directions.
+     *
+     * @param centerX  The x coordinate of the point, in world coordinates.
+     * @param centerY  The y coordinate of the point, in world coordinates.
+     * @param amount   The number of particles to emit.
+     * @param maxSpeed The speed of the fastest particles, in pixels per second.
+     * @param color    The colour of the particles, as 0xRRGGBB.
+     */
+    public void emit(float centerX, float centerY, int amount, float maxSpeed, int color) {
+        int end = Math.min(x.length, count + amount);
+        for (int i = count; i < end; i++) {
+            float angle = nextFloat() * TWO_PI;
+            float speed = maxSpeed * (MIN_SPEED_FRACTION + (1 - MIN_SPEED_FRACTION) * nextFloat());
+            float maxLifetime = MIN_LIFETIME_SECONDS + LIFETIME_SPREAD_SECONDS * nextFloat();
+            x[i] = centerX;
+            y[i] = centerY;
+            velocityX[i] = (float) Math.cos(angle) * speed;
+            velocityY[i] = (float) Math.sin(angle) * speed;
+            lifetime[i] = maxLifetime;
+            inverseMaxLifetime[i] = 1 / maxLifetime;
+            rgb[i] = color & RGB_MASK;
+        }
+        count = end;
+    }
+
+    /**
+     * Moves every particle, pulled down by gravity, and retires the particles whose lifetime is over.
+     *
+     * @param deltaTime The time elapsed, in seconds, since the last update.
+     */
+    public void update(float deltaTime) {
+        float gravityStep = GRAVITY * deltaTime;
+        int i = 0;
+        while (i < count) {
+            float remaining = lifetime[i] - deltaTime;
+            if (remaining <= 0) {
+                count--;
+                moveParticle(count, i);
+                continue;
+            }
+            lifetime[i] = remaining;
+            float vy = velocityY[i] + gravityStep;
+            velocityY[i] = vy;
+            x[i] += velocityX[i] * deltaTime;
+            y[i] += vy * deltaTime;
+            i++;
+        }
+    }
+
+    /**
+     * Draws every particle, fading out as its lifetime runs out, with a single image draw.
+     *
+     * @param g     The graphics to render with.
+     * @param viewX The x coordinate of the top-left corner of the view, in world coordinates.
+     * @param viewY The y coordinate of the top-left corner of the view, in world coordinates.
+     * @param scale The number of window pixels per world unit.
+     */
+    public void render(Graphics2D g, float viewX, float viewY, float scale) {
+        if (image == null) {
+            return;
+        }
+        clearDirtyArea();
+        int minX = width;
+        int minY = height;
+        int maxX = -1;
+        int maxY = -1;
+        int maxLeft = width - PARTICLE_SIZE;
+        int maxTop = height - PARTICLE_SIZE;
+        for (int i = 0; i < count; i++) {
+            int left = (int) ((x[i] - viewX) * scale);
+            int top = (int) ((y[i] - viewY) * scale);
+            if (left < 0 || top < 0 || left > maxLeft || top > maxTop) {
+                continue;
+            }
+            int alpha = (int) (MAX_ALPHA * lifetime[i] * inverseMaxLifetime[i]);
+            int argb = (alpha << ALPHA_SHIFT) | rgb[i];
+            int offset = top * width + left;
+            pixels[offset] = argb;
+            pixels[offset + 1] = argb;
+            pixels[offset + width] = argb;
+            pixels[offset + width + 1] = argb;
+            minX = Math.min(minX, left);
+            minY = Math.min(minY, top);
+            maxX = Math.max(maxX, left + PARTICLE_SIZE - 1);
+            maxY = Math.max(maxY, top + PARTICLE_SIZE - 1);
+        }
+        dirtyMinX = minX;
+        dirtyMinY = minY;
+        dirtyMaxX = maxX;
+        dirtyMaxY = maxY;
+        if (maxX >= 0) {
+            g.drawImage(image, minX, minY, maxX + 1, maxY + 1, minX, minY, maxX + 1, maxY + 1, null);
+        }
+    }
+
+    /**
+     * @return The number of live particles.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return The most particles alive at once.
+     */
+    public int getCapacity() {
+        return x.length;
+    }
+
+    /**
+     * Retires every particle.
+     */
+    public void clear() {
+        count = 0;
+    }
+
+    /**
+     * Clears the pixels drawn by the previous render.
+     */
+    private void clearDirtyArea() {
+        for (int row = dirtyMinY; row <= dirtyMaxY; row++) {
+            Arrays.fill(pixels, row * width + dirtyMinX, row * width + dirtyMaxX + 1, 0);
+        }
+        dirtyMaxX = -1;
+        dirtyMaxY = -1;
+    }
+
+    /**
+     * Copies a particle over another.
+     *
+     * @param from The index of the particle to copy.
+     * @param to   The index to copy it to.
+     */
+    private void moveParticle(int from, int to) {
+        x[to] = x[from];
+        y[to] = y[from];
+        velocityX[to] = velocityX[from];
+        velocityY[to] = velocityY[from];
+        lifetime[to] = lifetime[from];
+        inverseMaxLifetime[to] = inverseMaxLifetime[from];
+        rgb[to] = rgb[from];
+    }
+
+    /**
+     * @return A pseudo random number in [0, 1), from a xorshift generator.
+     */
+    private float nextFloat() {
+        int s = randomState;
+        s ^= s << 13;
+        s ^= s >>> 17;
+        s ^= s << 5;
+        randomState = s;
+        return (s >>> 8) * RANDOM_UNIT;
+    }
+}
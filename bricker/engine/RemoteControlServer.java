@@ -0,0 +1,184 @@
+package bricker.engine;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Accepts paddle commands from external processes, such as bots or an input device bridge, over a
+ * local TCP socket.
+ * <p>
+ * A command is a single ASCII byte: {@code L} holds the paddles left, {@code R} holds them right and
+ * {@code S} stops them, until the next command. Other bytes, such as line breaks, are ignored, so a
+ * controller can be typed into {@code nc}. One daemon thread serves every connection with a selector,
+ * decodes the bytes and hands the commands to a {@link CommandQueue}, of which it is the only
+ * producer. When the queue is full the thread waits for the game to drain it, and stops reading
+ * meanwhile, so a controller that sends too fast is slowed down by its socket instead of losing
+ * commands. The game thread never touches the socket.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+public final class RemoteControlServer implements Runnable {
+
+    /**
+     * The command that holds the paddles left.
+     */
+    public static final byte COMMAND_LEFT = 'L';
+    /**
+     * The command that stops the paddles.
+     */
+    public static final byte COMMAND_STAY = 'S';
+    /**
+     * The command that holds the paddles right.
+     */
+    public static final byte COMMAND_RIGHT = 'R';
+    private static final String THREAD_NAME = "bricker-remote-control";
+    private static final int READ_BUFFER_BYTES = 4096;
+    private static final long SELECT_TIMEOUT_MILLIS = 100;
+    private static final long FULL_QUEUE_PARK_NANOS = 100_000L;
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final CommandQueue queue;
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_BYTES);
+    private final Thread producer;
+    private volatile boolean isRunning = true;
+    private volatile long malformedBytes = 0;
+
+    /**
+     * Opens a remote control server on the loopback interface and starts its thread.
+     *
+     * @param port  The port to listen on.
+     * @param queue The queue to hand the commands to.
+     * @throws IOException If the socket cannot be opened.
+     */
+    public RemoteControlServer(int port, CommandQueue queue) throws IOException {
+        this.queue = queue;
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        this.producer = new Thread(this, THREAD_NAME);
+        producer.setDaemon(true);
+        producer.start();
+    }
+
+    /**
+     * @return The number of received bytes that were not commands, line breaks or spaces.
+     */
+    public long getMalformedBytes() {
+        return malformedBytes;
+    }
+
+    /**
+     * Stops the thread and closes every connection.
+     */
+    public void close() {
+        isRunning = false;
+        selector.wakeup();
+        LockSupport.unpark(producer);
+        try {
+            producer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (isRunning) {
+                selector.select(SELECT_TIMEOUT_MILLIS);
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else if (key.isReadable()) {
+                        read(key);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            isRunning = false;
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                closeQuietly(key);
+            }
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+                // Nothing left to release.
+            }
+        }
+    }
+
+    /**
+     * Accepts every pending connection.
+     *
+     * @throws IOException If the selector fails.
+     */
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            channel.register(selector, SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * Reads the available bytes of a connection and queues their commands, closing the connection
+     * once the controller disconnects.
+     *
+     * @param key The key of the connection.
+     */
+    private void read(SelectionKey key) {
+        SocketChannel channel = (SocketChannel) key.channel();
+        readBuffer.clear();
+        int read;
+        try {
+            read = channel.read(readBuffer);
+        } catch (IOException e) {
+            read = -1;
+        }
+        if (read < 0) {
+            closeQuietly(key);
+            return;
+        }
+        long nanos = System.nanoTime();
+        readBuffer.flip();
+        while (readBuffer.hasRemaining() && isRunning) {
+            byte b = readBuffer.get();
+            if (b == COMMAND_LEFT || b == COMMAND_STAY || b == COMMAND_RIGHT) {
+                while (!queue.offer(b, nanos) && isRunning) {
+                    LockSupport.parkNanos(FULL_QUEUE_PARK_NANOS);
+                }
+            } else if (!Character.isWhitespace(b)) {
+                malformedBytes++;
+            }
+        }
+    }
+
+    /**
+     * Closes the channel of a key, ignoring failures.
+     *
+     * @param key The key.
+     */
+    private static void closeQuietly(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException ignored) {
+            // Nothing left to release.
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package bricker.engine;
+
+import bricker.telemetry.GameTelemetry;
+import danogl.components.movement_schemes.movement_directing.KeyboardMovementDirector;
+import danogl.components.movement_schemes.movement_directing.MouseMovementDirector;
+import danogl.gui.UserInputListener;
+import danogl.gui.mouse.MouseButton;
+import danogl.gui.rendering.Camera;
+import danogl.util.Vector2;
+
+import java.awt.event.KeyEvent;
+import java.util.Set;
+
+/**
+ * Input that adds the commands of a remote controller to the live input.
+ * <p>
+ * The game thread drains the {@link CommandQueue} of a {@link RemoteControlServer} once per tick,
+ * before the tick's input is captured. The last command drained is held until the next one: the left
+ * or right arrow key counts as pressed while the controller holds that direction, on top of the keys
+ * pressed on the keyboard. Every other query is passed on to the live input.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+public final class RemoteInputListener implements UserInputListener {
+
+    private final CommandQueue queue;
+    private UserInputListener source;
+    private int heldCommand = RemoteControlServer.COMMAND_STAY;
+
+    /**
+     * Construct a new RemoteInputListener instance.
+     *
+     * @param queue The queue the remote controller's commands arrive in.
+     */
+    public RemoteInputListener(CommandQueue queue) {
+        this.queue = queue;
+    }
+
+    /**
+     * Sets the live input that the remote commands are added to.
+     *
+     * @param source The live input.
+     */
+    public void setSource(UserInputListener source) {
+        this.source = source;
+    }
+
+    /**
+     * Applies every queued command, recording the queue depth and the time from the receipt of each
+     * command to its application. Called by the game thread once per tick.
+     *
+     * @param telemetry The telemetry to record in.
+     * @return The number of commands applied.
+     */
+    public int drain(GameTelemetry telemetry) {
+        int depth = queue.size();
+        int applied = 0;
+        long applyNanos = System.nanoTime();
+        int command;
+        while ((command = queue.poll()) != CommandQueue.NO_COMMAND) {
+            heldCommand = command;
+            telemetry.recordRemoteCommandLatency(applyNanos - queue.getLastReceivedNanos());
+            applied++;
+        }
+        telemetry.recordRemoteCommandQueue(depth, applied);
+        return applied;
+    }
+
+    /**
+     * @return The command held since the last drain.
+     */
+    public int getHeldCommand() {
+        return heldCommand;
+    }
+
+    @Override
+    public boolean isKeyPressed(int keyCode) {
+        return (keyCode == KeyEvent.VK_LEFT && heldCommand == RemoteControlServer.COMMAND_LEFT) ||
+                (keyCode == KeyEvent.VK_RIGHT && heldCommand == RemoteControlServer.COMMAND_RIGHT) ||
+                source.isKeyPressed(keyCode);
+    }
+
+    @Override
+    public boolean wasKeyPressedThisFrame(int keyCode) {
+        return source.wasKeyPressedThisFrame(keyCode);
+    }
+
+    @Override
+    public boolean wasKeyReleasedThisFrame(int keyCode) {
+        return source.wasKeyReleasedThisFrame(keyCode);
+    }
+
+    @Override
+    public boolean wasMouseButtonClickedThisFrame(MouseButton mouseButton) {
+        return source.wasMouseButtonClickedThisFrame(mouseButton);
+    }
+
+    @Override
+    public boolean wasMouseButtonPressedThisFrame(MouseButton mouseButton) {
+        return source.wasMouseButtonPressedThisFrame(mouseButton);
+    }
+
+    @Override
+    public boolean wasMouseButtonReleasedThisFrame(MouseButton mouseButton) {
+        return source.wasMouseButtonReleasedThisFrame(mouseButton);
+    }
+
+    @Override
+    public boolean isMouseButtonPressed(MouseButton mouseButton) {
+        return source.isMouseButtonPressed(mouseButton);
+    }
+
+    @Override
+    public Vector2 getMouseScreenPos() {
+        return source.getMouseScreenPos();
+    }
+
+    @Override
+    public double mouseWheelClicksThisFrame() {
+        return source.mouseWheelClicksThisFrame();
+    }
+
+    @Override
+    public Set<Integer> pressedKeys() {
+        return source.pressedKeys();
+    }
+
+    @Override
+    public Set<MouseButton> pressedMouseButtons() {
+        return source.pressedMouseButtons();
+    }
+
+    @Override
+    public MouseMovementDirector mouseMovementDirector(Camera camera) {
+        return source.mouseMovementDirector(camera);
+    }
+
+    @Override
+    public KeyboardMovementDirector keyboardMovementDirector() {
+        return source.keyboardMovementDirector();
+    }
+}
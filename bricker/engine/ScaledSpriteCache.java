@@ -0,0 +1,77 @@
+package bricker.engine;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of sprites scaled to the sizes they are drawn at, keyed by sprite and dimensions,
+ * which drops the least recently used variant when it is full.
+ * <p>
+ * Variants are created in the format of the device they are drawn to, without an alpha channel when
+ * the sprite is opaque, so drawing them is a plain copy of pixels. The cache is used from the render
+ * thread only.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+final class ScaledSpriteCache {
+
+    private static final int MAX_DIMENSION_BITS = 20;
+    private final Map<Long, BufferedImage> variants;
+    private long created = 0;
+
+    /**
+     * Construct a new ScaledSpriteCache instance.
+     *
+     * @param capacity The number of variants kept before the least recently used one is dropped.
+     */
+    ScaledSpriteCache(int capacity) {
+        this.variants = new LinkedHashMap<Long, BufferedImage>(2 * capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the variant of a sprite scaled to the given dimensions, creating it on a miss.
+     *
+     * @param sprite The sprite.
+     * @param width  The width to draw at, in pixels, at least 1.
+     * @param height The height to draw at, in pixels, at least 1.
+     * @param device The configuration of the device the variant is drawn to.
+     * @return The variant.
+     */
+    BufferedImage get(AtlasSprite sprite, int width, int height, GraphicsConfiguration device) {
+        long key = ((long) sprite.getIndex() << (2 * MAX_DIMENSION_BITS)) |
+                ((long) width << MAX_DIMENSION_BITS) | height;
+        BufferedImage variant = variants.get(key);
+        if (variant == null) {
+            variant = device.createCompatibleImage(width, height,
+                    sprite.isOpaque() ? Transparency.OPAQUE : Transparency.TRANSLUCENT);
+            Graphics2D g = variant.createGraphics();
+            g.setComposite(AlphaComposite.Src);
+            sprite.drawSource(g, 0, 0, width, height);
+            g.dispose();
+            variants.put(key, variant);
+            created++;
+        }
+        return variant;
+    }
+
+    /**
+     * @return The number of variants in the cache.
+     */
+    int size() {
+        return variants.size();
+    }
+
+    /**
+     * @return The number of variants created so far.
+     */
+    long getCreated() {
+        return created;
+    }
+}
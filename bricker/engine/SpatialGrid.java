@@ -0,0 +1,304 @@
+package bricker.engine;
+
+import danogl.GameObject;
+import danogl.util.Vector2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A uniform grid over world coordinates that knows which objects lie in the current viewport.
+ * <p>
+ * Every object is bucketed into the cells its bounds overlap, and an object is visible while any of
+ * those cells is inside the viewport. When the viewport moves, only the objects in the cells that
+ * entered or left it are revisited, and when an object moves, only that object is, so the visible set
+ * is kept up to date without scanning the whole game.
+ * <p>
+ * The cells are kept in an open-addressing table keyed by their packed coordinates, so looking a cell
+ * up does not box its key. A cell that empties stays in the table to be reused by the next object
+ * that enters it; the game covers a bounded area, so the table stops growing once every cell of that
+ * area has been visited, and moving an object allocates nothing from then on.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+final class SpatialGrid {
+
+    private static final int MAX_CELLS_PER_OBJECT = 256;
+    private static final int INITIAL_TABLE_CAPACITY = 256;
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+    private final float cellSize;
+    private final Consumer<TrackedObject> visibilityListener;
+    private Cell[] table = new Cell[INITIAL_TABLE_CAPACITY];
+    private int cellCount = 0;
+    private boolean hasViewport = false;
+    private int viewMinCellX;
+    private int viewMinCellY;
+    private int viewMaxCellX;
+    private int viewMaxCellY;
+
+    /**
+     * Construct a new SpatialGrid instance.
+     *
+     * @param cellSize           The width and height of a cell, in pixels.
+     * @param visibilityListener Called with every object whose visibility changed.
+     */
+    SpatialGrid(float cellSize, Consumer<TrackedObject> visibilityListener) {
+        this.cellSize = cellSize;
+        this.visibilityListener = visibilityListener;
+    }
+
+    /**
+     * Adds an object to the grid. Objects too large to bucket are left out and stay visible.
+     *
+     * @param tracked The object to add.
+     */
+    void insert(TrackedObject tracked) {
+        GameObject obj = tracked.gameObject;
+        Vector2 topLeftCorner = obj.getTopLeftCorner();
+        Vector2 dimensions = obj.getDimensions();
+        int minCellX = cellOf(topLeftCorner.x());
+        int minCellY = cellOf(topLeftCorner.y());
+        int maxCellX = cellOf(topLeftCorner.x() + dimensions.x());
+        int maxCellY = cellOf(topLeftCorner.y() + dimensions.y());
+        if ((long) (maxCellX - minCellX + 1) * (maxCellY - minCellY + 1) > MAX_CELLS_PER_OBJECT) {
+            return;
+        }
+        setCells(tracked, minCellX, minCellY, maxCellX, maxCellY);
+        addToCells(tracked);
+        tracked.isInGrid = true;
+        updateVisibility(tracked);
+    }
+
+    /**
+     * Removes an object from the grid.
+     *
+     * @param tracked The object to remove.
+     */
+    void remove(TrackedObject tracked) {
+        if (tracked.isInGrid) {
+            removeFromCells(tracked);
+            tracked.isInGrid = false;
+        }
+    }
+
+    /**
+     * Re-buckets an object after it moved. Does nothing if it is still in the same cells.
+     *
+     * @param tracked The object that moved.
+     */
+    void move(TrackedObject tracked) {
+        GameObject obj = tracked.gameObject;
+        Vector2 topLeftCorner = obj.getTopLeftCorner();
+        Vector2 dimensions = obj.getDimensions();
+        int minCellX = cellOf(topLeftCorner.x());
+        int minCellY = cellOf(topLeftCorner.y());
+        int maxCellX = cellOf(topLeftCorner.x() + dimensions.x());
+        int maxCellY = cellOf(topLeftCorner.y() + dimensions.y());
+        if (minCellX == tracked.minCellX && minCellY == tracked.minCellY &&
+                maxCellX == tracked.maxCellX && maxCellY == tracked.maxCellY) {
+            return;
+        }
+        removeFromCells(tracked);
+        setCells(tracked, minCellX, minCellY, maxCellX, maxCellY);
+        addToCells(tracked);
+        updateVisibility(tracked);
+    }
+
+    /**
+     * Moves the viewport, revisiting only the objects in cells that entered or left it.
+     *
+     * @param minX The left edge of the viewport.
+     * @param minY The top edge of the viewport.
+     * @param maxX The right edge of the viewport.
+     * @param maxY The bottom edge of the viewport.
+     */
+    void setViewport(float minX, float minY, float maxX, float maxY) {
+        int minCellX = cellOf(minX);
+        int minCellY = cellOf(minY);
+        int maxCellX = cellOf(maxX);
+        int maxCellY = cellOf(maxY);
+        if (hasViewport && minCellX == viewMinCellX && minCellY == viewMinCellY &&
+                maxCellX == viewMaxCellX && maxCellY == viewMaxCellY) {
+            return;
+        }
+        boolean hadViewport = hasViewport;
+        int oldMinCellX = viewMinCellX;
+        int oldMinCellY = viewMinCellY;
+        int oldMaxCellX = viewMaxCellX;
+        int oldMaxCellY = viewMaxCellY;
+        hasViewport = true;
+        viewMinCellX = minCellX;
+        viewMinCellY = minCellY;
+        viewMaxCellX = maxCellX;
+        viewMaxCellY = maxCellY;
+        if (!hadViewport) {
+            // Everything was visible until now, so every bucketed object must be revisited once.
+            for (Cell cell : table) {
+                if (cell != null) {
+                    updateVisibility(cell.objects);
+                }
+            }
+            return;
+        }
+        revisitCellsOutsideView(oldMinCellX, oldMinCellY, oldMaxCellX, oldMaxCellY);
+        for (int cellY = minCellY; cellY <= maxCellY; cellY++) {
+            for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+                boolean wasInView = cellX >= oldMinCellX && cellX <= oldMaxCellX &&
+                        cellY >= oldMinCellY && cellY <= oldMaxCellY;
+                Cell cell = wasInView ? null : findCell(cellKey(cellX, cellY));
+                if (cell != null) {
+                    updateVisibility(cell.objects);
+                }
+            }
+        }
+    }
+
+    /**
+     * Revisits the objects of every cell in the given range that is outside the current viewport.
+     */
+    private void revisitCellsOutsideView(int minCellX, int minCellY, int maxCellX, int maxCellY) {
+        for (int cellY = minCellY; cellY <= maxCellY; cellY++) {
+            for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+                Cell cell = isCellInView(cellX, cellY) ? null : findCell(cellKey(cellX, cellY));
+                if (cell != null) {
+                    updateVisibility(cell.objects);
+                }
+            }
+        }
+    }
+
+    private void updateVisibility(List<TrackedObject> cell) {
+        for (int i = 0; i < cell.size(); i++) {
+            updateVisibility(cell.get(i));
+        }
+    }
+
+    /**
+     * Recomputes whether an object overlaps the viewport, notifying the listener on a change.
+     *
+     * @param tracked The object.
+     */
+    private void updateVisibility(TrackedObject tracked) {
+        boolean isVisible = !hasViewport || (tracked.minCellX <= viewMaxCellX &&
+                tracked.maxCellX >= viewMinCellX && tracked.minCellY <= viewMaxCellY &&
+                tracked.maxCellY >= viewMinCellY);
+        if (isVisible != tracked.isVisible) {
+            tracked.isVisible = isVisible;
+            visibilityListener.accept(tracked);
+        }
+    }
+
+    private boolean isCellInView(int cellX, int cellY) {
+        return cellX >= viewMinCellX && cellX <= viewMaxCellX && cellY >= viewMinCellY &&
+                cellY <= viewMaxCellY;
+    }
+
+    private void addToCells(TrackedObject tracked) {
+        for (int cellY = tracked.minCellY; cellY <= tracked.maxCellY; cellY++) {
+            for (int cellX = tracked.minCellX; cellX <= tracked.maxCellX; cellX++) {
+                findOrAddCell(cellKey(cellX, cellY)).objects.add(tracked);
+            }
+        }
+    }
+
+    private void removeFromCells(TrackedObject tracked) {
+        for (int cellY = tracked.minCellY; cellY <= tracked.maxCellY; cellY++) {
+            for (int cellX = tracked.minCellX; cellX <= tracked.maxCellX; cellX++) {
+                Cell cell = findCell(cellKey(cellX, cellY));
+                if (cell != null) {
+                    cell.objects.remove(tracked);
+                }
+            }
+        }
+    }
+
+    private static void setCells(TrackedObject tracked, int minCellX, int minCellY, int maxCellX,
+                                 int maxCellY) {
+        tracked.minCellX = minCellX;
+        tracked.minCellY = minCellY;
+        tracked.maxCellX = maxCellX;
+        tracked.maxCellY = maxCellY;
+    }
+
+    private int cellOf(float coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    private static long cellKey(int cellX, int cellY) {
+        return ((long) cellX << Integer.SIZE) | (cellY & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Looks a cell up in the table.
+     *
+     * @param key The packed coordinates of the cell.
+     * @return The cell, or null if no object has entered it yet.
+     */
+    private Cell findCell(long key) {
+        int mask = table.length - 1;
+        for (int slot = slotOf(key, mask); table[slot] != null; slot = (slot + 1) & mask) {
+            if (table[slot].key == key) {
+                return table[slot];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Looks a cell up in the table, adding it if no object has entered it yet. The table is doubled
+     * once it is half full.
+     *
+     * @param key The packed coordinates of the cell.
+     * @return The cell.
+     */
+    private Cell findOrAddCell(long key) {
+        int mask = table.length - 1;
+        int slot = slotOf(key, mask);
+        for (; table[slot] != null; slot = (slot + 1) & mask) {
+            if (table[slot].key == key) {
+                return table[slot];
+            }
+        }
+        Cell cell = new Cell(key);
+        table[slot] = cell;
+        if (++cellCount * 2 > table.length) {
+            grow();
+        }
+        return cell;
+    }
+
+    /**
+     * Doubles the table and re-inserts every cell.
+     */
+    private void grow() {
+        Cell[] oldTable = table;
+        table = new Cell[oldTable.length * 2];
+        int mask = table.length - 1;
+        for (Cell cell : oldTable) {
+            if (cell != null) {
+                int slot = slotOf(cell.key, mask);
+                while (table[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = cell;
+            }
+        }
+    }
+
+    private static int slotOf(long key, int mask) {
+        return (int) ((key * HASH_MULTIPLIER) >>> Integer.SIZE) & mask;
+    }
+
+    /**
+     * A cell of the grid and the objects whose bounds overlap it.
+     */
+    private static final class Cell {
+        private final long key;
+        private final List<TrackedObject> objects = new ArrayList<>();
+
+        Cell(long key) {
+            this.key = key;
+        }
+    }
+}
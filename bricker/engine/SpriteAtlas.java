@@ -0,0 +1,145 @@
+package bricker.engine;
+
+import bricker.telemetry.AssetLoadEvent;
+import danogl.gui.ImageReader;
+import danogl.gui.rendering.ImageRenderable;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The sprites of the game, packed into a single image when the game loads.
+ * <p>
+ * Each sprite is a region of the atlas, rendered through an {@link AtlasSprite}. A sprite drawn at
+ * the same size frame after frame, like the bricks, is scaled once into a variant kept in a shared
+ * {@link ScaledSpriteCache}, and every draw after that copies the variant's pixels as they are
+ * instead of scaling the source image again. The atlas is immutable once packed, so sprites may be
+ * looked up from any thread; they are drawn on the render thread only.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+public final class SpriteAtlas {
+
+    private static final int MIN_ATLAS_WIDTH = 256;
+    private static final int SPRITE_PADDING = 1;
+    private final BufferedImage atlas;
+    private final List<String> paths;
+    private final List<Boolean> transparencies;
+    private final List<AtlasSprite> sprites;
+    private final ScaledSpriteCache scaledSprites;
+
+    private SpriteAtlas(BufferedImage atlas, List<String> paths, List<Boolean> transparencies,
+                        List<AtlasSprite> sprites, ScaledSpriteCache scaledSprites) {
+        this.atlas = atlas;
+        this.paths = paths;
+        this.transparencies = transparencies;
+        this.sprites = sprites;
+        this.scaledSprites = scaledSprites;
+    }
+
+    /**
+     * Reads the given images and packs them into an atlas, in shelves ordered by height.
+     *
+     * @param imageReader           Reads the images from disk.
+     * @param imagePaths            The paths of the images.
+     * @param areTopLeftTransparent For each image, whether the color of its top left pixel should be
+     *                              transparent.
+     * @param scaledSpriteCapacity  The number of scaled variants kept before the least recently
+     *                              used one is dropped.
+     * @return The atlas.
+     */
+    public static SpriteAtlas pack(ImageReader imageReader, String[] imagePaths,
+                                   boolean[] areTopLeftTransparent, int scaledSpriteCapacity) {
+        int count = imagePaths.length;
+        BufferedImage[] images = new BufferedImage[count];
+        Integer[] order = new Integer[count];
+        long area = 0;
+        int widest = 0;
+        for (int i = 0; i < count; i++) {
+            AssetLoadEvent loadEvent = new AssetLoadEvent();
+            loadEvent.begin();
+            ImageRenderable image = imageReader.readImage(imagePaths[i], areTopLeftTransparent[i]);
+            loadEvent.commitLoad(imagePaths[i], false);
+            images[i] = image.getImage();
+            order[i] = i;
+            area += (long) (images[i].getWidth() + SPRITE_PADDING) * (images[i].getHeight() + SPRITE_PADDING);
+            widest = Math.max(widest, images[i].getWidth() + SPRITE_PADDING);
+        }
+        Arrays.sort(order, (first, second) ->
+                images[second].getHeight() - images[first].getHeight());
+        int atlasWidth = Math.max(MIN_ATLAS_WIDTH, Math.max(widest, (int) Math.ceil(Math.sqrt(area))));
+        int[] xs = new int[count];
+        int[] ys = new int[count];
+        int shelfX = 0;
+        int shelfY = 0;
+        int shelfHeight = 0;
+        for (int i : order) {
+            int width = images[i].getWidth() + SPRITE_PADDING;
+            if (shelfX + width > atlasWidth) {
+                shelfY += shelfHeight;
+                shelfX = 0;
+                shelfHeight = 0;
+            }
+            xs[i] = shelfX;
+            ys[i] = shelfY;
+            shelfX += width;
+            shelfHeight = Math.max(shelfHeight, images[i].getHeight() + SPRITE_PADDING);
+        }
+        BufferedImage atlas = new BufferedImage(atlasWidth, Math.max(1, shelfY + shelfHeight),
+                BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = atlas.createGraphics();
+        g.setComposite(AlphaComposite.Src);
+        ScaledSpriteCache scaledSprites = new ScaledSpriteCache(scaledSpriteCapacity);
+        List<String> paths = new ArrayList<>(count);
+        List<Boolean> transparencies = new ArrayList<>(count);
+        List<AtlasSprite> sprites = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            g.drawImage(images[i], xs[i], ys[i], null);
+            paths.add(imagePaths[i]);
+            transparencies.add(areTopLeftTransparent[i]);
+            boolean isOpaque = images[i].getTransparency() == Transparency.OPAQUE;
+            sprites.add(new AtlasSprite(atlas, i, xs[i], ys[i], images[i].getWidth(),
+                    images[i].getHeight(), isOpaque, scaledSprites));
+        }
+        g.dispose();
+        return new SpriteAtlas(atlas, paths, transparencies, sprites, scaledSprites);
+    }
+
+    /**
+     * @param imagePath                 The path of an image.
+     * @param isTopLeftPixelTransparent Whether the color of the top left pixel should be transparent.
+     * @return The sprite packed from the image with the same transparency, or null if there is none.
+     */
+    public AtlasSprite find(String imagePath, boolean isTopLeftPixelTransparent) {
+        for (int i = 0; i < paths.size(); i++) {
+            if (paths.get(i).equals(imagePath) && transparencies.get(i) == isTopLeftPixelTransparent) {
+                return sprites.get(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return The packed image.
+     */
+    public BufferedImage getImage() {
+        return atlas;
+    }
+
+    /**
+     * @return The number of scaled variants currently cached.
+     */
+    public int getScaledVariantCount() {
+        return scaledSprites.size();
+    }
+
+    /**
+     * @return The number of scaled variants created so far, each a cache miss.
+     */
+    public long getScaledVariantsCreated() {
+        return scaledSprites.getCreated();
+    }
+}
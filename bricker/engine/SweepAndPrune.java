@@ -0,0 +1,232 @@
+package bricker.engine;
+
+import danogl.GameObject;
+import danogl.util.Vector2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiPredicate;
+
+/**
+ * A sort-and-sweep broadphase for the objects of a single layer.
+ * <p>
+ * The objects are kept sorted by the left edge of their bounds. Objects move little between frames,
+ * so re-sorting with insertion sort each frame costs close to a single pass. The sweep then only
+ * hands on pairs whose bounds overlap on both axes, instead of every pair in the layer. Pairs that
+ * were colliding in the previous frame and have drifted apart are handed on once more, so they
+ * receive their collision exit. A pair is always handed on in the same order, by the ids of its
+ * objects, since danogl tells a collision that goes on from a new one by the order of the pair.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+final class SweepAndPrune {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private final BiPredicate<TrackedObject, TrackedObject> pairHandler;
+    private final List<TrackedObject> pendingInserts = new ArrayList<>();
+    private TrackedObject[] objects = new TrackedObject[INITIAL_CAPACITY];
+    private float[] minX = new float[INITIAL_CAPACITY];
+    private float[] maxX = new float[INITIAL_CAPACITY];
+    private float[] minY = new float[INITIAL_CAPACITY];
+    private float[] maxY = new float[INITIAL_CAPACITY];
+    private int size = 0;
+    private boolean hasPendingRemovals = false;
+    private TrackedObject[] collidingPairs = new TrackedObject[2 * INITIAL_CAPACITY];
+    private int collidingPairCount = 0;
+    private TrackedObject[] previousCollidingPairs = new TrackedObject[2 * INITIAL_CAPACITY];
+    private long pairsTested = 0;
+    private long lastSweepNanos = 0;
+
+    /**
+     * Construct a new SweepAndPrune instance.
+     *
+     * @param pairHandler Called with every candidate pair; returns true if the pair collides.
+     */
+    SweepAndPrune(BiPredicate<TrackedObject, TrackedObject> pairHandler) {
+        this.pairHandler = pairHandler;
+    }
+
+    /**
+     * Schedules an object to join the broadphase at the next {@link #flushChanges}.
+     *
+     * @param tracked The object.
+     */
+    void insert(TrackedObject tracked) {
+        pendingInserts.add(tracked);
+    }
+
+    /**
+     * Schedules the objects that were marked as removed to leave the broadphase at the next
+     * {@link #flushChanges}.
+     */
+    void markRemovalPending() {
+        hasPendingRemovals = true;
+    }
+
+    /**
+     * Applies pending insertions and removals. Called where the layers of the collection are
+     * flushed, so objects join and leave the broadphase in step with the engine.
+     */
+    void flushChanges() {
+        if (hasPendingRemovals) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (!objects[i].isRemoved) {
+                    objects[kept++] = objects[i];
+                }
+            }
+            for (int i = kept; i < size; i++) {
+                objects[i] = null;
+            }
+            size = kept;
+            hasPendingRemovals = false;
+        }
+        for (int i = 0; i < pendingInserts.size(); i++) {
+            TrackedObject tracked = pendingInserts.get(i);
+            if (!tracked.isRemoved) {
+                ensureCapacity(size + 1);
+                objects[size++] = tracked;
+            }
+        }
+        pendingInserts.clear();
+    }
+
+    /**
+     * Refreshes the bounds, re-sorts and sweeps, handing every overlapping pair to the pair handler.
+     */
+    void handleCollisions() {
+        long start = System.nanoTime();
+        refreshBounds();
+        insertionSort();
+        TrackedObject[] swap = previousCollidingPairs;
+        previousCollidingPairs = collidingPairs;
+        collidingPairs = swap.length >= previousCollidingPairs.length ? swap :
+                new TrackedObject[previousCollidingPairs.length];
+        int previousCount = collidingPairCount;
+        collidingPairCount = 0;
+        for (int i = 0; i < size; i++) {
+            float right = maxX[i];
+            for (int j = i + 1; j < size && minX[j] <= right; j++) {
+                if (minY[j] <= maxY[i] && minY[i] <= maxY[j]) {
+                    testPair(objects[i], objects[j]);
+                }
+            }
+        }
+        for (int i = 0; i < previousCount; i++) {
+            TrackedObject first = previousCollidingPairs[2 * i];
+            TrackedObject second = previousCollidingPairs[2 * i + 1];
+            previousCollidingPairs[2 * i] = null;
+            previousCollidingPairs[2 * i + 1] = null;
+            // A pair that still overlaps was already visited by the sweep.
+            if (!first.isRemoved && !second.isRemoved && !overlaps(first.gameObject, second.gameObject)) {
+                testPair(first, second);
+            }
+        }
+        lastSweepNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * @return The total number of pairs handed to the pair handler.
+     */
+    long getPairsTested() {
+        return pairsTested;
+    }
+
+    /**
+     * @return The duration of the last sweep, in nanoseconds, including the pair handling.
+     */
+    long getLastSweepNanos() {
+        return lastSweepNanos;
+    }
+
+    /**
+     * Hands a pair to the pair handler, the object with the lower id first, remembering it if it
+     * collides.
+     */
+    private void testPair(TrackedObject first, TrackedObject second) {
+        if (second.id < first.id) {
+            TrackedObject swap = first;
+            first = second;
+            second = swap;
+        }
+        pairsTested++;
+        if (pairHandler.test(first, second)) {
+            if (2 * collidingPairCount + 2 > collidingPairs.length) {
+                TrackedObject[] grown = new TrackedObject[2 * collidingPairs.length];
+                System.arraycopy(collidingPairs, 0, grown, 0, 2 * collidingPairCount);
+                collidingPairs = grown;
+            }
+            collidingPairs[2 * collidingPairCount] = first;
+            collidingPairs[2 * collidingPairCount + 1] = second;
+            collidingPairCount++;
+        }
+    }
+
+    /**
+     * @return True if the bounds of the two objects overlap.
+     */
+    private static boolean overlaps(GameObject first, GameObject second) {
+        Vector2 firstTopLeftCorner = first.getTopLeftCorner();
+        Vector2 firstDimensions = first.getDimensions();
+        Vector2 secondTopLeftCorner = second.getTopLeftCorner();
+        Vector2 secondDimensions = second.getDimensions();
+        return firstTopLeftCorner.x() <= secondTopLeftCorner.x() + secondDimensions.x() &&
+                secondTopLeftCorner.x() <= firstTopLeftCorner.x() + firstDimensions.x() &&
+                firstTopLeftCorner.y() <= secondTopLeftCorner.y() + secondDimensions.y() &&
+                secondTopLeftCorner.y() <= firstTopLeftCorner.y() + firstDimensions.y();
+    }
+
+    private void refreshBounds() {
+        for (int i = 0; i < size; i++) {
+            GameObject obj = objects[i].gameObject;
+            Vector2 topLeftCorner = obj.getTopLeftCorner();
+            Vector2 dimensions = obj.getDimensions();
+            minX[i] = topLeftCorner.x();
+            maxX[i] = topLeftCorner.x() + dimensions.x();
+            minY[i] = topLeftCorner.y();
+            maxY[i] = topLeftCorner.y() + dimensions.y();
+        }
+    }
+
+    /**
+     * Sorts the objects by their left edge. Nearly sorted input, as from the previous frame, is
+     * sorted in close to linear time.
+     */
+    private void insertionSort() {
+        for (int i = 1; i < size; i++) {
+            TrackedObject tracked = objects[i];
+            float key = minX[i];
+            float right = maxX[i];
+            float top = minY[i];
+            float bottom = maxY[i];
+            int j = i - 1;
+            while (j >= 0 && minX[j] > key) {
+                objects[j + 1] = objects[j];
+                minX[j + 1] = minX[j];
+                maxX[j + 1] = maxX[j];
+                minY[j + 1] = minY[j];
+                maxY[j + 1] = maxY[j];
+                j--;
+            }
+            objects[j + 1] = tracked;
+            minX[j + 1] = key;
+            maxX[j + 1] = right;
+            minY[j + 1] = top;
+            maxY[j + 1] = bottom;
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= objects.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, 2 * objects.length);
+        TrackedObject[] grownObjects = new TrackedObject[newCapacity];
+        System.arraycopy(objects, 0, grownObjects, 0, size);
+        objects = grownObjects;
+        minX = new float[newCapacity];
+        maxX = new float[newCapacity];
+        minY = new float[newCapacity];
+        maxY = new float[newCapacity];
+    }
+}
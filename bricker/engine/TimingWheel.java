@@ -0,0 +1,147 @@
+package bricker.engine;
+
+/**
+ * A hierarchical timing wheel over an integer clock, such as ticks, milliseconds or event counts.
+ * <p>
+ * The wheel has four levels of 64 slots. An effect due within 64 units sits in the first level, one
+ * due within 64^2 units in the second, and so on; effects further away wait in an overflow list.
+ * Scheduling and cancelling link or unlink a single node. Advancing the clock by one unit visits a
+ * single slot of the first level, and every 64 units cascades one slot of the level above into the
+ * levels below, so pending effects cost nothing until they are close to firing.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+final class TimingWheel {
+
+    private static final int LEVELS = 4;
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int OVERFLOW_LEVEL = LEVELS;
+    private static final long RANGE = 1L << (LEVELS * SLOT_BITS);
+    private final EffectScheduler.Effect[][] slots = new EffectScheduler.Effect[LEVELS][SLOTS];
+    private EffectScheduler.Effect overflow;
+    private long now = 0;
+    private int pending = 0;
+
+    /**
+     * @return The current value of the clock.
+     */
+    long now() {
+        return now;
+    }
+
+    /**
+     * @return The number of effects waiting in the wheel.
+     */
+    int pending() {
+        return pending;
+    }
+
+    /**
+     * Schedules an effect to fire when the clock reaches its deadline, which must not have passed. An
+     * effect due now is fired by the current or next {@link #advance}.
+     *
+     * @param effect The effect, with its deadline set.
+     */
+    void schedule(EffectScheduler.Effect effect) {
+        long delta = effect.deadline - now;
+        int level = 0;
+        while (level < LEVELS && delta >= 1L << ((level + 1) * SLOT_BITS)) {
+            level++;
+        }
+        effect.wheel = this;
+        effect.level = level;
+        if (level == OVERFLOW_LEVEL) {
+            effect.slot = 0;
+            effect.next = overflow;
+            if (overflow != null) {
+                overflow.previous = effect;
+            }
+            overflow = effect;
+        } else {
+            int slot = (int) (effect.deadline >>> (level * SLOT_BITS)) & SLOT_MASK;
+            effect.slot = slot;
+            effect.next = slots[level][slot];
+            if (effect.next != null) {
+                effect.next.previous = effect;
+            }
+            slots[level][slot] = effect;
+        }
+        effect.previous = null;
+        pending++;
+    }
+
+    /**
+     * Unlinks an effect from the wheel.
+     *
+     * @param effect An effect scheduled on this wheel.
+     */
+    void cancel(EffectScheduler.Effect effect) {
+        if (effect.previous != null) {
+            effect.previous.next = effect.next;
+        } else if (effect.level == OVERFLOW_LEVEL) {
+            overflow = effect.next;
+        } else {
+            slots[effect.level][effect.slot] = effect.next;
+        }
+        if (effect.next != null) {
+            effect.next.previous = effect.previous;
+        }
+        effect.next = null;
+        effect.previous = null;
+        effect.wheel = null;
+        pending--;
+    }
+
+    /**
+     * Advances the clock by one unit, cascading the levels that are due and firing the effects whose
+     * deadline is reached. Effects may schedule and cancel other effects while they fire.
+     */
+    void advance() {
+        now++;
+        if ((now & (RANGE - 1)) == 0) {
+            rescheduleOverflow();
+        }
+        for (int level = LEVELS - 1; level > 0; level--) {
+            if ((now & ((1L << (level * SLOT_BITS)) - 1)) == 0) {
+                cascade(level, (int) (now >>> (level * SLOT_BITS)) & SLOT_MASK);
+            }
+        }
+        EffectScheduler.Effect effect;
+        int slot = (int) now & SLOT_MASK;
+        while ((effect = slots[0][slot]) != null) {
+            cancel(effect);
+            effect.fire();
+        }
+    }
+
+    /**
+     * Moves the effects of a slot into the levels below it.
+     *
+     * @param level The level of the slot.
+     * @param slot  The slot.
+     */
+    private void cascade(int level, int slot) {
+        EffectScheduler.Effect effect;
+        while ((effect = slots[level][slot]) != null) {
+            cancel(effect);
+            schedule(effect);
+        }
+    }
+
+    /**
+     * Moves the overflowing effects that came within range into the levels.
+     */
+    private void rescheduleOverflow() {
+        EffectScheduler.Effect effect = overflow;
+        while (effect != null) {
+            EffectScheduler.Effect next = effect.next;
+            if (effect.deadline - now < RANGE) {
+                cancel(effect);
+                schedule(effect);
+            }
+            effect = next;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package bricker.engine;
+
+import danogl.GameObject;
+
+/**
+ * The bookkeeping {@link BrickerGameObjectCollection} keeps for every GameObject it holds.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+final class TrackedObject {
+
+    final GameObject gameObject;
+    final long id;
+    final int layerId;
+    final boolean isInert;
+    final int category;
+    int collisionMask;
+    boolean isInGrid = false;
+    int minCellX;
+    int minCellY;
+    int maxCellX;
+    int maxCellY;
+    boolean isVisible = true;
+    boolean isAsleep = false;
+    int updateIndex = -1;
+    boolean isPendingUpdateSync = false;
+    boolean isRemoved = false;
+    int batchId = -1;
+    boolean isBatchedMover = false;
+    boolean isBatchedObstacle = false;
+
+    /**
+     * Construct a new TrackedObject instance.
+     *
+     * @param gameObject The tracked GameObject.
+     * @param id         A number no other object of the collection has, which orders the pairs of
+     *                   objects handed to danogl.
+     * @param layerId    The layer the GameObject is in.
+     * @param isInert    True if the GameObject has no behaviour of its own, so it may sleep while at
+     *                   rest and skip updates while it cannot be seen.
+     * @param category   The {@link CollisionFilter} category of the GameObject.
+     */
+    TrackedObject(GameObject gameObject, long id, int layerId, boolean isInert, int category) {
+        this.gameObject = gameObject;
+        this.id = id;
+        this.layerId = layerId;
+        this.isInert = isInert;
+        this.category = category;
+    }
+
+    /**
+     * @return True if the GameObject should be in the update list, false otherwise.
+     */
+    boolean shouldUpdate() {
+        return !isRemoved && !isAsleep && (isVisible || !isInert);
+    }
+
+    /**
+     * @param other Another object.
+     * @return True if the {@link CollisionFilter} lets the two objects collide. An object of no
+     * category is never filtered out.
+     */
+    boolean isAllowedToCollideWith(TrackedObject other) {
+        return category == 0 || other.category == 0 ||
+                ((category & other.collisionMask) != 0 && (other.category & collisionMask) != 0);
+    }
+}
@@ -1,5 +1,6 @@
 package bricker.gameobjects;
 
+import bricker.engine.EffectScheduler;
 import danogl.GameObject;
 import danogl.collisions.Collision;
 import danogl.gui.Sound;
@@ -13,6 +14,7 @@ import danogl.util.Vector2;
  */
 public class Ball extends GameObject {
     private final Sound collisionSound;
+    private final EffectScheduler effectScheduler;
     private int collisionCounter = 0;
 
     /**
@@ -23,11 +25,15 @@ public class Ball extends GameObject {
      * @param dimensions     Width and height in window coordinates.
      * @param renderable     The renderable representing the object. Can be null, in which case
      *                       the GameObject will not be rendered.
-     * @param collisionSound The sound to play when the ball collides with something.
+     * @param collisionSound  The sound to play when the ball collides with something.
+     * @param effectScheduler The scheduler to post every collision of the ball to, as an
+     *                        {@link EffectScheduler#BALL_COLLISION} event.
      */
-    public Ball(Vector2 topLeftCorner, Vector2 dimensions, Renderable renderable, Sound collisionSound) {
+    public Ball(Vector2 topLeftCorner, Vector2 dimensions, Renderable renderable, Sound collisionSound,
+                EffectScheduler effectScheduler) {
         super(topLeftCorner, dimensions, renderable);
         this.collisionSound = collisionSound;
+        this.effectScheduler = effectScheduler;
     }
 
     /**
@@ -40,9 +46,9 @@ public class Ball extends GameObject {
     public void onCollisionEnter(GameObject other, Collision collision) {
         super.onCollisionEnter(other, collision);
         collisionCounter++;
-        Vector2 newVelocity = this.getVelocity().flipped(collision.getNormal());
-        setVelocity(newVelocity);
+        reflectVelocity(collision.getNormal());
         collisionSound.play();
+        effectScheduler.onEvent(EffectScheduler.BALL_COLLISION);
     }
 
     /**
@@ -53,6 +59,15 @@ public class Ball extends GameObject {
         return collisionCounter;
     }
 
+    /**
+     * Sets the collision counter, used when restoring a saved game.
+     *
+     * @param collisionCounter The number of collisions that occurred with this ball.
+     */
+    public void setCollisionCounter(int collisionCounter) {
+        this.collisionCounter = collisionCounter;
+    }
+
     /**
      * Resets the collision counter to 0.
      */
@@ -60,4 +75,20 @@ public class Ball extends GameObject {
 
         collisionCounter = 0;
     }
+
+    /**
+     * Reflects the velocity of the ball about a collision normal, in place. Equivalent to
+     * {@code getVelocity().flipped(normal)}, without allocating a vector.
+     *
+     * @param normal The collision normal.
+     */
+    private void reflectVelocity(Vector2 normal) {
+        Vector2 velocity = getVelocity();
+        float normalMagnitude = normal.magnitude();
+        float velocityAlongNormal = velocity.dot(normal) / normalMagnitude;
+        if (velocityAlongNormal < 0) {
+            transform().setVelocity(velocity.x() - normal.x() * 2 * velocityAlongNormal / normalMagnitude,
+                    velocity.y() - normal.y() * 2 * velocityAlongNormal / normalMagnitude);
+        }
+    }
 }
@@ -1,6 +1,9 @@
 package bricker.gameobjects;
 
+import bricker.brick_strategies.BrickStrategiesFactory;
 import bricker.brick_strategies.CollisionStrategy;
+import bricker.telemetry.BrickHitEvent;
+import bricker.telemetry.GameEventLog;
 import danogl.GameObject;
 import danogl.collisions.Collision;
 import danogl.gui.rendering.Renderable;
@@ -14,7 +17,8 @@ import danogl.util.Vector2;
 public class Brick extends GameObject {
 
     private final CollisionStrategy collisionStrategy;
-
+    private final int brickId;
+    private final GameEventLog eventLog;
 
     /**
      * Construct a new GameObject instance.
@@ -25,16 +29,20 @@ public class Brick extends GameObject {
      * @param renderable        The renderable representing the object. Can be null, in which case
      *                          the GameObject will not be rendered.
      * @param collisionStrategy The strategy to use when a collision occurs with this brick.
+     * @param brickId           The index of this brick in the level's brick grid (row-major).
+     * @param eventLog          The log to record hits in, or null if hits are not logged.
      */
     public Brick(Vector2 topLeftCorner, Vector2 dimensions, Renderable renderable,
-                 CollisionStrategy collisionStrategy) {
+                 CollisionStrategy collisionStrategy, int brickId, GameEventLog eventLog) {
         super(topLeftCorner, dimensions, renderable);
         this.collisionStrategy = collisionStrategy;
-
+        this.brickId = brickId;
+        this.eventLog = eventLog;
     }
 
     /**
-     * Called when a collision occurs with another GameObject.
+     * Called when a collision occurs with another GameObject. The handling of the hit is timed as a
+     * Flight Recorder event.
      *
      * @param other     The GameObject with which a collision occurred.
      * @param collision Information regarding this collision.
@@ -42,6 +50,26 @@ public class Brick extends GameObject {
     @Override
     public void onCollisionEnter(GameObject other, Collision collision) {
         super.onCollisionEnter(other, collision);
+        if (eventLog != null) {
+            eventLog.brickHit(brickId, BrickStrategiesFactory.strategyTypeOf(collisionStrategy), other);
+        }
+        BrickHitEvent hitEvent = new BrickHitEvent();
+        hitEvent.begin();
         collisionStrategy.onCollision(this, other);
+        hitEvent.commitHit(brickId, BrickStrategiesFactory.strategyTypeOf(collisionStrategy), other);
+    }
+
+    /**
+     * @return The index of this brick in the level's brick grid (row-major).
+     */
+    public int getBrickId() {
+        return brickId;
+    }
+
+    /**
+     * @return The strategy to use when a collision occurs with this brick.
+     */
+    public CollisionStrategy getCollisionStrategy() {
+        return collisionStrategy;
     }
 }
@@ -1,5 +1,6 @@
 package bricker.gameobjects;
 
+import bricker.engine.EffectScheduler;
 import danogl.GameObject;
 import danogl.collisions.Collision;
 import danogl.collisions.GameObjectCollection;
@@ -9,14 +10,18 @@ import danogl.util.Counter;
 import danogl.util.Vector2;
 
 /**
- * An Extra paddle in the game.
+ * An Extra paddle in the game. It leaves the game after it was hit a fixed number of times, through
+ * an effect on the {@link EffectScheduler#EXTRA_PADDLE_COLLISION} channel.
  *
  * @author Avital Harel & Amir Rosengarten
  */
 public class ExtraPaddle extends Paddle {
 
+    private static final int MAX_COLLISIONS = 4;
     private final Counter collisionCounter;
     private final GameObjectCollection gameObjects;
+    private final EffectScheduler effectScheduler;
+    private EffectScheduler.Effect removal;
 
     /**
      * Construct a new GameObject instance.
@@ -31,13 +36,17 @@ public class ExtraPaddle extends Paddle {
      * @param minDistFromEdge  The minimum distance from the edge of the window that this GameObject
      *                         should be rendered at.
      * @param gameObjects      The collection of GameObjects in the game.
+     * @param effectScheduler  The scheduler that removes the paddle after its last collision.
      */
     public ExtraPaddle(Vector2 topLeftCorner, Vector2 dimensions, Renderable renderable,
                        UserInputListener inputListener, Vector2 windowDimensions,
-                       int minDistFromEdge, GameObjectCollection gameObjects) {
+                       int minDistFromEdge, GameObjectCollection gameObjects,
+                       EffectScheduler effectScheduler) {
         super(topLeftCorner, dimensions, renderable, inputListener, windowDimensions, minDistFromEdge);
         this.collisionCounter = new Counter();
         this.gameObjects = gameObjects;
+        this.effectScheduler = effectScheduler;
+        scheduleRemoval();
     }
 
     /**
@@ -50,8 +59,33 @@ public class ExtraPaddle extends Paddle {
     public void onCollisionEnter(GameObject other, Collision collision) {
         super.onCollisionEnter(other, collision);
         collisionCounter.increment();
-        if (collisionCounter.value() == 4) {
-            gameObjects.removeGameObject(this);
-        }
+        effectScheduler.onEvent(EffectScheduler.EXTRA_PADDLE_COLLISION);
+    }
+
+    /**
+     * @return The number of collisions that occurred with this paddle.
+     */
+    public int getCollisionCount() {
+        return collisionCounter.value();
+    }
+
+    /**
+     * Sets the number of collisions that occurred with this paddle, used when restoring a saved game.
+     *
+     * @param collisionCount The number of collisions.
+     */
+    public void setCollisionCount(int collisionCount) {
+        collisionCounter.reset();
+        collisionCounter.increaseBy(collisionCount);
+        removal.cancel();
+        scheduleRemoval();
+    }
+
+    /**
+     * Schedules the removal of the paddle once the collisions it has left have occurred.
+     */
+    private void scheduleRemoval() {
+        removal = effectScheduler.afterEvents(EffectScheduler.EXTRA_PADDLE_COLLISION,
+                MAX_COLLISIONS - collisionCounter.value(), () -> gameObjects.removeGameObject(this));
     }
 }
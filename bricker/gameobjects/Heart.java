@@ -1,5 +1,6 @@
 package bricker.gameobjects;
 
+import bricker.engine.ParticlePool;
 import danogl.GameObject;
 import danogl.collisions.Collision;
 import danogl.collisions.GameObjectCollection;
@@ -8,15 +9,20 @@ import danogl.util.Counter;
 import danogl.util.Vector2;
 
 /**
- * A heart in the game.
+ * A heart in the game. Falling hearts collide with the original paddle only, as set by the
+ * {@link bricker.engine.CollisionFilter} of the level.
  *
  * @author Avital Harel & Amir Rosengarten
  */
 public class Heart extends GameObject {
 
+    private static final int PICKUP_PARTICLES = 48;
+    private static final float PICKUP_PARTICLE_SPEED = 160;
+    private static final int PICKUP_PARTICLE_COLOR = 0xFF4D6D;
     private Counter livesCounter;
     private Counter strikesCounter;
     private GameObjectCollection gameObjects;
+    private final ParticlePool particles;
 
     /**
      * Construct a new GameObject instance.
@@ -28,19 +34,23 @@ public class Heart extends GameObject {
      *                           the GameObject will not be rendered.
      * @param livesCounter       The counter representing the number of lives.
      * @param gameObjects        The collection of GameObjects in the game.
+     * @param strikesCounter     The counter representing the number of strikes.
+     * @param particles          The particles to burst when the heart is picked up.
      */
     public Heart(Vector2 heartTopLeftCorner,
                  Vector2 heartDimensions,
                  Renderable heartRenderable, Counter livesCounter, GameObjectCollection gameObjects
-            , Counter strikesCounter) {
+            , Counter strikesCounter, ParticlePool particles) {
         super(heartTopLeftCorner, heartDimensions, heartRenderable);
         this.livesCounter = livesCounter;
         this.gameObjects = gameObjects;
         this.strikesCounter = strikesCounter;
+        this.particles = particles;
     }
 
     /**
-     * Called when a collision occurs with another GameObject.
+     * Called when a collision occurs with another GameObject. A heart that adds a life bursts into
+     * particles.
      *
      * @param other     The GameObject with which a collision occurred.
      * @param collision Information regarding this collision.
@@ -51,18 +61,9 @@ public class Heart extends GameObject {
         if (strikesCounter.value() <= 4 && livesCounter.value() < 4) {
             livesCounter.increment();
             gameObjects.removeGameObject(this);
+            Vector2 center = getCenter();
+            particles.emit(center.x(), center.y(), PICKUP_PARTICLES, PICKUP_PARTICLE_SPEED,
+                    PICKUP_PARTICLE_COLOR);
         }
     }
-
-    /**
-     * Called when a collision ends with another GameObject.
-     *
-     * @param other The other GameObject.
-     * @return True if the GameObject should continue to collide with the other GameObject, false otherwise.
-     */
-    @Override
-    public boolean shouldCollideWith(GameObject other) {
-
-        return other.getTag().equals("Original Paddle");
-    }
 }
@@ -41,26 +41,27 @@ public class Paddle extends GameObject {
     }
 
     /**
-     * Updates the paddle's position based on the input.
+     * Updates the paddle's position based on the input. Runs every frame, so it works on primitive
+     * floats and the transform's own vectors rather than allocating new ones.
      *
      * @param deltaTime The time that has passed since the last update.
      */
     @Override
     public void update(float deltaTime) {
         super.update(deltaTime);
-        Vector2 movementDir = Vector2.ZERO;
+        float movementDirX = 0;
         if (inputListener.isKeyPressed(KeyEvent.VK_LEFT)) {
-            movementDir = movementDir.add(Vector2.LEFT);
+            movementDirX += Vector2.LEFT.x();
         }
         if (inputListener.isKeyPressed(KeyEvent.VK_RIGHT)) {
-            movementDir = movementDir.add(Vector2.RIGHT);
+            movementDirX += Vector2.RIGHT.x();
         }
-        setVelocity(movementDir.mult(MOVEMENT_SPEED));
+        transform().setVelocity(movementDirX * MOVEMENT_SPEED, 0);
         int paddleTopLeftCornerX = (int) getTopLeftCorner().x();
-        if (paddleTopLeftCornerX < minDistFromEdge || paddleTopLeftCornerX > screenWidth - minDistFromEdge
-                - getDimensions().x()) {
-            transform().setTopLeftCornerX(Math.max(minDistFromEdge, Math.min(screenWidth - minDistFromEdge
-                    - getDimensions().x(), paddleTopLeftCornerX)));
+        float maxTopLeftCornerX = screenWidth - minDistFromEdge - getDimensions().x();
+        if (paddleTopLeftCornerX < minDistFromEdge || paddleTopLeftCornerX > maxTopLeftCornerX) {
+            transform().setTopLeftCornerX(Math.max(minDistFromEdge,
+                    Math.min(maxTopLeftCornerX, paddleTopLeftCornerX)));
         }
     }
 }
@@ -38,8 +38,23 @@ public class Puck extends GameObject {
      */
     @Override
     public void onCollisionEnter(GameObject other, Collision collision) {
-        Vector2 newVelocity = this.getVelocity().flipped(collision.getNormal());
-        setVelocity(newVelocity);
+        reflectVelocity(collision.getNormal());
         collisionSound.play();
     }
+
+    /**
+     * Reflects the velocity of the puck about a collision normal, in place. Equivalent to
+     * {@code getVelocity().flipped(normal)}, without allocating a vector.
+     *
+     * @param normal The collision normal.
+     */
+    private void reflectVelocity(Vector2 normal) {
+        Vector2 velocity = getVelocity();
+        float normalMagnitude = normal.magnitude();
+        float velocityAlongNormal = velocity.dot(normal) / normalMagnitude;
+        if (velocityAlongNormal < 0) {
+            transform().setVelocity(velocity.x() - normal.x() * 2 * velocityAlongNormal / normalMagnitude,
+                    velocity.y() - normal.y() * 2 * velocityAlongNormal / normalMagnitude);
+        }
+    }
 }
@@ -1,20 +1,59 @@
 package bricker.main;
 
 import bricker.brick_strategies.*;
+import bricker.engine.BrickerGameObjectCollection;
+import bricker.engine.CollisionFilter;
+import bricker.engine.CommandQueue;
+import bricker.engine.EffectScheduler;
+import bricker.engine.FrameBudgetGovernor;
+import bricker.engine.GovernedSound;
+import bricker.engine.InputSnapshot;
+import bricker.engine.LevelPreloader;
+import bricker.engine.ParticlePool;
+import bricker.engine.RemoteControlServer;
+import bricker.engine.RemoteInputListener;
+import bricker.engine.SpriteAtlas;
 import bricker.gameobjects.*;
+import bricker.state.FrameRestorer;
+import bricker.state.GameCheckpoint;
+import bricker.state.GameStateFrame;
+import bricker.state.GameplayCapture;
+import bricker.state.RewindBuffer;
+import bricker.state.SpectatorServer;
+import bricker.telemetry.GameEventLog;
+import bricker.telemetry.GameResetEvent;
+import bricker.telemetry.GameTelemetry;
+import bricker.telemetry.LongFrameEvent;
+import bricker.telemetry.AssetLoadEvent;
+import bricker.telemetry.CameraSwitchEvent;
+import bricker.telemetry.FrameTimeHistogram;
+import bricker.telemetry.MetricsEndpoint;
+import bricker.telemetry.SessionRecord;
+import bricker.telemetry.SessionStore;
 import danogl.GameManager;
 import danogl.GameObject;
-import danogl.collisions.GameObjectCollection;
 import danogl.collisions.Layer;
 import danogl.components.CoordinateSpace;
 import danogl.gui.*;
+import danogl.gui.rendering.Camera;
+import danogl.gui.rendering.ImageRenderable;
 import danogl.gui.rendering.Renderable;
 import danogl.util.Counter;
 import danogl.util.Vector2;
 
 import java.awt.*;
 import java.awt.event.KeyEvent;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.management.JMException;
+import javax.management.ObjectName;
 
 /**
  * The main class for the Bricker game.
@@ -34,10 +73,50 @@ public class BrickerGameManager extends GameManager {
     private static final String BALL_IMAGE_PATH = "assets/ball.png";
     private static final String BALL_COLLISION_SOUND_PATH = "assets/blop_cut_silenced.wav";
     private static final String PADDLE_IMAGE_PATH = "assets/paddle.png";
+    private static final String MOCK_BALL_IMAGE_PATH = "assets/mockBall.png";
+    private static final String[] SPRITE_PATHS = {BRICK_IMAGE_PATH, BALL_IMAGE_PATH, MOCK_BALL_IMAGE_PATH,
+            HEART_IMAGE_PATH, PADDLE_IMAGE_PATH, BACKGROUND_IMAGE_PATH};
+    private static final boolean[] SPRITE_TRANSPARENCIES = {false, true, true, true, true, false};
+    private static final int SCALED_SPRITE_CAPACITY = 64;
     private static final String TAG_ORIGINAL_PADDLE = "Original Paddle";
     private static final String WINDOW_TITLE = "Bricker";
     private static final int DEFAULT_WINDOW_WIDTH = 700;
     private static final int DEFAULT_WINDOW_HEIGHT = 500;
+    private static final String SPECTATOR_PORT_PROPERTY = "bricker.spectatorPort";
+    private static final int MAX_SPECTATED_MOVERS = 1024;
+    private static final int QUICK_SAVE_CAPACITY = 1 << 20;
+    private static final String METRICS_PORT_PROPERTY = "bricker.metricsPort";
+    private static final String TELEMETRY_MBEAN_NAME = "bricker:type=GameTelemetry";
+    private static final String EVENT_LOG_PROPERTY = "bricker.eventLog";
+    private static final int EVENT_LOG_CAPACITY = 1 << 14;
+    private static final String SESSION_STORE_PROPERTY = "bricker.sessionStore";
+    private static final int LEADERBOARD_SIZE = 10;
+    private static final int POINTS_PER_BRICK = 100;
+    private static final int POINTS_PER_LIFE_LEFT = 500;
+    private static final String FRAME_GOVERNOR_PROPERTY = "bricker.frameGovernor";
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final String COLLISION_RULES_PROPERTY = "bricker.collisionRules";
+    private static final String BATCHED_MOVERS_PROPERTY = "bricker.batchedMovers";
+    private static final int CAMERA_BALL_COLLISIONS = 5;
+    private static final String REWIND_SECONDS_PROPERTY = "bricker.rewindSeconds";
+    private static final int DEFAULT_REWIND_SECONDS = 30;
+    private static final int REWIND_BYTE_CAPACITY = 8 << 20;
+    private static final int MAX_REWOUND_MOVERS = 1024;
+    private static final int REWIND_TICKS_PER_FRAME = 2;
+    private static final String CAPTURE_PROPERTY = "bricker.capture";
+    private static final String REMOTE_CONTROL_PORT_PROPERTY = "bricker.remoteControlPort";
+    private static final int REMOTE_COMMAND_QUEUE_CAPACITY = 1024;
+    private static final String CAPTURE_DELTA_PROPERTY = "bricker.captureDelta";
+    private static final String LEVELS_PROPERTY = "bricker.levels";
+    private static final String PARALLEL_UPDATE_THRESHOLD_PROPERTY = "bricker.parallelUpdateThreshold";
+    private static final int DEFAULT_LEVELS = 5;
+    private static final long LEVEL_SEED_MULTIPLIER = 0x9E3779B97F4A7C15L;
+    private static final float HOLE_FRACTION_PER_LEVEL = 0.05f;
+    private static final float MAX_HOLE_FRACTION = 0.25f;
+    private static final Color[] LEVEL_TINTS = {new Color(0x4FA3FF), new Color(0x6BE06B),
+            new Color(0xFFB347), new Color(0xD67BFF)};
+    private static final float TINT_WEIGHT = 0.5f;
+    private static final int PARTICLE_CAPACITY = 32768;
     private final int BALL_SPEED = 200;
     private final int BALL_RADIUS = 20;
     private final int PUCK_BALL_SPEED = 200;
@@ -65,9 +144,54 @@ public class BrickerGameManager extends GameManager {
     private Counter livesCounter;
     private Counter strikesCounter;
     private UserInputListener inputListener;
+    private final InputSnapshot input = new InputSnapshot();
+    private boolean isKeyEventProbeStarted = false;
     private ImageReader imageReader;
+    private SpriteAtlas spriteAtlas;
     private SoundReader soundReader;
     private BrickStrategiesFactory brickStrategiesFactory;
+    private Paddle paddle;
+    private Brick[] bricks;
+    private Renderable brickImage;
+    private ByteBuffer quickSaveBuffer;
+    private BrickerGameObjectCollection gameObjectCollection;
+    private GameTelemetry telemetry;
+    private MetricsEndpoint metricsEndpoint;
+    private GameEventLog eventLog;
+    private SessionStore sessionStore;
+    private final FrameTimeHistogram frameTimes = new FrameTimeHistogram();
+    private long sessionSeed;
+    private long sessionStartNanos;
+    private long lastFrameNanos;
+    private boolean isSessionRecorded = false;
+    private EffectScheduler effectScheduler;
+    private EffectScheduler.Effect cameraReset;
+    private Camera suspendedCamera;
+    private FrameBudgetGovernor frameBudgetGovernor;
+    private ParticlePool particles;
+    private boolean isFrameGoverned;
+    private long lastRenderNanos = 0;
+    private GameObject background;
+    private int lastLives;
+    private long frameNumber = 0;
+    private SpectatorServer spectatorServer;
+    private RemoteControlServer remoteControlServer;
+    private RemoteInputListener remoteInput;
+    private GameStateFrame spectatorFrame;
+    private RewindBuffer rewindBuffer;
+    private GameStateFrame rewindFrame;
+    private FrameRestorer frameRestorer;
+    private GameplayCapture gameplayCapture;
+    private final LevelPreloader<Level> levelPreloader = new LevelPreloader<>();
+    private BufferedImage baseBrickImage;
+    private int levelCount;
+    private int levelNumber;
+    private int levelBrickCount;
+    private int bricksClearedInEarlierLevels;
+    private boolean isHeadless = false;
+    private Camera headlessCamera;
+    private boolean isGameOver = false;
+    private boolean isGameWon = false;
 
     /**
      * Creates a new full-screen window with the specified title.
@@ -95,21 +219,95 @@ public class BrickerGameManager extends GameManager {
     public void initializeGame(ImageReader imageReader, SoundReader soundReader,
                                UserInputListener inputListener, WindowController windowController) {
         super.initializeGame(imageReader, soundReader, inputListener, windowController);
+        this.sessionSeed = ThreadLocalRandom.current().nextLong();
+        rand.setSeed(sessionSeed);
+        startGame(imageReader, soundReader, inputListener, windowController);
+    }
+
+    /**
+     * Starts a game without a window, for training and testing. Objects are not rendered and sounds
+     * are silent, and a game that ends is marked as over instead of asking to play again. The event
+     * log, spectator stream and telemetry endpoints are not opened. Calling this again starts a new
+     * game.
+     *
+     * @param inputListener    The input to play with, usually scripted.
+     * @param windowController The controller of a window that is never shown, which sets the
+     *                         dimensions of the game.
+     * @param seed             The seed of every random choice in the game, so that equal seeds and
+     *                         equal input play equal games.
+     */
+    public void initializeHeadlessGame(UserInputListener inputListener, WindowController windowController,
+                                       long seed) {
+        this.isHeadless = true;
+        this.sessionSeed = seed;
+        rand.setSeed(seed);
+        setCamera(null);
+        startGame(null, null, inputListener, windowController);
+    }
+
+    /**
+     * Builds a new game.
+     *
+     * @param imageReader      Reads images from disk, or null if objects are not rendered.
+     * @param soundReader      Reads sounds from disk, or null if sounds are silent.
+     * @param inputListener    The input to play with.
+     * @param windowController The window controller.
+     */
+    private void startGame(ImageReader imageReader, SoundReader soundReader,
+                           UserInputListener inputListener, WindowController windowController) {
+        GameResetEvent resetEvent = new GameResetEvent();
+        resetEvent.begin();
+        this.gameObjectCollection = new BrickerGameObjectCollection(windowController.messages(),
+                Boolean.getBoolean(BATCHED_MOVERS_PROPERTY));
+        setGameObjectsCollection(gameObjectCollection);
         windowController.setTargetFramerate(FRAME_RATE);
+        startEventLog(windowController);
+        gameObjectCollection.setEventLog(eventLog);
+        startSessionStore(windowController);
+        this.frameBudgetGovernor = new FrameBudgetGovernor(NANOS_PER_SECOND / FRAME_RATE,
+                gameObjectCollection, eventLog);
+        this.isFrameGoverned = !isHeadless &&
+                !Boolean.FALSE.toString().equals(System.getProperty(FRAME_GOVERNOR_PROPERTY));
+        this.isSessionRecorded = false;
+        this.sessionStartNanos = System.nanoTime();
+        this.lastFrameNanos = 0;
+        frameTimes.reset();
+        gameObjectCollection.setCollisionFilter(
+                CollisionFilter.parse(System.getProperty(COLLISION_RULES_PROPERTY, "")));
         this.windowController = windowController;
+        this.effectScheduler = new EffectScheduler();
+        this.cameraReset = null;
+        this.suspendedCamera = null;
+        this.isGameOver = false;
+        this.isGameWon = false;
         this.windowDimensions = windowController.getWindowDimensions();
+        gameObjectCollection.setRemovalBoundary(windowDimensions.y());
+        gameObjectCollection.setParallelUpdateThreshold(
+                Integer.getInteger(PARALLEL_UPDATE_THRESHOLD_PROPERTY, Integer.MAX_VALUE));
+        this.particles = new ParticlePool(isHeadless ? 0 : PARTICLE_CAPACITY, (int) windowDimensions.x(),
+                (int) windowDimensions.y(), sessionSeed);
         this.livesCounter = new Counter(NUM_OF_LIVES);
+        this.lastLives = NUM_OF_LIVES;
         this.strikesCounter = new Counter();
         this.inputListener = inputListener;
         this.imageReader = imageReader;
         this.soundReader = soundReader;
+        startTelemetry();
+        startKeyEventProbe();
+        packSprites();
         createWalls();
         createBackground(imageReader);
         createBall(imageReader, soundReader);
-        createPaddle(imageReader, inputListener);
+        createPaddle(imageReader, input);
         createBricks(imageReader, windowDimensions);
+        startCampaign(imageReader);
         createGraphicLifeCounter(imageReader);
         createNumericLifeCounter();
+        startSpectatorServer();
+        startRemoteControl();
+        startRewindBuffer();
+        startGameplayCapture();
+        resetEvent.commitReset(sessionSeed, isHeadless);
     }
 
     /**
@@ -119,41 +317,555 @@ public class BrickerGameManager extends GameManager {
      */
     @Override
     public void update(float deltaTime) {
-        super.update(deltaTime);
+        LongFrameEvent frameEvent = new LongFrameEvent();
+        frameEvent.begin();
+        long frameStartNanos = System.nanoTime();
+        if (remoteInput != null) {
+            remoteInput.drain(telemetry);
+            input.capture(remoteInput);
+        } else {
+            input.capture(inputListener);
+        }
+        timeFrame();
+        if (input.isKeyPressed(KeyEvent.VK_BACK_SPACE) && rewindBuffer != null) {
+            rewindTo(Math.max(rewindBuffer.getOldestTick(), frameNumber - REWIND_TICKS_PER_FRAME));
+            updateViewport();
+        } else {
+            playFrame(deltaTime);
+        }
+        governFrame(System.nanoTime() - frameStartNanos + lastRenderNanos);
+        frameEvent.commitFrame(frameNumber, gameObjectCollection.getUpdatedObjectCount());
+    }
+
+    /**
+     * Advances the game by one frame and records it for rewinding.
+     *
+     * @param deltaTime The time elapsed, in seconds, since the last frame.
+     */
+    private void playFrame(float deltaTime) {
+        frameNumber++;
+        if (eventLog != null) {
+            eventLog.setFrameNumber(frameNumber);
+        }
+        updateEngine(deltaTime);
+        effectScheduler.onTick(deltaTime);
+        particles.update(deltaTime);
         checkGameObjectsOutsideWindow();
-        checkBallCollisionsAndResetCamera();
+        publishSpectatorFrame();
+        checkQuickSaveKeys();
+        telemetry.onFrame(gameObjectCollection, brickCounter.value());
+        if (eventLog != null) {
+            telemetry.recordEventLogOverruns(eventLog.getOverruns());
+        }
         checkIfGameEnded();
+        logLifeChanges();
+        updateViewport();
+        recordRewindFrame();
     }
 
     /**
-     * The method checks if the game objects are outside the window and removes them if they are.
+     * Renders every GameObject that is inside the viewport, in layer order, and then the particles.
+     * The background and the particles are not rendered while the frame budget governor drops
+     * decorations. While gameplay is captured, the
+     * frame is rendered offscreen and then presented and handed to the capture.
+     *
+     * @param g The graphics to render with.
      */
-    private void checkGameObjectsOutsideWindow() {
-        for (GameObject obj : gameObjects().objectsInLayer(Layer.DEFAULT)) {
-            double objectHeight = obj.getCenter().y();
-            if (objectHeight > windowDimensions.y() && !(obj.getTag().equals("Original Ball"))) {
-                gameObjects().removeGameObject(obj);
+    @Override
+    public void render(Graphics2D g) {
+        long renderStartNanos = System.nanoTime();
+        Camera camera = camera();
+        boolean areDecorationsDropped = frameBudgetGovernor.areDecorationsDropped();
+        Graphics2D target = gameplayCapture != null ? gameplayCapture.beginFrame() : g;
+        for (GameObject obj : gameObjects()) {
+            if (!gameObjectCollection.isCulled(obj) && !(areDecorationsDropped && obj == background)) {
+                obj.render(target, camera);
             }
         }
+        if (!areDecorationsDropped) {
+            renderParticles(target, camera);
+        }
+        if (gameplayCapture != null) {
+            telemetry.recordCaptureOverhead(gameplayCapture.endFrame(g, frameNumber),
+                    gameplayCapture.getDroppedFrames());
+        }
+        long renderEndNanos = System.nanoTime();
+        lastRenderNanos = renderEndNanos - renderStartNanos;
+        long inputLatency = input.onFramePresented(renderEndNanos);
+        if (inputLatency >= 0) {
+            telemetry.recordInputLatency(inputLatency);
+        }
+    }
+
+    /**
+     * Renders the particles in the view of the camera, or in window coordinates when no camera is set.
+     *
+     * @param g      The graphics to render with.
+     * @param camera The camera, or null.
+     */
+    private void renderParticles(Graphics2D g, Camera camera) {
+        if (camera == null) {
+            particles.render(g, 0, 0, 1);
+        } else {
+            Vector2 topLeftCorner = camera.getTopLeftCorner();
+            particles.render(g, topLeftCorner.x(), topLeftCorner.y(),
+                    windowDimensions.x() / camera.getDimensions().x());
+        }
     }
 
     /**
-     * The method checks if the ball has collided with the paddle 4 times and resets the camera if it has.
+     * The method reports the work time of the frame to the frame budget governor, in a windowed game
+     * whose governor is not disabled. The following camera is removed once the governor suspends it,
+     * and set again once the governor recovers, unless the ball has collided enough times meanwhile
+     * for the camera to have been reset.
+     *
+     * @param workNanos The time spent updating this frame and rendering the previous one.
      */
-    private void checkBallCollisionsAndResetCamera() {
-        if ((ball.getCollisionCounter() == 5)
-                && camera() != null) {
-            setCamera(null);
+    private void governFrame(long workNanos) {
+        if (!isFrameGoverned) {
+            return;
+        }
+        frameBudgetGovernor.onFrame(workNanos);
+        if (frameBudgetGovernor.isCameraSuspended()) {
+            Camera camera = camera();
+            if (camera != null) {
+                setCamera(null);
+                suspendedCamera = camera;
+            }
+        } else if (suspendedCamera != null) {
+            Camera camera = suspendedCamera;
+            suspendedCamera = null;
+            if (ball.getCollisionCounter() < CAMERA_BALL_COLLISIONS) {
+                setCamera(camera);
+            }
+        }
+    }
+
+    /**
+     * Advances the engine by one frame, in the same order as {@link GameManager#update}, except that
+     * only the objects in the collection's update list are updated. The camera of a headless game is
+     * not updated: danogl moves a camera through Transform's static scratch vector, which headless
+     * games played on other threads would race on, and nothing is rendered to follow anyway.
+     *
+     * @param deltaTime The time elapsed, in seconds, since the last frame.
+     */
+    private void updateEngine(float deltaTime) {
+        gameObjectCollection.updateObjects(deltaTime);
+        if (camera() != null && !isHeadless) {
+            camera().update(deltaTime);
+        }
+        gameObjectCollection.update(deltaTime);
+        gameObjectCollection.handleCollisions();
+    }
+
+    /**
+     * Culls the game against the area the next frame will show: the camera's view when a camera is
+     * set in a windowed game, and the window otherwise.
+     */
+    private void updateViewport() {
+        Camera camera = camera();
+        if (camera == null || isHeadless) {
+            gameObjectCollection.setViewport(0, 0, windowDimensions.x(), windowDimensions.y());
+        } else {
+            Vector2 topLeftCorner = camera.getTopLeftCorner();
+            Vector2 dimensions = camera.getDimensions();
+            gameObjectCollection.setViewport(topLeftCorner.x(), topLeftCorner.y(),
+                    topLeftCorner.x() + dimensions.x(), topLeftCorner.y() + dimensions.y());
+        }
+    }
+
+    /**
+     * Sets the camera, recording the switch in the event log. A camera is reset to null once the ball
+     * has collided a fixed number of times since its collision counter was last reset. While the frame
+     * budget governor suspends the camera, a new camera is held back until it recovers.
+     *
+     * @param camera The new camera, or null to render in window coordinates.
+     */
+    @Override
+    public void setCamera(Camera camera) {
+        if (camera != null && frameBudgetGovernor != null && frameBudgetGovernor.isCameraSuspended()) {
+            suspendedCamera = camera;
+            return;
+        }
+        suspendedCamera = null;
+        if ((camera == null) != (camera() == null)) {
+            if (eventLog != null) {
+                eventLog.cameraSwitch(camera != null);
+            }
+            CameraSwitchEvent.record(camera != null);
+        }
+        if (cameraReset != null) {
+            cameraReset.cancel();
+            cameraReset = null;
+        }
+        if (camera != null && effectScheduler != null) {
+            cameraReset = effectScheduler.afterEvents(EffectScheduler.BALL_COLLISION,
+                    CAMERA_BALL_COLLISIONS - ball.getCollisionCounter(), () -> setCamera(null));
+        }
+        if (isHeadless) {
+            headlessCamera = camera;
+        } else {
+            super.setCamera(camera);
+        }
+    }
+
+    /**
+     * Returns the camera. A headless game keeps its own camera, as the engine's camera is tied to
+     * the mouse of a window.
+     *
+     * @return The camera, or null if the game is rendered in window coordinates.
+     */
+    @Override
+    public Camera camera() {
+        return isHeadless ? headlessCamera : super.camera();
+    }
+
+    /**
+     * The method opens the gameplay event log, if an event log file is configured and the log is not
+     * already open from a previous round.
+     *
+     * @param windowController The window controller, used to report a failure to open the log.
+     */
+    private void startEventLog(WindowController windowController) {
+        String path = System.getProperty(EVENT_LOG_PROPERTY);
+        if (path == null || eventLog != null || isHeadless) {
+            return;
+        }
+        try {
+            eventLog = new GameEventLog(Paths.get(path), EVENT_LOG_CAPACITY);
+            Runtime.getRuntime().addShutdownHook(new Thread(eventLog::close));
+        } catch (IOException e) {
+            windowController.messages().showMessage("Event log disabled: " + e.getMessage(),
+                    MsgLevel.WARNING);
+        }
+    }
+
+    /**
+     * The method opens the session store, if a session store file is configured and the store is not
+     * already open from a previous round.
+     *
+     * @param windowController The window controller, used to report a failure to open the store.
+     */
+    private void startSessionStore(WindowController windowController) {
+        String path = System.getProperty(SESSION_STORE_PROPERTY);
+        if (path == null || sessionStore != null || isHeadless) {
+            return;
+        }
+        try {
+            sessionStore = new SessionStore(Paths.get(path), LEADERBOARD_SIZE);
+            Runtime.getRuntime().addShutdownHook(new Thread(sessionStore::close));
+        } catch (IOException e) {
+            windowController.messages().showMessage("Session store disabled: " + e.getMessage(),
+                    MsgLevel.WARNING);
+        }
+    }
+
+    /**
+     * The method records the time since the previous frame in the frame time histogram of the
+     * session.
+     */
+    private void timeFrame() {
+        long now = System.nanoTime();
+        if (lastFrameNanos != 0) {
+            frameTimes.record(now - lastFrameNanos);
+        }
+        lastFrameNanos = now;
+    }
+
+    /**
+     * The method appends the statistics of the session that just ended to the session store, once per
+     * session. The score is the number of bricks cleared and, in a win, the number of lives left.
+     *
+     * @param isWon True if the session was won.
+     */
+    private void recordSession(boolean isWon) {
+        if (sessionStore == null || isSessionRecorded) {
+            return;
+        }
+        isSessionRecorded = true;
+        int bricksCleared = bricksClearedInEarlierLevels +
+                Math.min(levelBrickCount, levelBrickCount - brickCounter.value());
+        int livesLeft = isWon ? livesCounter.value() : 0;
+        int score = bricksCleared * POINTS_PER_BRICK + livesLeft * POINTS_PER_LIFE_LEFT;
+        try {
+            sessionStore.append(new SessionRecord(sessionSeed, System.currentTimeMillis(),
+                    System.nanoTime() - sessionStartNanos, score, bricksCleared, strikesCounter.value(),
+                    isWon, frameTimes.getCount(), frameTimes.percentileNanos(0.5),
+                    frameTimes.percentileNanos(0.95), frameTimes.percentileNanos(0.99)));
+        } catch (IOException e) {
+            windowController.messages().showMessage("Session store disabled: " + e.getMessage(),
+                    MsgLevel.WARNING);
+            sessionStore.close();
+            sessionStore = null;
+        }
+    }
+
+    /**
+     * The method records any change in the number of lives since the last frame in the event log.
+     */
+    private void logLifeChanges() {
+        int lives = livesCounter.value();
+        if (lives != lastLives) {
+            if (eventLog != null) {
+                eventLog.lifeChange(lives, lives - lastLives);
+            }
+            lastLives = lives;
+        }
+    }
+
+    /**
+     * The method creates the engine telemetry and publishes it as an MBean, and on a local metrics
+     * endpoint if a metrics port is configured. Telemetry lives across rounds, so this is done once.
+     * The telemetry of a headless game is not published.
+     */
+    private void startTelemetry() {
+        if (telemetry != null) {
+            return;
+        }
+        telemetry = new GameTelemetry();
+        if (isHeadless) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(telemetry,
+                    new ObjectName(TELEMETRY_MBEAN_NAME));
+        } catch (JMException e) {
+            windowController.messages().showMessage("Telemetry MBean disabled: " + e.getMessage(),
+                    MsgLevel.WARNING);
+        }
+        String port = System.getProperty(METRICS_PORT_PROPERTY);
+        if (port != null) {
+            try {
+                metricsEndpoint = new MetricsEndpoint(Integer.parseInt(port), telemetry);
+            } catch (IOException | NumberFormatException e) {
+                windowController.messages().showMessage("Metrics endpoint disabled: " + e.getMessage(),
+                        MsgLevel.WARNING);
+            }
+        }
+    }
+
+    /**
+     * The method starts reporting the time of every key press and release to the input snapshot, for
+     * the input latency histogram of the telemetry. The window's key events are observed once, for all
+     * rounds, and not at all in a headless game.
+     */
+    private void startKeyEventProbe() {
+        if (isKeyEventProbeStarted || isHeadless) {
+            return;
+        }
+        isKeyEventProbeStarted = true;
+        Toolkit.getDefaultToolkit().addAWTEventListener(event -> {
+            if (event.getID() == KeyEvent.KEY_PRESSED || event.getID() == KeyEvent.KEY_RELEASED) {
+                input.reportKeyEvent(System.nanoTime());
+            }
+        }, AWTEvent.KEY_EVENT_MASK);
+    }
+
+    /**
+     * The method packs the sprites of the game into the sprite atlas. The atlas and its cache of
+     * scaled sprites live across rounds, so this is done once.
+     */
+    private void packSprites() {
+        if (spriteAtlas == null && imageReader != null) {
+            spriteAtlas = SpriteAtlas.pack(imageReader, SPRITE_PATHS, SPRITE_TRANSPARENCIES,
+                    SCALED_SPRITE_CAPACITY);
+        }
+    }
+
+    /**
+     * The method reads an image, recording the load in the telemetry. The sprites of the game come
+     * from the sprite atlas, and any other image is read through the image reader.
+     *
+     * @param imagePath                 The path of the image.
+     * @param isTopLeftPixelTransparent Whether the color of the top left pixel should be transparent.
+     * @return The image, or null in a headless game.
+     */
+    public Renderable readImage(String imagePath, boolean isTopLeftPixelTransparent) {
+        telemetry.recordAssetLoad(imagePath);
+        if (imageReader == null) {
+            return null;
+        }
+        AssetLoadEvent loadEvent = new AssetLoadEvent();
+        loadEvent.begin();
+        Renderable sprite = spriteAtlas.find(imagePath, isTopLeftPixelTransparent);
+        if (sprite == null) {
+            sprite = imageReader.readImage(imagePath, isTopLeftPixelTransparent);
+            loadEvent.commitLoad(imagePath, false);
+        } else {
+            loadEvent.commitLoad(imagePath, true);
+        }
+        return sprite;
+    }
+
+    /**
+     * The method reads a sound through the sound reader, recording the load in the telemetry. The sound
+     * is played only when the frame budget governor allows it.
+     *
+     * @param soundPath The path of the sound.
+     * @return The sound, or a silent sound in a headless game.
+     */
+    public Sound readSound(String soundPath) {
+        telemetry.recordAssetLoad(soundPath);
+        if (soundReader == null) {
+            return Sound.EMPTY_SOUND;
+        }
+        AssetLoadEvent loadEvent = new AssetLoadEvent();
+        loadEvent.begin();
+        Sound sound = soundReader.readSound(soundPath);
+        loadEvent.commitLoad(soundPath, false);
+        return new GovernedSound(sound, frameBudgetGovernor);
+    }
+
+    /**
+     * The method opens the spectator stream, if a spectator port is configured and the stream is not
+     * already open from a previous round.
+     */
+    private void startSpectatorServer() {
+        String port = System.getProperty(SPECTATOR_PORT_PROPERTY);
+        if (port == null || spectatorServer != null || isHeadless) {
+            return;
+        }
+        try {
+            int brickCapacity = DEFAULT_BRICKS_PER_ROW * DEFAULT_BRICK_ROWS;
+            spectatorServer = new SpectatorServer(Integer.parseInt(port), MAX_SPECTATED_MOVERS, brickCapacity);
+            spectatorFrame = new GameStateFrame(MAX_SPECTATED_MOVERS, brickCapacity);
+        } catch (IOException | NumberFormatException e) {
+            windowController.messages().showMessage("Spectator stream disabled: " + e.getMessage(),
+                    MsgLevel.WARNING);
+        }
+    }
+
+    /**
+     * The method opens the remote control socket, if a remote control port is configured, so that
+     * external processes can drive the paddles of a windowed game. The socket stays open across
+     * rounds, and adds its commands to the keyboard of the current round.
+     */
+    private void startRemoteControl() {
+        if (remoteInput != null) {
+            remoteInput.setSource(inputListener);
+            return;
+        }
+        String port = System.getProperty(REMOTE_CONTROL_PORT_PROPERTY);
+        if (port == null || isHeadless) {
+            return;
+        }
+        try {
+            CommandQueue queue = new CommandQueue(REMOTE_COMMAND_QUEUE_CAPACITY);
+            remoteControlServer = new RemoteControlServer(Integer.parseInt(port), queue);
+            remoteInput = new RemoteInputListener(queue);
+            remoteInput.setSource(inputListener);
+            Runtime.getRuntime().addShutdownHook(new Thread(remoteControlServer::close));
+        } catch (IOException | NumberFormatException e) {
+            windowController.messages().showMessage("Remote control disabled: " + e.getMessage(),
+                    MsgLevel.WARNING);
+        }
+    }
+
+    /**
+     * The method sends the current game state to the spectators, if the spectator stream is open.
+     */
+    private void publishSpectatorFrame() {
+        if (spectatorServer != null) {
+            spectatorFrame.capture(this, frameNumber);
+            spectatorServer.publish(spectatorFrame);
+        }
+    }
+
+    /**
+     * The method starts capturing the presented frames of a windowed game into a file, if a capture
+     * file is configured and the capture is not already running from a previous round. Frames are
+     * delta compressed unless that is disabled.
+     */
+    private void startGameplayCapture() {
+        String path = System.getProperty(CAPTURE_PROPERTY);
+        if (path == null || gameplayCapture != null || isHeadless) {
+            return;
+        }
+        try {
+            gameplayCapture = new GameplayCapture(Paths.get(path), (int) windowDimensions.x(),
+                    (int) windowDimensions.y(),
+                    !Boolean.FALSE.toString().equals(System.getProperty(CAPTURE_DELTA_PROPERTY)));
+            Runtime.getRuntime().addShutdownHook(new Thread(gameplayCapture::close));
+        } catch (IOException e) {
+            windowController.messages().showMessage("Gameplay capture disabled: " + e.getMessage(),
+                    MsgLevel.WARNING);
+        }
+    }
+
+    /**
+     * The method allocates the rewind buffer of a windowed game, unless rewinding is disabled, or
+     * empties the buffer of the previous round.
+     */
+    private void startRewindBuffer() {
+        if (rewindBuffer != null) {
+            rewindBuffer.clear();
+            return;
+        }
+        int seconds = Integer.getInteger(REWIND_SECONDS_PROPERTY, DEFAULT_REWIND_SECONDS);
+        if (isHeadless || seconds <= 0) {
+            return;
+        }
+        int brickCapacity = DEFAULT_BRICKS_PER_ROW * DEFAULT_BRICK_ROWS;
+        rewindBuffer = new RewindBuffer(seconds * FRAME_RATE, REWIND_BYTE_CAPACITY, MAX_REWOUND_MOVERS,
+                brickCapacity);
+        rewindFrame = new GameStateFrame(MAX_REWOUND_MOVERS, brickCapacity);
+        frameRestorer = new FrameRestorer(MAX_REWOUND_MOVERS, brickCapacity);
+    }
+
+    /**
+     * The method records the current game state in the rewind buffer, if rewinding is enabled.
+     */
+    private void recordRewindFrame() {
+        if (rewindBuffer != null) {
+            rewindFrame.capture(this, frameNumber);
+            rewindBuffer.record(rewindFrame);
+        }
+    }
+
+    /**
+     * The method replaces the game state with a recent frame from the rewind buffer. Play resumes from
+     * that frame, and the frames recorded after it are dropped once the next frame is played. The game
+     * objects are flushed before and after the restore, so that it sees, and leaves, the layers as they
+     * are, even while it runs every frame.
+     *
+     * @param tick The frame number to rewind to.
+     * @return True if the game was rewound, false if rewinding is disabled or the frame is no longer
+     * in the buffer.
+     */
+    public boolean rewindTo(long tick) {
+        if (rewindBuffer == null || !rewindBuffer.seek(tick, rewindFrame)) {
+            return false;
+        }
+        gameObjectCollection.update(0);
+        frameRestorer.restore(rewindFrame, this);
+        gameObjectCollection.update(0);
+        particles.clear();
+        return true;
+    }
+
+    /**
+     * The method checks if the game objects are outside the window and removes them if they are. Pucks
+     * updated in parallel were already removed by the collection, against the same boundary.
+     */
+    private void checkGameObjectsOutsideWindow() {
+        for (GameObject obj : gameObjects().objectsInLayer(Layer.DEFAULT)) {
+            double objectHeight = obj.getTopLeftCorner().y() + obj.getDimensions().y() / 2;
+            if (objectHeight > windowDimensions.y() && !(obj.getTag().equals("Original Ball"))) {
+                gameObjects().removeGameObject(obj);
+            }
         }
     }
 
     /**
      * The method checks if the game has ended and prompts the user to play again or close the window.
+     * A headless game is marked as over instead.
      */
     private void checkIfGameEnded() {
-        double ballHeight = this.ball.getCenter().y();
+        double ballHeight = this.ball.getTopLeftCorner().y() + this.ball.getDimensions().y() / 2;
         String prompt = "";
-        if (this.brickCounter.value() == 0 || this.inputListener.isKeyPressed(KeyEvent.VK_W)) {
+        if (this.brickCounter.value() == 0 && levelNumber < levelCount) {
+            startNextLevel();
+        } else if (this.brickCounter.value() == 0 || input.isKeyPressed(KeyEvent.VK_W)) {
             prompt = WIN_MESSAGE;
         }
         if (ballHeight > this.windowDimensions.y()) {
@@ -165,6 +877,12 @@ public class BrickerGameManager extends GameManager {
             prompt = LOSE_MESSAGE;
         }
         if (!prompt.isEmpty()) {
+            recordSession(prompt.equals(WIN_MESSAGE));
+        }
+        if (!prompt.isEmpty() && isHeadless) {
+            isGameOver = true;
+            isGameWon = prompt.equals(WIN_MESSAGE);
+        } else if (!prompt.isEmpty()) {
             prompt += PLAY_AGAIN_MESSAGE;
             if (windowController.openYesNoDialog(prompt)) {
                 windowController.resetGame();
@@ -195,7 +913,7 @@ public class BrickerGameManager extends GameManager {
      *                    See its documentation for help.
      */
     private void createGraphicLifeCounter(ImageReader imageReader) {
-        Renderable heartImage = imageReader.readImage(HEART_IMAGE_PATH, true);
+        Renderable heartImage = readImage(HEART_IMAGE_PATH, true);
         float xPosForHearts = (int) (HEART_DIMENSIONS + HEARTS_TOP_LEFT_CORNER);
         float yPosForHearts = windowDimensions.y() - PADDEL_HEIGHT - BORDER_WIDTH;
         Vector2 topLeftCorner = new Vector2(xPosForHearts, yPosForHearts);
@@ -214,24 +932,299 @@ public class BrickerGameManager extends GameManager {
     private void createBricks(ImageReader imageReader, Vector2 windowDimensions) {
         this.brickCounter = new Counter();
         this.brickStrategiesFactory = new BrickStrategiesFactory(this);
-        Renderable brickImage = imageReader.readImage(BRICK_IMAGE_PATH, false);
+        this.bricks = new Brick[DEFAULT_BRICK_ROWS * DEFAULT_BRICKS_PER_ROW];
+        this.brickImage = readImage(BRICK_IMAGE_PATH, false);
+        for (int brickId = 0; brickId < bricks.length; brickId++) {
+            brickCounter.increment();
+            CollisionStrategy collisionStrategy = brickStrategiesFactory.selectStrategyForBrick();
+            addBrick(brickId, collisionStrategy);
+        }
+    }
+
+    /**
+     * The method creates a brick at its place in the grid and adds it to the game.
+     *
+     * @param brickId           The index of the brick in the grid (row-major).
+     * @param collisionStrategy The strategy to use when a collision occurs with the brick.
+     */
+    private void addBrick(int brickId, CollisionStrategy collisionStrategy) {
+        Brick brick = newBrick(brickId, collisionStrategy, brickImage, windowDimensions);
+        bricks[brickId] = brick;
+        gameObjects().addGameObject(brick, Layer.STATIC_OBJECTS);
+    }
+
+    /**
+     * The method creates a brick at its place in the grid, without adding it to the game. It only reads
+     * constants, so a level can be built on another thread.
+     *
+     * @param brickId           The index of the brick in the grid (row-major).
+     * @param collisionStrategy The strategy to use when a collision occurs with the brick.
+     * @param image             The renderable of the brick.
+     * @param windowDimensions  The dimensions of the window.
+     * @return The brick.
+     */
+    private Brick newBrick(int brickId, CollisionStrategy collisionStrategy, Renderable image,
+                           Vector2 windowDimensions) {
         float topOffset = 15;
+        float brickWidth = brickWidth(windowDimensions);
+        int row = brickId / DEFAULT_BRICKS_PER_ROW;
+        int col = brickId % DEFAULT_BRICKS_PER_ROW;
+        Vector2 brickPosition = new Vector2(SPACE_BETWEEN_BRICKS_AND_WALL + col *
+                (brickWidth + SPACE_BETWEEN_BRICKS),
+                topOffset + row * (BRICK_HEIGHT + SPACE_BETWEEN_BRICKS));
+        return new Brick(brickPosition, new Vector2(brickWidth, BRICK_HEIGHT), image, collisionStrategy,
+                brickId, eventLog);
+    }
+
+    /**
+     * The method computes the width of a brick, so that a row of bricks spans the window between the
+     * margins.
+     *
+     * @param windowDimensions The dimensions of the window.
+     * @return The width of a brick.
+     */
+    private float brickWidth(Vector2 windowDimensions) {
         float totalSpaceBetweenBricks = (DEFAULT_BRICKS_PER_ROW - 1) * SPACE_BETWEEN_BRICKS;
-        float brickWidth =
-                (windowDimensions.x() - 2 * SPACE_BETWEEN_BRICKS_AND_WALL - totalSpaceBetweenBricks) /
-                        DEFAULT_BRICKS_PER_ROW;
-        for (int row = 0; row < DEFAULT_BRICK_ROWS; row++) {
-            for (int col = 0; col < DEFAULT_BRICKS_PER_ROW; col++) {
-                brickCounter.increment();
-                CollisionStrategy collisionStrategy = brickStrategiesFactory.selectStrategyForBrick();
-                Vector2 brickPosition = new Vector2(SPACE_BETWEEN_BRICKS_AND_WALL + col *
-                        (brickWidth + SPACE_BETWEEN_BRICKS),
-                        topOffset + row * (BRICK_HEIGHT + SPACE_BETWEEN_BRICKS));
-                Brick brick = new Brick(brickPosition, new Vector2(brickWidth, BRICK_HEIGHT),
-                        brickImage, collisionStrategy);
+        return (windowDimensions.x() - 2 * SPACE_BETWEEN_BRICKS_AND_WALL - totalSpaceBetweenBricks) /
+                DEFAULT_BRICKS_PER_ROW;
+    }
+
+    /**
+     * The method starts the campaign at its first level, which was just created, and starts building
+     * the second level in the background. A windowed game has {@value #DEFAULT_LEVELS} levels and a
+     * headless game has one, unless the number of levels is configured.
+     *
+     * @param imageReader Reads images from disk, or null if objects are not rendered.
+     */
+    private void startCampaign(ImageReader imageReader) {
+        this.levelCount = Math.max(1, Integer.getInteger(LEVELS_PROPERTY, isHeadless ? 1 : DEFAULT_LEVELS));
+        this.levelNumber = 1;
+        this.levelBrickCount = bricks.length;
+        this.bricksClearedInEarlierLevels = 0;
+        this.baseBrickImage = !isHeadless && imageReader != null ?
+                imageReader.readImage(BRICK_IMAGE_PATH, false).getImage() : null;
+        preloadNextLevel();
+    }
+
+    /**
+     * The method starts building the level after the current one on the level preloader's thread, if
+     * the campaign has one.
+     */
+    private void preloadNextLevel() {
+        if (levelNumber >= levelCount) {
+            levelPreloader.discard();
+            return;
+        }
+        int number = levelNumber + 1;
+        BrickStrategiesFactory factory = brickStrategiesFactory;
+        BufferedImage baseImage = baseBrickImage;
+        Vector2 dimensions = windowDimensions;
+        long seed = sessionSeed;
+        levelPreloader.preload(() -> buildLevel(number, factory, baseImage, dimensions, seed));
+    }
+
+    /**
+     * The method builds a level of the campaign without touching the game, so that it can run on the
+     * level preloader's thread. The level is random, but the same for equal session seeds: later
+     * levels leave more places of the grid empty, and their bricks are tinted and scaled to size up
+     * front.
+     *
+     * @param number           The number of the level.
+     * @param factory          The factory of the game, which compiles the strategies.
+     * @param baseImage        The brick image, or null if objects are not rendered.
+     * @param windowDimensions The dimensions of the window.
+     * @param seed             The seed of the session.
+     * @return The level.
+     */
+    private Level buildLevel(int number, BrickStrategiesFactory factory, BufferedImage baseImage,
+                             Vector2 windowDimensions, long seed) {
+        Random random = new Random(seed * LEVEL_SEED_MULTIPLIER + number);
+        float holeFraction = Math.min(MAX_HOLE_FRACTION, HOLE_FRACTION_PER_LEVEL * (number - 1));
+        Renderable image = tintedBrickImage(number, baseImage, windowDimensions);
+        Brick[] levelBricks = new Brick[DEFAULT_BRICK_ROWS * DEFAULT_BRICKS_PER_ROW];
+        int brickCount = 0;
+        for (int brickId = 0; brickId < levelBricks.length; brickId++) {
+            boolean isLastChance = brickId == levelBricks.length - 1 && brickCount == 0;
+            if (random.nextFloat() < holeFraction && !isLastChance) {
+                continue;
+            }
+            levelBricks[brickId] = newBrick(brickId, factory.selectStrategyForBrick(random), image,
+                    windowDimensions);
+            brickCount++;
+        }
+        return new Level(number, levelBricks, brickCount, image);
+    }
+
+    /**
+     * The method blends a brick image with a color and scales it to the size it is drawn at. The
+     * pixels are blended in one array, channel by channel, without an object per pixel.
+     *
+     * @param baseImage The brick image.
+     * @param tint      The color to blend in.
+     * @param width     The width of a brick, in pixels.
+     * @param height    The height of a brick, in pixels.
+     * @return The renderable of the tinted brick.
+     */
+    private static Renderable tintBrickImage(BufferedImage baseImage, Color tint, int width, int height) {
+        BufferedImage tinted = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = tinted.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(baseImage, 0, 0, width, height, null);
+        g.dispose();
+        int[] pixels = tinted.getRGB(0, 0, width, height, null, 0, width);
+        int tintRed = tint.getRed();
+        int tintGreen = tint.getGreen();
+        int tintBlue = tint.getBlue();
+        for (int i = 0; i < pixels.length; i++) {
+            int rgb = pixels[i];
+            pixels[i] = (blend((rgb >> 16) & 0xFF, tintRed) << 16) | (blend((rgb >> 8) & 0xFF, tintGreen) << 8) |
+                    blend(rgb & 0xFF, tintBlue);
+        }
+        tinted.setRGB(0, 0, width, height, pixels, 0, width);
+        return new ImageRenderable(tinted);
+    }
+
+    /**
+     * The method creates the brick image of a level after the first one, tinted with the color of the
+     * level.
+     *
+     * @param number           The number of the level, from 2.
+     * @param baseImage        The brick image, or null if objects are not rendered.
+     * @param windowDimensions The dimensions of the window.
+     * @return The renderable of the tinted brick, or null if objects are not rendered.
+     */
+    private Renderable tintedBrickImage(int number, BufferedImage baseImage, Vector2 windowDimensions) {
+        return baseImage != null ?
+                tintBrickImage(baseImage, LEVEL_TINTS[(number - 2) % LEVEL_TINTS.length],
+                        Math.round(brickWidth(windowDimensions)), BRICK_HEIGHT) :
+                null;
+    }
+
+    /**
+     * @return A color channel blended with a tint channel.
+     */
+    private static int blend(int channel, int tintChannel) {
+        return Math.round(channel * (1 - TINT_WEIGHT) + tintChannel * TINT_WEIGHT);
+    }
+
+    /**
+     * The method swaps the cleared level for the preloaded next one, at the end of the frame in which
+     * its last brick fell. Pucks and falling hearts are removed, the ball is served again from the
+     * center, the rewind buffer is emptied and the level after it starts preloading.
+     */
+    private void startNextLevel() {
+        Level level = levelPreloader.take();
+        bricksClearedInEarlierLevels += levelBrickCount;
+        for (Brick brick : bricks) {
+            if (brick != null) {
+                gameObjects().removeGameObject(brick, Layer.STATIC_OBJECTS);
+            }
+        }
+        List<GameObject> fallingObjects = new ArrayList<>();
+        for (GameObject obj : gameObjects().objectsInLayer(Layer.DEFAULT)) {
+            if (obj instanceof Puck || obj instanceof Heart) {
+                fallingObjects.add(obj);
+            }
+        }
+        for (GameObject obj : fallingObjects) {
+            gameObjects().removeGameObject(obj);
+        }
+        this.bricks = level.getBricks();
+        this.brickImage = level.getBrickImage();
+        for (Brick brick : bricks) {
+            if (brick != null) {
                 gameObjects().addGameObject(brick, Layer.STATIC_OBJECTS);
             }
         }
+        brickCounter.reset();
+        brickCounter.increaseBy(level.getBrickCount());
+        this.levelBrickCount = level.getBrickCount();
+        this.levelNumber = level.getNumber();
+        initBallMovementDirection();
+        if (rewindBuffer != null) {
+            rewindBuffer.clear();
+        }
+        preloadNextLevel();
+    }
+
+    /**
+     * The method replaces a brick of the grid with a fresh brick, used when restoring a saved game.
+     * Any brick currently at that place is removed.
+     *
+     * @param brickId           The index of the brick in the grid (row-major).
+     * @param collisionStrategy The strategy to use when a collision occurs with the brick, or null to
+     *                          leave the place empty.
+     */
+    public void restoreBrick(int brickId, CollisionStrategy collisionStrategy) {
+        if (bricks[brickId] != null) {
+            gameObjects().removeGameObject(bricks[brickId], Layer.STATIC_OBJECTS);
+            bricks[brickId] = null;
+        }
+        if (collisionStrategy != null) {
+            addBrick(brickId, collisionStrategy);
+        }
+    }
+
+    /**
+     * The method moves the game to the level of a checkpoint being loaded, before its bricks are
+     * restored. If the checkpoint was saved on another level, the brick image of that level is used
+     * from now on, the rewind buffer is emptied and the level after it starts preloading.
+     *
+     * @param number                       The number of the level.
+     * @param levelBrickCount              The number of bricks the level started with.
+     * @param bricksClearedInEarlierLevels The number of bricks cleared in the levels before it.
+     * @throws IllegalArgumentException If the campaign has no such level.
+     */
+    public void restoreLevel(int number, int levelBrickCount, int bricksClearedInEarlierLevels) {
+        if (number < 1 || number > levelCount) {
+            throw new IllegalArgumentException("Checkpoint is of level " + number + ", the campaign has " +
+                    levelCount);
+        }
+        this.levelBrickCount = levelBrickCount;
+        this.bricksClearedInEarlierLevels = bricksClearedInEarlierLevels;
+        if (number == levelNumber) {
+            return;
+        }
+        this.levelNumber = number;
+        this.brickImage = number == 1 ? readImage(BRICK_IMAGE_PATH, false) :
+                tintedBrickImage(number, baseBrickImage, windowDimensions);
+        if (rewindBuffer != null) {
+            rewindBuffer.clear();
+        }
+        preloadNextLevel();
+    }
+
+    /**
+     * The method writes a checkpoint of the whole game state into a buffer.
+     *
+     * @param out The buffer to write to, starting at its position.
+     */
+    public void saveCheckpoint(ByteBuffer out) {
+        GameCheckpoint.write(this, out);
+    }
+
+    /**
+     * The method replaces the game state with a checkpoint written by {@link #saveCheckpoint}.
+     *
+     * @param in The buffer to read from, starting at its position.
+     */
+    public void loadCheckpoint(ByteBuffer in) {
+        GameCheckpoint.read(in, this);
+    }
+
+    /**
+     * The method saves a checkpoint on F5 and restores the last one on F9.
+     */
+    private void checkQuickSaveKeys() {
+        if (input.wasKeyPressedThisFrame(KeyEvent.VK_F5)) {
+            if (quickSaveBuffer == null) {
+                quickSaveBuffer = ByteBuffer.allocateDirect(QUICK_SAVE_CAPACITY);
+            }
+            saveCheckpoint(quickSaveBuffer.clear());
+            quickSaveBuffer.flip();
+        } else if (input.wasKeyPressedThisFrame(KeyEvent.VK_F9) && quickSaveBuffer != null) {
+            loadCheckpoint(quickSaveBuffer.duplicate());
+        }
     }
 
     /**
@@ -240,10 +1233,9 @@ public class BrickerGameManager extends GameManager {
      * @param imageReader Contains a single method: readImage, which reads an image from disk.
      */
     private void createBackground(ImageReader imageReader) {
-        Renderable backgroundImage = imageReader.readImage(BACKGROUND_IMAGE_PATH,
-                false);
-        GameObject background = new GameObject(Vector2.ZERO, windowDimensions, backgroundImage);
-        background.setCenter(windowDimensions.mult((float) 0.5));
+        Renderable backgroundImage = readImage(BACKGROUND_IMAGE_PATH, false);
+        this.background = new GameObject(Vector2.ZERO, windowDimensions, backgroundImage);
+        background.setTopLeftCorner(Vector2.ZERO);
         background.setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
         gameObjects().addGameObject(background, Layer.BACKGROUND);
     }
@@ -270,9 +1262,10 @@ public class BrickerGameManager extends GameManager {
      * @param soundReader Contains a single method: readSound, which reads a wav file from disk.
      */
     private void createBall(ImageReader imageReader, SoundReader soundReader) {
-        Renderable ballImage = imageReader.readImage(BALL_IMAGE_PATH, true);
-        Sound collisionSound = soundReader.readSound(BALL_COLLISION_SOUND_PATH);
-        this.ball = new Ball(Vector2.ZERO, new Vector2(BALL_RADIUS, BALL_RADIUS), ballImage, collisionSound);
+        Renderable ballImage = readImage(BALL_IMAGE_PATH, true);
+        Sound collisionSound = readSound(BALL_COLLISION_SOUND_PATH);
+        this.ball = new Ball(Vector2.ZERO, new Vector2(BALL_RADIUS, BALL_RADIUS), ballImage, collisionSound,
+                effectScheduler);
         this.ball.setTag(TAG_ORIGINAL_BALL);
         initBallMovementDirection();
     }
@@ -290,7 +1283,7 @@ public class BrickerGameManager extends GameManager {
             ballVelY = -ballVelY;
         }
         ball.setVelocity(new Vector2(ballVelX, ballVelY));
-        ball.setCenter(windowDimensions.mult((float) 0.5));
+        ball.setTopLeftCorner(windowDimensions.subtract(ball.getDimensions()).mult((float) 0.5));
         gameObjects().addGameObject(ball);
     }
 
@@ -303,11 +1296,12 @@ public class BrickerGameManager extends GameManager {
      *                      pressed by the user or not.
      */
     private void createPaddle(ImageReader imageReader, UserInputListener inputListener) {
-        Renderable paddleImage = imageReader.readImage(PADDLE_IMAGE_PATH, true);
-        GameObject paddle = new Paddle(Vector2.ZERO, new Vector2(PADDLE_WIDTH, PADDEL_HEIGHT),
+        Renderable paddleImage = readImage(PADDLE_IMAGE_PATH, true);
+        this.paddle = new Paddle(Vector2.ZERO, new Vector2(PADDLE_WIDTH, PADDEL_HEIGHT),
                 paddleImage, inputListener, windowDimensions, 10);
-        paddle.setCenter(new Vector2(windowDimensions.x() / 2,
-                (int) (windowDimensions.y() - BORDER_WIDTH - PADDEL_HEIGHT / 2 - 20)));
+        paddle.setTopLeftCorner(new Vector2(windowDimensions.x() / 2,
+                (int) (windowDimensions.y() - BORDER_WIDTH - PADDEL_HEIGHT / 2 - 20))
+                .subtract(paddle.getDimensions().mult((float) 0.5)));
         paddle.setTag(TAG_ORIGINAL_PADDLE);
         gameObjects().addGameObject(paddle);
     }
@@ -340,12 +1334,12 @@ public class BrickerGameManager extends GameManager {
     }
 
     /**
-     * The method returns the space between bricks.
+     * The method returns the input of the game, as captured at the start of the current tick.
      *
-     * @return The space between bricks.
+     * @return The input snapshot.
      */
     public UserInputListener getInputListener() {
-        return inputListener;
+        return input;
     }
 
     /**
@@ -357,6 +1351,70 @@ public class BrickerGameManager extends GameManager {
         return ball;
     }
 
+    /**
+     * The method returns the paddle.
+     *
+     * @return The paddle.
+     */
+    public Paddle getPaddle() {
+        return paddle;
+    }
+
+    /**
+     * The method returns the bricks of the level, indexed by brick id. Bricks that were already hit
+     * stay in the array.
+     *
+     * @return The bricks of the level.
+     */
+    public Brick[] getBricks() {
+        return bricks;
+    }
+
+    /**
+     * The method returns the number of frames played since the game started.
+     *
+     * @return The frame number.
+     */
+    public long getFrameNumber() {
+        return frameNumber;
+    }
+
+    /**
+     * The method sets the number of frames played, used when restoring a saved game.
+     *
+     * @param frameNumber The frame number.
+     */
+    public void setFrameNumber(long frameNumber) {
+        this.frameNumber = frameNumber;
+    }
+
+    /**
+     * The method returns the brick strategies factory of the current round.
+     *
+     * @return The brick strategies factory.
+     */
+    public BrickStrategiesFactory getBrickStrategiesFactory() {
+        return brickStrategiesFactory;
+    }
+
+    /**
+     * The method returns the window dimensions.
+     *
+     * @return The window dimensions.
+     */
+    public Vector2 getWindowDimensions() {
+        return windowDimensions;
+    }
+
+    /**
+     * The method returns the scheduler of timed and count-limited effects.
+     *
+     * @return The effect scheduler.
+     */
+    public EffectScheduler getEffectScheduler() {
+        return effectScheduler;
+    }
+
     /**
      * The method returns the window controller.
      *
@@ -380,8 +1438,100 @@ public class BrickerGameManager extends GameManager {
      *
      * @return The game objects.
      */
-    public GameObjectCollection getGameObjects() {
-        return gameObjects();
+    public BrickerGameObjectCollection getGameObjects() {
+        return gameObjectCollection;
+    }
+
+    /**
+     * The method returns the source of every random choice in the game.
+     *
+     * @return The random number generator.
+     */
+    public Random getRandom() {
+        return rand;
+    }
+
+    /**
+     * The method returns whether a headless game has ended, by a win or a loss.
+     *
+     * @return True if the game is over, false otherwise.
+     */
+    public boolean isGameOver() {
+        return isGameOver;
+    }
+
+    /**
+     * The method returns whether a headless game has ended in a win.
+     *
+     * @return True if the game was won, false otherwise.
+     */
+    public boolean isGameWon() {
+        return isGameWon;
+    }
+
+    /**
+     * The method returns the session store, which is only open in a windowed game whose session store
+     * file is configured.
+     *
+     * @return The session store, or null if it is not open.
+     */
+    public SessionStore getSessionStore() {
+        return sessionStore;
+    }
+
+    /**
+     * The method returns the frame budget governor of the game.
+     *
+     * @return The frame budget governor.
+     */
+    public FrameBudgetGovernor getFrameBudgetGovernor() {
+        return frameBudgetGovernor;
+    }
+
+    /**
+     * The method returns the particles of the game, which are ignored in a headless game.
+     *
+     * @return The particle pool.
+     */
+    public ParticlePool getParticles() {
+        return particles;
+    }
+
+    /**
+     * The method returns the number of the level being played.
+     *
+     * @return The number of the level, starting at 1.
+     */
+    public int getLevelNumber() {
+        return levelNumber;
+    }
+
+    /**
+     * The method returns the number of bricks the level being played started with.
+     *
+     * @return The number of bricks.
+     */
+    public int getLevelBrickCount() {
+        return levelBrickCount;
+    }
+
+    /**
+     * The method returns the number of bricks cleared in the levels before the one being played.
+     *
+     * @return The number of bricks.
+     */
+    public int getBricksClearedInEarlierLevels() {
+        return bricksClearedInEarlierLevels;
+    }
+
+    /**
+     * The method returns how long the game thread waited for the last preloaded level, which is zero
+     * unless the level was cleared before its successor was built.
+     *
+     * @return The wait, in nanoseconds.
+     */
+    public long getLastLevelWaitNanos() {
+        return levelPreloader.getLastWaitNanos();
     }
 
     /**
@@ -0,0 +1,61 @@
+package bricker.main;
+
+import bricker.gameobjects.Brick;
+import danogl.gui.rendering.Renderable;
+
+/**
+ * A level of the campaign, built ahead of time and not yet in the game: its brick grid, with empty
+ * places left null, and the renderable its bricks share.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+final class Level {
+
+    private final int number;
+    private final Brick[] bricks;
+    private final int brickCount;
+    private final Renderable brickImage;
+
+    /**
+     * Construct a new Level instance.
+     *
+     * @param number     The number of the level, starting at 1.
+     * @param bricks     The brick grid, in row-major order, with null at empty places.
+     * @param brickCount The number of bricks in the grid.
+     * @param brickImage The renderable of the bricks, or null if objects are not rendered.
+     */
+    Level(int number, Brick[] bricks, int brickCount, Renderable brickImage) {
+        this.number = number;
+        this.bricks = bricks;
+        this.brickCount = brickCount;
+        this.brickImage = brickImage;
+    }
+
+    /**
+     * @return The number of the level, starting at 1.
+     */
+    int getNumber() {
+        return number;
+    }
+
+    /**
+     * @return The brick grid, in row-major order, with null at empty places.
+     */
+    Brick[] getBricks() {
+        return bricks;
+    }
+
+    /**
+     * @return The number of bricks in the grid.
+     */
+    int getBrickCount() {
+        return brickCount;
+    }
+
+    /**
+     * @return The renderable of the bricks, or null if objects are not rendered.
+     */
+    Renderable getBrickImage() {
+        return brickImage;
+    }
+}
@@ -0,0 +1,141 @@
+package bricker.state;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Turns a capture file written by {@link GameplayCapture} into numbered PNG images, which a video
+ * encoder can join into a video, e.g. {@code ffmpeg -framerate 60 -i frame-%06d.png capture.mp4}.
+ * <p>
+ * Run it offline, not while the game is running:
+ * {@code java bricker.state.CaptureExporter <capture file> <output directory> [every nth frame]}.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+public final class CaptureExporter {
+
+    private static final String FRAME_NAME_FORMAT = "frame-%06d.png";
+    private static final String IMAGE_FORMAT = "png";
+    private static final int VARINT_PAYLOAD_BITS = 7;
+    private static final int VARINT_PAYLOAD_MASK = 0x7F;
+    private static final int VARINT_CONTINUATION_BIT = 0x80;
+
+    private CaptureExporter() {
+    }
+
+    /**
+     * Exports a capture file.
+     *
+     * @param args The capture file, the output directory and, optionally, the interval of the
+     *             exported frames.
+     * @throws IOException If the capture file cannot be read or an image cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: CaptureExporter <capture file> <output directory> [every nth frame]");
+            return;
+        }
+        int interval = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        Path outputDirectory = Paths.get(args[1]);
+        Files.createDirectories(outputDirectory);
+        int exported = export(Paths.get(args[0]), outputDirectory, interval);
+        System.out.println("Exported " + exported + " frames to " + outputDirectory);
+    }
+
+    /**
+     * Decodes every frame of a capture file and writes every nth one as an image.
+     *
+     * @param capturePath     The capture file.
+     * @param outputDirectory The directory to write the images to.
+     * @param interval        The interval of the exported frames, 1 for every frame.
+     * @return The number of images written.
+     * @throws IOException If the capture file cannot be read or an image cannot be written.
+     */
+    public static int export(Path capturePath, Path outputDirectory, int interval) throws IOException {
+        try (FileChannel channel = FileChannel.open(capturePath, StandardOpenOption.READ)) {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, GameplayCapture.HEADER_BYTES);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(GameplayCapture.MAGIC_OFFSET) != GameplayCapture.FILE_MAGIC ||
+                    header.getInt(GameplayCapture.VERSION_OFFSET) != GameplayCapture.VERSION) {
+                throw new IOException("Not a capture file: " + capturePath);
+            }
+            int width = header.getInt(GameplayCapture.WIDTH_OFFSET);
+            int height = header.getInt(GameplayCapture.HEIGHT_OFFSET);
+            int frameCount = header.getInt(GameplayCapture.FRAME_COUNT_OFFSET);
+            long end = Math.min(header.getLong(GameplayCapture.END_OFFSET), channel.size());
+            BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            int exported = 0;
+            int frame = 0;
+            long segmentStart = GameplayCapture.HEADER_BYTES;
+            while (frame < frameCount && segmentStart < end) {
+                MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, segmentStart,
+                        Math.min(GameplayCapture.SEGMENT_BYTES, end - segmentStart));
+                segment.order(ByteOrder.LITTLE_ENDIAN);
+                while (frame < frameCount && segment.hasRemaining()) {
+                    byte type = segment.get();
+                    if (type == GameplayCapture.FRAME_PADDING) {
+                        break;
+                    }
+                    int payloadBytes = segment.getInt();
+                    segment.getLong();
+                    segment.getLong();
+                    int payloadEnd = segment.position() + payloadBytes;
+                    if (type == GameplayCapture.FRAME_KEY) {
+                        segment.asIntBuffer().get(pixels);
+                    } else {
+                        readDelta(segment, payloadEnd, pixels);
+                    }
+                    segment.position(payloadEnd);
+                    if (frame % interval == 0) {
+                        ImageIO.write(image, IMAGE_FORMAT,
+                                outputDirectory.resolve(String.format(FRAME_NAME_FORMAT, exported)).toFile());
+                        exported++;
+                    }
+                    frame++;
+                }
+                segmentStart += GameplayCapture.SEGMENT_BYTES;
+            }
+            return exported;
+        }
+    }
+
+    /**
+     * Applies a delta frame to the pixels of the previous frame.
+     *
+     * @param in         The buffer, at the start of the payload.
+     * @param payloadEnd The position of the end of the payload.
+     * @param pixels     The pixels of the previous frame, replaced by the pixels of this one.
+     */
+    private static void readDelta(MappedByteBuffer in, int payloadEnd, int[] pixels) {
+        int i = 0;
+        while (in.position() < payloadEnd) {
+            i += readVarInt(in);
+            int literals = readVarInt(in);
+            for (int j = 0; j < literals; j++, i++) {
+                pixels[i] ^= in.getInt();
+            }
+        }
+    }
+
+    private static int readVarInt(MappedByteBuffer in) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (b & VARINT_PAYLOAD_MASK) << shift;
+            shift += VARINT_PAYLOAD_BITS;
+        } while ((b & VARINT_CONTINUATION_BIT) != 0);
+        return value;
+    }
+}
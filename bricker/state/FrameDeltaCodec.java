@@ -0,0 +1,223 @@
+package bricker.state;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Binary encoding of {@link GameStateFrame}s.
+ * <p>
+ * A frame is encoded either as a key frame, which stands on its own, or as a delta frame against the
+ * frame that preceded it. Positions and velocities are stored in fixed point with a resolution of
+ * 1/16 pixel, and every value is written as a variable length difference from its previous value, so
+ * objects that did not move and counters that did not change cost a single byte each.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+public final class FrameDeltaCodec {
+
+    /**
+     * Type byte of a frame that is encoded against nothing.
+     */
+    public static final byte KEY_FRAME = 0;
+    /**
+     * Type byte of a frame that is encoded against the previous frame.
+     */
+    public static final byte DELTA_FRAME = 1;
+    private static final float FIXED_POINT_SCALE = 16f;
+    private static final int VARINT_PAYLOAD_BITS = 7;
+    private static final int VARINT_PAYLOAD_MASK = 0x7F;
+    private static final int VARINT_CONTINUATION_BIT = 0x80;
+    private static final int MAX_VARINT_BYTES = 10;
+    private static final int FIXED_FIELDS = 11;
+    private static final int FIELDS_PER_MOVER = 4;
+
+    private FrameDeltaCodec() {
+    }
+
+    /**
+     * Encodes a frame into the given buffer, starting at the buffer's position.
+     *
+     * @param previous The frame to encode against, or null to encode a key frame.
+     * @param current  The frame to encode.
+     * @param out      The buffer to write to.
+     */
+    public static void encode(GameStateFrame previous, GameStateFrame current, ByteBuffer out) {
+        boolean isKeyFrame = previous == null;
+        out.put(isKeyFrame ? KEY_FRAME : DELTA_FRAME);
+        writeVarLong(out, zigZag(current.getTick() - (isKeyFrame ? 0 : previous.getTick())));
+        writeIntDelta(out, current.getLives(), isKeyFrame ? 0 : previous.getLives());
+        writeIntDelta(out, current.getBricksLeft(), isKeyFrame ? 0 : previous.getBricksLeft());
+        writeIntDelta(out, current.getStrikes(), isKeyFrame ? 0 : previous.getStrikes());
+        writeFloatDelta(out, current.getPaddleX(), isKeyFrame ? 0 : previous.getPaddleX());
+        writeFloatDelta(out, current.getPaddleY(), isKeyFrame ? 0 : previous.getPaddleY());
+        out.put((byte) (current.hasExtraPaddle() ? 1 : 0));
+        if (current.hasExtraPaddle()) {
+            boolean hadExtraPaddle = !isKeyFrame && previous.hasExtraPaddle();
+            writeFloatDelta(out, current.getExtraPaddleX(), hadExtraPaddle ? previous.getExtraPaddleX() : 0);
+            writeFloatDelta(out, current.getExtraPaddleY(), hadExtraPaddle ? previous.getExtraPaddleY() : 0);
+        }
+        int moverCount = current.getMoverCount();
+        int sharedPrefix = isKeyFrame ? 0 : sharedKindsPrefix(previous, current);
+        writeVarLong(out, moverCount);
+        writeVarLong(out, sharedPrefix);
+        for (int i = sharedPrefix; i < moverCount; i++) {
+            out.put(current.getMoverKind(i));
+        }
+        for (int i = 0; i < moverCount; i++) {
+            boolean hasReference = i < sharedPrefix;
+            writeFloatDelta(out, current.getMoverX(i), hasReference ? previous.getMoverX(i) : 0);
+            writeFloatDelta(out, current.getMoverY(i), hasReference ? previous.getMoverY(i) : 0);
+            writeFloatDelta(out, current.getMoverVelX(i), hasReference ? previous.getMoverVelX(i) : 0);
+            writeFloatDelta(out, current.getMoverVelY(i), hasReference ? previous.getMoverVelY(i) : 0);
+        }
+        int wordCount = current.getAliveBricksWordCount();
+        writeVarLong(out, wordCount);
+        for (int i = 0; i < wordCount; i++) {
+            long reference = isKeyFrame ? 0 : previous.getAliveBricksWord(i);
+            writeVarLong(out, current.getAliveBricksWord(i) ^ reference);
+        }
+    }
+
+    /**
+     * Returns the most bytes a frame of the given capacity can take when encoded, so that a frame can
+     * be encoded straight into a shared buffer without checking for room on every value.
+     *
+     * @param moverCapacity The mover capacity of the frame.
+     * @param brickCapacity The brick capacity of the frame.
+     * @return The bound, in bytes.
+     */
+    public static int maxEncodedSize(int moverCapacity, int brickCapacity) {
+        int brickWords = (brickCapacity + Long.SIZE - 1) / Long.SIZE;
+        return 2 + FIXED_FIELDS * MAX_VARINT_BYTES + moverCapacity * (1 + FIELDS_PER_MOVER * MAX_VARINT_BYTES) +
+                brickWords * MAX_VARINT_BYTES;
+    }
+
+    /**
+     * Decodes a frame from the given buffer, starting at the buffer's position.
+     *
+     * @param in       The buffer to read from.
+     * @param previous The last frame decoded from the same stream. Ignored for key frames, and may be
+     *                 the same object as out.
+     * @param out      The frame to decode into.
+     * @throws IllegalStateException If a delta frame is read without a previous frame, or if the
+     *                               frame does not fit the capacity of out.
+     */
+    public static void decode(ByteBuffer in, GameStateFrame previous, GameStateFrame out) {
+        boolean isKeyFrame = in.get() == KEY_FRAME;
+        if (!isKeyFrame && previous == null) {
+            throw new IllegalStateException("A delta frame cannot be decoded without a previous frame");
+        }
+        long tick = unZigZag(readVarLong(in)) + (isKeyFrame ? 0 : previous.getTick());
+        int lives = readIntDelta(in, isKeyFrame ? 0 : previous.getLives());
+        int bricksLeft = readIntDelta(in, isKeyFrame ? 0 : previous.getBricksLeft());
+        int strikes = readIntDelta(in, isKeyFrame ? 0 : previous.getStrikes());
+        float paddleX = readFloatDelta(in, isKeyFrame ? 0 : previous.getPaddleX());
+        float paddleY = readFloatDelta(in, isKeyFrame ? 0 : previous.getPaddleY());
+        boolean hasExtraPaddle = in.get() != 0;
+        float extraPaddleX = 0;
+        float extraPaddleY = 0;
+        if (hasExtraPaddle) {
+            boolean hadExtraPaddle = !isKeyFrame && previous.hasExtraPaddle();
+            extraPaddleX = readFloatDelta(in, hadExtraPaddle ? previous.getExtraPaddleX() : 0);
+            extraPaddleY = readFloatDelta(in, hadExtraPaddle ? previous.getExtraPaddleY() : 0);
+        }
+        int moverCount = (int) readVarLong(in);
+        int sharedPrefix = (int) readVarLong(in);
+        if (moverCount > out.getMoverCapacity()) {
+            throw new IllegalStateException("Frame holds " + moverCount + " movers, capacity is " +
+                    out.getMoverCapacity());
+        }
+        // Kinds are read before any mover is overwritten, so previous may alias out.
+        for (int i = sharedPrefix; i < moverCount; i++) {
+            out.setMover(i, in.get(), 0, 0, 0, 0);
+        }
+        for (int i = 0; i < moverCount; i++) {
+            boolean hasReference = i < sharedPrefix;
+            byte kind = hasReference ? previous.getMoverKind(i) : out.getMoverKind(i);
+            float x = readFloatDelta(in, hasReference ? previous.getMoverX(i) : 0);
+            float y = readFloatDelta(in, hasReference ? previous.getMoverY(i) : 0);
+            float velX = readFloatDelta(in, hasReference ? previous.getMoverVelX(i) : 0);
+            float velY = readFloatDelta(in, hasReference ? previous.getMoverVelY(i) : 0);
+            out.setMover(i, kind, x, y, velX, velY);
+        }
+        int wordCount = (int) readVarLong(in);
+        if (wordCount > out.getAliveBricksWordCount()) {
+            throw new IllegalStateException("Frame holds " + wordCount + " brick words, capacity is " +
+                    out.getAliveBricksWordCount());
+        }
+        for (int i = 0; i < wordCount; i++) {
+            long reference = isKeyFrame ? 0 : previous.getAliveBricksWord(i);
+            out.setAliveBricksWord(i, readVarLong(in) ^ reference);
+        }
+        out.setTick(tick);
+        out.setCounters(lives, bricksLeft, strikes);
+        out.setPaddle(paddleX, paddleY);
+        out.setExtraPaddle(hasExtraPaddle, extraPaddleX, extraPaddleY);
+        out.setMoverCount(moverCount);
+    }
+
+    /**
+     * @param previous The previous frame.
+     * @param current  The current frame.
+     * @return The number of leading movers whose kind is the same in both frames.
+     */
+    private static int sharedKindsPrefix(GameStateFrame previous, GameStateFrame current) {
+        int limit = Math.min(previous.getMoverCount(), current.getMoverCount());
+        int prefix = 0;
+        while (prefix < limit && previous.getMoverKind(prefix) == current.getMoverKind(prefix)) {
+            prefix++;
+        }
+        return prefix;
+    }
+
+    /**
+     * @param value A value in pixels.
+     * @return The value in fixed point.
+     */
+    private static long toFixedPoint(float value) {
+        return Math.round(value * FIXED_POINT_SCALE);
+    }
+
+    private static void writeIntDelta(ByteBuffer out, int value, int reference) {
+        writeVarLong(out, zigZag((long) value - reference));
+    }
+
+    private static int readIntDelta(ByteBuffer in, int reference) {
+        return (int) (unZigZag(readVarLong(in)) + reference);
+    }
+
+    private static void writeFloatDelta(ByteBuffer out, float value, float reference) {
+        writeVarLong(out, zigZag(toFixedPoint(value) - toFixedPoint(reference)));
+    }
+
+    private static float readFloatDelta(ByteBuffer in, float reference) {
+        return (unZigZag(readVarLong(in)) + toFixedPoint(reference)) / FIXED_POINT_SCALE;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(ByteBuffer out, long value) {
+        while ((value & ~VARINT_PAYLOAD_MASK) != 0) {
+            out.put((byte) ((value & VARINT_PAYLOAD_MASK) | VARINT_CONTINUATION_BIT));
+            value >>>= VARINT_PAYLOAD_BITS;
+        }
+        out.put((byte) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & VARINT_PAYLOAD_MASK) << shift;
+            shift += VARINT_PAYLOAD_BITS;
+        } while ((b & VARINT_CONTINUATION_BIT) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,143 @@
+package bricker.state;
+
+import bricker.brick_strategies.BrickStrategiesFactory;
+import bricker.engine.BrickerGameObjectCollection;
+import bricker.gameobjects.*;
+import bricker.main.BrickerGameManager;
+import danogl.GameObject;
+import danogl.collisions.Layer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the state of a game with frames, such as those rebuilt by a {@link RewindBuffer}, once per
+ * frame while play is scrubbed back.
+ * <p>
+ * A frame holds less than a checkpoint, so the rest of the present state is kept: bricks that come
+ * back are the same instances, with their strategy reset to not yet hit, an extra paddle that is still
+ * in the game keeps its collision count, and the camera and the ball's collision count are left as
+ * they are. Pucks and hearts that are still in the game are moved rather than recreated. The lists and
+ * flags a restore works with are allocated up front, so restoring a frame only allocates the pucks,
+ * hearts and extra paddle it has to add.
+ * <p>
+ * A restore reads the objects in the layers of the collection, so the collection must be flushed
+ * before and after it: objects added or removed since the last flush would otherwise be missed, and
+ * added or reused a second time.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+public final class FrameRestorer {
+
+    private final List<GameObject> pucks;
+    private final List<GameObject> hearts;
+    private boolean[] isAlive;
+
+    /**
+     * Construct a new FrameRestorer instance.
+     *
+     * @param moverCapacity The mover capacity of the restored frames.
+     * @param brickCapacity The brick capacity of the restored frames.
+     */
+    public FrameRestorer(int moverCapacity, int brickCapacity) {
+        this.pucks = new ArrayList<>(moverCapacity);
+        this.hearts = new ArrayList<>(moverCapacity);
+        this.isAlive = new boolean[brickCapacity];
+    }
+
+    /**
+     * Replaces the state of the given game with a frame.
+     *
+     * @param frame       The frame to restore.
+     * @param gameManager The game to restore into.
+     */
+    public void restore(GameStateFrame frame, BrickerGameManager gameManager) {
+        BrickerGameObjectCollection gameObjects = gameManager.getGameObjects();
+        pucks.clear();
+        hearts.clear();
+        ExtraPaddle extraPaddle = null;
+        for (GameObject obj : gameObjects.objectsInLayer(Layer.DEFAULT)) {
+            if (gameObjects.isRemovalPending(obj)) {
+                continue;
+            }
+            if (obj instanceof Puck) {
+                pucks.add(obj);
+            } else if (obj instanceof Heart) {
+                hearts.add(obj);
+            } else if (obj instanceof ExtraPaddle) {
+                extraPaddle = (ExtraPaddle) obj;
+            }
+        }
+        gameManager.setFrameNumber(frame.getTick());
+        GameCheckpoint.setCounter(gameManager.getBrickCounter(), frame.getBricksLeft());
+        GameCheckpoint.setCounter(gameManager.getLivesCounter(), frame.getLives());
+        GameCheckpoint.setCounter(gameManager.getStrikesCounter(), frame.getStrikes());
+        gameManager.getPaddle().transform().setCenter(frame.getPaddleX(), frame.getPaddleY());
+        if (frame.hasExtraPaddle()) {
+            if (extraPaddle == null) {
+                extraPaddle = GameCheckpoint.addExtraPaddle(gameManager);
+            }
+            extraPaddle.transform().setCenter(frame.getExtraPaddleX(), frame.getExtraPaddleY());
+        } else if (extraPaddle != null) {
+            gameObjects.removeGameObject(extraPaddle);
+        }
+        restoreBricks(frame, gameManager);
+        int puckCount = 0;
+        int heartCount = 0;
+        for (int i = 0; i < frame.getMoverCount(); i++) {
+            GameObject mover;
+            if (frame.getMoverKind(i) == GameStateFrame.KIND_PUCK) {
+                mover = puckCount < pucks.size() ? pucks.get(puckCount) : GameCheckpoint.addPuck(gameManager);
+                puckCount++;
+            } else if (frame.getMoverKind(i) == GameStateFrame.KIND_HEART) {
+                mover = heartCount < hearts.size() ? hearts.get(heartCount) :
+                        GameCheckpoint.addHeart(gameManager);
+                heartCount++;
+            } else {
+                mover = gameManager.getBall();
+            }
+            mover.transform().setCenter(frame.getMoverX(i), frame.getMoverY(i));
+            mover.transform().setVelocity(frame.getMoverVelX(i), frame.getMoverVelY(i));
+        }
+        for (int i = puckCount; i < pucks.size(); i++) {
+            gameObjects.removeGameObject(pucks.get(i));
+        }
+        for (int i = heartCount; i < hearts.size(); i++) {
+            gameObjects.removeGameObject(hearts.get(i));
+        }
+        pucks.clear();
+        hearts.clear();
+    }
+
+    /**
+     * Brings the bricks of a frame back into the game and removes the others. A removed brick stays in
+     * the brick grid, so that it can be brought back again.
+     *
+     * @param frame       The frame to restore.
+     * @param gameManager The game to restore into.
+     */
+    private void restoreBricks(GameStateFrame frame, BrickerGameManager gameManager) {
+        Brick[] bricks = gameManager.getBricks();
+        if (isAlive.length < bricks.length) {
+            isAlive = new boolean[bricks.length];
+        }
+        BrickerGameObjectCollection gameObjects = gameManager.getGameObjects();
+        for (GameObject obj : gameObjects.objectsInLayer(Layer.STATIC_OBJECTS)) {
+            if (obj instanceof Brick && !gameObjects.isRemovalPending(obj)) {
+                int brickId = ((Brick) obj).getBrickId();
+                isAlive[brickId] = bricks[brickId] == obj;
+            }
+        }
+        BrickStrategiesFactory factory = gameManager.getBrickStrategiesFactory();
+        for (int brickId = 0; brickId < bricks.length; brickId++) {
+            boolean isAliveInFrame = brickId < frame.getBrickCapacity() && frame.isBrickAlive(brickId);
+            if (isAliveInFrame && !isAlive[brickId] && bricks[brickId] != null) {
+                factory.reset(bricks[brickId].getCollisionStrategy());
+                gameObjects.addGameObject(bricks[brickId], Layer.STATIC_OBJECTS);
+            } else if (!isAliveInFrame && isAlive[brickId]) {
+                gameObjects.removeGameObject(bricks[brickId], Layer.STATIC_OBJECTS);
+            }
+            isAlive[brickId] = false;
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package bricker.state;
+
+import bricker.brick_strategies.BrickStrategiesFactory;
+import bricker.engine.BrickerGameObjectCollection;
+import bricker.gameobjects.*;
+import bricker.main.BrickerGameManager;
+import danogl.GameObject;
+import danogl.collisions.GameObjectCollection;
+import danogl.collisions.Layer;
+import danogl.gui.Sound;
+import danogl.gui.rendering.Camera;
+import danogl.gui.rendering.Renderable;
+import danogl.util.Counter;
+import danogl.util.Vector2;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Saves the complete state of a game into a buffer and restores it in a single pass.
+ * <p>
+ * A checkpoint holds the level, the game counters, every brick's alive flag and strategy, the ball,
+ * the pucks, the falling hearts, the paddles and the camera. Objects are written field by field,
+ * without reflection, so a checkpoint of a typical game takes a few kilobytes and restores in well
+ * under a millisecond. The random generators of the game are not part of a checkpoint, so a run branched from
+ * a checkpoint picks fresh random numbers from there on.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+public final class GameCheckpoint {
+
+    private static final int MAGIC = 0x42524B43;
+    private static final byte VERSION = 3;
+    private static final String HEART_IMAGE_PATH = "assets/heart.png";
+    private static final String MOCK_BALL_IMAGE_PATH = "assets/mockBall.png";
+    private static final String PADDLE_IMAGE_PATH = "assets/paddle.png";
+    private static final String BALL_COLLISION_SOUND_PATH = "assets/blop_cut_silenced.wav";
+    private static final String TAG_EXTRA_PADDLE = "Extra Paddle";
+    private static final float CAMERA_WINDOW_FACTOR = 1.2f;
+
+    private GameCheckpoint() {
+    }
+
+    /**
+     * Writes a checkpoint of the given game into a buffer.
+     *
+     * @param gameManager The game to save.
+     * @param out         The buffer to write to, starting at its position.
+     * @throws java.nio.BufferOverflowException If the buffer is too small.
+     */
+    public static void write(BrickerGameManager gameManager, ByteBuffer out) {
+        out.putInt(MAGIC);
+        out.put(VERSION);
+        out.putInt(gameManager.getLevelNumber());
+        out.putInt(gameManager.getLevelBrickCount());
+        out.putInt(gameManager.getBricksClearedInEarlierLevels());
+        out.putLong(gameManager.getFrameNumber());
+        out.putInt(gameManager.getBrickCounter().value());
+        out.putInt(gameManager.getLivesCounter().value());
+        out.putInt(gameManager.getStrikesCounter().value());
+        Ball ball = gameManager.getBall();
+        writeMover(ball, out);
+        out.putInt(ball.getCollisionCounter());
+        out.putFloat(gameManager.getPaddle().getTopLeftCorner().x());
+        out.putFloat(gameManager.getPaddle().getTopLeftCorner().y());
+        out.put((byte) (gameManager.camera() != null ? 1 : 0));
+        writeBricks(gameManager, out);
+        List<GameObject> pucks = new ArrayList<>();
+        List<GameObject> hearts = new ArrayList<>();
+        ExtraPaddle extraPaddle = null;
+        BrickerGameObjectCollection gameObjects = gameManager.getGameObjects();
+        for (GameObject obj : gameObjects.objectsInLayer(Layer.DEFAULT)) {
+            if (gameObjects.isRemovalPending(obj)) {
+                continue;
+            }
+            if (obj instanceof Puck) {
+                pucks.add(obj);
+            } else if (obj instanceof Heart) {
+                hearts.add(obj);
+            } else if (obj instanceof ExtraPaddle) {
+                extraPaddle = (ExtraPaddle) obj;
+            }
+        }
+        out.put((byte) (extraPaddle != null ? 1 : 0));
+        if (extraPaddle != null) {
+            out.putFloat(extraPaddle.getTopLeftCorner().x());
+            out.putFloat(extraPaddle.getTopLeftCorner().y());
+            out.putInt(extraPaddle.getCollisionCount());
+        }
+        out.putInt(pucks.size());
+        for (GameObject puck : pucks) {
+            writeMover(puck, out);
+        }
+        out.putInt(hearts.size());
+        for (GameObject heart : hearts) {
+            writeMover(heart, out);
+        }
+    }
+
+    /**
+     * Replaces the state of the given game with a checkpoint. A checkpoint saved on another level of
+     * the campaign moves the game to that level.
+     *
+     * @param in          The buffer to read from, starting at its position.
+     * @param gameManager The game to restore into.
+     * @throws IllegalArgumentException If the buffer does not hold a checkpoint, or holds one of a level
+     *                                  the campaign does not have.
+     */
+    public static void read(ByteBuffer in, BrickerGameManager gameManager) {
+        if (in.getInt() != MAGIC || in.get() != VERSION) {
+            throw new IllegalArgumentException("Not a Bricker checkpoint");
+        }
+        gameManager.restoreLevel(in.getInt(), in.getInt(), in.getInt());
+        GameObjectCollection gameObjects = gameManager.getGameObjects();
+        removeTransientObjects(gameObjects);
+        gameManager.setFrameNumber(in.getLong());
+        setCounter(gameManager.getBrickCounter(), in.getInt());
+        setCounter(gameManager.getLivesCounter(), in.getInt());
+        setCounter(gameManager.getStrikesCounter(), in.getInt());
+        Ball ball = gameManager.getBall();
+        readMover(ball, in);
+        ball.setCollisionCounter(in.getInt());
+        gameManager.getPaddle().setTopLeftCorner(new Vector2(in.getFloat(), in.getFloat()));
+        boolean isCameraFollowingBall = in.get() != 0;
+        Vector2 windowDimensions = gameManager.getWindowDimensions();
+        gameManager.setCamera(isCameraFollowingBall ?
+                new Camera(ball, Vector2.ZERO, windowDimensions.mult(CAMERA_WINDOW_FACTOR), windowDimensions) :
+                null);
+        readBricks(in, gameManager);
+        if (in.get() != 0) {
+            ExtraPaddle extraPaddle = addExtraPaddle(gameManager);
+            extraPaddle.setTopLeftCorner(new Vector2(in.getFloat(), in.getFloat()));
+            extraPaddle.setCollisionCount(in.getInt());
+        }
+        int puckCount = in.getInt();
+        if (puckCount > 0) {
+            Renderable puckImage = gameManager.readImage(MOCK_BALL_IMAGE_PATH, true);
+            Sound collisionSound = gameManager.readSound(BALL_COLLISION_SOUND_PATH);
+            float puckRadius = gameManager.getPuckBallRadius();
+            for (int i = 0; i < puckCount; i++) {
+                Puck puck = new Puck(Vector2.ZERO, new Vector2(puckRadius, puckRadius), puckImage,
+                        collisionSound);
+                readMover(puck, in);
+                gameObjects.addGameObject(puck);
+            }
+        }
+        int heartCount = in.getInt();
+        if (heartCount > 0) {
+            Renderable heartImage = gameManager.readImage(HEART_IMAGE_PATH, true);
+            float heartDimensions = gameManager.getHeartDimensions();
+            for (int i = 0; i < heartCount; i++) {
+                Heart heart = new Heart(Vector2.ZERO, new Vector2(heartDimensions, heartDimensions),
+                        heartImage, gameManager.getLivesCounter(), gameObjects,
+                        gameManager.getStrikesCounter(), gameManager.getParticles());
+                readMover(heart, in);
+                gameObjects.addGameObject(heart);
+            }
+        }
+    }
+
+    /**
+     * Adds a new extra paddle to the game.
+     *
+     * @param gameManager The game.
+     * @return The extra paddle, to be placed by the caller.
+     */
+    static ExtraPaddle addExtraPaddle(BrickerGameManager gameManager) {
+        ExtraPaddle extraPaddle = new ExtraPaddle(Vector2.ZERO,
+                new Vector2(gameManager.getExtraPaddleWidth(), gameManager.getExtraPaddleHeight()),
+                gameManager.readImage(PADDLE_IMAGE_PATH, true),
+                gameManager.getInputListener(), gameManager.getWindowDimensions(),
+                gameManager.getMinDistanceFromEdge(), gameManager.getGameObjects(),
+                gameManager.getEffectScheduler());
+        extraPaddle.setTag(TAG_EXTRA_PADDLE);
+        gameManager.getGameObjects().addGameObject(extraPaddle);
+        return extraPaddle;
+    }
+
+    /**
+     * Adds a new puck to the game.
+     *
+     * @param gameManager The game.
+     * @return The puck, to be placed by the caller.
+     */
+    static Puck addPuck(BrickerGameManager gameManager) {
+        float puckRadius = gameManager.getPuckBallRadius();
+        Puck puck = new Puck(Vector2.ZERO, new Vector2(puckRadius, puckRadius),
+                gameManager.readImage(MOCK_BALL_IMAGE_PATH, true),
+                gameManager.readSound(BALL_COLLISION_SOUND_PATH));
+        gameManager.getGameObjects().addGameObject(puck);
+        return puck;
+    }
+
+    /**
+     * Adds a new falling heart to the game.
+     *
+     * @param gameManager The game.
+     * @return The heart, to be placed by the caller.
+     */
+    static Heart addHeart(BrickerGameManager gameManager) {
+        float heartDimensions = gameManager.getHeartDimensions();
+        Heart heart = new Heart(Vector2.ZERO, new Vector2(heartDimensions, heartDimensions),
+                gameManager.readImage(HEART_IMAGE_PATH, true), gameManager.getLivesCounter(),
+                gameManager.getGameObjects(), gameManager.getStrikesCounter(), gameManager.getParticles());
+        gameManager.getGameObjects().addGameObject(heart);
+        return heart;
+    }
+
+    /**
+     * Writes the alive-brick bitset, followed by the strategy of every alive brick.
+     *
+     * @param gameManager The game to save.
+     * @param out         The buffer to write to.
+     */
+    private static void writeBricks(BrickerGameManager gameManager, ByteBuffer out) {
+        Brick[] bricks = gameManager.getBricks();
+        boolean[] isAlive = new boolean[bricks.length];
+        BrickerGameObjectCollection gameObjects = gameManager.getGameObjects();
+        for (GameObject obj : gameObjects.objectsInLayer(Layer.STATIC_OBJECTS)) {
+            if (obj instanceof Brick && !gameObjects.isRemovalPending(obj)) {
+                int brickId = ((Brick) obj).getBrickId();
+                isAlive[brickId] = bricks[brickId] == obj;
+            }
+        }
+        out.putInt(bricks.length);
+        for (int word = 0; word < bricks.length; word += Long.SIZE) {
+            long bits = 0;
+            for (int bit = 0; bit < Long.SIZE && word + bit < bricks.length; bit++) {
+                if (isAlive[word + bit]) {
+                    bits |= 1L << bit;
+                }
+            }
+            out.putLong(bits);
+        }
+        BrickStrategiesFactory factory = gameManager.getBrickStrategiesFactory();
+        for (int brickId = 0; brickId < bricks.length; brickId++) {
+            if (isAlive[brickId]) {
+                factory.writeStrategy(bricks[brickId].getCollisionStrategy(), out);
+            }
+        }
+    }
+
+    /**
+     * Reads the alive-brick bitset and the strategies, and rebuilds the brick grid.
+     *
+     * @param in          The buffer to read from.
+     * @param gameManager The game to restore into.
+     */
+    private static void readBricks(ByteBuffer in, BrickerGameManager gameManager) {
+        int brickCount = in.getInt();
+        if (brickCount != gameManager.getBricks().length) {
+            throw new IllegalArgumentException("Checkpoint has " + brickCount + " bricks, level has " +
+                    gameManager.getBricks().length);
+        }
+        long[] aliveBricks = new long[(brickCount + Long.SIZE - 1) / Long.SIZE];
+        for (int word = 0; word < aliveBricks.length; word++) {
+            aliveBricks[word] = in.getLong();
+        }
+        BrickStrategiesFactory factory = gameManager.getBrickStrategiesFactory();
+        for (int brickId = 0; brickId < brickCount; brickId++) {
+            boolean isAlive = (aliveBricks[brickId / Long.SIZE] & (1L << (brickId % Long.SIZE))) != 0;
+            gameManager.restoreBrick(brickId, isAlive ? factory.readStrategy(in) : null);
+        }
+    }
+
+    /**
+     * Removes the pucks, falling hearts and extra paddle, which a checkpoint recreates.
+     *
+     * @param gameObjects The collection of GameObjects in the game.
+     */
+    private static void removeTransientObjects(GameObjectCollection gameObjects) {
+        List<GameObject> toRemove = new ArrayList<>();
+        for (GameObject obj : gameObjects.objectsInLayer(Layer.DEFAULT)) {
+            if (obj instanceof Puck || obj instanceof Heart || obj instanceof ExtraPaddle) {
+                toRemove.add(obj);
+            }
+        }
+        for (GameObject obj : toRemove) {
+            gameObjects.removeGameObject(obj);
+        }
+    }
+
+    private static void writeMover(GameObject mover, ByteBuffer out) {
+        out.putFloat(mover.getTopLeftCorner().x());
+        out.putFloat(mover.getTopLeftCorner().y());
+        out.putFloat(mover.getVelocity().x());
+        out.putFloat(mover.getVelocity().y());
+    }
+
+    private static void readMover(GameObject mover, ByteBuffer in) {
+        mover.transform().setTopLeftCorner(in.getFloat(), in.getFloat());
+        mover.transform().setVelocity(in.getFloat(), in.getFloat());
+    }
+
+    static void setCounter(Counter counter, int value) {
+        counter.reset();
+        counter.increaseBy(value);
+    }
+}
@@ -0,0 +1,407 @@
+package bricker.state;
+
+import bricker.engine.BrickerGameObjectCollection;
+import bricker.gameobjects.*;
+import bricker.main.BrickerGameManager;
+import danogl.GameObject;
+import danogl.collisions.Layer;
+import danogl.util.Vector2;
+
+import java.util.Arrays;
+
+/**
+ * A flat, preallocated picture of the live game state for a single tick.
+ * <p>
+ * The frame holds the ball, puck and falling heart positions and velocities, the alive-brick bitset,
+ * the paddle positions and the game counters in primitive arrays, so it can be captured every tick
+ * and encoded without allocating.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+public class GameStateFrame {
+
+    /**
+     * Mover kind of the original ball.
+     */
+    public static final byte KIND_BALL = 0;
+    /**
+     * Mover kind of a puck.
+     */
+    public static final byte KIND_PUCK = 1;
+    /**
+     * Mover kind of a falling heart.
+     */
+    public static final byte KIND_HEART = 2;
+    private static final int BITS_PER_WORD = 64;
+    private final int moverCapacity;
+    private final int brickCapacity;
+    private final byte[] moverKinds;
+    private final float[] moverX;
+    private final float[] moverY;
+    private final float[] moverVelX;
+    private final float[] moverVelY;
+    private final long[] aliveBricks;
+    private long tick;
+    private int lives;
+    private int bricksLeft;
+    private int strikes;
+    private int moverCount;
+    private float paddleX;
+    private float paddleY;
+    private boolean hasExtraPaddle;
+    private float extraPaddleX;
+    private float extraPaddleY;
+
+    /**
+     * Construct a new, empty GameStateFrame.
+     *
+     * @param moverCapacity The maximal number of balls, pucks and hearts the frame can hold. Movers beyond
+     *                      this number are not recorded.
+     * @param brickCapacity The maximal number of bricks the alive-brick bitset can hold.
+     */
+    public GameStateFrame(int moverCapacity, int brickCapacity) {
+        this.moverCapacity = moverCapacity;
+        this.brickCapacity = brickCapacity;
+        this.moverKinds = new byte[moverCapacity];
+        this.moverX = new float[moverCapacity];
+        this.moverY = new float[moverCapacity];
+        this.moverVelX = new float[moverCapacity];
+        this.moverVelY = new float[moverCapacity];
+        this.aliveBricks = new long[(brickCapacity + BITS_PER_WORD - 1) / BITS_PER_WORD];
+    }
+
+    /**
+     * Fills the frame with the current state of the given game.
+     *
+     * @param gameManager The game to capture.
+     * @param tick        The number of the tick being captured.
+     */
+    public void capture(BrickerGameManager gameManager, long tick) {
+        clear();
+        this.tick = tick;
+        this.lives = gameManager.getLivesCounter().value();
+        this.bricksLeft = gameManager.getBrickCounter().value();
+        this.strikes = gameManager.getStrikesCounter().value();
+        BrickerGameObjectCollection gameObjects = gameManager.getGameObjects();
+        for (GameObject obj : gameObjects.objectsInLayer(Layer.DEFAULT)) {
+            if (gameObjects.isRemovalPending(obj)) {
+                continue;
+            }
+            if (obj instanceof ExtraPaddle) {
+                Vector2 topLeftCorner = obj.getTopLeftCorner();
+                hasExtraPaddle = true;
+                extraPaddleX = topLeftCorner.x() + obj.getDimensions().x() / 2;
+                extraPaddleY = topLeftCorner.y() + obj.getDimensions().y() / 2;
+            } else if (obj instanceof Paddle) {
+                Vector2 topLeftCorner = obj.getTopLeftCorner();
+                paddleX = topLeftCorner.x() + obj.getDimensions().x() / 2;
+                paddleY = topLeftCorner.y() + obj.getDimensions().y() / 2;
+            } else if (obj instanceof Ball) {
+                addMover(KIND_BALL, obj);
+            } else if (obj instanceof Puck) {
+                addMover(KIND_PUCK, obj);
+            } else if (obj instanceof Heart) {
+                addMover(KIND_HEART, obj);
+            }
+        }
+        for (GameObject obj : gameObjects.objectsInLayer(Layer.STATIC_OBJECTS)) {
+            if (obj instanceof Brick && !gameObjects.isRemovalPending(obj)) {
+                setBrickAlive(((Brick) obj).getBrickId(), true);
+            }
+        }
+    }
+
+    /**
+     * Resets every field of the frame, keeping its capacity.
+     */
+    public void clear() {
+        tick = 0;
+        lives = 0;
+        bricksLeft = 0;
+        strikes = 0;
+        moverCount = 0;
+        paddleX = 0;
+        paddleY = 0;
+        hasExtraPaddle = false;
+        extraPaddleX = 0;
+        extraPaddleY = 0;
+        Arrays.fill(aliveBricks, 0);
+    }
+
+    /**
+     * Copies the content of another frame of the same capacity into this frame.
+     *
+     * @param other The frame to copy.
+     */
+    public void copyFrom(GameStateFrame other) {
+        tick = other.tick;
+        lives = other.lives;
+        bricksLeft = other.bricksLeft;
+        strikes = other.strikes;
+        moverCount = other.moverCount;
+        paddleX = other.paddleX;
+        paddleY = other.paddleY;
+        hasExtraPaddle = other.hasExtraPaddle;
+        extraPaddleX = other.extraPaddleX;
+        extraPaddleY = other.extraPaddleY;
+        System.arraycopy(other.moverKinds, 0, moverKinds, 0, moverCount);
+        System.arraycopy(other.moverX, 0, moverX, 0, moverCount);
+        System.arraycopy(other.moverY, 0, moverY, 0, moverCount);
+        System.arraycopy(other.moverVelX, 0, moverVelX, 0, moverCount);
+        System.arraycopy(other.moverVelY, 0, moverVelY, 0, moverCount);
+        System.arraycopy(other.aliveBricks, 0, aliveBricks, 0, aliveBricks.length);
+    }
+
+    /**
+     * Appends a mover to the frame, if there is room for it.
+     *
+     * @param kind The kind of the mover.
+     * @param obj  The mover.
+     */
+    private void addMover(byte kind, GameObject obj) {
+        if (moverCount == moverCapacity) {
+            return;
+        }
+        Vector2 topLeftCorner = obj.getTopLeftCorner();
+        Vector2 dimensions = obj.getDimensions();
+        Vector2 velocity = obj.getVelocity();
+        setMover(moverCount, kind, topLeftCorner.x() + dimensions.x() / 2,
+                topLeftCorner.y() + dimensions.y() / 2, velocity.x(), velocity.y());
+        moverCount++;
+    }
+
+    /**
+     * Sets the mover at the given index. Used by decoders.
+     *
+     * @param index The index of the mover.
+     * @param kind  The kind of the mover.
+     * @param x     The x coordinate of the mover's center.
+     * @param y     The y coordinate of the mover's center.
+     * @param velX  The x component of the mover's velocity.
+     * @param velY  The y component of the mover's velocity.
+     */
+    void setMover(int index, byte kind, float x, float y, float velX, float velY) {
+        moverKinds[index] = kind;
+        moverX[index] = x;
+        moverY[index] = y;
+        moverVelX[index] = velX;
+        moverVelY[index] = velY;
+    }
+
+    /**
+     * Marks a brick as alive or dead.
+     *
+     * @param brickId The id of the brick.
+     * @param isAlive True if the brick is alive, false otherwise.
+     */
+    void setBrickAlive(int brickId, boolean isAlive) {
+        if (brickId < 0 || brickId >= brickCapacity) {
+            return;
+        }
+        if (isAlive) {
+            aliveBricks[brickId / BITS_PER_WORD] |= 1L << (brickId % BITS_PER_WORD);
+        } else {
+            aliveBricks[brickId / BITS_PER_WORD] &= ~(1L << (brickId % BITS_PER_WORD));
+        }
+    }
+
+    /**
+     * @param tick The number of the tick this frame describes.
+     */
+    void setTick(long tick) {
+        this.tick = tick;
+    }
+
+    /**
+     * @param lives      The number of lives.
+     * @param bricksLeft The number of bricks left.
+     * @param strikes    The number of strikes.
+     */
+    void setCounters(int lives, int bricksLeft, int strikes) {
+        this.lives = lives;
+        this.bricksLeft = bricksLeft;
+        this.strikes = strikes;
+    }
+
+    /**
+     * @param moverCount The number of movers in the frame.
+     */
+    void setMoverCount(int moverCount) {
+        this.moverCount = moverCount;
+    }
+
+    /**
+     * @param paddleX The x coordinate of the paddle's center.
+     * @param paddleY The y coordinate of the paddle's center.
+     */
+    void setPaddle(float paddleX, float paddleY) {
+        this.paddleX = paddleX;
+        this.paddleY = paddleY;
+    }
+
+    /**
+     * @param hasExtraPaddle True if an extra paddle is in the game, false otherwise.
+     * @param extraPaddleX   The x coordinate of the extra paddle's center.
+     * @param extraPaddleY   The y coordinate of the extra paddle's center.
+     */
+    void setExtraPaddle(boolean hasExtraPaddle, float extraPaddleX, float extraPaddleY) {
+        this.hasExtraPaddle = hasExtraPaddle;
+        this.extraPaddleX = extraPaddleX;
+        this.extraPaddleY = extraPaddleY;
+    }
+
+    /**
+     * @param wordIndex The index of the word in the alive-brick bitset.
+     * @param word      The word.
+     */
+    void setAliveBricksWord(int wordIndex, long word) {
+        aliveBricks[wordIndex] = word;
+    }
+
+    /**
+     * @return The number of the tick this frame was captured at.
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * @return The number of lives.
+     */
+    public int getLives() {
+        return lives;
+    }
+
+    /**
+     * @return The number of bricks left.
+     */
+    public int getBricksLeft() {
+        return bricksLeft;
+    }
+
+    /**
+     * @return The number of strikes.
+     */
+    public int getStrikes() {
+        return strikes;
+    }
+
+    /**
+     * @return The number of movers (balls, pucks and hearts) in the frame.
+     */
+    public int getMoverCount() {
+        return moverCount;
+    }
+
+    /**
+     * @return The maximal number of movers the frame can hold.
+     */
+    public int getMoverCapacity() {
+        return moverCapacity;
+    }
+
+    /**
+     * @return The maximal number of bricks the frame can hold.
+     */
+    public int getBrickCapacity() {
+        return brickCapacity;
+    }
+
+    /**
+     * @param index The index of the mover.
+     * @return The kind of the mover.
+     */
+    public byte getMoverKind(int index) {
+        return moverKinds[index];
+    }
+
+    /**
+     * @param index The index of the mover.
+     * @return The x coordinate of the mover's center.
+     */
+    public float getMoverX(int index) {
+        return moverX[index];
+    }
+
+    /**
+     * @param index The index of the mover.
+     * @return The y coordinate of the mover's center.
+     */
+    public float getMoverY(int index) {
+        return moverY[index];
+    }
+
+    /**
+     * @param index The index of the mover.
+     * @return The x component of the mover's velocity.
+     */
+    public float getMoverVelX(int index) {
+        return moverVelX[index];
+    }
+
+    /**
+     * @param index The index of the mover.
+     * @return The y component of the mover's velocity.
+     */
+    public float getMoverVelY(int index) {
+        return moverVelY[index];
+    }
+
+    /**
+     * @param brickId The id of the brick.
+     * @return True if the brick is alive, false otherwise.
+     */
+    public boolean isBrickAlive(int brickId) {
+        return (aliveBricks[brickId / BITS_PER_WORD] & (1L << (brickId % BITS_PER_WORD))) != 0;
+    }
+
+    /**
+     * @return The number of 64 bit words in the alive-brick bitset.
+     */
+    public int getAliveBricksWordCount() {
+        return aliveBricks.length;
+    }
+
+    /**
+     * @param wordIndex The index of the word.
+     * @return The word of the alive-brick bitset at the given index.
+     */
+    public long getAliveBricksWord(int wordIndex) {
+        return aliveBricks[wordIndex];
+    }
+
+    /**
+     * @return The x coordinate of the paddle's center.
+     */
+    public float getPaddleX() {
+        return paddleX;
+    }
+
+    /**
+     * @return The y coordinate of the paddle's center.
+     */
+    public float getPaddleY() {
+        return paddleY;
+    }
+
+    /**
+     * @return True if an extra paddle is in the game, false otherwise.
+     */
+    public boolean hasExtraPaddle() {
+        return hasExtraPaddle;
+    }
+
+    /**
+     * @return The x coordinate of the extra paddle's center.
+     */
+    public float getExtraPaddleX() {
+        return extraPaddleX;
+    }
+
+    /**
+     * @return The y coordinate of the extra paddle's center.
+     */
+    public float getExtraPaddleY() {
+        return extraPaddleY;
+    }
+}
@@ -0,0 +1,358 @@
+package bricker.state;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records the presented frames of a game into a memory-mapped capture file, off the game thread.
+ * <p>
+ * While capturing, the game renders into an offscreen image, which is drawn onto the window and
+ * copied into one of {@value #SLOT_COUNT} preallocated pixel slots. A background writer encodes the
+ * slots into the file, which is mapped in segments of {@value #SEGMENT_BYTES} bytes as it grows. When
+ * every slot is still waiting to be written, the frame is dropped rather than stalling the game. The
+ * time the game thread spends on every capture is reported to the caller.
+ * <p>
+ * The file starts with a header of {@value #HEADER_BYTES} bytes: the magic, the version, the width,
+ * the height, the flags, the number of frames and the end of the written data. Every frame is a type
+ * byte, the length of the payload, the frame number and the {@link System#nanoTime} of the capture,
+ * followed by the payload. A key frame holds the pixels as RGB ints. When delta compression is on,
+ * the other frames hold the XOR of their pixels with the previous frame, as runs of a varint count of
+ * zeros, a varint count of literals and the literal ints; a key frame is written every
+ * {@value #KEY_FRAME_INTERVAL} frames, and whenever the delta would be larger. A frame never crosses a
+ * segment: the rest of a segment that cannot hold the next frame is marked with a padding byte. The
+ * header is updated after every frame, so the file can be read while it is being written, and
+ * {@link CaptureExporter} turns it into images. Everything is little endian.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+public class GameplayCapture implements Runnable {
+
+    /**
+     * The magic at the start of a capture file, "BRKV".
+     */
+    public static final int FILE_MAGIC = 0x42524B56;
+    /**
+     * The version of the capture file format.
+     */
+    public static final int VERSION = 1;
+    /**
+     * The size of the file header, in bytes.
+     */
+    public static final int HEADER_BYTES = 64;
+    /**
+     * The size of the mapped segments of the file, in bytes.
+     */
+    public static final int SEGMENT_BYTES = 64 << 20;
+    /**
+     * The size of the header of a frame, in bytes.
+     */
+    public static final int FRAME_HEADER_BYTES = 1 + Integer.BYTES + 2 * Long.BYTES;
+    /**
+     * Type byte of a frame that holds its pixels.
+     */
+    public static final byte FRAME_KEY = 0;
+    /**
+     * Type byte of a frame that holds the XOR of its pixels with the previous frame.
+     */
+    public static final byte FRAME_DELTA = 1;
+    /**
+     * Type byte that marks the rest of a segment as unused.
+     */
+    public static final byte FRAME_PADDING = 2;
+    /**
+     * Header flag of a file whose frames may be delta frames.
+     */
+    public static final int FLAG_DELTA = 1;
+    static final int MAGIC_OFFSET = 0;
+    static final int VERSION_OFFSET = 4;
+    static final int WIDTH_OFFSET = 8;
+    static final int HEIGHT_OFFSET = 12;
+    static final int FLAGS_OFFSET = 16;
+    static final int FRAME_COUNT_OFFSET = 20;
+    static final int END_OFFSET = 24;
+    private static final int SLOT_COUNT = 4;
+    private static final int KEY_FRAME_INTERVAL = 60;
+    private static final int MAX_SEGMENTS = 64;
+    private static final int MAX_VARINT_BYTES = 5;
+    private static final int VARINT_PAYLOAD_BITS = 7;
+    private static final int VARINT_PAYLOAD_MASK = 0x7F;
+    private static final int VARINT_CONTINUATION_BIT = 0x80;
+    private static final long IDLE_PARK_NANOS = 1_000_000L;
+    private static final String THREAD_NAME = "bricker-gameplay-capture";
+    private final int width;
+    private final int height;
+    private final boolean isDeltaCompressed;
+    private final BufferedImage image;
+    private final int[] pixels;
+    private final Graphics2D imageGraphics;
+    private final int[][] slots = new int[SLOT_COUNT][];
+    private final long[] slotFrameNumbers = new long[SLOT_COUNT];
+    private final long[] slotNanos = new long[SLOT_COUNT];
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final int[] previousPixels;
+    private final int maxFrameBytes;
+    private final Thread writer;
+    private volatile boolean isRunning = true;
+    private long droppedFrames = 0;
+    private long clearNanos;
+    private MappedByteBuffer segment;
+    private int segmentIndex = -1;
+    private int writtenFrames = 0;
+    private int framesSinceKeyFrame = 0;
+
+    /**
+     * Creates a capture file and starts the background writer.
+     *
+     * @param path              The file to write to. An existing file is replaced.
+     * @param width             The width of the frames, in pixels.
+     * @param height            The height of the frames, in pixels.
+     * @param isDeltaCompressed True to write delta frames between key frames, false to write every
+     *                          frame as a key frame.
+     * @throws IOException If the file cannot be created or mapped.
+     */
+    public GameplayCapture(Path path, int width, int height, boolean isDeltaCompressed) throws IOException {
+        this.width = width;
+        this.height = height;
+        this.isDeltaCompressed = isDeltaCompressed;
+        this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        this.pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        this.imageGraphics = image.createGraphics();
+        for (int i = 0; i < SLOT_COUNT; i++) {
+            slots[i] = new int[pixels.length];
+        }
+        this.previousPixels = new int[pixels.length];
+        this.maxFrameBytes = FRAME_HEADER_BYTES + Math.max(pixels.length * Integer.BYTES,
+                deltaBound(pixels.length));
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC_OFFSET, FILE_MAGIC);
+        header.putInt(VERSION_OFFSET, VERSION);
+        header.putInt(WIDTH_OFFSET, width);
+        header.putInt(HEIGHT_OFFSET, height);
+        header.putInt(FLAGS_OFFSET, isDeltaCompressed ? FLAG_DELTA : 0);
+        header.putInt(FRAME_COUNT_OFFSET, 0);
+        header.putLong(END_OFFSET, HEADER_BYTES);
+        this.writer = new Thread(this, THREAD_NAME);
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Starts capturing a frame. Called by the game thread before rendering.
+     *
+     * @return The graphics to render the frame with, cleared to black.
+     */
+    public Graphics2D beginFrame() {
+        long startNanos = System.nanoTime();
+        imageGraphics.setColor(Color.BLACK);
+        imageGraphics.fillRect(0, 0, width, height);
+        clearNanos = System.nanoTime() - startNanos;
+        return imageGraphics;
+    }
+
+    /**
+     * Presents the captured frame on the window and hands a copy of it to the writer. Called by the
+     * game thread after rendering.
+     *
+     * @param window      The graphics of the window.
+     * @param frameNumber The number of the frame.
+     * @return The time spent on capturing the frame, in nanoseconds: clearing the offscreen image,
+     * presenting it and copying it.
+     */
+    public long endFrame(Graphics2D window, long frameNumber) {
+        long startNanos = System.nanoTime();
+        window.drawImage(image, 0, 0, null);
+        long sequence = published.get();
+        if (sequence - consumed.get() < SLOT_COUNT) {
+            int slot = (int) (sequence % SLOT_COUNT);
+            System.arraycopy(pixels, 0, slots[slot], 0, pixels.length);
+            slotFrameNumbers[slot] = frameNumber;
+            slotNanos[slot] = startNanos;
+            published.set(sequence + 1);
+        } else {
+            droppedFrames++;
+        }
+        return clearNanos + System.nanoTime() - startNanos;
+    }
+
+    /**
+     * @return The number of frames dropped because the writer was behind.
+     */
+    public long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    /**
+     * Writes the frames still waiting and closes the file.
+     */
+    public void close() {
+        isRunning = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes the captured frames into the file until the capture is closed.
+     */
+    @Override
+    public void run() {
+        try {
+            while (isRunning) {
+                if (!writeNextFrame()) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            }
+            while (writeNextFrame()) {
+                // Drains the frames published before the capture was closed.
+            }
+            if (segment != null) {
+                segment.force();
+            }
+            header.force();
+        } catch (IOException e) {
+            isRunning = false;
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Nothing left to release.
+            }
+        }
+    }
+
+    /**
+     * Writes the oldest frame waiting in the slots, if any.
+     *
+     * @return True if a frame was written, false if none was waiting.
+     * @throws IOException If the file cannot grow to hold the frame.
+     */
+    private boolean writeNextFrame() throws IOException {
+        long sequence = consumed.get();
+        if (sequence == published.get()) {
+            return false;
+        }
+        int slot = (int) (sequence % SLOT_COUNT);
+        if (writtenFrames == Integer.MAX_VALUE || !ensureRoom()) {
+            consumed.set(sequence + 1);
+            return true;
+        }
+        int[] frame = slots[slot];
+        int start = segment.position();
+        boolean isKey = !isDeltaCompressed || writtenFrames == 0 || framesSinceKeyFrame >= KEY_FRAME_INTERVAL;
+        if (!isKey) {
+            segment.position(start + FRAME_HEADER_BYTES);
+            writeDelta(frame);
+            isKey = segment.position() - start - FRAME_HEADER_BYTES >= frame.length * Integer.BYTES;
+        }
+        if (isKey) {
+            segment.position(start + FRAME_HEADER_BYTES);
+            segment.asIntBuffer().put(frame);
+            segment.position(start + FRAME_HEADER_BYTES + frame.length * Integer.BYTES);
+        }
+        int end = segment.position();
+        segment.put(start, isKey ? FRAME_KEY : FRAME_DELTA);
+        segment.putInt(start + 1, end - start - FRAME_HEADER_BYTES);
+        segment.putLong(start + 1 + Integer.BYTES, slotFrameNumbers[slot]);
+        segment.putLong(start + 1 + Integer.BYTES + Long.BYTES, slotNanos[slot]);
+        if (isDeltaCompressed) {
+            System.arraycopy(frame, 0, previousPixels, 0, frame.length);
+        }
+        consumed.set(sequence + 1);
+        writtenFrames++;
+        framesSinceKeyFrame = isKey ? 1 : framesSinceKeyFrame + 1;
+        header.putLong(END_OFFSET, HEADER_BYTES + (long) segmentIndex * SEGMENT_BYTES + end);
+        header.putInt(FRAME_COUNT_OFFSET, writtenFrames);
+        return true;
+    }
+
+    /**
+     * Writes the XOR of a frame with the previous frame, as runs of zeros and literals.
+     *
+     * @param frame The pixels of the frame.
+     */
+    private void writeDelta(int[] frame) {
+        int i = 0;
+        while (i < frame.length) {
+            int zerosStart = i;
+            while (i < frame.length && frame[i] == previousPixels[i]) {
+                i++;
+            }
+            int literalsStart = i;
+            while (i < frame.length && frame[i] != previousPixels[i]) {
+                i++;
+            }
+            writeVarInt(literalsStart - zerosStart);
+            writeVarInt(i - literalsStart);
+            for (int j = literalsStart; j < i; j++) {
+                segment.putInt(frame[j] ^ previousPixels[j]);
+            }
+        }
+    }
+
+    /**
+     * Makes sure the current segment has room for a frame, moving on to a new segment if it does not.
+     *
+     * @return True if there is room, false if the file has reached its largest size.
+     * @throws IOException If the new segment cannot be mapped.
+     */
+    private boolean ensureRoom() throws IOException {
+        if (segment != null && segment.remaining() >= maxFrameBytes) {
+            return true;
+        }
+        if (segmentIndex + 1 == MAX_SEGMENTS) {
+            return false;
+        }
+        if (segment != null) {
+            if (segment.hasRemaining()) {
+                segment.put(FRAME_PADDING);
+            }
+            segment.force();
+        }
+        segmentIndex++;
+        segment = channel.map(FileChannel.MapMode.READ_WRITE,
+                HEADER_BYTES + (long) segmentIndex * SEGMENT_BYTES, SEGMENT_BYTES);
+        segment.order(ByteOrder.LITTLE_ENDIAN);
+        framesSinceKeyFrame = KEY_FRAME_INTERVAL;
+        return true;
+    }
+
+    private void writeVarInt(int value) {
+        while ((value & ~VARINT_PAYLOAD_MASK) != 0) {
+            segment.put((byte) ((value & VARINT_PAYLOAD_MASK) | VARINT_CONTINUATION_BIT));
+            value >>>= VARINT_PAYLOAD_BITS;
+        }
+        segment.put((byte) value);
+    }
+
+    /**
+     * @param pixelCount The number of pixels in a frame.
+     * @return The most bytes a delta of a frame can take, when every other pixel changes.
+     */
+    private static int deltaBound(int pixelCount) {
+        return pixelCount * Integer.BYTES + (pixelCount / 2 + 1) * 2 * MAX_VARINT_BYTES;
+    }
+}
@@ -0,0 +1,202 @@
+package bricker.state;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Keeps the last few seconds of a game as a ring of encoded {@link GameStateFrame}s, so that play can
+ * be scrubbed back to any recent tick.
+ * <p>
+ * Every {@value #KEY_FRAME_INTERVAL}th frame is encoded as a key frame and the others as deltas with
+ * {@link FrameDeltaCodec}, straight into one buffer allocated up front. When the buffer or the frame
+ * index runs out of room, the oldest frames are dropped, so memory stays at the ceiling given to the
+ * constructor no matter how many objects are in play; a crowded game just keeps fewer seconds. A
+ * recent tick is found by a binary search over the index and rebuilt by decoding at most
+ * {@value #KEY_FRAME_INTERVAL} frames from the key frame before it.
+ * <p>
+ * Recording a tick that is not newer than the newest recorded one, as happens when play resumes after
+ * a rewind, first drops the recorded future from that tick on. Recording and seeking do not allocate.
+ * The buffer is owned by the game thread.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+public final class RewindBuffer {
+
+    private static final int KEY_FRAME_INTERVAL = 30;
+    private final ByteBuffer ring;
+    private final int maxFrameBytes;
+    private final long[] ticks;
+    private final int[] offsets;
+    private final boolean[] isKeyFrame;
+    private final GameStateFrame previous;
+    private int first = 0;
+    private int count = 0;
+    private int writeOffset = 0;
+    private int framesSinceKeyFrame = 0;
+
+    /**
+     * Construct a new, empty RewindBuffer.
+     *
+     * @param frameCapacity The most frames to keep, e.g. 1800 for 30 seconds at 60 frames per second.
+     * @param byteCapacity  The size of the buffer the frames are encoded into, in bytes.
+     * @param moverCapacity The mover capacity of the recorded frames.
+     * @param brickCapacity The brick capacity of the recorded frames.
+     * @throws IllegalArgumentException If the buffer cannot hold two frames of the given capacity.
+     */
+    public RewindBuffer(int frameCapacity, int byteCapacity, int moverCapacity, int brickCapacity) {
+        this.maxFrameBytes = FrameDeltaCodec.maxEncodedSize(moverCapacity, brickCapacity);
+        if (byteCapacity < 2 * maxFrameBytes || frameCapacity < 1) {
+            throw new IllegalArgumentException("A rewind buffer of " + byteCapacity + " bytes cannot hold " +
+                    "frames of up to " + maxFrameBytes + " bytes");
+        }
+        this.ring = ByteBuffer.allocateDirect(byteCapacity);
+        this.ticks = new long[frameCapacity];
+        this.offsets = new int[frameCapacity];
+        this.isKeyFrame = new boolean[frameCapacity];
+        this.previous = new GameStateFrame(moverCapacity, brickCapacity);
+    }
+
+    /**
+     * Appends a frame, dropping the oldest frames if there is no room for it.
+     *
+     * @param frame The frame to record. Its capacity must match the capacity of the buffer.
+     */
+    public void record(GameStateFrame frame) {
+        if (count > 0 && frame.getTick() <= ticks[slot(count - 1)]) {
+            truncateFrom(frame.getTick());
+        }
+        if (count == ticks.length) {
+            dropOldest();
+        }
+        if (ring.capacity() - writeOffset < maxFrameBytes) {
+            while (count > 0 && offsets[first] >= writeOffset) {
+                dropOldest();
+            }
+            writeOffset = 0;
+        }
+        while (count > 0 && offsets[first] >= writeOffset && offsets[first] < writeOffset + maxFrameBytes) {
+            dropOldest();
+        }
+        boolean isKey = count == 0 || framesSinceKeyFrame >= KEY_FRAME_INTERVAL;
+        ring.limit(ring.capacity()).position(writeOffset);
+        FrameDeltaCodec.encode(isKey ? null : previous, frame, ring);
+        int slot = slot(count);
+        ticks[slot] = frame.getTick();
+        offsets[slot] = writeOffset;
+        isKeyFrame[slot] = isKey;
+        count++;
+        writeOffset = ring.position();
+        framesSinceKeyFrame = isKey ? 1 : framesSinceKeyFrame + 1;
+        previous.copyFrom(frame);
+    }
+
+    /**
+     * Rebuilds a recorded frame.
+     *
+     * @param tick The tick of the frame.
+     * @param out  The frame to decode into. Its capacity must match the capacity of the buffer.
+     * @return True if the frame was rebuilt, false if the tick is not in the buffer.
+     */
+    public boolean seek(long tick, GameStateFrame out) {
+        int index = indexOf(tick);
+        if (index < 0) {
+            return false;
+        }
+        int keyIndex = index;
+        while (keyIndex >= 0 && !isKeyFrame[slot(keyIndex)]) {
+            keyIndex--;
+        }
+        if (keyIndex < 0) {
+            return false;
+        }
+        for (int i = keyIndex; i <= index; i++) {
+            ring.limit(ring.capacity()).position(offsets[slot(i)]);
+            FrameDeltaCodec.decode(ring, out, out);
+        }
+        return true;
+    }
+
+    /**
+     * @return The oldest tick that can be rebuilt, or -1 if there is none.
+     */
+    public long getOldestTick() {
+        for (int i = 0; i < count; i++) {
+            if (isKeyFrame[slot(i)]) {
+                return ticks[slot(i)];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return The newest recorded tick, or -1 if there is none.
+     */
+    public long getNewestTick() {
+        return count > 0 ? ticks[slot(count - 1)] : -1;
+    }
+
+    /**
+     * @return The number of recorded frames.
+     */
+    public int getFrameCount() {
+        return count;
+    }
+
+    /**
+     * Drops every recorded frame.
+     */
+    public void clear() {
+        first = 0;
+        count = 0;
+        writeOffset = 0;
+        framesSinceKeyFrame = 0;
+    }
+
+    /**
+     * Drops the recorded frames from a tick on, and makes the next recorded frame a key frame.
+     *
+     * @param tick The first tick to drop.
+     */
+    private void truncateFrom(long tick) {
+        while (count > 0 && ticks[slot(count - 1)] >= tick) {
+            count--;
+        }
+        if (count == 0) {
+            clear();
+            return;
+        }
+        writeOffset = offsets[slot(count)];
+        framesSinceKeyFrame = KEY_FRAME_INTERVAL;
+    }
+
+    /**
+     * Finds a tick in the index, whose ticks increase from the oldest frame to the newest.
+     *
+     * @param tick The tick.
+     * @return The index of the tick from the oldest frame, or -1 if it was not recorded.
+     */
+    private int indexOf(long tick) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midTick = ticks[slot(mid)];
+            if (midTick < tick) {
+                low = mid + 1;
+            } else if (midTick > tick) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private void dropOldest() {
+        first = slot(1);
+        count--;
+    }
+
+    private int slot(int index) {
+        return (first + index) % ticks.length;
+    }
+}
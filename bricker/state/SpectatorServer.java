@@ -0,0 +1,215 @@
+package bricker.state;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams {@link GameStateFrame}s to spectator processes over a local TCP socket.
+ * <p>
+ * Every packet is a 4 byte length followed by a frame encoded with {@link FrameDeltaCodec}. Each
+ * frame is encoded once, into a direct buffer, and the same buffer is written to every watcher.
+ * All socket operations are non-blocking: a watcher that cannot keep up has its unsent bytes parked
+ * and skips frames until it drains, after which it is sent a fresh key frame.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+public class SpectatorServer {
+
+    private static final int LENGTH_PREFIX_BYTES = Integer.BYTES;
+    private final ServerSocketChannel serverChannel;
+    private final List<Watcher> watchers = new ArrayList<>();
+    private final ByteBuffer deltaPacket;
+    private final ByteBuffer keyPacket;
+    private final GameStateFrame previousFrame;
+    private boolean hasPreviousFrame = false;
+    private long bytesSent = 0;
+
+    /**
+     * Opens a spectator server on the loopback interface.
+     *
+     * @param port          The port to listen on.
+     * @param moverCapacity The maximal number of movers in a frame.
+     * @param brickCapacity The maximal number of bricks in a frame.
+     * @throws IOException If the socket cannot be opened.
+     */
+    public SpectatorServer(int port, int moverCapacity, int brickCapacity) throws IOException {
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        this.serverChannel.configureBlocking(false);
+        int packetCapacity = maxPacketSize(moverCapacity, brickCapacity);
+        this.deltaPacket = ByteBuffer.allocateDirect(packetCapacity);
+        this.keyPacket = ByteBuffer.allocateDirect(packetCapacity);
+        this.previousFrame = new GameStateFrame(moverCapacity, brickCapacity);
+    }
+
+    /**
+     * Sends a frame to every connected watcher. Called once per tick by the game thread.
+     *
+     * @param frame The frame to send.
+     */
+    public void publish(GameStateFrame frame) {
+        acceptWatchers();
+        if (watchers.isEmpty()) {
+            hasPreviousFrame = false;
+            return;
+        }
+        boolean isKeyPacketEncoded = false;
+        if (hasPreviousFrame) {
+            encodePacket(previousFrame, frame, deltaPacket);
+        }
+        for (int i = watchers.size() - 1; i >= 0; i--) {
+            Watcher watcher = watchers.get(i);
+            try {
+                if (!watcher.flushPending()) {
+                    watcher.needsKeyFrame = true;
+                    continue;
+                }
+                ByteBuffer packet = deltaPacket;
+                if (watcher.needsKeyFrame || !hasPreviousFrame) {
+                    if (!isKeyPacketEncoded) {
+                        encodePacket(null, frame, keyPacket);
+                        isKeyPacketEncoded = true;
+                    }
+                    packet = keyPacket;
+                    watcher.needsKeyFrame = false;
+                }
+                bytesSent += watcher.send(packet);
+            } catch (IOException e) {
+                watcher.close();
+                watchers.remove(i);
+            }
+        }
+        previousFrame.copyFrom(frame);
+        hasPreviousFrame = true;
+    }
+
+    /**
+     * @return The number of connected watchers.
+     */
+    public int getWatcherCount() {
+        return watchers.size();
+    }
+
+    /**
+     * @return The total number of bytes written to watchers.
+     */
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    /**
+     * Disconnects every watcher and stops listening.
+     */
+    public void close() {
+        for (Watcher watcher : watchers) {
+            watcher.close();
+        }
+        watchers.clear();
+        try {
+            serverChannel.close();
+        } catch (IOException ignored) {
+            // Nothing left to release.
+        }
+    }
+
+    /**
+     * Accepts every pending connection without blocking.
+     */
+    private void acceptWatchers() {
+        try {
+            SocketChannel channel;
+            while ((channel = serverChannel.accept()) != null) {
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                watchers.add(new Watcher(channel, deltaPacket.capacity()));
+            }
+        } catch (IOException ignored) {
+            // A failed accept only means one less watcher; the game goes on.
+        }
+    }
+
+    /**
+     * Encodes a length-prefixed packet into the given buffer and flips it for writing.
+     *
+     * @param previous The frame to encode against, or null for a key frame.
+     * @param current  The frame to encode.
+     * @param packet   The buffer to encode into.
+     */
+    private static void encodePacket(GameStateFrame previous, GameStateFrame current, ByteBuffer packet) {
+        packet.clear();
+        packet.position(LENGTH_PREFIX_BYTES);
+        FrameDeltaCodec.encode(previous, current, packet);
+        packet.putInt(0, packet.position() - LENGTH_PREFIX_BYTES);
+        packet.flip();
+    }
+
+    /**
+     * @param moverCapacity The maximal number of movers in a frame.
+     * @param brickCapacity The maximal number of bricks in a frame.
+     * @return An upper bound on the size of an encoded packet.
+     */
+    static int maxPacketSize(int moverCapacity, int brickCapacity) {
+        return LENGTH_PREFIX_BYTES + FrameDeltaCodec.maxEncodedSize(moverCapacity, brickCapacity);
+    }
+
+    /**
+     * A connected spectator and the bytes it has not yet received.
+     */
+    private static class Watcher {
+        private final SocketChannel channel;
+        private final ByteBuffer pending;
+        private boolean needsKeyFrame = true;
+
+        Watcher(SocketChannel channel, int packetCapacity) {
+            this.channel = channel;
+            this.pending = ByteBuffer.allocateDirect(packetCapacity);
+            this.pending.flip();
+        }
+
+        /**
+         * Tries to write the parked bytes of a previous packet.
+         *
+         * @return True if nothing is left pending, false otherwise.
+         * @throws IOException If the watcher disconnected.
+         */
+        boolean flushPending() throws IOException {
+            if (pending.hasRemaining()) {
+                channel.write(pending);
+            }
+            return !pending.hasRemaining();
+        }
+
+        /**
+         * Writes a packet, parking whatever the socket did not accept.
+         *
+         * @param packet The packet, flipped for reading. Its position is restored afterwards.
+         * @return The number of bytes written.
+         * @throws IOException If the watcher disconnected.
+         */
+        int send(ByteBuffer packet) throws IOException {
+            int start = packet.position();
+            int written = channel.write(packet);
+            if (packet.hasRemaining()) {
+                pending.clear();
+                pending.put(packet);
+                pending.flip();
+            }
+            packet.position(start);
+            return written;
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Nothing left to release.
+            }
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package bricker.state;
+
+import javax.swing.*;
+import java.awt.*;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * A stand-alone process that connects to a {@link SpectatorServer} and draws the frames it receives.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+public class SpectatorViewer extends JPanel {
+
+    private static final long serialVersionUID = 1L;
+    private static final int DEFAULT_PORT = 4711;
+    private static final int DEFAULT_MOVER_CAPACITY = 1024;
+    private static final int DEFAULT_BRICK_CAPACITY = 1024;
+    private static final int WINDOW_WIDTH = 700;
+    private static final int WINDOW_HEIGHT = 500;
+    private static final int BRICKS_PER_ROW = 8;
+    private static final int BRICK_HEIGHT = 15;
+    private static final int SPACE_BETWEEN_BRICKS = 1;
+    private static final int SPACE_BETWEEN_BRICKS_AND_WALL = 50;
+    private static final int BRICKS_TOP_OFFSET = 15;
+    private static final int PADDLE_WIDTH = 100;
+    private static final int PADDLE_HEIGHT = 15;
+    private static final int BALL_RADIUS = 20;
+    private static final int PUCK_RADIUS = 15;
+    private static final int HEART_DIMENSIONS = 15;
+    private final GameStateFrame shownFrame;
+
+    /**
+     * Construct a new SpectatorViewer.
+     *
+     * @param moverCapacity The maximal number of movers in a frame.
+     * @param brickCapacity The maximal number of bricks in a frame.
+     */
+    public SpectatorViewer(int moverCapacity, int brickCapacity) {
+        this.shownFrame = new GameStateFrame(moverCapacity, brickCapacity);
+        setPreferredSize(new Dimension(WINDOW_WIDTH, WINDOW_HEIGHT));
+        setBackground(Color.black);
+    }
+
+    /**
+     * Reads packets from the given channel until it is closed, repainting after every frame. A packet
+     * whose length does not fit the frame capacity of the viewer closes the connection.
+     *
+     * @param channel A blocking channel connected to a spectator server.
+     * @throws IOException If reading fails.
+     */
+    public void follow(SocketChannel channel) throws IOException {
+        int capacity = SpectatorServer.maxPacketSize(shownFrame.getMoverCapacity(),
+                shownFrame.getBrickCapacity());
+        ByteBuffer lengthBuffer = ByteBuffer.allocateDirect(Integer.BYTES);
+        ByteBuffer packet = ByteBuffer.allocateDirect(capacity);
+        GameStateFrame decoded = new GameStateFrame(shownFrame.getMoverCapacity(),
+                shownFrame.getBrickCapacity());
+        boolean hasFrame = false;
+        while (readFully(channel, lengthBuffer.clear())) {
+            int length = lengthBuffer.flip().getInt();
+            if (length <= 0 || length > packet.capacity()) {
+                System.err.println("Closing the stream: a packet of " + length + " bytes does not fit " +
+                        capacity + " bytes");
+                channel.close();
+                return;
+            }
+            packet.clear().limit(length);
+            if (!readFully(channel, packet)) {
+                return;
+            }
+            packet.flip();
+            if (!hasFrame && packet.get(0) != FrameDeltaCodec.KEY_FRAME) {
+                continue;
+            }
+            FrameDeltaCodec.decode(packet, hasFrame ? decoded : null, decoded);
+            hasFrame = true;
+            synchronized (shownFrame) {
+                shownFrame.copyFrom(decoded);
+            }
+            repaint();
+        }
+    }
+
+    /**
+     * Draws the last received frame.
+     *
+     * @param graphics The graphics to draw with.
+     */
+    @Override
+    protected void paintComponent(Graphics graphics) {
+        super.paintComponent(graphics);
+        synchronized (shownFrame) {
+            paintBricks(graphics);
+            graphics.setColor(Color.lightGray);
+            fillCentered(graphics, shownFrame.getPaddleX(), shownFrame.getPaddleY(), PADDLE_WIDTH,
+                    PADDLE_HEIGHT);
+            if (shownFrame.hasExtraPaddle()) {
+                fillCentered(graphics, shownFrame.getExtraPaddleX(), shownFrame.getExtraPaddleY(),
+                        PADDLE_WIDTH, PADDLE_HEIGHT);
+            }
+            for (int i = 0; i < shownFrame.getMoverCount(); i++) {
+                paintMover(graphics, i);
+            }
+            graphics.setColor(Color.white);
+            graphics.drawString("lives " + shownFrame.getLives() + "   bricks " +
+                    shownFrame.getBricksLeft() + "   tick " + shownFrame.getTick(), 5, WINDOW_HEIGHT - 5);
+        }
+    }
+
+    /**
+     * Draws the alive bricks in the default level layout.
+     *
+     * @param graphics The graphics to draw with.
+     */
+    private void paintBricks(Graphics graphics) {
+        float totalSpaceBetweenBricks = (BRICKS_PER_ROW - 1) * SPACE_BETWEEN_BRICKS;
+        float brickWidth = (WINDOW_WIDTH - 2 * SPACE_BETWEEN_BRICKS_AND_WALL - totalSpaceBetweenBricks) /
+                BRICKS_PER_ROW;
+        graphics.setColor(Color.orange);
+        for (int brickId = 0; brickId < shownFrame.getBrickCapacity(); brickId++) {
+            if (shownFrame.isBrickAlive(brickId)) {
+                int row = brickId / BRICKS_PER_ROW;
+                int col = brickId % BRICKS_PER_ROW;
+                graphics.fillRect((int) (SPACE_BETWEEN_BRICKS_AND_WALL + col * (brickWidth + SPACE_BETWEEN_BRICKS)),
+                        BRICKS_TOP_OFFSET + row * (BRICK_HEIGHT + SPACE_BETWEEN_BRICKS),
+                        (int) brickWidth, BRICK_HEIGHT);
+            }
+        }
+    }
+
+    /**
+     * Draws a single ball, puck or heart.
+     *
+     * @param graphics The graphics to draw with.
+     * @param index    The index of the mover in the frame.
+     */
+    private void paintMover(Graphics graphics, int index) {
+        float x = shownFrame.getMoverX(index);
+        float y = shownFrame.getMoverY(index);
+        switch (shownFrame.getMoverKind(index)) {
+            case GameStateFrame.KIND_BALL:
+                graphics.setColor(Color.white);
+                graphics.fillOval((int) (x - BALL_RADIUS / 2f), (int) (y - BALL_RADIUS / 2f),
+                        BALL_RADIUS, BALL_RADIUS);
+                break;
+            case GameStateFrame.KIND_PUCK:
+                graphics.setColor(Color.cyan);
+                graphics.fillOval((int) (x - PUCK_RADIUS / 2f), (int) (y - PUCK_RADIUS / 2f),
+                        PUCK_RADIUS, PUCK_RADIUS);
+                break;
+            default:
+                graphics.setColor(Color.red);
+                fillCentered(graphics, x, y, HEART_DIMENSIONS, HEART_DIMENSIONS);
+        }
+    }
+
+    private static void fillCentered(Graphics graphics, float x, float y, int width, int height) {
+        graphics.fillRect((int) (x - width / 2f), (int) (y - height / 2f), width, height);
+    }
+
+    private static boolean readFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Connects to a spectator server on this machine and shows its stream.
+     *
+     * @param args Optionally, the port of the server.
+     * @throws IOException If the connection fails.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        SpectatorViewer viewer = new SpectatorViewer(DEFAULT_MOVER_CAPACITY, DEFAULT_BRICK_CAPACITY);
+        SwingUtilities.invokeLater(() -> {
+            JFrame window = new JFrame("Bricker spectator");
+            window.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
+            window.add(viewer);
+            window.pack();
+            window.setVisible(true);
+        });
+        try (SocketChannel channel = SocketChannel.open(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), port))) {
+            viewer.follow(channel);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package bricker.telemetry;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Flight Recorder event for an image or sound being loaded, timed over the load.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+@Name("bricker.AssetLoad")
+@Label("Asset Load")
+@Category({"Bricker", "Assets"})
+@Description("An image or sound loaded by the game")
+public final class AssetLoadEvent extends Event {
+
+    @Label("Path")
+    private String path;
+    @Label("From Atlas")
+    @Description("True if the image was served from the sprite atlas instead of the disk")
+    private boolean isFromAtlas;
+
+    /**
+     * Ends the event and commits it, if it is enabled and lasted longer than its threshold.
+     *
+     * @param path        The path of the asset.
+     * @param isFromAtlas True if the image was served from the sprite atlas.
+     */
+    public void commitLoad(String path, boolean isFromAtlas) {
+        end();
+        if (shouldCommit()) {
+            this.path = path;
+            this.isFromAtlas = isFromAtlas;
+            commit();
+        }
+    }
+}
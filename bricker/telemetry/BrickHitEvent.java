@@ -0,0 +1,50 @@
+package bricker.telemetry;
+
+import danogl.GameObject;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for a brick handling a hit, timed over its collision strategy.
+ * <p>
+ * Begin the event before the strategy runs and call {@link #commitHit} after it. When the event is
+ * disabled, both calls are empty and the event is never allocated once the code is compiled.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+@Name("bricker.BrickHit")
+@Label("Brick Hit")
+@Category({"Bricker", "Gameplay"})
+@Description("A brick handling a hit with its collision strategy")
+@StackTrace(false)
+public final class BrickHitEvent extends Event {
+
+    @Label("Brick Id")
+    private int brickId;
+    @Label("Strategy Type")
+    private int strategyType;
+    @Label("Hitter Kind")
+    @Description("The kind of the object that hit the brick, as in the gameplay event log")
+    private int hitterKind;
+
+    /**
+     * Ends the event and commits it, if it is enabled and lasted longer than its threshold.
+     *
+     * @param brickId      The id of the brick.
+     * @param strategyType The type of the brick's collision strategy.
+     * @param hitter       The object that hit the brick.
+     */
+    public void commitHit(int brickId, int strategyType, GameObject hitter) {
+        end();
+        if (shouldCommit()) {
+            this.brickId = brickId;
+            this.strategyType = strategyType;
+            this.hitterKind = GameEventLog.kindOf(hitter);
+            commit();
+        }
+    }
+}
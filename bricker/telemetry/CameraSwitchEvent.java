@@ -0,0 +1,35 @@
+package bricker.telemetry;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for the camera being set or removed.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+@Name("bricker.CameraSwitch")
+@Label("Camera Switch")
+@Category({"Bricker", "Gameplay"})
+@StackTrace(false)
+public final class CameraSwitchEvent extends Event {
+
+    @Label("Has Camera")
+    private boolean hasCamera;
+
+    /**
+     * Records a camera switch, if the event is enabled.
+     *
+     * @param hasCamera True if a camera is now set, false if it was removed.
+     */
+    public static void record(boolean hasCamera) {
+        CameraSwitchEvent event = new CameraSwitchEvent();
+        if (event.isEnabled()) {
+            event.hasCamera = hasCamera;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package bricker.telemetry;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A Flight Recorder event for the frame budget governor degrading or recovering a level.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+@Name("bricker.Degradation")
+@Label("Degradation")
+@Category({"Bricker", "Frames"})
+@Description("The frame budget governor shedding or restoring load")
+@StackTrace(false)
+public final class DegradationEvent extends Event {
+
+    @Label("Level")
+    private int level;
+    @Label("Previous Level")
+    private int previousLevel;
+    @Label("Frame Time P95")
+    @Timespan(Timespan.MICROSECONDS)
+    private long p95Micros;
+
+    /**
+     * Records a step, if the event is enabled.
+     *
+     * @param level         The new level.
+     * @param previousLevel The previous level.
+     * @param p95Micros     The 95th percentile frame time that triggered the step, in microseconds.
+     */
+    public static void record(int level, int previousLevel, int p95Micros) {
+        DegradationEvent event = new DegradationEvent();
+        if (event.isEnabled()) {
+            event.level = level;
+            event.previousLevel = previousLevel;
+            event.p95Micros = p95Micros;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package bricker.telemetry;
+
+import java.util.Arrays;
+
+/**
+ * A histogram of frame times, or of other short durations such as input latency, that records without
+ * allocating, for percentiles over a session.
+ * <p>
+ * Frame times are counted in linear buckets of {@value #BUCKET_MICROS} microseconds up to
+ * {@value #RANGE_MILLIS} ms, and every longer frame is counted in one overflow bucket. A percentile is
+ * reported as the upper edge of its bucket, or as the longest recorded frame when it falls in the
+ * overflow bucket. The histogram is not thread safe.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+public final class FrameTimeHistogram {
+
+    private static final int BUCKET_MICROS = 100;
+    private static final int RANGE_MILLIS = 100;
+    private static final long BUCKET_NANOS = BUCKET_MICROS * 1000L;
+    private static final int BUCKETS = (int) (RANGE_MILLIS * 1_000_000L / BUCKET_NANOS);
+    private final int[] counts = new int[BUCKETS + 1];
+    private long count = 0;
+    private long maxNanos = 0;
+
+    /**
+     * Records one frame time.
+     *
+     * @param nanos The frame time, in nanoseconds. Negative times are counted as zero.
+     */
+    public void record(long nanos) {
+        long bucket = Math.max(0, nanos) / BUCKET_NANOS;
+        counts[(int) Math.min(bucket, BUCKETS)]++;
+        count++;
+        maxNanos = Math.max(maxNanos, nanos);
+    }
+
+    /**
+     * Returns a percentile of the recorded frame times.
+     *
+     * @param fraction The percentile as a fraction, e.g. 0.95 for the 95th percentile.
+     * @return The frame time below which that fraction of the frames fall, in nanoseconds, or 0 if no
+     * frame was recorded.
+     */
+    public long percentileNanos(double fraction) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return Math.min((bucket + 1) * BUCKET_NANOS, maxNanos);
+            }
+        }
+        return maxNanos;
+    }
+
+    /**
+     * @return The number of recorded frames.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return The longest recorded frame time, in nanoseconds.
+     */
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    /**
+     * Forgets every recorded frame.
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        maxNanos = 0;
+    }
+}
@@ -0,0 +1,309 @@
+package bricker.telemetry;
+
+import bricker.gameobjects.Ball;
+import bricker.gameobjects.ExtraPaddle;
+import bricker.gameobjects.Heart;
+import bricker.gameobjects.Paddle;
+import bricker.gameobjects.Puck;
+import danogl.GameObject;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A structured log of gameplay events for analytics, written without ever stalling the frame.
+ * <p>
+ * The game thread publishes fixed-size records into a preallocated single-producer/single-consumer
+ * ring buffer. A background thread drains the ring in batches into a binary file through a
+ * {@link FileChannel}. When the ring is full, new records are dropped and counted as overruns; the
+ * producer never waits.
+ * <p>
+ * The file starts with a 4 byte magic and a 4 byte record size, followed by little-endian records of
+ * {@value #RECORD_BYTES} bytes: frame number (long), nano time (long), event type and three event
+ * arguments (ints).
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+public class GameEventLog implements Runnable {
+
+    /**
+     * A brick was hit. Arguments: brick id, strategy type, hitter kind.
+     */
+    public static final int EVENT_BRICK_HIT = 1;
+    /**
+     * The number of lives changed. Arguments: new lives, change.
+     */
+    public static final int EVENT_LIFE_CHANGE = 2;
+    /**
+     * An object was added to the game. Arguments: object kind.
+     */
+    public static final int EVENT_SPAWN = 3;
+    /**
+     * The camera was switched. Arguments: 1 if a camera is now set, 0 if it was removed.
+     */
+    public static final int EVENT_CAMERA_SWITCH = 4;
+    /**
+     * The frame budget governor changed its level. Arguments: new level, previous level, the 95th
+     * percentile frame time in microseconds that triggered the step.
+     */
+    public static final int EVENT_DEGRADATION = 5;
+    /**
+     * Kind of objects that are not tracked by the log.
+     */
+    public static final int KIND_OTHER = 0;
+    /**
+     * Kind of the original ball.
+     */
+    public static final int KIND_BALL = 1;
+    /**
+     * Kind of a puck.
+     */
+    public static final int KIND_PUCK = 2;
+    /**
+     * Kind of a falling heart.
+     */
+    public static final int KIND_HEART = 3;
+    /**
+     * Kind of the paddle.
+     */
+    public static final int KIND_PADDLE = 4;
+    /**
+     * Kind of the extra paddle.
+     */
+    public static final int KIND_EXTRA_PADDLE = 5;
+    /**
+     * The size of a record in the file, in bytes.
+     */
+    public static final int RECORD_BYTES = 32;
+    private static final int FILE_MAGIC = 0x42524B45;
+    private static final int LONGS_PER_RECORD = 4;
+    private static final int BATCH_RECORDS = 256;
+    private static final long IDLE_PARK_NANOS = 1_000_000L;
+    private static final String THREAD_NAME = "bricker-event-log";
+    private final long[] ring;
+    private final int capacity;
+    private final int mask;
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final LongAdder overruns = new LongAdder();
+    private final FileChannel channel;
+    private final ByteBuffer batch;
+    private final Thread consumer;
+    private volatile boolean isRunning = true;
+    private long nextSequence = 0;
+    private long frameNumber = 0;
+
+    /**
+     * Opens a log file and starts the background writer.
+     *
+     * @param path     The file to write to. An existing file is replaced.
+     * @param capacity The number of records the ring can hold; rounded up to a power of two.
+     * @throws IOException If the file cannot be opened.
+     */
+    public GameEventLog(Path path, int capacity) throws IOException {
+        this.capacity = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = this.capacity - 1;
+        this.ring = new long[this.capacity * LONGS_PER_RECORD];
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.batch = ByteBuffer.allocateDirect(BATCH_RECORDS * RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        batch.putInt(FILE_MAGIC).putInt(RECORD_BYTES);
+        flushBatch();
+        this.consumer = new Thread(this, THREAD_NAME);
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    /**
+     * Sets the frame number stamped on the records published from now on. Called by the game thread at
+     * the start of every frame.
+     *
+     * @param frameNumber The number of the current frame.
+     */
+    public void setFrameNumber(long frameNumber) {
+        this.frameNumber = frameNumber;
+    }
+
+    /**
+     * Records a brick hit.
+     *
+     * @param brickId      The id of the brick.
+     * @param strategyType The type of the brick's collision strategy.
+     * @param hitter       The object that hit the brick.
+     */
+    public void brickHit(int brickId, int strategyType, GameObject hitter) {
+        publish(EVENT_BRICK_HIT, brickId, strategyType, kindOf(hitter));
+    }
+
+    /**
+     * Records a change in the number of lives.
+     *
+     * @param lives  The new number of lives.
+     * @param change The change in the number of lives.
+     */
+    public void lifeChange(int lives, int change) {
+        publish(EVENT_LIFE_CHANGE, lives, change, 0);
+    }
+
+    /**
+     * Records an object being added to the game. Objects of untracked kinds are ignored.
+     *
+     * @param spawned The added object.
+     */
+    public void spawn(GameObject spawned) {
+        int kind = kindOf(spawned);
+        if (kind != KIND_OTHER) {
+            publish(EVENT_SPAWN, kind, 0, 0);
+        }
+    }
+
+    /**
+     * Records a camera switch.
+     *
+     * @param hasCamera True if a camera is now set, false if it was removed.
+     */
+    public void cameraSwitch(boolean hasCamera) {
+        publish(EVENT_CAMERA_SWITCH, hasCamera ? 1 : 0, 0, 0);
+    }
+
+    /**
+     * Records a step of the frame budget governor.
+     *
+     * @param level         The new level.
+     * @param previousLevel The previous level.
+     * @param p95Micros     The 95th percentile frame time that triggered the step, in microseconds.
+     */
+    public void degradation(int level, int previousLevel, int p95Micros) {
+        publish(EVENT_DEGRADATION, level, previousLevel, p95Micros);
+    }
+
+    /**
+     * @return The number of records dropped because the ring was full.
+     */
+    public long getOverruns() {
+        return overruns.sum();
+    }
+
+    /**
+     * Writes the records still in the ring and closes the file.
+     */
+    public void close() {
+        isRunning = false;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Drains the ring into the file until the log is closed.
+     */
+    @Override
+    public void run() {
+        try {
+            while (isRunning) {
+                if (drain() == 0) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            }
+            drain();
+            channel.force(false);
+        } catch (IOException e) {
+            isRunning = false;
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Nothing left to release.
+            }
+        }
+    }
+
+    /**
+     * Publishes a record. Called by the game thread only; never blocks.
+     *
+     * @param type      The event type.
+     * @param argument1 The first argument.
+     * @param argument2 The second argument.
+     * @param argument3 The third argument.
+     */
+    private void publish(int type, int argument1, int argument2, int argument3) {
+        long sequence = nextSequence;
+        if (sequence - consumed.get() >= capacity) {
+            overruns.increment();
+            return;
+        }
+        int base = (int) (sequence & mask) * LONGS_PER_RECORD;
+        ring[base] = frameNumber;
+        ring[base + 1] = System.nanoTime();
+        ring[base + 2] = ((long) type << Integer.SIZE) | (argument1 & 0xFFFFFFFFL);
+        ring[base + 3] = ((long) argument2 << Integer.SIZE) | (argument3 & 0xFFFFFFFFL);
+        nextSequence = sequence + 1;
+        published.lazySet(nextSequence);
+    }
+
+    /**
+     * Writes every published record to the file, in batches.
+     *
+     * @return The number of records written.
+     * @throws IOException If writing fails.
+     */
+    private int drain() throws IOException {
+        long from = consumed.get();
+        long to = published.get();
+        int written = 0;
+        for (long sequence = from; sequence < to; sequence++) {
+            int base = (int) (sequence & mask) * LONGS_PER_RECORD;
+            batch.putLong(ring[base]);
+            batch.putLong(ring[base + 1]);
+            batch.putInt((int) (ring[base + 2] >>> Integer.SIZE));
+            batch.putInt((int) ring[base + 2]);
+            batch.putInt((int) (ring[base + 3] >>> Integer.SIZE));
+            batch.putInt((int) ring[base + 3]);
+            written++;
+            if (!batch.hasRemaining()) {
+                flushBatch();
+                consumed.lazySet(sequence + 1);
+            }
+        }
+        flushBatch();
+        consumed.lazySet(to);
+        return written;
+    }
+
+    private void flushBatch() throws IOException {
+        batch.flip();
+        while (batch.hasRemaining()) {
+            channel.write(batch);
+        }
+        batch.clear();
+    }
+
+    /**
+     * @param obj A game object.
+     * @return The kind of the object, as written to the log.
+     */
+    public static int kindOf(GameObject obj) {
+        if (obj instanceof Ball) {
+            return KIND_BALL;
+        } else if (obj instanceof Puck) {
+            return KIND_PUCK;
+        } else if (obj instanceof Heart) {
+            return KIND_HEART;
+        } else if (obj instanceof ExtraPaddle) {
+            return KIND_EXTRA_PADDLE;
+        } else if (obj instanceof Paddle) {
+            return KIND_PADDLE;
+        }
+        return KIND_OTHER;
+    }
+}
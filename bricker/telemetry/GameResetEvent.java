@@ -0,0 +1,41 @@
+package bricker.telemetry;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for a game being built, timed from the start of the build to its end.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+@Name("bricker.GameReset")
+@Label("Game Reset")
+@Category({"Bricker", "Lifecycle"})
+@Description("A new game being built, on start and after every reset")
+@StackTrace(false)
+public final class GameResetEvent extends Event {
+
+    @Label("Seed")
+    private long seed;
+    @Label("Headless")
+    private boolean isHeadless;
+
+    /**
+     * Ends the event and commits it, if it is enabled and lasted longer than its threshold.
+     *
+     * @param seed       The seed of the game.
+     * @param isHeadless True if the game runs without a window.
+     */
+    public void commitReset(long seed, boolean isHeadless) {
+        end();
+        if (shouldCommit()) {
+            this.seed = seed;
+            this.isHeadless = isHeadless;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,399 @@
+package bricker.telemetry;
+
+import bricker.engine.BrickerGameObjectCollection;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live telemetry of the game engine.
+ * <p>
+ * The game thread calls {@link #onFrame} once per frame; it copies the collection's running counts into
+ * volatile gauges and folds the frame into per-second rates, without allocating. Event counters that
+ * may be bumped from other threads are striped {@link LongAdder}s. The values are read through JMX or
+ * through {@link MetricsEndpoint}.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+public class GameTelemetry implements GameTelemetryMBean {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final long NANOS_PER_MICRO = 1000;
+    private final List<GarbageCollectorMXBean> garbageCollectors =
+            ManagementFactory.getGarbageCollectorMXBeans();
+    private final LongAdder assetHits = new LongAdder();
+    private final LongAdder assetMisses = new LongAdder();
+    private final LongAdder gcPauseMillisDuringFrames = new LongAdder();
+    private final Set<String> loadedAssets = new HashSet<>();
+    private final FrameTimeHistogram inputLatency = new FrameTimeHistogram();
+    private final FrameTimeHistogram captureOverhead = new FrameTimeHistogram();
+    private final FrameTimeHistogram remoteCommandLatency = new FrameTimeHistogram();
+    private final int[] objectsPerLayer = new int[BrickerGameObjectCollection.COUNTED_LAYERS.length];
+    private volatile int bricksLeft;
+    private volatile int livePucks;
+    private volatile int updatedObjects;
+    private volatile int sleepingObjects;
+    private volatile long filteredPairs;
+    private volatile float framesPerSecond;
+    private volatile float collisionsPerSecond;
+    private volatile long inputLatencySamples;
+    private volatile long inputLatencyP50Micros;
+    private volatile long inputLatencyP95Micros;
+    private volatile long inputLatencyP99Micros;
+    private volatile long capturedFrames;
+    private volatile long captureDroppedFrames;
+    private volatile long captureOverheadP95Micros;
+    private volatile long captureOverheadMaxMicros;
+    private volatile int remoteQueueDepth;
+    private volatile int remoteQueueMaxDepth;
+    private volatile long remoteCommands;
+    private volatile long remoteCommandLatencyP50Micros;
+    private volatile long remoteCommandLatencyP99Micros;
+    private volatile long eventLogOverruns;
+    private long windowStartNanos = System.nanoTime();
+    private int framesInWindow = 0;
+    private long collidingPairsAtWindowStart = 0;
+    private long lastGcMillis = totalGcMillis();
+
+    /**
+     * Records the end of a frame. Called by the game thread only.
+     *
+     * @param gameObjects The collection of GameObjects in the game.
+     * @param bricksLeft  The number of bricks left.
+     */
+    public void onFrame(BrickerGameObjectCollection gameObjects, int bricksLeft) {
+        synchronized (objectsPerLayer) {
+            for (int slot = 0; slot < objectsPerLayer.length; slot++) {
+                objectsPerLayer[slot] = gameObjects.getObjectCount(slot);
+            }
+        }
+        this.bricksLeft = bricksLeft;
+        this.livePucks = gameObjects.getLivePucks();
+        this.updatedObjects = gameObjects.getUpdatedObjectCount();
+        this.sleepingObjects = gameObjects.getSleepingObjectCount();
+        this.filteredPairs = gameObjects.getFilteredPairs();
+        long gcMillis = totalGcMillis();
+        if (gcMillis > lastGcMillis) {
+            gcPauseMillisDuringFrames.add(gcMillis - lastGcMillis);
+            lastGcMillis = gcMillis;
+        }
+        framesInWindow++;
+        long now = System.nanoTime();
+        long elapsed = now - windowStartNanos;
+        if (elapsed >= NANOS_PER_SECOND) {
+            float seconds = (float) elapsed / NANOS_PER_SECOND;
+            long collidingPairs = gameObjects.getCollidingPairs();
+            framesPerSecond = framesInWindow / seconds;
+            collisionsPerSecond = (collidingPairs - collidingPairsAtWindowStart) / seconds;
+            collidingPairsAtWindowStart = collidingPairs;
+            framesInWindow = 0;
+            windowStartNanos = now;
+        }
+    }
+
+    /**
+     * Records the load of an asset. An asset that was already loaded once counts as a cache hit.
+     *
+     * @param path The path of the asset.
+     */
+    public void recordAssetLoad(String path) {
+        boolean isFirstLoad;
+        synchronized (loadedAssets) {
+            isFirstLoad = loadedAssets.add(path);
+        }
+        if (isFirstLoad) {
+            assetMisses.increment();
+        } else {
+            assetHits.increment();
+        }
+    }
+
+    /**
+     * Records the latency from a key event to the next presented frame. Called by the game thread only.
+     *
+     * @param nanos The latency, in nanoseconds.
+     */
+    public void recordInputLatency(long nanos) {
+        inputLatency.record(nanos);
+        inputLatencySamples = inputLatency.getCount();
+        inputLatencyP50Micros = inputLatency.percentileNanos(0.5) / NANOS_PER_MICRO;
+        inputLatencyP95Micros = inputLatency.percentileNanos(0.95) / NANOS_PER_MICRO;
+        inputLatencyP99Micros = inputLatency.percentileNanos(0.99) / NANOS_PER_MICRO;
+    }
+
+    /**
+     * Records the time the game thread spent capturing a presented frame. Called by the game thread
+     * only.
+     *
+     * @param nanos         The time, in nanoseconds.
+     * @param droppedFrames The number of frames the capture has dropped so far.
+     */
+    public void recordCaptureOverhead(long nanos, long droppedFrames) {
+        captureOverhead.record(nanos);
+        capturedFrames = captureOverhead.getCount();
+        captureDroppedFrames = droppedFrames;
+        captureOverheadP95Micros = captureOverhead.percentileNanos(0.95) / NANOS_PER_MICRO;
+        captureOverheadMaxMicros = captureOverhead.getMaxNanos() / NANOS_PER_MICRO;
+    }
+
+    /**
+     * Records the time from the receipt of a remote command to its application. Called by the game
+     * thread only; the percentiles are refreshed by {@link #recordRemoteCommandQueue}.
+     *
+     * @param nanos The latency, in nanoseconds.
+     */
+    public void recordRemoteCommandLatency(long nanos) {
+        remoteCommandLatency.record(nanos);
+    }
+
+    /**
+     * Records a drain of the remote command queue. Called by the game thread once per tick.
+     *
+     * @param depth   The number of commands in the queue before the drain.
+     * @param applied The number of commands applied by the drain.
+     */
+    public void recordRemoteCommandQueue(int depth, int applied) {
+        remoteQueueDepth = depth;
+        if (depth > remoteQueueMaxDepth) {
+            remoteQueueMaxDepth = depth;
+        }
+        if (applied > 0) {
+            remoteCommands = remoteCommandLatency.getCount();
+            remoteCommandLatencyP50Micros = remoteCommandLatency.percentileNanos(0.5) / NANOS_PER_MICRO;
+            remoteCommandLatencyP99Micros = remoteCommandLatency.percentileNanos(0.99) / NANOS_PER_MICRO;
+        }
+    }
+
+    /**
+     * Records the number of records the gameplay event log has dropped so far. Called by the game
+     * thread once per frame while an event log is open.
+     *
+     * @param overruns The number of dropped records.
+     */
+    public void recordEventLogOverruns(long overruns) {
+        eventLogOverruns = overruns;
+    }
+
+    /**
+     * Forgets the loaded assets, after the asset caches were cleared.
+     */
+    public void onAssetCacheCleared() {
+        synchronized (loadedAssets) {
+            loadedAssets.clear();
+        }
+    }
+
+    /**
+     * Appends every metric as a "name value" line, in the plain-text exposition format.
+     *
+     * @param out The builder to append to.
+     */
+    public void writeMetrics(StringBuilder out) {
+        out.append("bricker_objects{layer=\"background\"} ").append(getBackgroundObjects()).append('\n');
+        out.append("bricker_objects{layer=\"static\"} ").append(getStaticObjects()).append('\n');
+        out.append("bricker_objects{layer=\"default\"} ").append(getDefaultObjects()).append('\n');
+        out.append("bricker_objects{layer=\"foreground\"} ").append(getForegroundObjects()).append('\n');
+        out.append("bricker_objects{layer=\"ui\"} ").append(getUiObjects()).append('\n');
+        out.append("bricker_collisions_per_second ").append(getCollisionsPerSecond()).append('\n');
+        out.append("bricker_updated_objects ").append(getUpdatedObjects()).append('\n');
+        out.append("bricker_sleeping_objects ").append(getSleepingObjects()).append('\n');
+        out.append("bricker_filtered_pairs_total ").append(getFilteredPairs()).append('\n');
+        out.append("bricker_bricks_left ").append(getBricksLeft()).append('\n');
+        out.append("bricker_live_pucks ").append(getLivePucks()).append('\n');
+        out.append("bricker_frames_per_second ").append(getFramesPerSecond()).append('\n');
+        out.append("bricker_gc_pause_millis_total ").append(getGcPauseMillisDuringFrames()).append('\n');
+        out.append("bricker_asset_loads_total ").append(getAssetLoads()).append('\n');
+        out.append("bricker_asset_cache_hit_rate ").append(getAssetCacheHitRate()).append('\n');
+        out.append("bricker_input_latency_samples_total ").append(getInputLatencySamples()).append('\n');
+        out.append("bricker_input_latency_micros{quantile=\"0.5\"} ").append(getInputLatencyP50Micros())
+                .append('\n');
+        out.append("bricker_input_latency_micros{quantile=\"0.95\"} ").append(getInputLatencyP95Micros())
+                .append('\n');
+        out.append("bricker_input_latency_micros{quantile=\"0.99\"} ").append(getInputLatencyP99Micros())
+                .append('\n');
+        out.append("bricker_captured_frames_total ").append(getCapturedFrames()).append('\n');
+        out.append("bricker_capture_dropped_frames_total ").append(getCaptureDroppedFrames()).append('\n');
+        out.append("bricker_capture_overhead_micros{quantile=\"0.95\"} ").append(getCaptureOverheadP95Micros())
+                .append('\n');
+        out.append("bricker_capture_overhead_max_micros ").append(getCaptureOverheadMaxMicros()).append('\n');
+        out.append("bricker_remote_queue_depth ").append(getRemoteQueueDepth()).append('\n');
+        out.append("bricker_remote_queue_max_depth ").append(getRemoteQueueMaxDepth()).append('\n');
+        out.append("bricker_remote_commands_total ").append(getRemoteCommands()).append('\n');
+        out.append("bricker_remote_command_latency_micros{quantile=\"0.5\"} ")
+                .append(getRemoteCommandLatencyP50Micros()).append('\n');
+        out.append("bricker_remote_command_latency_micros{quantile=\"0.99\"} ")
+                .append(getRemoteCommandLatencyP99Micros()).append('\n');
+        out.append("bricker_event_log_overruns_total ").append(getEventLogOverruns()).append('\n');
+    }
+
+    @Override
+    public int getBackgroundObjects() {
+        return objectCount(0);
+    }
+
+    @Override
+    public int getStaticObjects() {
+        return objectCount(1);
+    }
+
+    @Override
+    public int getDefaultObjects() {
+        return objectCount(2);
+    }
+
+    @Override
+    public int getForegroundObjects() {
+        return objectCount(3);
+    }
+
+    @Override
+    public int getUiObjects() {
+        return objectCount(4);
+    }
+
+    @Override
+    public float getCollisionsPerSecond() {
+        return collisionsPerSecond;
+    }
+
+    @Override
+    public int getUpdatedObjects() {
+        return updatedObjects;
+    }
+
+    @Override
+    public int getSleepingObjects() {
+        return sleepingObjects;
+    }
+
+    @Override
+    public long getFilteredPairs() {
+        return filteredPairs;
+    }
+
+    @Override
+    public int getBricksLeft() {
+        return bricksLeft;
+    }
+
+    @Override
+    public int getLivePucks() {
+        return livePucks;
+    }
+
+    @Override
+    public float getFramesPerSecond() {
+        return framesPerSecond;
+    }
+
+    @Override
+    public long getGcPauseMillisDuringFrames() {
+        return gcPauseMillisDuringFrames.sum();
+    }
+
+    @Override
+    public long getAssetLoads() {
+        return assetHits.sum() + assetMisses.sum();
+    }
+
+    @Override
+    public double getAssetCacheHitRate() {
+        long loads = getAssetLoads();
+        return loads == 0 ? 0 : (double) assetHits.sum() / loads;
+    }
+
+    @Override
+    public long getInputLatencySamples() {
+        return inputLatencySamples;
+    }
+
+    @Override
+    public long getInputLatencyP50Micros() {
+        return inputLatencyP50Micros;
+    }
+
+    @Override
+    public long getInputLatencyP95Micros() {
+        return inputLatencyP95Micros;
+    }
+
+    @Override
+    public long getInputLatencyP99Micros() {
+        return inputLatencyP99Micros;
+    }
+
+    @Override
+    public long getCapturedFrames() {
+        return capturedFrames;
+    }
+
+    @Override
+    public long getCaptureDroppedFrames() {
+        return captureDroppedFrames;
+    }
+
+    @Override
+    public long getCaptureOverheadP95Micros() {
+        return captureOverheadP95Micros;
+    }
+
+    @Override
+    public long getCaptureOverheadMaxMicros() {
+        return captureOverheadMaxMicros;
+    }
+
+    @Override
+    public int getRemoteQueueDepth() {
+        return remoteQueueDepth;
+    }
+
+    @Override
+    public int getRemoteQueueMaxDepth() {
+        return remoteQueueMaxDepth;
+    }
+
+    @Override
+    public long getRemoteCommands() {
+        return remoteCommands;
+    }
+
+    @Override
+    public long getRemoteCommandLatencyP50Micros() {
+        return remoteCommandLatencyP50Micros;
+    }
+
+    @Override
+    public long getRemoteCommandLatencyP99Micros() {
+        return remoteCommandLatencyP99Micros;
+    }
+
+    @Override
+    public long getEventLogOverruns() {
+        return eventLogOverruns;
+    }
+
+    /**
+     * @param slot The index of the layer in {@link BrickerGameObjectCollection#COUNTED_LAYERS}.
+     * @return The number of objects in that layer at the end of the last frame.
+     */
+    private int objectCount(int slot) {
+        synchronized (objectsPerLayer) {
+            return objectsPerLayer[slot];
+        }
+    }
+
+    /**
+     * @return The total time, in milliseconds, spent in garbage collection since the JVM started.
+     */
+    private long totalGcMillis() {
+        long total = 0;
+        for (int i = 0; i < garbageCollectors.size(); i++) {
+            total += Math.max(0, garbageCollectors.get(i).getCollectionTime());
+        }
+        return total;
+    }
+}
@@ -0,0 +1,155 @@
+package bricker.telemetry;
+
+/**
+ * The management interface of {@link GameTelemetry}, as seen through JMX.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+public interface GameTelemetryMBean {
+
+    /**
+     * @return The number of objects in the background layer.
+     */
+    int getBackgroundObjects();
+
+    /**
+     * @return The number of objects in the static objects layer.
+     */
+    int getStaticObjects();
+
+    /**
+     * @return The number of objects in the default layer.
+     */
+    int getDefaultObjects();
+
+    /**
+     * @return The number of objects in the foreground layer.
+     */
+    int getForegroundObjects();
+
+    /**
+     * @return The number of objects in the UI layer.
+     */
+    int getUiObjects();
+
+    /**
+     * @return The number of colliding pairs resolved per second, over the last second.
+     */
+    float getCollisionsPerSecond();
+
+    /**
+     * @return The number of objects updated in the last frame.
+     */
+    int getUpdatedObjects();
+
+    /**
+     * @return The number of sleeping objects, which are skipped by the update pass.
+     */
+    int getSleepingObjects();
+
+    /**
+     * @return The total number of candidate pairs skipped by the collision filter.
+     */
+    long getFilteredPairs();
+
+    /**
+     * @return The number of bricks left.
+     */
+    int getBricksLeft();
+
+    /**
+     * @return The number of live pucks.
+     */
+    int getLivePucks();
+
+    /**
+     * @return The number of frames per second, over the last second.
+     */
+    float getFramesPerSecond();
+
+    /**
+     * @return The total garbage collection time, in milliseconds, that elapsed between frames.
+     */
+    long getGcPauseMillisDuringFrames();
+
+    /**
+     * @return The number of asset loads.
+     */
+    long getAssetLoads();
+
+    /**
+     * @return The fraction of asset loads that were served from a cache.
+     */
+    double getAssetCacheHitRate();
+
+    /**
+     * @return The number of key events whose latency to the next presented frame was measured.
+     */
+    long getInputLatencySamples();
+
+    /**
+     * @return The median latency from a key event to the next presented frame, in microseconds.
+     */
+    long getInputLatencyP50Micros();
+
+    /**
+     * @return The 95th percentile latency from a key event to the next presented frame, in microseconds.
+     */
+    long getInputLatencyP95Micros();
+
+    /**
+     * @return The 99th percentile latency from a key event to the next presented frame, in microseconds.
+     */
+    long getInputLatencyP99Micros();
+
+    /**
+     * @return The number of presented frames handed to the gameplay capture.
+     */
+    long getCapturedFrames();
+
+    /**
+     * @return The number of frames the gameplay capture dropped because its writer was behind.
+     */
+    long getCaptureDroppedFrames();
+
+    /**
+     * @return The 95th percentile time the game thread spent capturing a frame, in microseconds.
+     */
+    long getCaptureOverheadP95Micros();
+
+    /**
+     * @return The longest time the game thread spent capturing a frame, in microseconds.
+     */
+    long getCaptureOverheadMaxMicros();
+
+    /**
+     * @return The number of remote commands that were waiting at the last drain of the command queue.
+     */
+    int getRemoteQueueDepth();
+
+    /**
+     * @return The most remote commands that were waiting at a drain of the command queue.
+     */
+    int getRemoteQueueMaxDepth();
+
+    /**
+     * @return The number of remote commands applied.
+     */
+    long getRemoteCommands();
+
+    /**
+     * @return The median time from the receipt of a remote command to its application, in microseconds.
+     */
+    long getRemoteCommandLatencyP50Micros();
+
+    /**
+     * @return The 99th percentile time from the receipt of a remote command to its application, in
+     * microseconds.
+     */
+    long getRemoteCommandLatencyP99Micros();
+
+    /**
+     * @return The number of gameplay event log records dropped because the log's ring was full.
+     */
+    long getEventLogOverruns();
+}
@@ -0,0 +1,45 @@
+package bricker.telemetry;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A Flight Recorder event for a frame whose update ran over the budget of a 60 fps frame. The
+ * threshold can be lowered or raised in the recording settings.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+@Name("bricker.LongFrame")
+@Label("Long Frame")
+@Category({"Bricker", "Frames"})
+@Description("A frame whose update took longer than the frame budget")
+@Threshold("17 ms")
+@StackTrace(false)
+public final class LongFrameEvent extends Event {
+
+    @Label("Frame Number")
+    private long frameNumber;
+    @Label("Updated Objects")
+    @Description("The number of objects updated in the frame")
+    private int updatedObjects;
+
+    /**
+     * Ends the event and commits it, if it is enabled and the frame ran over the threshold.
+     *
+     * @param frameNumber    The number of the frame.
+     * @param updatedObjects The number of objects updated in the frame.
+     */
+    public void commitFrame(long frameNumber, int updatedObjects) {
+        end();
+        if (shouldCommit()) {
+            this.frameNumber = frameNumber;
+            this.updatedObjects = updatedObjects;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package bricker.telemetry;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A minimal HTTP endpoint, bound to the loopback interface, that serves {@link GameTelemetry} as plain
+ * text on every request. It runs on its own daemon thread and never touches the game thread.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+public class MetricsEndpoint implements Runnable {
+
+    private static final String THREAD_NAME = "bricker-metrics";
+    private static final int SOCKET_TIMEOUT_MILLIS = 2000;
+    private final ServerSocket serverSocket;
+    private final GameTelemetry telemetry;
+
+    /**
+     * Opens the endpoint and starts serving.
+     *
+     * @param port      The port to listen on.
+     * @param telemetry The telemetry to serve.
+     * @throws IOException If the socket cannot be opened.
+     */
+    public MetricsEndpoint(int port, GameTelemetry telemetry) throws IOException {
+        this.serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+        this.telemetry = telemetry;
+        Thread thread = new Thread(this, THREAD_NAME);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Serves requests until the endpoint is closed.
+     */
+    @Override
+    public void run() {
+        while (!serverSocket.isClosed()) {
+            try (Socket socket = serverSocket.accept()) {
+                socket.setSoTimeout(SOCKET_TIMEOUT_MILLIS);
+                serve(socket);
+            } catch (IOException ignored) {
+                // A broken request only affects that client.
+            }
+        }
+    }
+
+    /**
+     * Stops serving.
+     */
+    public void close() {
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+            // Nothing left to release.
+        }
+    }
+
+    /**
+     * Answers a single request with the current metrics.
+     *
+     * @param socket The client socket.
+     * @throws IOException If the client disconnected.
+     */
+    private void serve(Socket socket) throws IOException {
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+        String line;
+        do {
+            line = reader.readLine();
+        } while (line != null && !line.isEmpty());
+        StringBuilder body = new StringBuilder();
+        telemetry.writeMetrics(body);
+        byte[] bodyBytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        String header = "HTTP/1.1 200 OK\r\n" +
+                "Content-Type: text/plain; version=0.0.4; charset=utf-8\r\n" +
+                "Content-Length: " + bodyBytes.length + "\r\n" +
+                "Connection: close\r\n\r\n";
+        OutputStream out = socket.getOutputStream();
+        out.write(header.getBytes(StandardCharsets.US_ASCII));
+        out.write(bodyBytes);
+        out.flush();
+    }
+}
@@ -0,0 +1,129 @@
+package bricker.telemetry;
+
+/**
+ * The statistics of one finished game, as kept by a {@link SessionStore}.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+public final class SessionRecord {
+
+    private final long seed;
+    private final long endedAtMillis;
+    private final long durationNanos;
+    private final int score;
+    private final int bricksCleared;
+    private final int livesUsed;
+    private final boolean isWon;
+    private final long frames;
+    private final long p50FrameNanos;
+    private final long p95FrameNanos;
+    private final long p99FrameNanos;
+
+    /**
+     * Construct a new SessionRecord instance.
+     *
+     * @param seed          The seed of the game.
+     * @param endedAtMillis The wall-clock time the game ended at, in milliseconds since the epoch.
+     * @param durationNanos The length of the game, in nanoseconds.
+     * @param score         The score of the game.
+     * @param bricksCleared The number of bricks cleared.
+     * @param livesUsed     The number of lives lost.
+     * @param isWon         True if the game was won.
+     * @param frames        The number of frames timed.
+     * @param p50FrameNanos The median frame time, in nanoseconds.
+     * @param p95FrameNanos The 95th percentile frame time, in nanoseconds.
+     * @param p99FrameNanos The 99th percentile frame time, in nanoseconds.
+     */
+    public SessionRecord(long seed, long endedAtMillis, long durationNanos, int score, int bricksCleared,
+                         int livesUsed, boolean isWon, long frames, long p50FrameNanos,
+                         long p95FrameNanos, long p99FrameNanos) {
+        this.seed = seed;
+        this.endedAtMillis = endedAtMillis;
+        this.durationNanos = durationNanos;
+        this.score = score;
+        this.bricksCleared = bricksCleared;
+        this.livesUsed = livesUsed;
+        this.isWon = isWon;
+        this.frames = frames;
+        this.p50FrameNanos = p50FrameNanos;
+        this.p95FrameNanos = p95FrameNanos;
+        this.p99FrameNanos = p99FrameNanos;
+    }
+
+    /**
+     * @return The seed of the game.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return The wall-clock time the game ended at, in milliseconds since the epoch.
+     */
+    public long getEndedAtMillis() {
+        return endedAtMillis;
+    }
+
+    /**
+     * @return The length of the game, in nanoseconds.
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * @return The score of the game.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * @return The number of bricks cleared.
+     */
+    public int getBricksCleared() {
+        return bricksCleared;
+    }
+
+    /**
+     * @return The number of lives lost.
+     */
+    public int getLivesUsed() {
+        return livesUsed;
+    }
+
+    /**
+     * @return True if the game was won.
+     */
+    public boolean isWon() {
+        return isWon;
+    }
+
+    /**
+     * @return The number of frames timed.
+     */
+    public long getFrames() {
+        return frames;
+    }
+
+    /**
+     * @return The median frame time, in nanoseconds.
+     */
+    public long getP50FrameNanos() {
+        return p50FrameNanos;
+    }
+
+    /**
+     * @return The 95th percentile frame time, in nanoseconds.
+     */
+    public long getP95FrameNanos() {
+        return p95FrameNanos;
+    }
+
+    /**
+     * @return The 99th percentile frame time, in nanoseconds.
+     */
+    public long getP99FrameNanos() {
+        return p99FrameNanos;
+    }
+}
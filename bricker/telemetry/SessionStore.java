@@ -0,0 +1,273 @@
+package bricker.telemetry;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A persistent, append-only store of finished games, with a leaderboard of the best scores.
+ * <p>
+ * The file is memory-mapped in segments of {@value #SEGMENT_RECORDS} records, so appending a record is
+ * a few stores into memory and never a system call, except for the one append in every segment that
+ * maps the next one. The store keeps the best {@code leaderboardSize} records in a small min-heap of
+ * record indices, built by one pass over the file when it is opened and kept up to date on every
+ * append, so the leaderboard is read without scanning the file.
+ * <p>
+ * The file starts with a header of {@value #HEADER_BYTES} bytes: a 4 byte magic, a 4 byte record size
+ * and the 4 byte number of committed records, which is written after the record itself. It is
+ * followed by little-endian records of {@value #RECORD_BYTES} bytes: seed, end time, duration and
+ * frame count (longs), median, 95th and 99th percentile frame times in microseconds, score, bricks
+ * cleared, lives used and flags (ints), and 4 reserved bytes. The file may be longer than its
+ * committed records, as segments are mapped whole.
+ * <p>
+ * The store is used from a single thread.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+public final class SessionStore {
+
+    /**
+     * The size of a record in the file, in bytes.
+     */
+    public static final int RECORD_BYTES = 64;
+    private static final int FILE_MAGIC = 0x42524B53;
+    private static final int HEADER_BYTES = 64;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int RECORD_SIZE_OFFSET = 4;
+    private static final int COUNT_OFFSET = 8;
+    private static final int SEGMENT_RECORDS = 1 << 15;
+    private static final int SEED = 0;
+    private static final int ENDED_AT = 8;
+    private static final int DURATION = 16;
+    private static final int FRAMES = 24;
+    private static final int P50 = 32;
+    private static final int P95 = 36;
+    private static final int P99 = 40;
+    private static final int SCORE = 44;
+    private static final int BRICKS_CLEARED = 48;
+    private static final int LIVES_USED = 52;
+    private static final int FLAGS = 56;
+    private static final int FLAG_WON = 1;
+    private static final long NANOS_PER_MICRO = 1000;
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private final int[] leaders;
+    private int leaderCount = 0;
+    private int count;
+
+    /**
+     * Opens a store, creating the file if it does not exist.
+     *
+     * @param path            The file of the store.
+     * @param leaderboardSize The number of best records to keep track of.
+     * @throws IOException If the file cannot be opened or mapped, or is not a session store.
+     */
+    public SessionStore(Path path, int leaderboardSize) throws IOException {
+        if (leaderboardSize < 1) {
+            throw new IllegalArgumentException("The leaderboard needs at least one place");
+        }
+        this.leaders = new int[leaderboardSize];
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            boolean isNew = channel.size() == 0;
+            this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (isNew) {
+                header.putInt(MAGIC_OFFSET, FILE_MAGIC);
+                header.putInt(RECORD_SIZE_OFFSET, RECORD_BYTES);
+                header.putInt(COUNT_OFFSET, 0);
+            } else if (header.getInt(MAGIC_OFFSET) != FILE_MAGIC ||
+                    header.getInt(RECORD_SIZE_OFFSET) != RECORD_BYTES) {
+                throw new IOException("Not a session store: " + path);
+            }
+            long storedRecords = (channel.size() - HEADER_BYTES) / RECORD_BYTES;
+            this.count = (int) Math.max(0, Math.min(header.getInt(COUNT_OFFSET), storedRecords));
+            for (int index = 0; index < count; index++) {
+                offerLeader(index);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Appends a record and updates the leaderboard.
+     *
+     * @param record The record.
+     * @throws IOException If the file cannot grow to hold the record.
+     */
+    public void append(SessionRecord record) throws IOException {
+        int index = count;
+        MappedByteBuffer segment = segmentOf(index);
+        int offset = (index % SEGMENT_RECORDS) * RECORD_BYTES;
+        segment.putLong(offset + SEED, record.getSeed());
+        segment.putLong(offset + ENDED_AT, record.getEndedAtMillis());
+        segment.putLong(offset + DURATION, record.getDurationNanos());
+        segment.putLong(offset + FRAMES, record.getFrames());
+        segment.putInt(offset + P50, toMicros(record.getP50FrameNanos()));
+        segment.putInt(offset + P95, toMicros(record.getP95FrameNanos()));
+        segment.putInt(offset + P99, toMicros(record.getP99FrameNanos()));
+        segment.putInt(offset + SCORE, record.getScore());
+        segment.putInt(offset + BRICKS_CLEARED, record.getBricksCleared());
+        segment.putInt(offset + LIVES_USED, record.getLivesUsed());
+        segment.putInt(offset + FLAGS, record.isWon() ? FLAG_WON : 0);
+        count = index + 1;
+        header.putInt(COUNT_OFFSET, count);
+        offerLeader(index);
+    }
+
+    /**
+     * @return The number of records in the store.
+     */
+    public int getSessionCount() {
+        return count;
+    }
+
+    /**
+     * Reads a record.
+     *
+     * @param index The index of the record, in the order the records were appended.
+     * @return The record.
+     * @throws IOException If the segment of the record cannot be mapped.
+     */
+    public SessionRecord get(int index) throws IOException {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("No session " + index + " in a store of " + count);
+        }
+        MappedByteBuffer segment = segmentOf(index);
+        int offset = (index % SEGMENT_RECORDS) * RECORD_BYTES;
+        return new SessionRecord(segment.getLong(offset + SEED), segment.getLong(offset + ENDED_AT),
+                segment.getLong(offset + DURATION), segment.getInt(offset + SCORE),
+                segment.getInt(offset + BRICKS_CLEARED), segment.getInt(offset + LIVES_USED),
+                (segment.getInt(offset + FLAGS) & FLAG_WON) != 0, segment.getLong(offset + FRAMES),
+                segment.getInt(offset + P50) * NANOS_PER_MICRO, segment.getInt(offset + P95) * NANOS_PER_MICRO,
+                segment.getInt(offset + P99) * NANOS_PER_MICRO);
+    }
+
+    /**
+     * Returns the leaderboard, best score first. Equal scores are ordered by the time they were
+     * appended, earliest first.
+     *
+     * @return The best records, at most as many as the leaderboard size.
+     * @throws IOException If a segment cannot be mapped.
+     */
+    public List<SessionRecord> getLeaderboard() throws IOException {
+        int[] ranked = Arrays.copyOf(leaders, leaderCount);
+        for (int i = 1; i < ranked.length; i++) {
+            int index = ranked[i];
+            int j = i - 1;
+            while (j >= 0 && isWorse(ranked[j], index)) {
+                ranked[j + 1] = ranked[j];
+                j--;
+            }
+            ranked[j + 1] = index;
+        }
+        List<SessionRecord> leaderboard = new ArrayList<>(ranked.length);
+        for (int index : ranked) {
+            leaderboard.add(get(index));
+        }
+        return leaderboard;
+    }
+
+    /**
+     * Writes the mapped records to disk and closes the file.
+     */
+    public void close() {
+        header.force();
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // The records were already forced to disk.
+        }
+    }
+
+    /**
+     * Returns the segment holding a record, mapping the segments up to it if they are not mapped yet.
+     *
+     * @param index The index of the record.
+     * @return The segment.
+     * @throws IOException If a segment cannot be mapped.
+     */
+    private MappedByteBuffer segmentOf(int index) throws IOException {
+        int segmentIndex = index / SEGMENT_RECORDS;
+        while (segments.size() <= segmentIndex) {
+            long position = HEADER_BYTES + (long) segments.size() * SEGMENT_RECORDS * RECORD_BYTES;
+            MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_WRITE, position,
+                    (long) SEGMENT_RECORDS * RECORD_BYTES);
+            segment.order(ByteOrder.LITTLE_ENDIAN);
+            segments.add(segment);
+        }
+        return segments.get(segmentIndex);
+    }
+
+    /**
+     * Adds a record to the leaderboard if it is among the best. The leaderboard is a min-heap whose
+     * root is its worst record.
+     *
+     * @param index The index of the record.
+     * @throws IOException If the segment of the record cannot be mapped.
+     */
+    private void offerLeader(int index) throws IOException {
+        if (leaderCount < leaders.length) {
+            int child = leaderCount++;
+            while (child > 0 && isWorse(index, leaders[(child - 1) / 2])) {
+                leaders[child] = leaders[(child - 1) / 2];
+                child = (child - 1) / 2;
+            }
+            leaders[child] = index;
+            return;
+        }
+        if (!isWorse(leaders[0], index)) {
+            return;
+        }
+        int parent = 0;
+        while (2 * parent + 1 < leaderCount) {
+            int child = 2 * parent + 1;
+            if (child + 1 < leaderCount && isWorse(leaders[child + 1], leaders[child])) {
+                child++;
+            }
+            if (!isWorse(leaders[child], index)) {
+                break;
+            }
+            leaders[parent] = leaders[child];
+            parent = child;
+        }
+        leaders[parent] = index;
+    }
+
+    /**
+     * @return True if the first record ranks below the second: a lower score, or an equal score
+     * appended later.
+     */
+    private boolean isWorse(int first, int second) throws IOException {
+        int firstScore = scoreOf(first);
+        int secondScore = scoreOf(second);
+        return firstScore != secondScore ? firstScore < secondScore : first > second;
+    }
+
+    /**
+     * @return The score of a record.
+     */
+    private int scoreOf(int index) throws IOException {
+        return segmentOf(index).getInt((index % SEGMENT_RECORDS) * RECORD_BYTES + SCORE);
+    }
+
+    /**
+     * @return A frame time in whole microseconds, clamped to an int.
+     */
+    private static int toMicros(long nanos) {
+        return (int) Math.min(Integer.MAX_VALUE, nanos / NANOS_PER_MICRO);
+    }
+}
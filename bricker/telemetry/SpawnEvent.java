@@ -0,0 +1,52 @@
+package bricker.telemetry;
+
+import danogl.GameObject;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for an object added to or removed from the game.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+@Name("bricker.Spawn")
+@Label("Spawn")
+@Category({"Bricker", "Gameplay"})
+@Description("An object added to or removed from the game")
+@StackTrace(false)
+public final class SpawnEvent extends Event {
+
+    @Label("Object Kind")
+    @Description("The kind of the object, as in the gameplay event log")
+    private int objectKind;
+    @Label("Object Class")
+    private String objectClass;
+    @Label("Layer")
+    private int layer;
+    @Label("Despawn")
+    @Description("True if the object was removed")
+    private boolean isDespawn;
+
+    /**
+     * Records an object added to or removed from the game, if the event is enabled. A disabled
+     * event costs a single check.
+     *
+     * @param obj       The object.
+     * @param layer     The layer it was added to or removed from.
+     * @param isDespawn True if the object was removed.
+     */
+    public static void record(GameObject obj, int layer, boolean isDespawn) {
+        SpawnEvent event = new SpawnEvent();
+        if (event.isEnabled()) {
+            event.objectKind = GameEventLog.kindOf(obj);
+            event.objectClass = obj.getClass().getSimpleName();
+            event.layer = layer;
+            event.isDespawn = isDespawn;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package bricker.training;
+
+import bricker.gameobjects.Ball;
+import bricker.gameobjects.Brick;
+import bricker.gameobjects.ExtraPaddle;
+import bricker.gameobjects.Paddle;
+import bricker.gameobjects.Puck;
+import bricker.main.BrickerGameManager;
+import danogl.GameObject;
+import danogl.collisions.GameObjectCollection;
+import danogl.collisions.Layer;
+import danogl.util.Vector2;
+
+import java.util.Arrays;
+
+/**
+ * A single headless game of Bricker behind a reset/step interface, for training paddle agents.
+ * <p>
+ * Each step holds one paddle action for one frame of 1/60 s and writes an observation of
+ * {@link #OBSERVATION_SIZE} floats into a caller's buffer, in window coordinates:
+ * <ul>
+ *     <li>0-3: the center and velocity of the ball.</li>
+ *     <li>4: the center x of the paddle.</li>
+ *     <li>5-6: 1 and the center x of the extra paddle if there is one, and 0 otherwise.</li>
+ *     <li>7: the number of pucks in play.</li>
+ *     <li>8-39: the center and velocity of up to 8 pucks, and 0 for the missing ones.</li>
+ *     <li>40-95: the alive-brick bitset, one float of 1 or 0 per brick, in row-major order.</li>
+ *     <li>96-97: the number of lives and of bricks left.</li>
+ * </ul>
+ * The reward of a step is the number of bricks cleared in it, less the number of lives lost.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+public final class BrickerEnvironment {
+
+    /**
+     * The number of floats in an observation.
+     */
+    public static final int OBSERVATION_SIZE = 98;
+    private static final Vector2 WINDOW_DIMENSIONS = new Vector2(700, 500);
+    private static final String WINDOW_TITLE = "Bricker";
+    private static final float DELTA_TIME = 1 / 60f;
+    private static final int MAX_OBSERVED_PUCKS = 8;
+    private static final int FLOATS_PER_MOVER = 4;
+    private static final int BRICK_SLOTS = 56;
+    private static final int BALL_OFFSET = 0;
+    private static final int PADDLE_OFFSET = 4;
+    private static final int EXTRA_PADDLE_OFFSET = 5;
+    private static final int PUCK_COUNT_OFFSET = 7;
+    private static final int PUCKS_OFFSET = 8;
+    private static final int BRICKS_OFFSET = PUCKS_OFFSET + MAX_OBSERVED_PUCKS * FLOATS_PER_MOVER;
+    private static final int LIVES_OFFSET = BRICKS_OFFSET + BRICK_SLOTS;
+    private static final int BRICKS_LEFT_OFFSET = LIVES_OFFSET + 1;
+    private final BrickerGameManager gameManager = new BrickerGameManager(WINDOW_TITLE, WINDOW_DIMENSIONS);
+    private final ScriptedInputListener inputListener = new ScriptedInputListener();
+    private final HeadlessWindowController windowController =
+            new HeadlessWindowController(WINDOW_DIMENSIONS);
+    private int lastLives;
+    private int lastBricksLeft;
+
+    /**
+     * Starts a new game.
+     *
+     * @param seed         The seed of the game.
+     * @param observations The buffer to write the first observation to.
+     * @param offset       The index of the observation in the buffer.
+     */
+    public void reset(long seed, float[] observations, int offset) {
+        inputListener.setAction(ScriptedInputListener.STAY);
+        gameManager.initializeHeadlessGame(inputListener, windowController, seed);
+        lastLives = gameManager.getLivesCounter().value();
+        lastBricksLeft = gameManager.getBrickCounter().value();
+        observe(observations, offset);
+    }
+
+    /**
+     * Plays one frame.
+     *
+     * @param action       {@link ScriptedInputListener#MOVE_LEFT}, {@link ScriptedInputListener#STAY}
+     *                     or {@link ScriptedInputListener#MOVE_RIGHT}.
+     * @param observations The buffer to write the observation after the frame to.
+     * @param offset       The index of the observation in the buffer.
+     * @return The reward of the frame.
+     */
+    public float step(int action, float[] observations, int offset) {
+        inputListener.setAction(action);
+        gameManager.update(DELTA_TIME);
+        int lives = gameManager.getLivesCounter().value();
+        int bricksLeft = gameManager.getBrickCounter().value();
+        float reward = (lastBricksLeft - bricksLeft) - Math.max(0, lastLives - lives);
+        lastLives = lives;
+        lastBricksLeft = bricksLeft;
+        observe(observations, offset);
+        return reward;
+    }
+
+    /**
+     * @return True if the game was won or lost, after which it must be reset.
+     */
+    public boolean isDone() {
+        return gameManager.isGameOver();
+    }
+
+    /**
+     * @return True if the game was won.
+     */
+    public boolean isWon() {
+        return gameManager.isGameWon();
+    }
+
+    /**
+     * @return The game played by the environment.
+     */
+    public BrickerGameManager getGameManager() {
+        return gameManager;
+    }
+
+    /**
+     * Writes an observation of the game into a buffer.
+     *
+     * @param observations The buffer.
+     * @param offset       The index of the observation in the buffer.
+     */
+    private void observe(float[] observations, int offset) {
+        Arrays.fill(observations, offset, offset + OBSERVATION_SIZE, 0);
+        GameObjectCollection gameObjects = gameManager.getGameObjects();
+        int puckCount = 0;
+        for (GameObject obj : gameObjects.objectsInLayer(Layer.DEFAULT)) {
+            if (obj instanceof Ball) {
+                writeMover(obj, observations, offset + BALL_OFFSET);
+            } else if (obj instanceof ExtraPaddle) {
+                observations[offset + EXTRA_PADDLE_OFFSET] = 1;
+                observations[offset + EXTRA_PADDLE_OFFSET + 1] = centerX(obj);
+            } else if (obj instanceof Paddle) {
+                observations[offset + PADDLE_OFFSET] = centerX(obj);
+            } else if (obj instanceof Puck) {
+                if (puckCount < MAX_OBSERVED_PUCKS) {
+                    writeMover(obj, observations, offset + PUCKS_OFFSET + puckCount * FLOATS_PER_MOVER);
+                }
+                puckCount++;
+            }
+        }
+        observations[offset + PUCK_COUNT_OFFSET] = puckCount;
+        for (GameObject obj : gameObjects.objectsInLayer(Layer.STATIC_OBJECTS)) {
+            if (obj instanceof Brick) {
+                observations[offset + BRICKS_OFFSET + ((Brick) obj).getBrickId()] = 1;
+            }
+        }
+        observations[offset + LIVES_OFFSET] = gameManager.getLivesCounter().value();
+        observations[offset + BRICKS_LEFT_OFFSET] = gameManager.getBrickCounter().value();
+    }
+
+    /**
+     * Writes the center and velocity of a moving object into a buffer.
+     */
+    private static void writeMover(GameObject obj, float[] observations, int index) {
+        Vector2 topLeftCorner = obj.getTopLeftCorner();
+        Vector2 dimensions = obj.getDimensions();
+        Vector2 velocity = obj.getVelocity();
+        observations[index] = topLeftCorner.x() + dimensions.x() / 2;
+        observations[index + 1] = topLeftCorner.y() + dimensions.y() / 2;
+        observations[index + 2] = velocity.x();
+        observations[index + 3] = velocity.y();
+    }
+
+    /**
+     * @return The x coordinate of the center of an object.
+     */
+    private static float centerX(GameObject obj) {
+        return obj.getTopLeftCorner().x() + obj.getDimensions().x() / 2;
+    }
+}
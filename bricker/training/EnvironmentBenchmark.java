@@ -0,0 +1,68 @@
+package bricker.training;
+
+import java.util.SplittableRandom;
+
+/**
+ * Measures the throughput of {@link VectorizedBrickerEnvironment} with random actions, in
+ * environment steps per second, for a range of thread counts up to the number of cores.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+public final class EnvironmentBenchmark {
+
+    private static final int DEFAULT_ENVIRONMENTS = 256;
+    private static final int WARMUP_STEPS = 2000;
+    private static final int MEASURED_STEPS = 4000;
+    private static final long SEED = 42;
+
+    private EnvironmentBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark and prints a line per thread count.
+     *
+     * @param args Optionally, the number of games stepped in lockstep.
+     */
+    public static void main(String[] args) {
+        int environmentCount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ENVIRONMENTS;
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.println("games  threads  steps/s  episodes");
+        for (int threads = 1; threads <= cores; threads = threads == cores ? cores + 1 :
+                Math.min(cores, 2 * threads)) {
+            try (VectorizedBrickerEnvironment environment =
+                         new VectorizedBrickerEnvironment(environmentCount, threads)) {
+                SplittableRandom random = new SplittableRandom(SEED);
+                int[] actions = new int[environmentCount];
+                environment.reset(SEED);
+                run(environment, actions, random, WARMUP_STEPS);
+                long start = System.nanoTime();
+                long episodes = run(environment, actions, random, MEASURED_STEPS);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("%5d  %7d  %7.0f  %8d%n", environmentCount, threads,
+                        (double) environmentCount * MEASURED_STEPS / seconds, episodes);
+            }
+        }
+    }
+
+    /**
+     * Steps the games with random actions.
+     *
+     * @return The number of episodes that ended.
+     */
+    private static long run(VectorizedBrickerEnvironment environment, int[] actions,
+                            SplittableRandom random, int steps) {
+        long episodes = 0;
+        for (int step = 0; step < steps; step++) {
+            for (int i = 0; i < actions.length; i++) {
+                actions[i] = random.nextInt(3) - 1;
+            }
+            environment.step(actions);
+            for (boolean isDone : environment.getDones()) {
+                if (isDone) {
+                    episodes++;
+                }
+            }
+        }
+        return episodes;
+    }
+}
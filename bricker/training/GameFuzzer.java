@@ -0,0 +1,293 @@
+package bricker.training;
+
+import bricker.gameobjects.Ball;
+import bricker.gameobjects.ExtraPaddle;
+import bricker.gameobjects.Puck;
+import bricker.main.BrickerGameManager;
+import danogl.GameObject;
+import danogl.collisions.Layer;
+import danogl.util.Vector2;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Plays many short headless games with random input on every core, and looks for stuck and
+ * degenerate states.
+ * <p>
+ * Game i is seeded with {@code baseSeed + i}, and its input, random paddle actions held for random
+ * numbers of frames, is drawn from the same seed, so a game is reproduced by its seed alone. After
+ * every frame the fuzzer checks that:
+ * <ul>
+ *     <li>the ball is not moving horizontally, with almost no vertical speed, for
+ *     {@value #STUCK_FRAMES} frames;</li>
+ *     <li>no ball or puck is left of, right of or above the window, through a gap in the walls;</li>
+ *     <li>the brick counter is not negative;</li>
+ *     <li>there are no more than {@value #MAX_LIVES} lives, the cap of the falling hearts;</li>
+ *     <li>there is at most one extra paddle.</li>
+ * </ul>
+ * The first failure of every kind is minimized: its input is cut at the failing frame, and spans of
+ * it are replaced by holding still, halving the span size each round, as long as the game still fails
+ * the same way. The minimized input is printed in run-length form, such as {@code S40 L12 R3}, which
+ * {@code replay <seed> <input>} plays back.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+public final class GameFuzzer {
+
+    private static final int PASSED = 0;
+    private static final int HORIZONTAL_LOOP = 1;
+    private static final int ESCAPED_WALLS = 2;
+    private static final int NEGATIVE_BRICKS = 3;
+    private static final int TOO_MANY_LIVES = 4;
+    private static final int DUPLICATE_EXTRA_PADDLE = 5;
+    private static final String[] FAILURE_NAMES = {"passed", "horizontal loop", "escaped walls",
+            "negative brick counter", "too many lives", "duplicate extra paddle"};
+    private static final int DEFAULT_GAMES = 100_000;
+    private static final int DEFAULT_STEPS = 1800;
+    private static final int STUCK_FRAMES = 600;
+    private static final float MIN_VERTICAL_SPEED = 1;
+    private static final int MAX_LIVES = 4;
+    private static final int MAX_HOLD_FRAMES = 30;
+    private static final int MAX_MINIMIZE_TRIALS = 400;
+    private static final long REPORT_INTERVAL_MILLIS = 5000;
+    private static final char[] ACTION_CHARS = {'L', 'S', 'R'};
+    private final BrickerEnvironment environment = new BrickerEnvironment();
+    private final float[] observation = new float[BrickerEnvironment.OBSERVATION_SIZE];
+    private int failureStep;
+    private int stepsPlayed;
+
+    /**
+     * Runs the fuzzer, or replays one game.
+     *
+     * @param args Either {@code [games] [steps per game] [threads] [base seed]}, each optional, or
+     *             {@code replay <seed> <input>}.
+     * @throws InterruptedException If interrupted while waiting for the workers.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length == 3 && args[0].equals("replay")) {
+            int[] actions = parseActions(args[2]);
+            GameFuzzer fuzzer = new GameFuzzer();
+            int failure = fuzzer.play(Long.parseLong(args[1]), actions, actions.length);
+            System.out.println(FAILURE_NAMES[failure] + (failure != PASSED ?
+                    " at step " + fuzzer.failureStep : ""));
+            return;
+        }
+        long games = args.length > 0 ? Long.parseLong(args[0]) : DEFAULT_GAMES;
+        int steps = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_STEPS;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        long baseSeed = args.length > 3 ? Long.parseLong(args[3]) : 0;
+        fuzz(games, steps, threads, baseSeed);
+    }
+
+    /**
+     * Plays the games on a number of threads and prints the throughput and the failures found.
+     *
+     * @param games    The number of games.
+     * @param steps    The maximum number of frames of a game.
+     * @param threads  The number of threads.
+     * @param baseSeed The seed of the first game.
+     * @throws InterruptedException If interrupted while waiting for the workers.
+     */
+    private static void fuzz(long games, int steps, int threads, long baseSeed) throws InterruptedException {
+        AtomicLong nextGame = new AtomicLong();
+        LongAdder stepsDone = new LongAdder();
+        LongAdder[] failures = new LongAdder[FAILURE_NAMES.length];
+        for (int kind = 0; kind < failures.length; kind++) {
+            failures[kind] = new LongAdder();
+        }
+        AtomicIntegerArray isMinimized = new AtomicIntegerArray(FAILURE_NAMES.length);
+        Thread[] workers = new Thread[threads];
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                GameFuzzer fuzzer = new GameFuzzer();
+                int[] actions = new int[steps];
+                for (long game = nextGame.getAndIncrement(); game < games; game = nextGame.getAndIncrement()) {
+                    long seed = baseSeed + game;
+                    fillActions(new SplittableRandom(seed), actions);
+                    int failure = fuzzer.play(seed, actions, steps);
+                    stepsDone.add(fuzzer.stepsPlayed);
+                    if (failure != PASSED) {
+                        failures[failure].increment();
+                        if (isMinimized.compareAndSet(failure, 0, 1)) {
+                            fuzzer.report(seed, actions, failure);
+                        }
+                    }
+                }
+            }, "bricker-fuzzer-" + t);
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            while (worker.isAlive()) {
+                worker.join(REPORT_INTERVAL_MILLIS);
+                if (worker.isAlive()) {
+                    printThroughput(Math.min(games, nextGame.get()), stepsDone.sum(), start);
+                }
+            }
+        }
+        printThroughput(games, stepsDone.sum(), start);
+        for (int kind = HORIZONTAL_LOOP; kind < failures.length; kind++) {
+            System.out.printf("%-24s %d%n", FAILURE_NAMES[kind], failures[kind].sum());
+        }
+    }
+
+    /**
+     * Plays one game until it ends, fails or runs out of input.
+     *
+     * @param seed    The seed of the game.
+     * @param actions The paddle action of every frame.
+     * @param steps   The number of actions to play.
+     * @return The kind of failure, or {@link #PASSED}.
+     */
+    private int play(long seed, int[] actions, int steps) {
+        environment.reset(seed, observation, 0);
+        BrickerGameManager gameManager = environment.getGameManager();
+        int stuckFrames = 0;
+        stepsPlayed = 0;
+        for (int step = 0; step < steps && !environment.isDone(); step++) {
+            environment.step(actions[step], observation, 0);
+            stepsPlayed++;
+            Ball ball = gameManager.getBall();
+            stuckFrames = Math.abs(ball.getVelocity().y()) < MIN_VERTICAL_SPEED ? stuckFrames + 1 : 0;
+            int failure = check(gameManager, stuckFrames);
+            if (failure != PASSED) {
+                failureStep = step;
+                return failure;
+            }
+        }
+        return PASSED;
+    }
+
+    /**
+     * Checks the state of a game after a frame.
+     *
+     * @param gameManager The game.
+     * @param stuckFrames The number of frames the ball has been moving horizontally.
+     * @return The kind of failure, or {@link #PASSED}.
+     */
+    private static int check(BrickerGameManager gameManager, int stuckFrames) {
+        if (gameManager.getBrickCounter().value() < 0) {
+            return NEGATIVE_BRICKS;
+        }
+        if (gameManager.getLivesCounter().value() > MAX_LIVES) {
+            return TOO_MANY_LIVES;
+        }
+        if (stuckFrames >= STUCK_FRAMES) {
+            return HORIZONTAL_LOOP;
+        }
+        Vector2 windowDimensions = gameManager.getWindowDimensions();
+        int extraPaddles = 0;
+        for (GameObject obj : gameManager.getGameObjects().objectsInLayer(Layer.DEFAULT)) {
+            if (obj instanceof ExtraPaddle) {
+                extraPaddles++;
+            } else if (obj instanceof Ball || obj instanceof Puck) {
+                Vector2 center = obj.getCenter();
+                if (center.x() < 0 || center.x() > windowDimensions.x() || center.y() < 0) {
+                    return ESCAPED_WALLS;
+                }
+            }
+        }
+        return extraPaddles > 1 ? DUPLICATE_EXTRA_PADDLE : PASSED;
+    }
+
+    /**
+     * Minimizes the input of a failed game and prints it.
+     *
+     * @param seed    The seed of the game.
+     * @param actions The input of the game, which is left untouched.
+     * @param failure The kind of failure.
+     */
+    private void report(long seed, int[] actions, int failure) {
+        int[] input = Arrays.copyOf(actions, failureStep + 1);
+        int trials = 0;
+        for (int span = Math.max(1, input.length / 2); span >= 1 && trials < MAX_MINIMIZE_TRIALS; span /= 2) {
+            for (int from = 0; from < input.length && trials < MAX_MINIMIZE_TRIALS; from += span) {
+                int to = Math.min(input.length, from + span);
+                if (isStill(input, from, to)) {
+                    continue;
+                }
+                int[] trial = Arrays.copyOf(input, input.length);
+                Arrays.fill(trial, from, to, ScriptedInputListener.STAY);
+                trials++;
+                if (play(seed, trial, trial.length) == failure) {
+                    input = Arrays.copyOf(trial, failureStep + 1);
+                }
+            }
+        }
+        System.out.println(FAILURE_NAMES[failure] + ": seed " + seed + " at step " + (input.length - 1) +
+                ", input " + formatActions(input));
+    }
+
+    /**
+     * Fills an input with random actions, each held for a random number of frames.
+     *
+     * @param random  The source of the input.
+     * @param actions The input to fill.
+     */
+    private static void fillActions(SplittableRandom random, int[] actions) {
+        for (int step = 0; step < actions.length; ) {
+            int action = random.nextInt(3) - 1;
+            int end = Math.min(actions.length, step + 1 + random.nextInt(MAX_HOLD_FRAMES));
+            Arrays.fill(actions, step, end, action);
+            step = end;
+        }
+    }
+
+    /**
+     * @return True if every action in a range of an input holds still.
+     */
+    private static boolean isStill(int[] actions, int from, int to) {
+        for (int step = from; step < to; step++) {
+            if (actions[step] != ScriptedInputListener.STAY) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return An input in run-length form, such as {@code S40 L12 R3}.
+     */
+    private static String formatActions(int[] actions) {
+        StringBuilder out = new StringBuilder();
+        for (int step = 0; step < actions.length; ) {
+            int end = step;
+            while (end < actions.length && actions[end] == actions[step]) {
+                end++;
+            }
+            out.append(out.length() > 0 ? " " : "").append(ACTION_CHARS[actions[step] + 1]).append(end - step);
+            step = end;
+        }
+        return out.toString();
+    }
+
+    /**
+     * @return The input written by {@link #formatActions}.
+     */
+    private static int[] parseActions(String input) {
+        int[] actions = new int[0];
+        for (String run : input.trim().split("\\s+")) {
+            int action = new String(ACTION_CHARS).indexOf(run.charAt(0)) - 1;
+            if (action < -1) {
+                throw new IllegalArgumentException("Unknown action in " + run);
+            }
+            int length = Integer.parseInt(run.substring(1));
+            actions = Arrays.copyOf(actions, actions.length + length);
+            Arrays.fill(actions, actions.length - length, actions.length, action);
+        }
+        return actions;
+    }
+
+    /**
+     * Prints the number of games and frames played so far, per second.
+     */
+    private static void printThroughput(long games, long steps, long startNanos) {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        System.out.printf("%d games in %.1f s: %.0f games/s, %.0f steps/s%n", games, seconds, games / seconds,
+                steps / seconds);
+    }
+}
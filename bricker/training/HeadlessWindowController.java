@@ -0,0 +1,90 @@
+package bricker.training;
+
+import danogl.gui.MessageHandler;
+import danogl.gui.WindowController;
+import danogl.gui.rendering.Renderable;
+import danogl.util.Vector2;
+
+/**
+ * The controller of a window that is never shown, for headless games. It only reports the
+ * dimensions of the game; every other request is ignored.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+final class HeadlessWindowController implements WindowController {
+
+    private final Vector2 windowDimensions;
+
+    /**
+     * Construct a new HeadlessWindowController instance.
+     *
+     * @param windowDimensions The dimensions of the game.
+     */
+    HeadlessWindowController(Vector2 windowDimensions) {
+        this.windowDimensions = windowDimensions;
+    }
+
+    @Override
+    public void closeWindow() {
+    }
+
+    @Override
+    public void resetGame() {
+    }
+
+    /**
+     * @return Null, as there is no window to show messages in.
+     */
+    @Override
+    public MessageHandler messages() {
+        return null;
+    }
+
+    /**
+     * @return False, as there is no user to answer.
+     */
+    @Override
+    public boolean openYesNoDialog(String msg) {
+        return false;
+    }
+
+    @Override
+    public double getTimeScale() {
+        return 1;
+    }
+
+    @Override
+    public void setTimeScale(float timeScale) {
+    }
+
+    @Override
+    public Vector2 getWindowDimensions() {
+        return windowDimensions;
+    }
+
+    @Override
+    public void setTargetFramerate(int targetFramerate) {
+    }
+
+    @Override
+    public void setPauseButton(int pauseButton) {
+    }
+
+    @Override
+    public void setExitButton(int exitButton) {
+    }
+
+    @Override
+    public void setMouseCursor(Renderable renderable, Vector2 dimensions, Vector2 offset) {
+    }
+
+    @Override
+    public Renderable getMouseCursor() {
+        return null;
+    }
+
+    @Override
+    public Vector2 getMouseCursorDimensions() {
+        return Vector2.ZERO;
+    }
+}
@@ -0,0 +1,131 @@
+package bricker.training;
+
+import danogl.components.movement_schemes.movement_directing.KeyboardMovementDirector;
+import danogl.components.movement_schemes.movement_directing.MouseMovementDirector;
+import danogl.gui.UserInputListener;
+import danogl.gui.mouse.MouseButton;
+import danogl.gui.rendering.Camera;
+import danogl.util.Vector2;
+
+import java.awt.event.KeyEvent;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Input for a headless game that is set by a program instead of read from a keyboard.
+ * <p>
+ * The input is a single paddle action, held until it is changed: move left, stay, or move right.
+ * No other key is ever pressed, and there is no mouse.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+public final class ScriptedInputListener implements UserInputListener {
+
+    /**
+     * Action that holds the left arrow key.
+     */
+    public static final int MOVE_LEFT = -1;
+    /**
+     * Action that holds no key.
+     */
+    public static final int STAY = 0;
+    /**
+     * Action that holds the right arrow key.
+     */
+    public static final int MOVE_RIGHT = 1;
+    private static final Set<Integer> LEFT_KEYS = Collections.singleton(KeyEvent.VK_LEFT);
+    private static final Set<Integer> RIGHT_KEYS = Collections.singleton(KeyEvent.VK_RIGHT);
+    private int action = STAY;
+
+    /**
+     * Sets the action held from now on.
+     *
+     * @param action {@link #MOVE_LEFT}, {@link #STAY} or {@link #MOVE_RIGHT}. Negative values move
+     *               left and positive values move right.
+     */
+    public void setAction(int action) {
+        this.action = Integer.signum(action);
+    }
+
+    /**
+     * @return The action currently held.
+     */
+    public int getAction() {
+        return action;
+    }
+
+    @Override
+    public boolean isKeyPressed(int keyCode) {
+        return (keyCode == KeyEvent.VK_LEFT && action == MOVE_LEFT) ||
+                (keyCode == KeyEvent.VK_RIGHT && action == MOVE_RIGHT);
+    }
+
+    @Override
+    public boolean wasKeyPressedThisFrame(int keyCode) {
+        return false;
+    }
+
+    @Override
+    public boolean wasKeyReleasedThisFrame(int keyCode) {
+        return false;
+    }
+
+    @Override
+    public boolean wasMouseButtonClickedThisFrame(MouseButton mouseButton) {
+        return false;
+    }
+
+    @Override
+    public boolean wasMouseButtonPressedThisFrame(MouseButton mouseButton) {
+        return false;
+    }
+
+    @Override
+    public boolean wasMouseButtonReleasedThisFrame(MouseButton mouseButton) {
+        return false;
+    }
+
+    @Override
+    public boolean isMouseButtonPressed(MouseButton mouseButton) {
+        return false;
+    }
+
+    @Override
+    public Vector2 getMouseScreenPos() {
+        return Vector2.ZERO;
+    }
+
+    @Override
+    public double mouseWheelClicksThisFrame() {
+        return 0;
+    }
+
+    @Override
+    public Set<Integer> pressedKeys() {
+        if (action == MOVE_LEFT) {
+            return LEFT_KEYS;
+        }
+        return action == MOVE_RIGHT ? RIGHT_KEYS : Collections.emptySet();
+    }
+
+    @Override
+    public Set<MouseButton> pressedMouseButtons() {
+        return Collections.emptySet();
+    }
+
+    /**
+     * @return Null, as there is no mouse to direct movement with.
+     */
+    @Override
+    public MouseMovementDirector mouseMovementDirector(Camera camera) {
+        return null;
+    }
+
+    /**
+     * @return Null, as movement is directed by the action instead.
+     */
+    @Override
+    public KeyboardMovementDirector keyboardMovementDirector() {
+        return null;
+    }
+}
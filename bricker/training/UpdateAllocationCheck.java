@@ -0,0 +1,178 @@
+package bricker.training;
+
+import bricker.engine.EffectScheduler;
+import bricker.gameobjects.Ball;
+import bricker.gameobjects.Paddle;
+import bricker.gameobjects.Puck;
+import com.sun.management.ThreadMXBean;
+import danogl.GameObject;
+import danogl.collisions.Collision;
+import danogl.gui.Sound;
+import danogl.util.Vector2;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Checks that the per-frame work of the paddle, the ball and a puck allocates nothing, by counting
+ * the bytes the thread allocates over many updates with {@link ThreadMXBean}.
+ * <p>
+ * The paddle is steered left and right so that it moves and hits the edges of the window, and the
+ * ball and puck are bounced off a wall every few updates, so their velocity is reflected as well as
+ * integrated. Each object is warmed up long enough for the JIT to compile and inline danogl's own
+ * update, whose temporaries are only taken off the heap once it has, and then measured over a few
+ * rounds. The check exits with status 1 if any of the objects allocated in any round.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+public final class UpdateAllocationCheck {
+
+    private static final int WARMUP_UPDATES = 1_000_000;
+    private static final int MEASURED_UPDATES = 200_000;
+    private static final int MEASURED_ROUNDS = 5;
+    private static final int UPDATES_PER_TURN = 90;
+    private static final int UPDATES_PER_BOUNCE = 30;
+    private static final float DELTA_TIME = 1 / 60f;
+    private static final Vector2 WINDOW_DIMENSIONS = new Vector2(700, 500);
+    private static final int MIN_DISTANCE_FROM_EDGE = 15;
+    private static final float MOVER_SIZE = 20;
+    private static final float MOVER_SPEED = 250;
+
+    private UpdateAllocationCheck() {
+    }
+
+    /**
+     * Runs the check and prints the bytes allocated per update of every object.
+     *
+     * @param args Ignored.
+     */
+    public static void main(String[] args) {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        threads.setThreadAllocatedMemoryEnabled(true);
+        ScriptedInputListener input = new ScriptedInputListener();
+        Paddle paddle = new Paddle(new Vector2(WINDOW_DIMENSIONS.x() / 2, WINDOW_DIMENSIONS.y() - 30),
+                new Vector2(100, 15), null, input, WINDOW_DIMENSIONS, MIN_DISTANCE_FROM_EDGE);
+        Ball ball = new Ball(Vector2.ZERO, new Vector2(MOVER_SIZE, MOVER_SIZE), null, Sound.EMPTY_SOUND,
+                new EffectScheduler());
+        Puck puck = new Puck(Vector2.ZERO, new Vector2(MOVER_SIZE, MOVER_SIZE), null, Sound.EMPTY_SOUND);
+        WallCollision wall = new WallCollision();
+        Runnable paddleUpdate = new Runnable() {
+            private int updates = 0;
+
+            @Override
+            public void run() {
+                if (updates++ % UPDATES_PER_TURN == 0) {
+                    input.setAction(input.getAction() == ScriptedInputListener.MOVE_LEFT ?
+                            ScriptedInputListener.MOVE_RIGHT : ScriptedInputListener.MOVE_LEFT);
+                }
+                paddle.update(DELTA_TIME);
+            }
+        };
+        System.out.println("object  bytes/update");
+        boolean isClean = check("paddle", paddleUpdate, threads);
+        isClean &= check("ball", new MoverUpdate(ball, wall), threads);
+        isClean &= check("puck", new MoverUpdate(puck, wall), threads);
+        if (!isClean) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Warms up an update, then measures it over a few rounds and prints the bytes it allocated in the
+     * most allocating round.
+     *
+     * @param name    The name of the updated object.
+     * @param update  The update.
+     * @param threads The bean to read the allocated bytes from.
+     * @return True if the update allocated nothing in every round.
+     */
+    private static boolean check(String name, Runnable update, ThreadMXBean threads) {
+        for (int i = 0; i < WARMUP_UPDATES; i++) {
+            update.run();
+        }
+        long threadId = Thread.currentThread().getId();
+        long mostAllocated = 0;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            long before = threads.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < MEASURED_UPDATES; i++) {
+                update.run();
+            }
+            mostAllocated = Math.max(mostAllocated, threads.getThreadAllocatedBytes(threadId) - before);
+        }
+        System.out.printf("%-6s  %12.2f%n", name, (double) mostAllocated / MEASURED_UPDATES);
+        return mostAllocated == 0;
+    }
+
+    /**
+     * The update of a ball or puck, which is sent back and forth across the window by a wall hit
+     * every few updates.
+     */
+    private static final class MoverUpdate implements Runnable {
+        private final GameObject mover;
+        private final WallCollision wall;
+        private int updates = 0;
+
+        /**
+         * Construct a new MoverUpdate instance, and sets the mover moving.
+         *
+         * @param mover The ball or puck.
+         * @param wall  The collision of every bounce.
+         */
+        MoverUpdate(GameObject mover, WallCollision wall) {
+            this.mover = mover;
+            this.wall = wall;
+            mover.transform().setTopLeftCorner(WINDOW_DIMENSIONS.x() / 2, WINDOW_DIMENSIONS.y() / 2);
+            mover.transform().setVelocity(MOVER_SPEED, MOVER_SPEED);
+        }
+
+        @Override
+        public void run() {
+            mover.update(DELTA_TIME);
+            if (++updates % UPDATES_PER_BOUNCE == 0) {
+                wall.faceAgainst(mover.getVelocity());
+                mover.onCollisionEnter(null, wall);
+            }
+        }
+    }
+
+    /**
+     * A collision with a wall whose normal faces against the velocity of the mover that hits it.
+     */
+    private static final class WallCollision implements Collision {
+        private static final Vector2 NORMAL_LEFT = Vector2.LEFT;
+        private static final Vector2 NORMAL_RIGHT = Vector2.RIGHT;
+        private Vector2 normal = NORMAL_LEFT;
+
+        /**
+         * Turns the normal of the wall against a velocity.
+         *
+         * @param velocity The velocity of the mover.
+         */
+        void faceAgainst(Vector2 velocity) {
+            normal = velocity.x() > 0 ? NORMAL_LEFT : NORMAL_RIGHT;
+        }
+
+        @Override
+        public Vector2 getNormal() {
+            return normal;
+        }
+
+        @Override
+        public Vector2 getCollisionPoint() {
+            return Vector2.ZERO;
+        }
+
+        @Override
+        public Vector2 getPenetrationArea() {
+            return Vector2.ZERO;
+        }
+
+        @Override
+        public Vector2 getRelativeVelocity() {
+            return Vector2.ZERO;
+        }
+
+        @Override
+        public void onFrameStart() {
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package bricker.training;
+
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+
+/**
+ * K headless games of Bricker stepped in lockstep, spread across cores.
+ * <p>
+ * The games are split into one contiguous slice per thread, and each slice is always played by the
+ * same thread, so a game stays in the caches of a single core. The calling thread plays the first
+ * slice itself, and the threads meet at a barrier before and after every call. A thread whose slice
+ * fails still arrives at the barrier after the call, and the failure is then thrown on the calling
+ * thread, by that call and by every later one. Observations,
+ * rewards and done flags are written into buffers allocated once, which every call returns or
+ * refreshes: the observation of game i starts at {@code i * BrickerEnvironment.OBSERVATION_SIZE}.
+ * <p>
+ * A game that ends in a step is reset at once, and the observation of that step is the first one
+ * of the new game; its reward and done flag still belong to the game that ended. The episodes of
+ * game i are seeded with {@code seed + i}, {@code seed + i + K}, {@code seed + i + 2K} and so on,
+ * so a run is reproducible from its seed and actions regardless of the number of threads.
+ *
+ * @author Avital Harel & Amir Rosengarten
+ */
+public final class VectorizedBrickerEnvironment implements AutoCloseable {
+
+    private static final int PHASE_RESET = 0;
+    private static final int PHASE_STEP = 1;
+    private final BrickerEnvironment[] environments;
+    private final float[] observations;
+    private final float[] rewards;
+    private final boolean[] dones;
+    private final long[] nextSeeds;
+    private final int[] sliceStarts;
+    private final CyclicBarrier start;
+    private final CyclicBarrier end;
+    private final Thread[] workers;
+    private int phase;
+    private long resetSeed;
+    private int[] actions;
+    private volatile boolean isClosed = false;
+    private volatile Throwable failure;
+
+    /**
+     * Construct a new VectorizedBrickerEnvironment instance. Call {@link #reset} before the first step.
+     *
+     * @param environmentCount The number of games, K.
+     * @param threadCount      The number of threads to play them on, including the calling thread.
+     */
+    public VectorizedBrickerEnvironment(int environmentCount, int threadCount) {
+        if (environmentCount < 1 || threadCount < 1) {
+            throw new IllegalArgumentException("Need at least one game and one thread");
+        }
+        int slices = Math.min(environmentCount, threadCount);
+        this.environments = new BrickerEnvironment[environmentCount];
+        for (int i = 0; i < environmentCount; i++) {
+            environments[i] = new BrickerEnvironment();
+        }
+        this.observations = new float[environmentCount * BrickerEnvironment.OBSERVATION_SIZE];
+        this.rewards = new float[environmentCount];
+        this.dones = new boolean[environmentCount];
+        this.nextSeeds = new long[environmentCount];
+        this.sliceStarts = new int[slices + 1];
+        for (int slice = 0; slice <= slices; slice++) {
+            sliceStarts[slice] = (int) ((long) environmentCount * slice / slices);
+        }
+        this.start = new CyclicBarrier(slices);
+        this.end = new CyclicBarrier(slices);
+        this.workers = new Thread[slices - 1];
+        for (int slice = 1; slice < slices; slice++) {
+            int workerSlice = slice;
+            workers[slice - 1] = new Thread(() -> work(workerSlice), "bricker-environment-" + slice);
+            workers[slice - 1].setDaemon(true);
+            workers[slice - 1].start();
+        }
+    }
+
+    /**
+     * Starts a new episode in every game.
+     *
+     * @param seed The seed of the run.
+     * @return The observations of the games.
+     */
+    public float[] reset(long seed) {
+        resetSeed = seed;
+        runPhase(PHASE_RESET);
+        return observations;
+    }
+
+    /**
+     * Plays one frame in every game.
+     *
+     * @param actions The action of every game, as in {@link BrickerEnvironment#step}.
+     * @return The observations of the games, after which {@link #getRewards} and {@link #getDones}
+     * hold the rewards and done flags of the step.
+     */
+    public float[] step(int[] actions) {
+        if (actions.length != environments.length) {
+            throw new IllegalArgumentException("Expected " + environments.length + " actions");
+        }
+        this.actions = actions;
+        runPhase(PHASE_STEP);
+        return observations;
+    }
+
+    /**
+     * @return The buffer of observations.
+     */
+    public float[] getObservations() {
+        return observations;
+    }
+
+    /**
+     * @return The buffer of the rewards of the last step.
+     */
+    public float[] getRewards() {
+        return rewards;
+    }
+
+    /**
+     * @return The buffer of the done flags of the last step.
+     */
+    public boolean[] getDones() {
+        return dones;
+    }
+
+    /**
+     * @return The number of games, K.
+     */
+    public int getEnvironmentCount() {
+        return environments.length;
+    }
+
+    /**
+     * @param index The index of a game.
+     * @return The game.
+     */
+    public BrickerEnvironment getEnvironment(int index) {
+        return environments[index];
+    }
+
+    /**
+     * Stops the worker threads. The environment may not be used afterwards.
+     */
+    @Override
+    public void close() {
+        isClosed = true;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * Plays a phase on every slice, the first on the calling thread, and waits for all of them.
+     *
+     * @param phase The phase to play.
+     * @throws IllegalStateException If the environment is closed, or a game failed in this call or an
+     *                               earlier one.
+     */
+    private void runPhase(int phase) {
+        if (isClosed) {
+            throw new IllegalStateException("The environment is closed");
+        }
+        checkFailure();
+        this.phase = phase;
+        await(start);
+        try {
+            playSlice(0);
+        } catch (RuntimeException | Error e) {
+            failure = e;
+        } finally {
+            await(end);
+        }
+        checkFailure();
+    }
+
+    /**
+     * @throws IllegalStateException If a game failed.
+     */
+    private void checkFailure() {
+        Throwable cause = failure;
+        if (cause != null) {
+            throw new IllegalStateException("A game failed", cause);
+        }
+    }
+
+    /**
+     * The loop of a worker thread, which plays its slice of every phase until the environment is
+     * closed. A failure of the slice is recorded for the calling thread, and the worker arrives at the
+     * end barrier all the same.
+     *
+     * @param slice The slice of the thread.
+     */
+    private void work(int slice) {
+        try {
+            while (!isClosed) {
+                start.await();
+                try {
+                    playSlice(slice);
+                } catch (RuntimeException | Error e) {
+                    failure = e;
+                } finally {
+                    end.await();
+                }
+            }
+        } catch (InterruptedException | BrokenBarrierException e) {
+            // Closed.
+        }
+    }
+
+    /**
+     * Plays the current phase on the games of a slice.
+     *
+     * @param slice The slice.
+     */
+    private void playSlice(int slice) {
+        int size = BrickerEnvironment.OBSERVATION_SIZE;
+        for (int i = sliceStarts[slice]; i < sliceStarts[slice + 1]; i++) {
+            BrickerEnvironment environment = environments[i];
+            if (phase == PHASE_RESET) {
+                environment.reset(resetSeed + i, observations, i * size);
+                nextSeeds[i] = resetSeed + i + environments.length;
+                rewards[i] = 0;
+                dones[i] = false;
+            } else {
+                rewards[i] = environment.step(actions[i], observations, i * size);
+                dones[i] = environment.isDone();
+                if (dones[i]) {
+                    environment.reset(nextSeeds[i], observations, i * size);
+                    nextSeeds[i] += environments.length;
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits at a barrier on the calling thread.
+     *
+     * @param barrier The barrier.
+     */
+    private void await(CyclicBarrier barrier) {
+        try {
+            barrier.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while stepping the games", e);
+        } catch (BrokenBarrierException e) {
+            throw new IllegalStateException("A game thread stopped", e);
+        }
+    }
+}